@@ -33,6 +33,9 @@ import java.util.zip.Deflater;
 
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.crawler.data.Cache;
+import net.yacy.kelondro.blob.DictionaryCodec;
+import net.yacy.kelondro.blob.GzipCodec;
+import net.yacy.kelondro.blob.LZ4Codec;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
 import net.yacy.server.serverObjects;
@@ -70,6 +73,11 @@ public class ConfigHTCache_p {
 					post.getInt("compressionLevel", SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL_DEFAULT)));
 			env.setConfig(SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL, newCompressionLevel);
 			Cache.setCompressionLevel(newCompressionLevel);
+
+			/* Compression codec */
+			final String newCompressionCodec = post.get("compressionCodec", SwitchboardConstants.HTCACHE_COMPRESSION_CODEC_DEFAULT);
+			env.setConfig(SwitchboardConstants.HTCACHE_COMPRESSION_CODEC, newCompressionCodec);
+			Cache.setCompressionCodec(newCompressionCodec);
 			
             /* Synchronization lock timeout */
 			final long newLockTimeout = Math.max(10, Math.min(60000,
@@ -111,6 +119,20 @@ public class ConfigHTCache_p {
         	levelsCount++;
         }
         prop.put("compressionLevels", levelsCount);
+
+        /* Compression codecs */
+        final String configuredCompressionCodec = env.getConfig(SwitchboardConstants.HTCACHE_COMPRESSION_CODEC,
+                SwitchboardConstants.HTCACHE_COMPRESSION_CODEC_DEFAULT);
+        final String[][] codecs = {
+                {GzipCodec.NAME, "gzip - Best compression"},
+                {LZ4Codec.NAME, "lz4 - Best speed"},
+                {DictionaryCodec.NAME, "deflate with an HTML dictionary - Small pages"}};
+        for (int i = 0; i < codecs.length; i++) {
+            prop.put("compressionCodecs_" + i + "_value", codecs[i][0]);
+            prop.put("compressionCodecs_" + i + "_name", codecs[i][1]);
+            prop.put("compressionCodecs_" + i + "_selected", codecs[i][0].equals(configuredCompressionCodec) ? "1" : "0");
+        }
+        prop.put("compressionCodecs", codecs.length);
         
 		prop.put("lockTimeout", env.getConfigLong(SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT,
 				SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT));
@@ -240,6 +240,7 @@ public class HostBrowser {
                 ConcurrentLog.info ("HostBrowser:", "delete documents with failtype_s = fail");
                 fulltext.getDefaultConnector().deleteByQuery(CollectionSchema.failtype_s.getSolrFieldName() + ":\"" + FailType.excl.name() + "\"" );
                 ConcurrentLog.info ("HostBrowser:", "delete documents with failtype_s = excl");
+                fulltext.invalidateKnownURLs();
                 prop.putNum("ucount", fulltext.collectionSize());
                 return prop;
             } catch (final IOException ex) {
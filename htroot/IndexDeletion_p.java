@@ -177,6 +177,7 @@ public class IndexDeletion_p {
                     try {
                         defaultConnector.deleteByQuery(regexquery);
                         defaultConnector.commit(false);
+                        sb.index.fulltext().invalidateKnownURLs();
                         sb.tables.recordAPICall(post, "IndexDeletion_p.html", WorkTables.TABLE_API_TYPE_DELETION, "deletion, regex match = " + urldelete);
                     } catch (final IOException e) {
                     }
@@ -206,6 +207,7 @@ public class IndexDeletion_p {
                 try {
                     defaultConnector.deleteByQuery(collection1Query);
                     defaultConnector.commit(false);
+                    sb.index.fulltext().invalidateKnownURLs();
                     if (webgraphConnector != null) webgraphConnector.deleteByQuery(webgraphQuery);
                     sb.tables.recordAPICall(post, "IndexDeletion_p.html", WorkTables.TABLE_API_TYPE_DELETION, "deletion, docs older than " + timedelete_number + " " + timedelete_unit);
                 } catch (final IOException e) {
@@ -232,6 +234,7 @@ public class IndexDeletion_p {
                 try {
                     defaultConnector.deleteByQuery(query);
                     defaultConnector.commit(false);
+                    sb.index.fulltext().invalidateKnownURLs();
                     sb.tables.recordAPICall(post, "IndexDeletion_p.html", WorkTables.TABLE_API_TYPE_DELETION, "deletion, collection " + collectiondelete);
                 } catch (final IOException e) {
                 }
@@ -258,6 +261,7 @@ public class IndexDeletion_p {
                     ConcurrentLog.info("IndexDeletion", "delete by query \"" + querydelete + "\", size before deletion = " + connector.getSize());
                     connector.deleteByQuery(querydelete);
                     connector.commit(false);
+                    if (connector == defaultConnector) sb.index.fulltext().invalidateKnownURLs();
                     ConcurrentLog.info("IndexDeletion", "delete by query \"" + querydelete + "\", size after commit = " + connector.getSize());
                     sb.tables.recordAPICall(post, "IndexDeletion_p.html", WorkTables.TABLE_API_TYPE_DELETION, "deletion, solr query, q = " + querydelete);
                 } catch (final IOException e) {
@@ -18,6 +18,7 @@
 
 import java.io.File;
 import java.io.FileNotFoundException;
+import java.io.FilenameFilter;
 import java.io.IOException;
 import java.net.MalformedURLException;
 import net.yacy.cora.document.id.MultiProtocolURL;
@@ -46,6 +47,7 @@ public class IndexImportWarc_p {
             prop.put("import_runningMinutes", (WarcImporter.job.runningTime() / 60) % 60);
             prop.put("import_remainingHours", (WarcImporter.job.remainingTime() / 60) / 60);
             prop.put("import_remainingMinutes", (WarcImporter.job.remainingTime() / 60) % 60);
+            prop.put("import_status", WarcImporter.job.status());
             if (post != null && post.containsKey("abort")) {
                 WarcImporter.job.quit();
             }
@@ -58,7 +60,15 @@ public class IndexImportWarc_p {
                         final File sourcefile = new File(filename);
                         if (sourcefile.exists()) {
                             try {
-                                WarcImporter wi = new WarcImporter(sourcefile);
+                                // all archives in a directory are imported concurrently
+                                final File[] archives = sourcefile.isDirectory() ? sourcefile.listFiles(new FilenameFilter() {
+                                    @Override
+                                    public boolean accept(final File dir, final String name) {
+                                        return name.endsWith(".warc") || name.endsWith(".warc.gz");
+                                    }
+                                }) : new File[]{sourcefile};
+                                if (archives == null || archives.length == 0) throw new FileNotFoundException("no warc files in " + filename);
+                                WarcImporter wi = new WarcImporter(archives);
                                 wi.start();
                                 prop.put("import_thread", "started");
                             } catch (FileNotFoundException ex) {
@@ -94,6 +104,7 @@ public class IndexImportWarc_p {
                     prop.put("import_runningMinutes", 0);
                     prop.put("import_remainingHours", 0);
                     prop.put("import_remainingMinutes", 0);
+                    prop.put("import_status", "");
                 }
             }
         }
@@ -239,6 +239,11 @@ public class PerformanceMemory_p {
         prop.putNum("searchevent.miss", SearchEventCache.cacheMiss);
         prop.putNum("searchevent.insert", SearchEventCache.cacheInsert);
         prop.putNum("searchevent.delete", SearchEventCache.cacheDelete);
+        prop.putNum("robotstxt.size", sb.robots.cacheSize());
+        prop.putNum("robotstxt.hit", sb.robots.cacheHit());
+        prop.putNum("robotstxt.miss", sb.robots.cacheMiss());
+        prop.putNum("robotstxt.insert", sb.robots.cacheInsert());
+        prop.putNum("robotstxt.expired", sb.robots.cacheExpired());
         // return rewrite values for templates
         return prop;
     }
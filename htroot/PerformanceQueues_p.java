@@ -25,26 +25,32 @@
 //if the shell's current path is HTROOT
 
 import java.io.File;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.Map;
 
 import org.apache.http.pool.PoolStats;
 
+import net.yacy.cora.date.GenericFormatter;
 import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.protocol.ConnectionInfo;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.protocol.http.HTTPClient;
 import net.yacy.data.TransactionManager;
 import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.rwi.IODispatcher;
 import net.yacy.kelondro.rwi.IndexCell;
 import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.Formatter;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.kelondro.util.OS;
 import net.yacy.kelondro.workflow.BusyThread;
+import net.yacy.kelondro.workflow.WorkflowController;
+import net.yacy.kelondro.workflow.WorkflowProcessor;
 import net.yacy.search.Switchboard;
 import net.yacy.search.SwitchboardConstants;
 import net.yacy.search.index.Segment;
+import net.yacy.search.query.SearchExecutor;
 import net.yacy.server.serverObjects;
 import net.yacy.server.serverSwitch;
 
@@ -252,6 +258,29 @@ public class PerformanceQueues_p {
         }
         prop.put("speed", c);
 
+        // indexing workflow tuning
+        if (post != null && post.containsKey("workflowTuningSubmit")) {
+            sb.setConfig(SwitchboardConstants.WORKFLOW_TUNING_ENABLED, post.getBoolean("workflowTuning"));
+            if (!sb.getConfigBool(SwitchboardConstants.WORKFLOW_TUNING_ENABLED, true)) sb.indexingController.reset();
+        }
+        prop.put("workflowTuning", sb.getConfigBool(SwitchboardConstants.WORKFLOW_TUNING_ENABLED, true) ? "1" : "0");
+        prop.put("workflowBudget", sb.indexingController.getBudget());
+        c = 0;
+        for (final WorkflowController.Stage stage: sb.indexingController.stages()) {
+            final WorkflowProcessor<?> processor = stage.getProcessor();
+            prop.put("stage_" + c + "_name", processor.getName());
+            prop.put("stage_" + c + "_concurrency", processor.getMaxConcurrency());
+            prop.put("stage_" + c + "_executors", processor.getExecutors());
+            prop.put("stage_" + c + "_minConcurrency", stage.getMinConcurrency());
+            prop.put("stage_" + c + "_maxConcurrency", stage.getMaxConcurrency());
+            prop.put("stage_" + c + "_queuesize", processor.getQueueSize());
+            prop.put("stage_" + c + "_queuesizemax", processor.getMaxQueueSize());
+            prop.putHTML("stage_" + c + "_decision", stage.getDecision());
+            prop.put("stage_" + c + "_time", stage.getDecisionTime() == 0 ? "-" : GenericFormatter.SIMPLE_FORMATTER.format(new Date(stage.getDecisionTime())));
+            c++;
+        }
+        prop.put("stage", c);
+
         if ((post != null) && (post.containsKey("cacheSizeSubmit"))) {
             final int wordCacheMaxCount = post.getInt("wordCacheMaxCount", 20000);
             sb.setConfig(SwitchboardConstants.WORDCACHE_MAX_COUNT, Integer.toString(wordCacheMaxCount));
@@ -310,6 +339,14 @@ public class PerformanceQueues_p {
             // storing the new values into configfile
             sb.setConfig("httpdMaxBusySessions",maxBusy);
 
+            /*
+             * configuring the search pool
+             */
+            maxBusy = post.getInt("Search Pool_maxActive", SwitchboardConstants.SEARCH_EXECUTOR_THREADS_DEFAULT);
+            SearchExecutor.setMaxThreads(maxBusy);
+
+            // storing the new values into configfile
+            sb.setConfig(SwitchboardConstants.SEARCH_EXECUTOR_THREADS, maxBusy);
         }
         
 		if ((post != null) && (post.containsKey("connectionPoolConfig"))) {
@@ -344,6 +381,18 @@ public class PerformanceQueues_p {
         prop.putNum("maxAgeOfCache", rwi == null ? 0 : rwi.getBufferMaxAge() / 1000 / 60); // minutes
         prop.putNum("minAgeOfCache", rwi == null ? 0 : rwi.getBufferMinAge() / 1000 / 60); // minutes
         prop.putNum("maxWaitingWordFlush", sb.getConfigLong("maxWaitingWordFlush", 180));
+
+        // index merge pipeline
+        final IODispatcher merger = indexSegment.merger();
+        prop.putNum("dumpQueueSize", merger == null ? 0 : merger.dumpQueueSize());
+        prop.putNum("mergeQueueSize", merger == null ? 0 : merger.mergeQueueSize());
+        prop.putNum("runningMerges", merger == null ? 0 : merger.runningMerges());
+        prop.putNum("mergeThreads", merger == null ? 0 : merger.mergeThreads());
+        prop.putNum("mergeBandwidth", merger == null ? 0 : merger.mergeBandwidth() / 1024L);
+        prop.putNum("maxMergeBandwidth", merger == null ? 0 : merger.maxMergeBandwidth() / 1024L);
+        prop.putNum("mergeCount", merger == null ? 0 : merger.mergeCount());
+        prop.putNum("mergedMBytes", merger == null ? 0 : merger.mergedBytes() / 1024L / 1024L);
+        prop.putNum("mergeThrottleTime", merger == null ? 0 : merger.throttleTime() / 1000L);
         prop.put("wordCacheMaxCount", sb.getConfigLong(SwitchboardConstants.WORDCACHE_MAX_COUNT, 20000));
         prop.put("crawlPauseProxy", sb.getConfigLong(SwitchboardConstants.PROXY_ONLINE_CAUTION_DELAY, 30000));
         prop.put("crawlPauseLocalsearch", sb.getConfigLong(SwitchboardConstants.LOCALSEACH_ONLINE_CAUTION_DELAY, 30000));
@@ -365,7 +414,20 @@ public class PerformanceQueues_p {
         prop.put("pool_2_maxActive", ConnectionInfo.getServerMaxcount());
         prop.put("pool_2_numActive", ConnectionInfo.getServerCount());
 
-        prop.put("pool", "3");
+        prop.put("pool_3_name", "Search Pool");
+        prop.put("pool_3_maxActive", sb.getConfigInt(SwitchboardConstants.SEARCH_EXECUTOR_THREADS, SwitchboardConstants.SEARCH_EXECUTOR_THREADS_DEFAULT));
+        prop.put("pool_3_numActive", SearchExecutor.activeThreads());
+
+        prop.put("pool", "4");
+
+        // search task queues
+        prop.putNum("searchTasksQueued", SearchExecutor.queueSize());
+        prop.putNum("searchTasksBudgetWaiting", SearchExecutor.budgetWaiting());
+        prop.putNum("searchTasksOwners", SearchExecutor.owners());
+        prop.putNum("searchTasksQueryBudget", SearchExecutor.maxTasksPerQuery);
+        prop.putNum("searchTasksSubmitted", SearchExecutor.submittedTasks());
+        prop.putNum("searchTasksCancelled", SearchExecutor.cancelledTasks());
+        prop.putNum("searchTasksHelped", SearchExecutor.helpedTasks());
         
         /* Connection pools settings */
 		prop.put(SwitchboardConstants.HTTP_OUTGOING_POOL_GENERAL_MAX_TOTAL,
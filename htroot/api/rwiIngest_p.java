@@ -0,0 +1,59 @@
+// rwiIngest_p.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+import java.util.Date;
+
+import net.yacy.cora.date.GenericFormatter;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.peers.RWIIngest;
+import net.yacy.server.serverObjects;
+import net.yacy.server.serverSwitch;
+
+/**
+ * the statistics of the RWI entries which were received from other peers
+ */
+public class rwiIngest_p {
+
+    public static serverObjects respond(@SuppressWarnings("unused") final RequestHeader header, @SuppressWarnings("unused") final serverObjects post, @SuppressWarnings("unused") final serverSwitch env) {
+
+        final serverObjects prop = new serverObjects();
+        prop.put("active", RWIIngest.active());
+        int c = 0;
+        for (final RWIIngest.Peer peer: RWIIngest.peers()) {
+            prop.putXML("peers_" + c + "_hash", peer.hash());
+            prop.putXML("peers_" + c + "_name", peer.name() == null ? "" : peer.name());
+            prop.putXML("peers_" + c + "_lastaccess", GenericFormatter.SHORT_SECOND_FORMATTER.format(new Date(peer.lastAccess())));
+            prop.put("peers_" + c + "_transfers", peer.transfers());
+            prop.put("peers_" + c + "_received", peer.received());
+            prop.put("peers_" + c + "_blocked", peer.blocked());
+            prop.put("peers_" + c + "_time", peer.time());
+            prop.put("peers_" + c + "_rate", peer.rate());
+            prop.put("peers_" + c + "_perhour", peer.perHour());
+            c++;
+        }
+        prop.put("peers", c);
+
+        // return rewrite properties
+        return prop;
+    }
+
+}
@@ -31,12 +31,14 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Set;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.feed.RSSMessage;
 import net.yacy.cora.federate.yacy.Distribution;
+import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.storage.HandleSet;
@@ -44,13 +46,17 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.Memory;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
 import net.yacy.kelondro.data.word.WordReferenceRow;
 import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.MemoryControl;
 import net.yacy.peers.EventChannel;
 import net.yacy.peers.Network;
 import net.yacy.peers.Protocol;
+import net.yacy.peers.RWIIngest;
+import net.yacy.peers.RWITransferCodec;
 import net.yacy.peers.Seed;
 import net.yacy.repository.Blacklist.BlacklistType;
 import net.yacy.search.Switchboard;
@@ -73,6 +79,8 @@ public final class transferRWI {
         final serverObjects prop = new serverObjects();
         final String contentType = header.getContentType();
         prop.put("unknownURL", "");
+        prop.put("unknownURLBits", "");
+        prop.put("formats", RWITransferCodec.FORMAT); // tell the sender that we can read the binary format
         prop.put("pause", 60000);
         String result = "";
         if ((post == null) || (env == null)) {
@@ -96,7 +104,9 @@ public final class transferRWI {
             prop.put("result", result);
             return prop;
         }
-        if (!post.containsKey("indexes")) {
+        // the binary format is sent as file; the servlet hands it over base64 encoded
+        final boolean binary = RWITransferCodec.FORMAT.equals(post.get("format", "")) && post.containsKey("rwi$file");
+        if (!binary && !post.containsKey("indexes")) {
             result = "missing indexes";
             prop.put("result", result);
             return prop;
@@ -115,7 +125,7 @@ public final class transferRWI {
 //      final String key      = (String) post.get("key", "");             // transmission key
         final int wordc       = post.getInt("wordc", 0);                  // number of different words
         final int entryc      = post.getInt("entryc", 0);                 // number of entries in indexes
-        byte[] indexes        = post.get("indexes", "").getBytes();       // the indexes, as list of word entries
+        byte[] indexes        = binary ? Base64Order.standardCoder.decode(post.get("rwi$file", "")) : post.get("indexes", "").getBytes(); // the indexes, as list of word entries or in binary format
         boolean granted       = sb.getConfigBool(SwitchboardConstants.INDEX_RECEIVE_ALLOW, false);
         final boolean blockBlacklist = sb.getConfigBool(SwitchboardConstants.INDEX_RECEIVE_BLOCK_BLACKLIST, false);
         final long cachelimit = sb.getConfigLong(SwitchboardConstants.WORDCACHE_MAX_COUNT, 100000);
@@ -126,6 +136,7 @@ public final class transferRWI {
         int pause = 0;
         result = "ok";
         final StringBuilder unknownURLs = new StringBuilder(6000);
+        String unknownURLBits = "";
 
         double load = Memory.load();
         float maxload = sb.getConfigFloat(SwitchboardConstants.INDEX_DIST_LOADPREREQ, 2.0f);
@@ -164,74 +175,84 @@ public final class transferRWI {
             sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ". Bad version.");
             result = "not_granted";
             pause = 1800000;
-        } else {
+        } else if (!RWIIngest.enter(sb.getConfigInt(SwitchboardConstants.INDEX_RECEIVE_CONCURRENCY, SwitchboardConstants.INDEX_RECEIVE_CONCURRENCY_DEFAULT), 10000)) {
+            // other transfers are ingested now and none of them finished within 10 seconds
+            sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ". We are busy with " + RWIIngest.active() + " other transfers.");
+            result = "busy";
+            pause = 10000;
+        } else try {
             // we want and can receive indexes
             // log value status (currently added to find outOfMemory error
             if (sb.getLog().isFine()) sb.getLog().fine("Processing " + indexes.length + " bytes / " + wordc + " words / " + entryc + " entries from " + otherPeerName);
             final long startProcess = System.currentTimeMillis();
 
-            // decode request
-            //System.out.println("STRINGS " + UTF8.String(indexes));
-            final Iterator<String> it = FileUtils.strings(indexes);
-
-            // free memory
-            indexes = null;
-
-            // now parse the Strings in the value-vector and write index entries
-            String estring;
-            int p;
-            String wordHash;
-            byte[] urlHash;
-            WordReferenceRow iEntry;
             final HandleSet unknownURL = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, 0);
-            final ArrayList<String> wordhashes = new ArrayList<String>();
+            final RWIIngest.Batch batch = new RWIIngest.Batch();
+            String firstHash = null, lastHash = null;
             int received = 0;
             int blocked = 0;
             int count = 0;
             Set<String> testids = new HashSet<String>();
-            while (it.hasNext()) {
-                estring = it.next();
-                count++;
-                if (count > 1000) break; // protection against flooding
-
-                // check if RWI entry is well-formed
-                p = estring.indexOf('{',0);
-                if (p < 0 || estring.indexOf("x=",0) < 0 || !(estring.indexOf("[B@",0) < 0)) {
-                    blocked++;
-                    continue;
+            List<byte[]> urlHashes = null; // the url hashes of a binary transfer
+            if (binary) {
+                // decode request
+                List<ReferenceContainer<WordReference>> containers;
+                try {
+                    containers = RWITransferCodec.decode(indexes);
+                } catch (final IOException e) {
+                    sb.getLog().info("Rejecting RWIs from peer " + otherPeerName + ", binary format not readable: " + e.getMessage());
+                    containers = new ArrayList<ReferenceContainer<WordReference>>();
+                    result = "missing indexes"; // the sender uses the property form now
                 }
-                wordHash = estring.substring(0, p);
-                wordhashes.add(wordHash);
-                iEntry = new WordReferenceRow(estring.substring(p));
-                urlHash = iEntry.urlhash();
 
-                // block blacklisted entries
-                if ((blockBlacklist) && (Switchboard.urlBlacklist.hashInBlacklistedCache(BlacklistType.DHT, urlHash))) {
-                    Network.log.fine("transferRWI: blocked blacklisted URLHash '" + ASCII.String(urlHash) + "' from peer " + otherPeerName);
-                    blocked++;
-                    continue;
-                }
+                // free memory
+                indexes = null;
 
-                // check if the entry is in our network domain
-                final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomainHash(urlHash);
-                if (urlRejectReason != null) {
-                    Network.log.warn("transferRWI: blocked URL hash '" + ASCII.String(urlHash) + "' (" + urlRejectReason + ") from peer " + otherPeerName + "; peer is suspected to be a spam-peer (or something is wrong)");
-                    //if (yacyCore.log.isFine()) yacyCore.log.logFine("transferRWI: blocked URL hash '" + urlHash + "' (" + urlRejectReason + ") from peer " + otherPeerName);
-                    blocked++;
-                    continue;
+                urlHashes = RWITransferCodec.urlHashes(containers);
+                for (final ReferenceContainer<WordReference> container: containers) {
+                    final String wordHash = ASCII.String(container.getTermHash());
+                    final Iterator<WordReference> i = container.entries();
+                    while (i.hasNext() && count < 1000) { // protection against flooding
+                        count++;
+                        if (firstHash == null) firstHash = wordHash;
+                        lastHash = wordHash;
+                        if (receive(sb, batch, container.getTermHash(), i.next(), blockBlacklist, otherPeerName, testids)) received++; else blocked++;
+                    }
                 }
+            } else {
+                // decode request
+                //System.out.println("STRINGS " + UTF8.String(indexes));
+                final Iterator<String> it = FileUtils.strings(indexes);
 
-                // learn entry
-                try {
-                    sb.index.storeRWI(ASCII.getBytes(wordHash), iEntry);
-                } catch (final Exception e) {
-                    ConcurrentLog.logException(e);
-                }
+                // free memory
+                indexes = null;
+
+                // now parse the Strings in the value-vector and collect the index entries;
+                // the entries are parsed in place, without substrings of the lines
+                String estring;
+                int p;
+                while (it.hasNext()) {
+                    estring = it.next();
+                    count++;
+                    if (count > 1000) break; // protection against flooding
 
-                // check if we need to ask for the corresponding URL
-                testids.add(ASCII.String(urlHash));
-                received++;
+                    // check if RWI entry is well-formed
+                    p = estring.indexOf('{',0);
+                    if (p < 0 || estring.indexOf("x=",0) < 0 || !(estring.indexOf("[B@",0) < 0)) {
+                        blocked++;
+                        continue;
+                    }
+                    if (firstHash == null) firstHash = estring.substring(0, p);
+                    lastHash = estring; // the word hash is cut out after the loop
+                    if (receive(sb, batch, ASCII.getBytes(estring, 0, p), new WordReferenceRow(estring, p, estring.length()), blockBlacklist, otherPeerName, testids)) received++; else blocked++;
+                }
+                if (lastHash != null) lastHash = lastHash.substring(0, lastHash.indexOf('{'));
             }
+
+            // store the entries of each term with one call
+            batch.store(sb.index.termIndex());
+            final long processTime = System.currentTimeMillis() - startProcess;
+            final RWIIngest.Peer ingest = RWIIngest.count(iam, otherPeer.getName(), received, blocked, processTime);
             for (String id: testids) {
                 try {
                     try {
@@ -255,21 +276,25 @@ public final class transferRWI {
                 unknownURLs.append(UTF8.String(bit.next())).append(',');
             }
             if (unknownURLs.length() > 0) { unknownURLs.setLength(unknownURLs.length() - 1); }
-            if (wordhashes.isEmpty() || received == 0) {
-                sb.getLog().info("Received 0 RWIs from " + otherPeerName + ", processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, requesting " + unknownURL.size() + " URLs, blocked " + blocked + " RWIs");
+            if (urlHashes != null) {
+                // a binary transfer gets the unknown urls as bit field
+                unknownURLBits = RWITransferCodec.encodeSelection(urlHashes, unknownURL);
+                unknownURLs.setLength(0);
+            }
+            if (firstHash == null || received == 0) {
+                sb.getLog().info("Received 0 RWIs from " + otherPeerName + ", processed in " + processTime + " milliseconds, requesting " + unknownURL.size() + " URLs, blocked " + blocked + " RWIs");
             } else {
-                final String firstHash = wordhashes.get(0);
-                final String lastHash = wordhashes.get(wordhashes.size() - 1);
                 final long avdist = (Distribution.horizontalDHTDistance(firstHash.getBytes(), ASCII.getBytes(sb.peers.mySeed().hash)) + Distribution.horizontalDHTDistance(lastHash.getBytes(), ASCII.getBytes(sb.peers.mySeed().hash))) / 2;
-                sb.getLog().info("Received " + received + " RWIs, " + wordc + " Words [" + firstHash + " .. " + lastHash + "], processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, " + avdist + ", blocked " + blocked + ", requesting " + unknownURL.size() + "/" + received+ " URLs from " + otherPeerName);
-                EventChannel.channels(EventChannel.DHTRECEIVE).addMessage(new RSSMessage("Received " + received + " RWIs, " + wordc + " Words [" + firstHash + " .. " + lastHash + "], processed in " + (System.currentTimeMillis() - startProcess) + " milliseconds, " + avdist + ", blocked " + blocked + ", requesting " + unknownURL.size() + "/" + received + " URLs from " + otherPeerName, "", otherPeer.hash));
+                sb.getLog().info("Received " + received + " RWIs, " + wordc + " Words [" + firstHash + " .. " + lastHash + "], processed in " + processTime + " milliseconds, " + avdist + ", blocked " + blocked + ", requesting " + unknownURL.size() + "/" + received+ " URLs from " + otherPeerName + ", " + batch.terms() + " terms, " + ingest.rate() + " RWIs/s");
+                EventChannel.channels(EventChannel.DHTRECEIVE).addMessage(new RSSMessage("Received " + received + " RWIs, " + wordc + " Words [" + firstHash + " .. " + lastHash + "], processed in " + processTime + " milliseconds, " + avdist + ", blocked " + blocked + ", requesting " + unknownURL.size() + "/" + received + " URLs from " + otherPeerName, "", otherPeer.hash));
             }
-            result = "ok";
-
             pause = (int) (sb.index.RWIBufferCount() * 20000 / sb.getConfigLong(SwitchboardConstants.WORDCACHE_MAX_COUNT, 100000)); // estimation of necessary pause time
+        } finally {
+            RWIIngest.leave();
         }
 
         prop.put("unknownURL", unknownURLs.toString());
+        prop.put("unknownURLBits", unknownURLBits);
         prop.put("result", result);
         prop.put("pause", pause);
 
@@ -277,6 +302,46 @@ public final class transferRWI {
         return prop;
     }
 
+    /**
+     * add a received RWI entry to the batch unless it is blocked
+     * @param sb
+     * @param batch the entries which are stored at the end of the transfer
+     * @param wordHash the term of the entry
+     * @param iEntry the entry
+     * @param blockBlacklist if true, entries of blacklisted urls are blocked
+     * @param otherPeerName the name of the sender for log messages
+     * @param testids the url hashes of the stored entries are added here
+     * @return true if the entry was stored, false if it was blocked
+     */
+    private static boolean receive(final Switchboard sb, final RWIIngest.Batch batch, final byte[] wordHash, final WordReference iEntry, final boolean blockBlacklist, final String otherPeerName, final Set<String> testids) {
+        final byte[] urlHash = iEntry.urlhash();
+
+        // block blacklisted entries
+        if ((blockBlacklist) && (Switchboard.urlBlacklist.hashInBlacklistedCache(BlacklistType.DHT, urlHash))) {
+            Network.log.fine("transferRWI: blocked blacklisted URLHash '" + ASCII.String(urlHash) + "' from peer " + otherPeerName);
+            return false;
+        }
+
+        // check if the entry is in our network domain
+        final String urlRejectReason = sb.crawlStacker.urlInAcceptedDomainHash(urlHash);
+        if (urlRejectReason != null) {
+            Network.log.warn("transferRWI: blocked URL hash '" + ASCII.String(urlHash) + "' (" + urlRejectReason + ") from peer " + otherPeerName + "; peer is suspected to be a spam-peer (or something is wrong)");
+            //if (yacyCore.log.isFine()) yacyCore.log.logFine("transferRWI: blocked URL hash '" + urlHash + "' (" + urlRejectReason + ") from peer " + otherPeerName);
+            return false;
+        }
+
+        // learn entry
+        try {
+            batch.add(wordHash, iEntry);
+        } catch (final Exception e) {
+            ConcurrentLog.logException(e);
+        }
+
+        // check if we need to ask for the corresponding URL
+        testids.add(ASCII.String(urlHash));
+        return true;
+    }
+
     /**
      * @param requestIdentifier
      * @param msg
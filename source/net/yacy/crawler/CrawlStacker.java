@@ -43,7 +43,6 @@ import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.solr.FailCategory;
-import net.yacy.cora.federate.solr.connector.SolrConnector.LoadTimeURL;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.ftp.FTPClient;
@@ -425,9 +424,10 @@ public final class CrawlStacker implements WorkflowTask<Request>{
             return CRAWL_REJECT_REASON_DOUBLE_IN_PREFIX + ": " + dbocc.name();
         }
         String urlhash = ASCII.String(url.hash());
-        LoadTimeURL oldEntry = null;
+        long oldLoadTime = -1l;
         try {
-            oldEntry = this.indexSegment.fulltext().getDefaultConnector().getLoadTimeURL(urlhash);
+            // answered by the table of known urls without a Solr query if only the embedded index is used
+            oldLoadTime = this.indexSegment.fulltext().getLoadTime(urlhash);
         } catch (IOException e) {
             // if an exception here occurs then there is the danger that urls which had been in the crawler are overwritten a second time
             // to prevent that, we reject urls in these events
@@ -452,7 +452,7 @@ public final class CrawlStacker implements WorkflowTask<Request>{
             */
         }
         
-        final Long oldDate = oldEntry == null ? null : oldEntry.date;
+        final Long oldDate = oldLoadTime < 0 ? null : oldLoadTime;
         if (oldDate == null) {
             return null; // no evidence that we know that url
         }
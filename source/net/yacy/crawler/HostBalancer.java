@@ -26,8 +26,6 @@ import java.lang.reflect.Array;
 import java.net.MalformedURLException;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.ConcurrentModificationException;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -48,6 +46,7 @@ import net.yacy.crawler.data.Latency;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.robots.RobotsTxt;
 import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.index.OffHeapHandleMap;
 import net.yacy.kelondro.index.RowHandleMap;
 import net.yacy.kelondro.index.RowHandleSet;
 import net.yacy.kelondro.util.FileUtils;
@@ -60,16 +59,29 @@ import net.yacy.kelondro.util.FileUtils;
  * That means that all links from a given host must be returned from the lowest crawldepth only.
  * The crawldepth is interpreted as clickdepth and the crawler is producing that semantic using a
  * correct crawl ordering.
+ * Hosts are selected by a {@link HostScheduler} in the order of their next allowed access time; the
+ * clickdepth order within a host is kept by the {@link HostQueue}.
  */
 public class HostBalancer implements Balancer {
 
     private final static ConcurrentLog log = new ConcurrentLog("HostBalancer");
-    public final static HandleMap depthCache = new RowHandleMap(Word.commonHashLength, Word.commonHashOrder, 2, 8 * 1024 * 1024, "HostBalancer.DepthCache");
+    public static HandleMap depthCache = new RowHandleMap(Word.commonHashLength, Word.commonHashOrder, 2, 8 * 1024 * 1024, "HostBalancer.DepthCache");
+
+    /**
+     * replace the depth cache with a map in direct memory outside of the java heap.
+     * This must be called before any crawl is started because the entries of the current cache are dropped.
+     */
+    public static synchronized void useOffHeapDepthCache() {
+        if (depthCache instanceof OffHeapHandleMap) return;
+        final HandleMap old = depthCache;
+        depthCache = new OffHeapHandleMap(Word.commonHashLength, Word.commonHashOrder, 2, 1024 * 1024);
+        old.clear();
+    }
     
     private final File hostsPath;
     private final boolean exceed134217727;
     private final Map<String, HostQueue> queues;
-    private final Set<String> roundRobinHostHashes;
+    private final HostScheduler scheduler;
     private final int onDemandLimit;
 
     /**
@@ -104,7 +116,7 @@ public class HostBalancer implements Balancer {
         // create a stack for newly entered entries
         if (!(hostsPath.exists())) hostsPath.mkdirs(); // make the path
         this.queues = new ConcurrentHashMap<String, HostQueue>();
-        this.roundRobinHostHashes = new HashSet<String>();
+        this.scheduler = new HostScheduler();
         init(asyncInit); // return without wait but starts a thread to fill the queues
     }
 
@@ -142,6 +154,7 @@ public class HostBalancer implements Balancer {
                     FileUtils.deletedelete(queuePath);
                 } else {
                     queues.put(queue.getHostHash(), queue);
+                    schedule(queue.getHostHash(), queue);
                 }
             } catch (MalformedURLException | RuntimeException e) {
                 log.warn("delete queue due to init error for " + hostsPath.getName() + " host=" + hoststr + " " + e.getLocalizedMessage());
@@ -158,6 +171,7 @@ public class HostBalancer implements Balancer {
         }
         for (HostQueue queue: this.queues.values()) queue.close();
         this.queues.clear();
+        this.scheduler.clear();
     }
 
     @Override
@@ -167,6 +181,7 @@ public class HostBalancer implements Balancer {
         }
         for (HostQueue queue: this.queues.values()) queue.clear();
         this.queues.clear();
+        this.scheduler.clear();
     }
 
     @Override
@@ -289,6 +304,7 @@ public class HostBalancer implements Balancer {
             if (queue == null) {
                 queue = new HostQueue(this.hostsPath, entry.url(), this.queues.size() > this.onDemandLimit, this.exceed134217727);
                 this.queues.put(hosthash, queue);
+                schedule(hosthash, queue);
                 // profile might be null when continue crawls after YaCy restart
                 robots.ensureExist(entry.url(), profile == null ? ClientIdentification.yacyInternetCrawlerAgent : profile.getAgent(), true); // concurrently load all robots.txt
             }
@@ -311,179 +327,28 @@ public class HostBalancer implements Balancer {
     @Override
     public Request pop(boolean delay, CrawlSwitchboard cs, RobotsTxt robots) throws IOException {
         tryagain: while (true) try {
-            HostQueue rhq = null;
-            String rhh = null;
-        
-            synchronized (this) {
-                if (this.roundRobinHostHashes.size() == 0) {
-                    // refresh the round-robin cache
-                    this.roundRobinHostHashes.addAll(this.queues.keySet());
-                    // quickly get rid of small stacks to reduce number of files:
-                    // remove all stacks with more than 10 entries
-                    // this shall kick out small stacks to prevent that too many files are opened for very wide crawls
-                    boolean smallStacksExist = false;
-                    boolean singletonStacksExist = false;
-                    smallsearch: for (String s: this.roundRobinHostHashes) {
-                        HostQueue hq = this.queues.get(s);
-                        if (hq != null) {
-                            int size = hq.size();
-                            if (size ==  1) {singletonStacksExist = true; break smallsearch;}
-                            if (size <= 10) {smallStacksExist = true; break smallsearch;}
-                        }
-                    }
-                    if (singletonStacksExist || smallStacksExist) {
-                        Iterator<String> i = this.roundRobinHostHashes.iterator();
-                        smallstacks: while (i.hasNext()) {
-                            if (this.roundRobinHostHashes.size() <= 10) break smallstacks; // don't shrink the hosts until nothing is left
-                            String s = i.next();
-                            HostQueue hq = this.queues.get(s);
-                            if (hq == null) {i.remove(); continue smallstacks;}
-                            int delta = Latency.waitingRemainingGuessed(hq.getHost(), hq.getPort(), s, robots, ClientIdentification.yacyInternetCrawlerAgent);
-                            if (delta < 0) continue; // keep all non-waiting stacks; they are useful to speed up things
-                            // to protect all small stacks which have a fast throughput, remove all with long waiting time
-                            if (delta >= 1000) {i.remove(); continue smallstacks;}
-                            int size = hq.size();
-                            if (singletonStacksExist) {
-                                if (size != 1) {i.remove(); continue smallstacks;} // remove all non-singletons
-                            } else /*smallStacksExist*/ {
-                                if (size > 10) {i.remove(); continue smallstacks;} // remove all large stacks
-                            }
-                        }
-                    }
-                    if (this.roundRobinHostHashes.size() == 1) {
-                        if (log.isFine()) log.fine("(re-)initialized the round-robin queue with one host");
-                    } else {
-                        log.info("(re-)initialized the round-robin queue; " + this.roundRobinHostHashes.size() + " hosts.");
-                    }
-                }
-                if (this.roundRobinHostHashes.size() == 0) return null;
-                
-                // if the queue size is 1, just take that
-                if (this.roundRobinHostHashes.size() == 1) {
-                    rhh = this.roundRobinHostHashes.iterator().next();
-                    rhq = this.queues.get(rhh);
-                }
-                
-                if (rhq == null) {
-                    // mixed minimum sleep time / largest queue strategy:
-                    // create a map of sleep time / queue relations with a fuzzy sleep time (ms / 500).
-                    // if the entry with the smallest sleep time contains at least two entries,
-                    // then the larger one from these queues are selected.
-                    TreeMap<Integer, List<String>> fastTree = new TreeMap<>();
-                    mixedstrategy: for (String h: this.roundRobinHostHashes) {
-                        HostQueue hq = this.queues.get(h);
-                        if (hq != null) {
-                            int delta = Latency.waitingRemainingGuessed(hq.getHost(), hq.getPort(), h, robots, ClientIdentification.yacyInternetCrawlerAgent) / 200;
-                            if (delta < 0) delta = 0;
-                            List<String> queueHashes = fastTree.get(delta);
-                            if (queueHashes == null) {
-                                queueHashes = new ArrayList<>(2);
-                                fastTree.put(delta, queueHashes);
-                            }
-                            queueHashes.add(h);
-                            // check stop criteria
-                            List<String> firstEntries = fastTree.firstEntry().getValue();
-                            if (firstEntries.size() > 1) {
-                                // select larger queue from that list
-                                int largest = Integer.MIN_VALUE;
-                                for (String hh: firstEntries) {
-                                    HostQueue hhq = this.queues.get(hh);
-                                    if (hhq != null) {
-                                        int s = hhq.size();
-                                        if (s > largest) {
-                                            largest = s;
-                                            rhh = hh;
-                                        }
-                                    }
-                                }
-                                rhq = this.queues.get(rhh);
-                                break mixedstrategy;
-                            }
-                        }
-                    }
-                    if (rhq == null && fastTree.size() > 0) {
-                        // it may be possible that the lowest entry never has more than one queues assigned
-                        // in this case just take the smallest entry
-                        List<String> firstEntries = fastTree.firstEntry().getValue();
-                        assert firstEntries.size() == 1;
-                        rhh = firstEntries.get(0);
-                        rhq = this.queues.get(rhh);
-                    }
-                    // to prevent that the complete roundrobinhosthashes are taken for each round, we remove the entries from the top of the fast queue
-                    List<String> lastEntries = fastTree.size() > 0 ? fastTree.lastEntry().getValue() : null;
-                    if (lastEntries != null) {
-                        for (String h: lastEntries) this.roundRobinHostHashes.remove(h);
-                    }
-                }
+            // take the host with the earliest allowed access time; it is not available to other loader threads until it is offered again
+            final HostScheduler.Slot slot = this.scheduler.poll();
+            if (slot == null) return null;
+            final String rhh = slot.hosthash;
+            final HostQueue rhq = this.queues.get(rhh);
+            if (rhq == null) continue tryagain;
 
-                /*
-                // first strategy: get one entry which does not need sleep time
-                Iterator<String> nhhi = this.roundRobinHostHashes.iterator();
-                nosleep: while (nhhi.hasNext()) {
-                    rhh = nhhi.next();
-                    rhq = this.queues.get(rhh);
-                    if (rhq == null) {
-                        nhhi.remove();
-                        continue nosleep;
-            }
-                    int delta = Latency.waitingRemainingGuessed(rhq.getHost(), rhh, robots, ClientIdentification.yacyInternetCrawlerAgent);
-                    if (delta <= 10 || this.roundRobinHostHashes.size() == 1 || rhq.size() == 1) {
-                        nhhi.remove();
-                        break nosleep;
-                    }
-                }
-                if (rhq == null) {
-                    // second strategy: take from the largest stack
-                    int largest = Integer.MIN_VALUE;
-                    for (String h: this.roundRobinHostHashes) {
-                        HostQueue hq = this.queues.get(h);
-                        if (hq != null) {
-                            int s = hq.size();
-                            if (s > largest) {
-                                largest = s;
-                                rhh = h;
-                            }
-                        }
-                    }
-                    rhq = this.queues.get(rhh);
-                }
-                */
-            }
-            
-            if (rhq == null) {
-                this.roundRobinHostHashes.clear(); // force re-initialization
+            // the host may have been loaded since it was scheduled, in which case the deadline has moved
+            final long nextAccess = Latency.nextAccessGuessed(rhh, ClientIdentification.yacyInternetCrawlerAgent);
+            if (nextAccess > slot.deadline + HostScheduler.GRANULARITY && nextAccess > System.currentTimeMillis()) {
+                this.scheduler.offer(rhh, nextAccess, rhq.size());
                 continue tryagain;
             }
-            this.roundRobinHostHashes.remove(rhh); // prevent that the queue is used again
-            long timestamp = System.currentTimeMillis();
-            Request request = rhq.pop(delay, cs, robots); // this pop is outside of synchronization to prevent blocking of pushes
-            long actualwaiting = System.currentTimeMillis() - timestamp;
-            
-            if (actualwaiting > 1000) {
-                synchronized (this) {
-                    // to prevent that this occurs again, remove all stacks with positive delay times (which may be less after that waiting)
-                    Iterator<String> i = this.roundRobinHostHashes.iterator();
-                    protectcheck: while (i.hasNext()) {
-                        if (this.roundRobinHostHashes.size() <= 3) break protectcheck; // don't shrink the hosts until nothing is left
-                        String s = i.next();
-                        HostQueue hq = this.queues.get(s);
-                        if (hq == null) {i.remove(); continue protectcheck;}
-                        int delta = Latency.waitingRemainingGuessed(hq.getHost(), hq.getPort(), s, robots, ClientIdentification.yacyInternetCrawlerAgent);
-                        if (delta >= 0) {i.remove();}
-                    }
-                }
-            }
-            
-            if (rhq.isEmpty()) {
-                synchronized (this) {
-                    this.queues.remove(rhh);
-                }
-                rhq.close();
+
+            Request request = null;
+            try {
+                request = rhq.pop(delay, cs, robots); // this pop is outside of synchronization to prevent blocking of pushes
+            } finally {
+                reschedule(rhh, rhq);
             }
             if (request == null) continue tryagain;
             return request;
-        } catch (ConcurrentModificationException e) {
-            continue tryagain;
         } catch (IOException e) {
             throw e;
         } catch (Throwable e) {
@@ -492,6 +357,40 @@ public class HostBalancer implements Balancer {
         }
     }
 
+    /**
+     * offer a host again after an entry was taken from its queue: the next access is expected not before
+     * the guessed minimum waiting time from now. Empty queues are removed.
+     * @param hosthash
+     * @param queue
+     */
+    private void reschedule(final String hosthash, final HostQueue queue) {
+        if (queue.isEmpty()) {
+            synchronized (this) {
+                // a concurrent push may have filled the queue again
+                if (queue.isEmpty()) {
+                    this.queues.remove(hosthash, queue);
+                } else {
+                    schedule(hosthash, queue);
+                    return;
+                }
+            }
+            queue.close();
+            return;
+        }
+        final long nextAccess = Latency.nextAccessGuessed(hosthash, ClientIdentification.yacyInternetCrawlerAgent);
+        final int waiting = Latency.waitingGuessed(hosthash, ClientIdentification.yacyInternetCrawlerAgent);
+        this.scheduler.offer(hosthash, Math.max(nextAccess, System.currentTimeMillis() + waiting), queue.size());
+    }
+
+    /**
+     * schedule a host for the next access time as known from the latency statistics
+     * @param hosthash
+     * @param queue
+     */
+    private void schedule(final String hosthash, final HostQueue queue) {
+        this.scheduler.offer(hosthash, Latency.nextAccessGuessed(hosthash, ClientIdentification.yacyInternetCrawlerAgent), queue.size());
+    }
+
     @Override
     public Iterator<Request> iterator() throws IOException {
         final Iterator<HostQueue> hostsIterator = this.queues.values().iterator();
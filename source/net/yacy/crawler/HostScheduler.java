@@ -0,0 +1,132 @@
+// HostScheduler.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A priority queue of host hashes ordered by the time when the host may be accessed next.
+ * Hosts with deadlines within the same {@link #GRANULARITY} are ordered by their (larger) queue size.
+ * Each host is scheduled at most once: a host returned by {@link #poll()} is leased to the caller
+ * and comes back only when it is offered again, so two loader threads never select the same host at
+ * the same time. All operations are lock-free and take O(log n) for n scheduled hosts.
+ */
+final class HostScheduler {
+
+    /** deadlines are compared with this resolution in milliseconds before the queue size is considered */
+    public static final long GRANULARITY = 200;
+
+    public static final class Slot implements Comparable<Slot> {
+        public final String hosthash;
+        public final long deadline;
+        private final int size;
+        private final long sequence;
+
+        private Slot(final String hosthash, final long deadline, final int size, final long sequence) {
+            this.hosthash = hosthash;
+            this.deadline = deadline;
+            this.size = size;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(final Slot other) {
+            final long d = this.deadline / GRANULARITY, od = other.deadline / GRANULARITY;
+            if (d != od) return d < od ? -1 : 1;
+            if (this.size != other.size) return this.size > other.size ? -1 : 1;
+            return this.sequence < other.sequence ? -1 : this.sequence == other.sequence ? 0 : 1;
+        }
+
+        @Override
+        public boolean equals(final Object other) {
+            return other instanceof Slot && ((Slot) other).sequence == this.sequence;
+        }
+
+        @Override
+        public int hashCode() {
+            return (int) (this.sequence ^ (this.sequence >>> 32));
+        }
+
+        @Override
+        public String toString() {
+            return this.hosthash + "@" + this.deadline + "/" + this.size;
+        }
+    }
+
+    private final ConcurrentSkipListSet<Slot> slots;
+    private final ConcurrentMap<String, Slot> scheduled;
+    private final AtomicLong sequence;
+
+    public HostScheduler() {
+        this.slots = new ConcurrentSkipListSet<Slot>();
+        this.scheduled = new ConcurrentHashMap<String, Slot>();
+        this.sequence = new AtomicLong(0);
+    }
+
+    /**
+     * schedule a host; a host which is already scheduled is moved to the new deadline
+     * @param hosthash
+     * @param deadline the time in milliseconds since epoch when the host may be accessed again
+     * @param size the current size of the host queue
+     */
+    public void offer(final String hosthash, final long deadline, final int size) {
+        final Slot slot = new Slot(hosthash, deadline, size, this.sequence.incrementAndGet());
+        final Slot old = this.scheduled.put(hosthash, slot);
+        if (old != null) this.slots.remove(old);
+        this.slots.add(slot);
+    }
+
+    /**
+     * remove the host with the earliest deadline from the schedule
+     * @return the slot of the host or null if no host is scheduled
+     */
+    public Slot poll() {
+        Slot slot;
+        while ((slot = this.slots.pollFirst()) != null) {
+            // slots which were replaced concurrently by an offer are skipped
+            if (this.scheduled.remove(slot.hosthash, slot)) return slot;
+        }
+        return null;
+    }
+
+    public boolean contains(final String hosthash) {
+        return this.scheduled.containsKey(hosthash);
+    }
+
+    public void remove(final String hosthash) {
+        final Slot slot = this.scheduled.remove(hosthash);
+        if (slot != null) this.slots.remove(slot);
+    }
+
+    public int size() {
+        return this.scheduled.size();
+    }
+
+    public void clear() {
+        this.scheduled.clear();
+        this.slots.clear();
+    }
+}
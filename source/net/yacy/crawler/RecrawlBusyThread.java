@@ -297,6 +297,7 @@ public class RecrawlBusyThread extends AbstractBusyThread {
                 	this.malformedUrlsCount++;
                     try { // if index entry hasn't a valid url (useless), delete it
                         solrConnector.deleteById((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()));
+                        sb.index.fulltext().getKnownURLs().remove((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()));
                         this.malformedUrlsDeletedCount++;
                         ConcurrentLog.severe(THREAD_NAME, "deleted index document with invalid url " + (String) doc.getFieldValue(CollectionSchema.sku.getSolrFieldName()));
                     } catch (final IOException ex1) {
@@ -37,7 +37,10 @@ package net.yacy.crawler.data;
 import java.io.File;
 import java.io.IOException;
 import java.io.UnsupportedEncodingException;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.atomic.AtomicLong;
@@ -51,6 +54,9 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.blob.ArrayStack;
 import net.yacy.kelondro.blob.Compressor;
+import net.yacy.kelondro.blob.DictionaryCodec;
+import net.yacy.kelondro.blob.GzipCodec;
+import net.yacy.kelondro.blob.LZ4Codec;
 import net.yacy.kelondro.blob.MapHeap;
 import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.index.RowHandleSet;
@@ -70,10 +76,15 @@ public final class Cache {
 	
     private static final String RESPONSE_HEADER_DB_NAME = "responseHeader.heap";
     private static final String FILE_DB_NAME = "file.array";
+    private static final String DICTIONARY_DIR_NAME = "dictionaries";
+
+    /** the number of cached documents which are used to train a compression dictionary */
+    private static final int DICTIONARY_SAMPLES = 200;
 
     private static MapHeap responseHeaderDB = null;
     private static Compressor fileDB = null;
     private static ArrayStack fileDBunbuffered = null;
+    private static DictionaryCodec dictionaryCodec = null;
 
     private static volatile long maxCacheSize = Long.MAX_VALUE;
     
@@ -142,6 +153,10 @@ public final class Cache {
                 }
             }
         }
+        // entries compressed with a dictionary can be read with any configured codec
+        dictionaryCodec = new DictionaryCodec();
+        dictionaryCodec.load(new File(cachePath, DICTIONARY_DIR_NAME));
+        if (fileDB != null) fileDB.addCodec(dictionaryCodec);
         ConcurrentLog.info("Cache", "initialized cache database responseHeaderDB.size() = " + (responseHeaderDB == null ? "NULL" : responseHeaderDB.size()) + ", fileDB.size() = " + (fileDB == null ? "NULL" : fileDB.size()));
 
         // clean up the responseHeaderDB which cannot be cleaned the same way as the cache files.
@@ -248,6 +263,61 @@ public final class Cache {
     	fileDB.setCompressionLevel(newCompressionLevel);
     }
     
+    /**
+     * Set the codec for new cache entries; entries of the other codecs remain readable.
+     * If the dictionary codec is set and no dictionary was trained yet, a dictionary is trained
+     * from the cached documents in a concurrent job.
+     * @param name the name of the codec, one of {@link GzipCodec#NAME}, {@link LZ4Codec#NAME}, {@link DictionaryCodec#NAME}
+     */
+    public static void setCompressionCodec(final String name) {
+        if (LZ4Codec.NAME.equals(name)) {
+            fileDB.setCodec(new LZ4Codec());
+        } else if (DictionaryCodec.NAME.equals(name)) {
+            fileDB.setCodec(dictionaryCodec);
+            if (!dictionaryCodec.isTrained() && fileDBunbuffered.size() >= DICTIONARY_SAMPLES) {
+                new Thread("Cache dictionaryTraining") {
+                    @Override
+                    public void run() {
+                        trainDictionary();
+                    }
+                }.start();
+            }
+        } else {
+            fileDB.setCodec(new GzipCodec());
+        }
+    }
+
+    /**
+     * train a compression dictionary from cached text documents and use it for new entries
+     */
+    private static void trainDictionary() {
+        final List<byte[]> samples = new ArrayList<byte[]>();
+        try {
+            final Iterator<byte[]> keys = fileDBunbuffered.keys(true, false);
+            while (keys.hasNext() && samples.size() < DICTIONARY_SAMPLES) {
+                final byte[] b = fileDB.get(keys.next());
+                if (b != null && isText(b)) samples.add(b);
+            }
+        } catch (final Throwable e) {
+            // the cache may be changed or cleared concurrently; train with the samples we have
+            ConcurrentLog.warn("Cache", "dictionary training stopped reading samples: " + e.getMessage());
+        }
+        if (samples.size() < DICTIONARY_SAMPLES / 2) return;
+        final byte[] dict = DictionaryCodec.train(samples, DictionaryCodec.DICTIONARY_SIZE);
+        try {
+            dictionaryCodec.store(new File(cachePath, DICTIONARY_DIR_NAME), dict);
+            ConcurrentLog.info("Cache", "trained a compression dictionary of " + dict.length + " bytes from " + samples.size() + " documents");
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
+    private static boolean isText(final byte[] b) {
+        if (b.length < 100) return false;
+        for (int i = Math.min(b.length, 512) - 1; i >= 0; i--) if (b[i] == 0) return false;
+        return true;
+    }
+
     /**
      * Set the new synchronization lock timeout.
      * @param lockTimeout the new synchronization lock timeout (in milliseconds).
@@ -37,6 +37,7 @@ import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import org.apache.solr.client.solrj.SolrQuery;
@@ -53,9 +54,11 @@ import net.yacy.cora.federate.solr.FailCategory;
 import net.yacy.cora.federate.yacy.CacheStrategy;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.protocol.ConnectionInfo;
+import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.crawler.HarvestProcess;
 import net.yacy.crawler.data.NoticedURL.StackType;
+import net.yacy.crawler.retrieval.HTTPAsyncLoader;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.crawler.robots.RobotsTxtEntry;
@@ -78,6 +81,7 @@ public class CrawlQueues {
     private final Switchboard sb;
     private final Loader[] worker;
     private final ArrayBlockingQueue<Request> workerQueue;
+    private final Map<DigestURL, Request> asyncEntries; // requests in flight in the asynchronous loader
     private ArrayList<String> remoteCrawlProviderHashes;
 
     public  NoticedURL noticeURL;
@@ -93,6 +97,7 @@ public class CrawlQueues {
         /* We initialize workerQueue with the same capacity as worker array, because this same queue 
          * will be used to send POISON_REQUEST items consumed by all eventually running workers in the close() function*/
         this.workerQueue = new ArrayBlockingQueue<Request>(maxWorkers);
+        this.asyncEntries = new ConcurrentHashMap<DigestURL, Request>();
         this.remoteCrawlProviderHashes = null;
 
         // start crawling management
@@ -258,6 +263,7 @@ public class CrawlQueues {
                     if (r != null) map.put(r.url(), r);
                 }
             }
+            for (final Request r: this.asyncEntries.values()) map.put(r.url(), r);
             return map;
         }
     }
@@ -381,7 +387,9 @@ public class CrawlQueues {
                     CrawlQueues.log.info(stats + ": urlEntry = null");
                 } else {
                     if (!activeWorkerEntries().containsKey(urlEntry.url())) {
-                        try {
+                        if (isAsync(url)) {
+                            loadAsync(urlEntry, profile);
+                        } else try {
                             ensureLoaderRunning();
                             this.workerQueue.put(urlEntry);
                         } catch (InterruptedException e) {
@@ -430,8 +438,8 @@ public class CrawlQueues {
         }
 
         // check again
-        if (this.workerQueue.remainingCapacity() == 0) {
-            return "too many workers active: " + this.workerQueue.size();
+        if (loaderBusy()) {
+            return "too many workers active: " + (this.workerQueue.size() + this.asyncEntries.size());
         }
 
         final String cautionCause = this.sb.onlineCaution();
@@ -455,9 +463,9 @@ public class CrawlQueues {
         }
 
         // check again
-        if (this.workerQueue.remainingCapacity() == 0) {
+        if (loaderBusy()) {
             if (CrawlQueues.log.isFine()) {
-                CrawlQueues.log.fine("remoteCrawlLoaderJob: too many processes in loader queue, dismissed (" + "workerQueue=" + this.workerQueue.size() + "), httpClients = " + ConnectionInfo.getCount());
+                CrawlQueues.log.fine("remoteCrawlLoaderJob: too many processes in loader queue, dismissed (" + "workerQueue=" + this.workerQueue.size() + ", asyncRequests=" + this.asyncEntries.size() + "), httpClients = " + ConnectionInfo.getCount());
             }
             return false;
         }
@@ -702,6 +710,141 @@ public class CrawlQueues {
         }
     }
 
+    /**
+     * check the robots.txt for http(s) resources
+     * @param request
+     * @param profile
+     * @return true if the request may be loaded; otherwise the url is pushed to the error cache
+     */
+    private boolean robotsAllowed(final Request request, final CrawlProfile profile) {
+        request.setStatus("worker-checkingrobots", WorkflowJob.STATUS_STARTED);
+        RobotsTxtEntry robotsEntry;
+        if ((request.url().getProtocol().equals("http") || request.url().getProtocol().equals("https")) &&
+            (robotsEntry = this.sb.robots.getEntry(request.url(), profile.getAgent())) != null &&
+            robotsEntry.isDisallowed(request.url())) {
+            //if (log.isFine()) log.logFine("Crawling of URL '" + request.url().toString() + "' disallowed by robots.txt.");
+            this.errorURL.push(request.url(), request.depth(), profile, FailCategory.FINAL_ROBOTS_RULE, "denied by robots.txt", -1);
+            request.setStatus("worker-disallowed", WorkflowJob.STATUS_FINISHED);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * push a loaded resource to the switchboard queue or record why it could not be loaded
+     * @param request
+     * @param profile
+     * @param response the loaded resource; null if there is no content or the load failed
+     * @param failure the reason why the load failed; null if the load was done
+     */
+    private void loaded(final Request request, final CrawlProfile profile, final Response response, final IOException failure) {
+        String error = null;
+        if (failure != null) {
+            request.setStatus("error", WorkflowJob.STATUS_FINISHED);
+            if (CrawlQueues.log.isFine()) {
+                CrawlQueues.log.fine("problem loading " + request.url().toString() + ": " + failure.getMessage());
+            }
+            error = "load error - " + failure.getMessage();
+        } else if (response == null) {
+            request.setStatus("error", WorkflowJob.STATUS_FINISHED);
+            if (CrawlQueues.log.isFine()) {
+                CrawlQueues.log.fine("problem loading " + request.url().toString() + ": no content (possibly caused by cache policy)");
+            }
+            error = "no content (possibly caused by cache policy)";
+        } else {
+            request.setStatus("loaded", WorkflowJob.STATUS_RUNNING);
+            final String storedFailMessage = this.sb.toIndexer(response);
+            request.setStatus("enqueued-" + ((storedFailMessage == null) ? "ok" : "fail"), WorkflowJob.STATUS_FINISHED);
+            error = (storedFailMessage == null) ? null : "not enqueued to indexer: " + storedFailMessage;
+        }
+
+        if (error != null) {
+            if (error.endsWith("$")) {
+                // the "$" mark at the end of the error message means, that the error was already pushed to the error-db by the reporting method
+                // thus we only push this message if we don't have that mark
+                error = error.substring(0, error.length() - 1).trim();
+            } else {
+                this.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "cannot load: " + error, -1);
+            }
+            request.setStatus("worker-error", WorkflowJob.STATUS_FINISHED);
+        } else {
+            request.setStatus("worker-processed", WorkflowJob.STATUS_FINISHED);
+        }
+    }
+
+    /**
+     * @param url
+     * @return true if the url shall be loaded with the asynchronous http loader instead of a loader thread
+     */
+    private boolean isAsync(final DigestURL url) {
+        return this.sb.getConfigBool(SwitchboardConstants.CRAWLER_ASYNC, false) &&
+               (url.getProtocol().equals("http") || url.getProtocol().equals("https")) &&
+               !Domains.isLocalhost(url.getHost()); // the local peer may demand the admin account which only the blocking loader provides
+    }
+
+    /**
+     * load a http(s) resource with the asynchronous loader. The robots.txt check, the loading and the
+     * delivery to the indexer are done in the pool of the loader, the calling thread is not blocked.
+     * @param request
+     * @param profile
+     */
+    private void loadAsync(final Request request, final CrawlProfile profile) {
+        final DigestURL url = request.url();
+        this.asyncEntries.put(url, request);
+        request.setStatus("worker-initialized", WorkflowJob.STATUS_INITIATED);
+        try {
+            this.sb.loader.httpAsyncLoader().execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        if (!robotsAllowed(request, profile)) {
+                            CrawlQueues.this.asyncEntries.remove(url);
+                            return;
+                        }
+                        request.setStatus("loading", WorkflowJob.STATUS_RUNNING);
+                        CrawlQueues.this.sb.loader.loadAsync(request, profile.cacheStrategy(), BlacklistType.CRAWLER, profile.getAgent(), new HTTPAsyncLoader.Callback() {
+                            @Override
+                            public void loaded(final Response response) {
+                                finish(response, null);
+                            }
+                            @Override
+                            public void failed(final IOException e) {
+                                finish(null, e);
+                            }
+                            private void finish(final Response response, final IOException failure) {
+                                try {
+                                    CrawlQueues.this.loaded(request, profile, response, failure);
+                                } catch (final Exception e) {
+                                    CrawlQueues.this.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, e.getMessage() + " - in worker", -1);
+                                    request.setStatus("worker-exception", WorkflowJob.STATUS_FINISHED);
+                                } finally {
+                                    CrawlQueues.this.asyncEntries.remove(url);
+                                }
+                            }
+                        });
+                    } catch (final Exception e) {
+                        CrawlQueues.this.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, e.getMessage() + " - in worker", -1);
+                        request.setStatus("worker-exception", WorkflowJob.STATUS_FINISHED);
+                        CrawlQueues.this.asyncEntries.remove(url);
+                    }
+                }
+            });
+        } catch (final IOException | RejectedExecutionException e) {
+            CrawlQueues.log.warn("cannot load " + url.toNormalform(false) + " asynchronously: " + e.getMessage());
+            this.asyncEntries.remove(url);
+        }
+    }
+
+    /**
+     * @return true if no further load can be started: all loader threads are busy or, in asynchronous mode, the maximum number of requests is in flight
+     */
+    private boolean loaderBusy() {
+        if (this.sb.getConfigBool(SwitchboardConstants.CRAWLER_ASYNC, false)) {
+            return this.asyncEntries.size() >= this.sb.getConfigInt(SwitchboardConstants.CRAWLER_ASYNC_MAX_REQUESTS, 1000);
+        }
+        return this.workerQueue.remainingCapacity() == 0;
+    }
+
     private void ensureLoaderRunning() {
         // check if there is at least one loader available
         for (int i = 0; i < this.worker.length; i++) {
@@ -734,57 +877,18 @@ public class CrawlQueues {
                     this.setName("CrawlQueues.Loader(" + request.url().toNormalform(false) + ")");
                     CrawlProfile profile = CrawlQueues.this.sb.crawler.get(UTF8.getBytes(request.profileHandle()));
                     try {
-                        // checking robots.txt for http(s) resources
-                        request.setStatus("worker-checkingrobots", WorkflowJob.STATUS_STARTED);
-                        RobotsTxtEntry robotsEntry;
-                        if ((request.url().getProtocol().equals("http") || request.url().getProtocol().equals("https")) &&
-                            (robotsEntry = CrawlQueues.this.sb.robots.getEntry(request.url(), profile.getAgent())) != null &&
-                            robotsEntry.isDisallowed(request.url())) {
-                            //if (log.isFine()) log.logFine("Crawling of URL '" + request.url().toString() + "' disallowed by robots.txt.");
-                            CrawlQueues.this.errorURL.push(request.url(), request.depth(), profile, FailCategory.FINAL_ROBOTS_RULE, "denied by robots.txt", -1);
-                            request.setStatus("worker-disallowed", WorkflowJob.STATUS_FINISHED);
-                        } else {
+                        if (robotsAllowed(request, profile)) {
                             // starting a load from the internet
                             request.setStatus("worker-loading", WorkflowJob.STATUS_RUNNING);
-                            String error = null;
-   
-                            // load a resource and push queue entry to switchboard queue
-                            // returns null if everything went fine, a fail reason string if a problem occurred
+                            Response response = null;
+                            IOException failure = null;
                             try {
                                 request.setStatus("loading", WorkflowJob.STATUS_RUNNING);
-                                final Response response = CrawlQueues.this.sb.loader.load(request, profile == null ? CacheStrategy.IFEXIST : profile.cacheStrategy(), BlacklistType.CRAWLER, profile.getAgent());
-                                if (response == null) {
-                                    request.setStatus("error", WorkflowJob.STATUS_FINISHED);
-                                    if (CrawlQueues.log.isFine()) {
-                                        CrawlQueues.log.fine("problem loading " + request.url().toString() + ": no content (possibly caused by cache policy)");
-                                    }
-                                    error = "no content (possibly caused by cache policy)";
-                                } else {
-                                    request.setStatus("loaded", WorkflowJob.STATUS_RUNNING);
-                                    final String storedFailMessage = CrawlQueues.this.sb.toIndexer(response);
-                                    request.setStatus("enqueued-" + ((storedFailMessage == null) ? "ok" : "fail"), WorkflowJob.STATUS_FINISHED);
-                                    error = (storedFailMessage == null) ? null : "not enqueued to indexer: " + storedFailMessage;
-                                }
+                                response = CrawlQueues.this.sb.loader.load(request, profile == null ? CacheStrategy.IFEXIST : profile.cacheStrategy(), BlacklistType.CRAWLER, profile.getAgent());
                             } catch (final IOException e) {
-                                request.setStatus("error", WorkflowJob.STATUS_FINISHED);
-                                if (CrawlQueues.log.isFine()) {
-                                    CrawlQueues.log.fine("problem loading " + request.url().toString() + ": " + e.getMessage());
-                                }
-                                error = "load error - " + e.getMessage();
-                            }
-   
-                            if (error != null) {
-                                if (error.endsWith("$")) {
-                                    // the "$" mark at the end of the error message means, that the error was already pushed to the error-db by the reporting method
-                                    // thus we only push this message if we don't have that mark
-                                    error = error.substring(0, error.length() - 1).trim();
-                                } else {
-                                    CrawlQueues.this.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "cannot load: " + error, -1);
-                                }
-                                request.setStatus("worker-error", WorkflowJob.STATUS_FINISHED);
-                            } else {
-                                request.setStatus("worker-processed", WorkflowJob.STATUS_FINISHED);
+                                failure = e;
                             }
+                            loaded(request, profile, response, failure);
                         }
                     } catch (final Exception e) {
                         CrawlQueues.this.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, e.getMessage() + " - in worker", -1);
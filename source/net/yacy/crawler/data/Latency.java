@@ -60,6 +60,8 @@ public class Latency {
             h = new Host(host, Switchboard.getSwitchboard().getConfigInt("crawler.defaultAverageLatency", 500), robotsCrawlDelay);
             if (map.size() > mapMaxSize || MemoryControl.shortStatus()) map.clear();
             map.put(hosthash, h);
+        } else {
+            h.robotsMinDelay = robotsCrawlDelay;
         }
     }
 
@@ -179,6 +181,42 @@ public class Latency {
         return Math.min(60000, waiting) - timeSinceLastAccess;
     }
     
+    /**
+     * guess the time when a host may be accessed again without any robots.txt lookup: the crawl-delay
+     * is the one recorded with the last selection of the host in {@link #updateAfterSelection(DigestURL, long)}
+     * and the access time and latency are those of the last {@link #updateAfterLoad(DigestURL, long)}.
+     * @param hosthash
+     * @param agent
+     * @return the time in milliseconds since epoch; 0 if the host was never accessed
+     */
+    public static long nextAccessGuessed(final String hosthash, final ClientIdentification.Agent agent) {
+        final Host host = map.get(hosthash);
+        if (host == null) return 0;
+        return host.lastacc() + waitingGuessed(host, agent);
+    }
+
+    /**
+     * guess the minimum time between two accesses to a host, as in {@link #nextAccessGuessed(String, ClientIdentification.Agent)}
+     * @param hosthash
+     * @param agent
+     * @return the waiting time in milliseconds; 0 if the host was never accessed
+     */
+    public static int waitingGuessed(final String hosthash, final ClientIdentification.Agent agent) {
+        final Host host = map.get(hosthash);
+        if (host == null) return 0;
+        return waitingGuessed(host, agent);
+    }
+
+    private static int waitingGuessed(final Host host, final ClientIdentification.Agent agent) {
+        int waiting = agent.minimumDelta;
+        waiting += host.flux(waiting);
+        final Switchboard sb = Switchboard.getSwitchboard();
+        final float latencyFactor = sb == null ? 0.5f : sb.getConfigFloat(SwitchboardConstants.CRAWLER_LATENCY_FACTOR, 0.5f);
+        waiting = Math.max(waiting, (int) (host.average() * latencyFactor));
+        waiting = Math.max(waiting, (int) host.robotsDelay());
+        return Math.min(60000, waiting);
+    }
+
     /**
      * calculates how long should be waited until the domain can be accessed again
      * this follows from:
@@ -305,7 +343,7 @@ public class Latency {
         private AtomicLong lastacc;
         private AtomicInteger count;
         private final String host;
-        private long robotsMinDelay;
+        private volatile long robotsMinDelay;
         private Host(final String host, final long time, long robotsMinDelay) {
             this.host = host;
             this.timeacc = new AtomicLong(time);
@@ -0,0 +1,290 @@
+// HTTPAsyncLoader.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler.retrieval;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.Result;
+import org.eclipse.jetty.client.util.BufferingResponseListener;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpMethod;
+import org.eclipse.jetty.util.HttpCookieStore;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.eclipse.jetty.util.thread.QueuedThreadPool;
+
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.federate.solr.FailCategory;
+import net.yacy.cora.protocol.ClientIdentification;
+import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.protocol.RequestHeader;
+import net.yacy.cora.protocol.ResponseHeader;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.crawler.data.CrawlProfile;
+import net.yacy.crawler.data.Latency;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+import net.yacy.repository.Blacklist.BlacklistType;
+import net.yacy.search.Switchboard;
+import net.yacy.search.SwitchboardConstants;
+
+/**
+ * Loads http(s) resources with the non-blocking jetty http client: many requests can be in flight while
+ * only a small pool of threads is used. The requests are the same as those of the {@link HTTPLoader} and
+ * the responses are checked with {@link HTTPLoader#response(Request, CrawlProfile, DigestURL, RequestHeader, String, ResponseHeader, byte[], int)},
+ * so that redirects, errors and the created {@link Response} objects are identical.
+ */
+public class HTTPAsyncLoader {
+
+    /**
+     * receives the result of an asynchronous load. The methods are called from a thread of the
+     * completion pool of the loader or from the thread which started the load if it failed at once;
+     * they may block for a while but should not load other resources.
+     */
+    public interface Callback {
+        public void loaded(Response response);
+        public void failed(IOException e);
+    }
+
+    private final Switchboard sb;
+    private final HTTPLoader httpLoader;
+    private final ConcurrentLog log;
+    private final HttpClient client;
+    private final ThreadPoolExecutor completion;
+    private final int socketTimeout;
+
+    public HTTPAsyncLoader(final Switchboard sb, final HTTPLoader httpLoader, final ConcurrentLog theLog) throws IOException {
+        this.sb = sb;
+        this.httpLoader = httpLoader;
+        this.log = theLog;
+        this.socketTimeout = (int) sb.getConfigLong("crawler.clientTimeout", 30000);
+        final int threads = Math.max(2, sb.getConfigInt(SwitchboardConstants.CRAWLER_ASYNC_THREADS, 8));
+
+        // the crawler accepts all certificates, as the blocking HTTPClient does
+        this.client = new HttpClient(new SslContextFactory(true));
+        final QueuedThreadPool pool = new QueuedThreadPool(threads + 2, 2);
+        pool.setName("HTTPAsyncLoader");
+        pool.setDaemon(true);
+        this.client.setExecutor(pool);
+        this.client.setFollowRedirects(false); // redirects are handled by the HTTPLoader rules
+        this.client.setCookieStore(new HttpCookieStore.Empty());
+        this.client.setUserAgentField(null); // set with the request header of each request
+        this.client.setConnectTimeout(this.socketTimeout);
+        this.client.setIdleTimeout(this.socketTimeout);
+        this.client.setMaxConnectionsPerDestination(sb.getConfigInt(SwitchboardConstants.CRAWLER_MAX_SAME_HOST_IN_QUEUE, 20));
+        this.client.setMaxRequestsQueuedPerDestination(sb.getConfigInt(SwitchboardConstants.CRAWLER_ASYNC_MAX_REQUESTS, 1000));
+        try {
+            this.client.start();
+        } catch (final Exception e) {
+            throw new IOException("cannot start the asynchronous http client: " + e.getMessage(), e);
+        }
+
+        // responses are checked and delivered outside of the network threads because this may write to the index
+        this.completion = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(),
+                new NamePrefixThreadFactory("HTTPAsyncLoader.completion"));
+        this.completion.allowCoreThreadTimeOut(true);
+    }
+
+    /**
+     * run a task in the completion pool of this loader, i.e. for checks which may block before a load is started
+     * @param task
+     */
+    public void execute(final Runnable task) {
+        this.completion.execute(task);
+    }
+
+    /**
+     * start loading a resource; this returns immediately and the callback is called when the load is finished
+     * @param request the request essentials
+     * @param profile crawl profile
+     * @param maxFileSize max file size to load. -1 means no limit.
+     * @param blacklistType blacklist type to use
+     * @param agent agent identifier
+     * @param delay time in milliseconds to wait before the request is sent
+     * @param callback receives the response or the failure
+     */
+    public void load(final Request request, final CrawlProfile profile, final int maxFileSize, final BlacklistType blacklistType,
+            final ClientIdentification.Agent agent, final long delay, final Callback callback) {
+        final Runnable start = new Runnable() {
+            @Override
+            public void run() {
+                Latency.updateBeforeLoad(request.url());
+                send(request, request.url(), System.currentTimeMillis(), profile, HTTPLoader.DEFAULT_CRAWLING_RETRY_COUNT, maxFileSize, blacklistType, agent, callback);
+            }
+        };
+        if (delay > 0) {
+            // wait without a sleeping thread; the request is prepared in the completion pool as it may write to the error cache
+            this.client.getScheduler().schedule(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        HTTPAsyncLoader.this.completion.execute(start);
+                    } catch (final RejectedExecutionException e) {
+                        HTTPAsyncLoader.this.log.info("dropped request for " + request.url().toNormalform(true) + ": loader is closed");
+                        callback.failed(new IOException("loader is closed"));
+                    }
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } else {
+            start.run();
+        }
+    }
+
+    private void send(final Request request, final DigestURL origin, final long start, final CrawlProfile profile, final int retryCount,
+            final int maxFileSize, final BlacklistType blacklistType, final ClientIdentification.Agent agent, final Callback callback) {
+        final DigestURL url;
+        final RequestHeader requestHeader;
+        final org.eclipse.jetty.client.api.Request httpRequest;
+        try {
+            if (retryCount < 0) {
+                this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "retry counter exceeded", -1);
+                throw new IOException("retry counter exceeded for URL " + request.url().toString() + ". Processing aborted.$");
+            }
+            url = this.httpLoader.targetURL(request, profile, blacklistType);
+            requestHeader = this.httpLoader.createRequestheader(request, agent);
+            try {
+                httpRequest = this.client.newRequest(url.toNormalform(true));
+            } catch (final IllegalArgumentException e) {
+                throw new IOException(e.getMessage());
+            }
+        } catch (final IOException e) {
+            complete(origin, start, null, e, callback);
+            return;
+        }
+        httpRequest.method(HttpMethod.GET).timeout(this.socketTimeout, TimeUnit.MILLISECONDS);
+        for (final Map.Entry<String, String> entry: requestHeader.entrySet()) {
+            // the client asks for the encodings it can decode itself
+            if (HeaderFramework.ACCEPT_ENCODING.equalsIgnoreCase(entry.getKey())) continue;
+            httpRequest.header(entry.getKey(), entry.getValue());
+        }
+        httpRequest.send(new BufferingResponseListener(maxFileSize < 0 ? Integer.MAX_VALUE : maxFileSize) {
+            private long length = 0; // the announced or received content length of an accepted response
+            private boolean exceeded = false;
+
+            @Override
+            public void onHeaders(final org.eclipse.jetty.client.api.Response response) {
+                if (accepted(response.getStatus()) && maxFileSize >= 0) {
+                    try {
+                        this.length = response.getHeaders().getLongField(HttpHeader.CONTENT_LENGTH.asString());
+                    } catch (final NumberFormatException e) {
+                        this.length = -1; // checked while the content is received
+                    }
+                    if (this.length > maxFileSize) {
+                        this.exceeded = true;
+                        response.abort(new IOException("content length " + this.length + " exceeds the max file size"));
+                        return;
+                    }
+                    this.length = 0;
+                }
+                super.onHeaders(response);
+            }
+
+            @Override
+            public void onContent(final org.eclipse.jetty.client.api.Response response, final ByteBuffer content) {
+                // the content of other responses is not used
+                if (!accepted(response.getStatus())) return;
+                this.length += content.remaining();
+                if (maxFileSize >= 0 && this.length > maxFileSize) {
+                    this.exceeded = true;
+                    response.abort(new IOException("content exceeds the max file size"));
+                    return;
+                }
+                super.onContent(response, content);
+            }
+
+            @Override
+            public void onComplete(final Result result) {
+                final byte[] content = result.isSucceeded() && accepted(result.getResponse().getStatus()) ? getContent() : null;
+                try {
+                    HTTPAsyncLoader.this.completion.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            if (exceeded) {
+                                HTTPAsyncLoader.this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.FINAL_PROCESS_CONTEXT, "file size limit exceeded", result.getResponse().getStatus());
+                                complete(origin, start, null, new IOException("REJECTED URL " + request.url() + " because file size '" + length + "' exceeds max filesize limit of " + maxFileSize + " bytes. (GET)$"), callback);
+                                return;
+                            }
+                            if (result.isFailed()) {
+                                final Throwable failure = result.getFailure();
+                                complete(origin, start, null, new IOException(failure.getMessage() == null ? failure.toString() : failure.getMessage(), failure), callback);
+                                return;
+                            }
+                            final org.eclipse.jetty.client.api.Response httpResponse = result.getResponse();
+                            final ResponseHeader responseHeader = new ResponseHeader(httpResponse.getStatus());
+                            for (final HttpField field: httpResponse.getHeaders()) {
+                                responseHeader.add(field.getName(), field.getValue());
+                            }
+                            final String statusLine = httpResponse.getVersion() + " " + httpResponse.getStatus() + " " + httpResponse.getReason();
+                            try {
+                                final Response response = HTTPAsyncLoader.this.httpLoader.response(request, profile, url, requestHeader, statusLine, responseHeader, content, maxFileSize);
+                                if (response == null) {
+                                    // follow the redirection which is now the url of the request
+                                    send(request, origin, start, profile, retryCount - 1, maxFileSize, blacklistType, agent, callback);
+                                    return;
+                                }
+                                complete(origin, start, response, null, callback);
+                            } catch (final IOException e) {
+                                complete(origin, start, null, e, callback);
+                            }
+                        }
+                    });
+                } catch (final RejectedExecutionException e) {
+                    HTTPAsyncLoader.this.log.info("dropped response for " + request.url().toNormalform(true) + ": loader is closed");
+                    complete(origin, start, null, new IOException("loader is closed"), callback);
+                }
+            }
+        });
+    }
+
+    /**
+     * @param status
+     * @return true if the content of a response with the status is loaded, as in {@link HTTPLoader}
+     */
+    private static boolean accepted(final int status) {
+        return status == 200 || status == 203;
+    }
+
+    private static void complete(final DigestURL origin, final long start, final Response response, final IOException failure, final Callback callback) {
+        Latency.updateAfterLoad(origin, System.currentTimeMillis() - start);
+        if (failure == null) {
+            callback.loaded(response);
+        } else {
+            callback.failed(failure);
+        }
+    }
+
+    public void close() {
+        try {
+            this.client.stop();
+        } catch (final Exception e) {
+            ConcurrentLog.logException(e);
+        }
+        this.completion.shutdownNow();
+    }
+}
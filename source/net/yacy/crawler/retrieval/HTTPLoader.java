@@ -158,7 +158,7 @@ public final class HTTPLoader {
 		if (statusCode > 299 && statusCode < 310) {
 			client.finish();
 			
-			final DigestURL redirectionUrl = extractRedirectURL(request, profile, url, statusline,
+			final DigestURL redirectionUrl = extractRedirectURL(request, profile, url, statusCode, statusline.toString(),
 					responseHeader, requestURLString);
 
 			if (this.sb.getConfigBool(SwitchboardConstants.CRAWLER_FOLLOW_REDIRECTS, true)) {
@@ -262,7 +262,7 @@ public final class HTTPLoader {
 	 * @throws IOException when an error occured
 	 */
 	private DigestURL extractRedirectURL(final Request request, CrawlProfile profile, DigestURL url,
-			final StatusLine statusline, final ResponseHeader responseHeader, String requestURLString)
+			final int statusCode, final String statusline, final ResponseHeader responseHeader, String requestURLString)
 					throws IOException {
 		// read redirection URL
 		String redirectionUrlString = responseHeader.get(HeaderFramework.LOCATION);
@@ -271,7 +271,7 @@ public final class HTTPLoader {
 		if (redirectionUrlString.isEmpty()) {
 			this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile,
 					FailCategory.TEMPORARY_NETWORK_FAILURE,
-					"no redirection url provided, field '" + HeaderFramework.LOCATION + "' is empty", statusline.getStatusCode());
+					"no redirection url provided, field '" + HeaderFramework.LOCATION + "' is empty", statusCode);
 			throw new IOException("REJECTED EMTPY REDIRECTION '" + statusline
 					+ "' for URL '" + requestURLString + "'$");
 		}
@@ -288,7 +288,7 @@ public final class HTTPLoader {
 
 		if (this.sb.getConfigBool(SwitchboardConstants.CRAWLER_RECORD_REDIRECTS, true)) {
 			this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile,
-					FailCategory.FINAL_REDIRECT_RULE, "redirect to " + redirectionUrlString, statusline.getStatusCode());
+					FailCategory.FINAL_REDIRECT_RULE, "redirect to " + redirectionUrlString, statusCode);
 		}
 		return redirectionUrl;
 	}
@@ -300,7 +300,7 @@ public final class HTTPLoader {
 	 * @return a request header
 	 * @throws IOException when an error occured
 	 */
-	private RequestHeader createRequestheader(final Request request, final ClientIdentification.Agent agent)
+	RequestHeader createRequestheader(final Request request, final ClientIdentification.Agent agent)
 			throws IOException {
 		final RequestHeader requestHeader = new RequestHeader();
 		requestHeader.put(HeaderFramework.USER_AGENT, agent.userAgent);
@@ -321,13 +321,15 @@ public final class HTTPLoader {
 		return requestHeader;
 	}
 
-    private Response load(final Request request, CrawlProfile profile, final int retryCount, final int maxFileSize, final BlacklistType blacklistType, final ClientIdentification.Agent agent) throws IOException {
-
-        if (retryCount < 0) {
-            this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "retry counter exceeded", -1);
-            throw new IOException("retry counter exceeded for URL " + request.url().toString() + ". Processing aborted.$");
-        }
-
+    /**
+     * Check the url of a request against the blacklist and resolve yacy domains.
+     * @param request the request essentials
+     * @param profile crawl profile
+     * @param blacklistType blacklist type to use
+     * @return the url to be loaded
+     * @throws IOException when the url is not well-formed or blacklisted
+     */
+    DigestURL targetURL(final Request request, final CrawlProfile profile, final BlacklistType blacklistType) throws IOException {
         DigestURL url = request.url();
 
         final String host = url.getHost();
@@ -353,8 +355,17 @@ public final class HTTPLoader {
         	}
         }
 
-        // take a file from the net
-        Response response = null;
+        return url;
+    }
+
+    private Response load(final Request request, CrawlProfile profile, final int retryCount, final int maxFileSize, final BlacklistType blacklistType, final ClientIdentification.Agent agent) throws IOException {
+
+        if (retryCount < 0) {
+            this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "retry counter exceeded", -1);
+            throw new IOException("retry counter exceeded for URL " + request.url().toString() + ". Processing aborted.$");
+        }
+
+        final DigestURL url = targetURL(request, profile, blacklistType);
 
         // create a request header
         final RequestHeader requestHeader = createRequestheader(request, agent);
@@ -369,12 +380,36 @@ public final class HTTPLoader {
     	final byte[] responseBody = client.GETbytes(url, sb.getConfig(SwitchboardConstants.ADMIN_ACCOUNT_USER_NAME, "admin"), sb.getConfig(SwitchboardConstants.ADMIN_ACCOUNT_B64MD5, ""), maxFileSize, false);
         final int statusCode = client.getHttpResponse().getStatusLine().getStatusCode();
     	final ResponseHeader responseHeader = new ResponseHeader(statusCode, client.getHttpResponse().getAllHeaders());
+    	final Response response = response(request, profile, url, requestHeader, client.getHttpResponse().getStatusLine().toString(), responseHeader, responseBody, maxFileSize);
+    	if (response != null) return response;
+
+    	// retry crawling with new url
+    	return load(request, profile, retryCount - 1, maxFileSize, blacklistType, agent);
+    }
+
+    /**
+     * Check the status of a loaded resource and create the response for it. This is shared by the
+     * blocking {@link #load(Request, CrawlProfile, int, BlacklistType, ClientIdentification.Agent)} and the {@link HTTPAsyncLoader}.
+     * @param request the request essentials
+     * @param profile crawl profile
+     * @param url the loaded url
+     * @param requestHeader the header of the sent request
+     * @param statusLine the status line of the response, used in messages
+     * @param responseHeader the header of the response
+     * @param responseBody the loaded content
+     * @param maxFileSize max file size to load. -1 means no limit.
+     * @return the response, or null if a redirection shall be followed: then the url of the request is changed to the redirection target
+     * @throws IOException when the response was rejected
+     */
+    Response response(final Request request, final CrawlProfile profile, final DigestURL url, final RequestHeader requestHeader,
+            final String statusLine, final ResponseHeader responseHeader, final byte[] responseBody, final int maxFileSize) throws IOException {
+        final int statusCode = responseHeader.getStatusCode();
         String requestURLString = request.url().toNormalform(true);
 
         // check redirection
     	if (statusCode > 299 && statusCode < 310) {
 
-    	    final DigestURL redirectionUrl = extractRedirectURL(request, profile, url, client.getHttpResponse().getStatusLine(),
+    	    final DigestURL redirectionUrl = extractRedirectURL(request, profile, url, statusCode, statusLine,
 					responseHeader, requestURLString);
 
     	    if (this.sb.getConfigBool(SwitchboardConstants.CRAWLER_FOLLOW_REDIRECTS, true)) {
@@ -409,15 +444,15 @@ public final class HTTPLoader {
 
                 // retry crawling with new url
                 request.redirectURL(redirectionUrl);
-                return load(request, profile, retryCount - 1, maxFileSize, blacklistType, agent);
+                return null;
     	    }
             // we don't want to follow redirects
             this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.FINAL_PROCESS_CONTEXT, "redirection not wanted", statusCode);
-            throw new IOException("REJECTED UNWANTED REDIRECTION '" + client.getHttpResponse().getStatusLine() + "' for URL '" + requestURLString + "'$");
+            throw new IOException("REJECTED UNWANTED REDIRECTION '" + statusLine + "' for URL '" + requestURLString + "'$");
         } else if (responseBody == null) {
     	    // no response, reject file
             this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "no response body", statusCode);
-            throw new IOException("REJECTED EMPTY RESPONSE BODY '" + client.getHttpResponse().getStatusLine() + "' for URL '" + requestURLString + "'$");
+            throw new IOException("REJECTED EMPTY RESPONSE BODY '" + statusLine + "' for URL '" + requestURLString + "'$");
     	} else if (statusCode == 200 || statusCode == 203) {
             // the transfer is ok
 
@@ -432,7 +467,7 @@ public final class HTTPLoader {
             }
 
             // create a new cache entry
-            response = new Response(
+            return new Response(
                     request,
                     requestHeader,
                     responseHeader,
@@ -440,12 +475,10 @@ public final class HTTPLoader {
                     false,
                     responseBody
             );
-
-            return response;
     	} else {
             // if the response has not the right response type then reject file
         	this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), profile, FailCategory.TEMPORARY_NETWORK_FAILURE, "wrong http status code", statusCode);
-            throw new IOException("REJECTED WRONG STATUS TYPE '" + client.getHttpResponse().getStatusLine() + "' for URL '" + requestURLString + "'$");
+            throw new IOException("REJECTED WRONG STATUS TYPE '" + statusLine + "' for URL '" + requestURLString + "'$");
         }
     }
 
@@ -0,0 +1,93 @@
+// PathPrefixTrie.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.crawler.robots;
+
+import java.util.Collection;
+
+/**
+ * A set of path prefixes, compiled to a trie. A path is matched by walking the trie along its characters,
+ * so the time to match a path does not depend on the number of prefixes.
+ */
+final class PathPrefixTrie {
+
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        private boolean terminal = false;
+
+        private Node child(final char c) {
+            for (int i = 0; i < this.keys.length; i++) if (this.keys[i] == c) return this.children[i];
+            return null;
+        }
+
+        private Node addChild(final char c) {
+            Node n = child(c);
+            if (n != null) return n;
+            n = new Node();
+            final int l = this.keys.length;
+            final char[] k = new char[l + 1];
+            final Node[] ch = new Node[l + 1];
+            System.arraycopy(this.keys, 0, k, 0, l);
+            System.arraycopy(this.children, 0, ch, 0, l);
+            k[l] = c;
+            ch[l] = n;
+            this.keys = k;
+            this.children = ch;
+            return n;
+        }
+    }
+
+    private final Node root;
+    private final boolean empty;
+
+    /**
+     * @param prefixes the path prefixes
+     */
+    PathPrefixTrie(final Collection<String> prefixes) {
+        this.root = new Node();
+        for (final String prefix: prefixes) {
+            Node n = this.root;
+            for (int i = 0; i < prefix.length(); i++) n = n.addChild(prefix.charAt(i));
+            n.terminal = true;
+        }
+        this.empty = prefixes.isEmpty();
+    }
+
+    boolean isEmpty() {
+        return this.empty;
+    }
+
+    /**
+     * @param path
+     * @return the shortest prefix of the path which is in the set, or null if no prefix of the path is in the set
+     */
+    String matchingPrefix(final String path) {
+        Node n = this.root;
+        for (int i = 0; ; i++) {
+            if (n.terminal) return path.substring(0, i);
+            if (i == path.length()) return null;
+            n = n.child(path.charAt(i));
+            if (n == null) return null;
+        }
+    }
+}
@@ -41,6 +41,7 @@ import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import net.yacy.cora.document.id.DigestURL;
@@ -48,6 +49,8 @@ import net.yacy.cora.document.id.MultiProtocolURL;
 import net.yacy.cora.federate.yacy.CacheStrategy;
 import net.yacy.cora.protocol.ClientIdentification;
 import net.yacy.cora.protocol.HeaderFramework;
+import net.yacy.cora.storage.ARC;
+import net.yacy.cora.storage.ConcurrentARC;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.crawler.retrieval.Request;
@@ -66,12 +69,21 @@ public class RobotsTxt {
     protected static final String ROBOTS_DB_PATH_SEPARATOR = ";";
     protected static final Pattern ROBOTS_DB_PATH_SEPARATOR_MATCHER = Pattern.compile(ROBOTS_DB_PATH_SEPARATOR);
 
+    /** the age of a robots.txt after which it is loaded again */
+    private static final long MAX_AGE = 7L * 24L * 60L * 60L * 1000L;
+
+    /** the default number of hosts with compiled robots.txt rules in memory */
+    public static final int DEFAULT_CACHE_SIZE = 10000;
+
     private final ConcurrentMap<String, DomSync> syncObjects;
     //private static final HashSet<String> loadedRobots = new HashSet<String>(); // only for debugging
     private final WorkTables tables;
     private final LoaderDispatcher loader;
     /** Thread pool used to launch concurrent tasks */
 	private ThreadPoolExecutor threadPool; 
+    /** the compiled entries of the robots table; the crawler finds the rules of a host here without decoding a record */
+    private final ARC<String, RobotsTxtEntry> compiled;
+    private final AtomicLong cacheHit, cacheMiss, cacheInsert, cacheExpired;
 
     private static class DomSync {
     	private DomSync() {}
@@ -84,6 +96,22 @@ public class RobotsTxt {
      * @param maxConcurrentTheads maximum active threads this instance is allowed to run for its concurrent tasks
      */
     public RobotsTxt(final WorkTables worktables, LoaderDispatcher loader, final int maxActiveTheads) {
+        this(worktables, loader, maxActiveTheads, DEFAULT_CACHE_SIZE);
+    }
+
+    /**
+     * 
+     * @param worktables
+     * @param loader
+     * @param maxConcurrentTheads maximum active threads this instance is allowed to run for its concurrent tasks
+     * @param cacheSize the maximum number of hosts with compiled robots.txt rules in memory
+     */
+    public RobotsTxt(final WorkTables worktables, LoaderDispatcher loader, final int maxActiveTheads, final int cacheSize) {
+        this.compiled = new ConcurrentARC<String, RobotsTxtEntry>(Math.max(100, cacheSize), Math.min(32, 2 * Runtime.getRuntime().availableProcessors()));
+        this.cacheHit = new AtomicLong(0);
+        this.cacheMiss = new AtomicLong(0);
+        this.cacheInsert = new AtomicLong(0);
+        this.cacheExpired = new AtomicLong(0);
     	this.threadPool = new ThreadPoolExecutor(maxActiveTheads, maxActiveTheads,
                 0L, TimeUnit.MILLISECONDS,
                 new LinkedBlockingQueue<Runnable>(),
@@ -105,6 +133,7 @@ public class RobotsTxt {
     public void clear() throws IOException {
         log.info("clearing robots table");
         this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME).clear();
+        this.compiled.clear();
         this.syncObjects.clear();
     }
     
@@ -119,6 +148,46 @@ public class RobotsTxt {
         return this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME).size();
     }
 
+    /**
+     * @return the number of hosts with compiled rules in memory
+     */
+    public int cacheSize() {
+        return this.compiled.size();
+    }
+
+    /**
+     * @return the number of entries which were taken from the compiled rules
+     */
+    public long cacheHit() {
+        return this.cacheHit.get();
+    }
+
+    /**
+     * @return the number of entries which had to be read from the robots table or loaded
+     */
+    public long cacheMiss() {
+        return this.cacheMiss.get();
+    }
+
+    /**
+     * @return the number of compiled entries put into memory
+     */
+    public long cacheInsert() {
+        return this.cacheInsert.get();
+    }
+
+    /**
+     * @return the number of compiled entries which were found but too old to be used
+     */
+    public long cacheExpired() {
+        return this.cacheExpired.get();
+    }
+
+    private void cache(final String urlHostPort, final RobotsTxtEntry entry) {
+        this.compiled.insert(urlHostPort, entry);
+        this.cacheInsert.incrementAndGet();
+    }
+
     public RobotsTxtEntry getEntry(final MultiProtocolURL theURL, final ClientIdentification.Agent agent) {
         if (theURL == null) throw new IllegalArgumentException();
         if (!theURL.getProtocol().startsWith("http")) return null;
@@ -127,7 +196,16 @@ public class RobotsTxt {
 
     public RobotsTxtEntry getEntry(final String urlHostPort, final ClientIdentification.Agent agent, final boolean fetchOnlineIfNotAvailableOrNotFresh) {
             // this method will always return a non-null value
-        RobotsTxtEntry robotsTxt4Host = null;
+        RobotsTxtEntry robotsTxt4Host = this.compiled.get(urlHostPort);
+        if (robotsTxt4Host != null) {
+            if (!fetchOnlineIfNotAvailableOrNotFresh || robotsTxt4Host.isFresh(MAX_AGE)) {
+                this.cacheHit.incrementAndGet();
+                return robotsTxt4Host;
+            }
+            this.cacheExpired.incrementAndGet();
+        }
+        this.cacheMiss.incrementAndGet();
+        robotsTxt4Host = null;
         Map<String, byte[]> record;
         BEncodedHeap robotsTable = null;
         try {
@@ -144,13 +222,12 @@ public class RobotsTxt {
             log.warn("cannot get robotstxt from table", e);
             record = null;
         }
-        if (record != null) robotsTxt4Host = new RobotsTxtEntry(urlHostPort, record);
+        if (record != null) {
+            robotsTxt4Host = new RobotsTxtEntry(urlHostPort, record);
+            cache(urlHostPort, robotsTxt4Host);
+        }
 
-        if (fetchOnlineIfNotAvailableOrNotFresh && (
-             robotsTxt4Host == null ||
-             robotsTxt4Host.getLoadedDate() == null ||
-             System.currentTimeMillis() - robotsTxt4Host.getLoadedDate().getTime() > 7*24*60*60*1000
-           )) {
+        if (fetchOnlineIfNotAvailableOrNotFresh && (robotsTxt4Host == null || !robotsTxt4Host.isFresh(MAX_AGE))) {
 
             // make or get a synchronization object
         	DomSync syncObj = this.syncObjects.get(urlHostPort);
@@ -173,10 +250,11 @@ public class RobotsTxt {
                     log.warn("cannot get robotstxt from table", e);
                     record = null;
                 }
-                if (record != null) robotsTxt4Host = new RobotsTxtEntry(urlHostPort, record);
-                if (robotsTxt4Host != null &&
-                    robotsTxt4Host.getLoadedDate() != null &&
-                    System.currentTimeMillis() - robotsTxt4Host.getLoadedDate().getTime() <= 1*24*60*60*1000) {
+                if (record != null) {
+                    robotsTxt4Host = new RobotsTxtEntry(urlHostPort, record);
+                    cache(urlHostPort, robotsTxt4Host);
+                }
+                if (robotsTxt4Host != null && robotsTxt4Host.isFresh(1*24*60*60*1000)) {
                     return robotsTxt4Host;
                 }
 
@@ -209,6 +287,7 @@ public class RobotsTxt {
     public void delete(final MultiProtocolURL theURL) {
         final String urlHostPort = getHostPort(theURL);
         if (urlHostPort == null) return;
+        this.compiled.remove(urlHostPort);
         final BEncodedHeap robotsTable;
         try {
             robotsTable = this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME);
@@ -227,6 +306,7 @@ public class RobotsTxt {
         if (theURL.isLocal()) return;
         final String urlHostPort = getHostPort(theURL);
         if (urlHostPort == null) return;
+        if (this.compiled.containsKey(urlHostPort)) return;
         final BEncodedHeap robotsTable;
         try {
             robotsTable = this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME);
@@ -363,6 +443,7 @@ public class RobotsTxt {
         try {
             final BEncodedHeap robotsTable = this.tables.getHeap(WorkTables.TABLE_ROBOTS_NAME);
             robotsTable.insert(robotsTable.encodedKey(entry.getHostName()), entry.getMem());
+            cache(entry.getHostName(), entry);
             return entry.getHostName();
         } catch (final Exception e) {
             log.warn("cannot write robots.txt entry", e);
@@ -28,10 +28,10 @@
 
 package net.yacy.crawler.robots;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Date;
 import java.util.LinkedHashMap;
-import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -43,6 +43,10 @@ import net.yacy.cora.util.ByteArray;
 import net.yacy.cora.util.ConcurrentLog;
 
 
+/**
+ * The robots.txt rules of one host. The stored record is decoded once when the entry is created; the deny paths
+ * are compiled to a prefix trie, so that an entry can be kept in memory and shared by all threads which check urls.
+ */
 public class RobotsTxtEntry {
 
     private static final String HOST_NAME          = "hostname";
@@ -60,20 +64,40 @@ public class RobotsTxtEntry {
     private final Map<String, byte[]> mem;
     private final List<String> allowPathList, denyPathList, sitemapList;
     private final String hostName, agentName;
-    private String info; // this is filled if robots disallowed access; then the reason is noted there;
+    private PathPrefixTrie denyPaths;
+    private volatile long loadedDate; // -1 if unknown
+    private int crawlDelayMillis;
 
     protected RobotsTxtEntry(final String hostName, final Map<String, byte[]> mem) {
         this.hostName = hostName.toLowerCase(Locale.ROOT);
         this.mem = mem;
-        this.info = "";
 
-        this.denyPathList = new LinkedList<String>();
+        this.denyPathList = new ArrayList<String>();
         fillMultiValue(this.denyPathList, DISALLOW_PATH_LIST);
-        this.allowPathList = new LinkedList<String>();
+        this.allowPathList = new ArrayList<String>();
         fillMultiValue(this.allowPathList, ALLOW_PATH_LIST);
-        this.sitemapList = new LinkedList<String>();
+        this.sitemapList = new ArrayList<String>();
         fillMultiValue(this.sitemapList, SITEMAP_LIST);
         this.agentName = this.mem.containsKey(AGENT_NAME) ? UTF8.String(this.mem.get(AGENT_NAME)) : null;
+        compile();
+    }
+
+    /**
+     * decode the values which are needed to check urls
+     */
+    private void compile() {
+        this.denyPaths = new PathPrefixTrie(this.denyPathList);
+        this.loadedDate = -1;
+        if (this.mem.containsKey(LOADED_DATE)) try {
+            this.loadedDate = ByteArray.parseDecimal(this.mem.get(LOADED_DATE));
+        } catch (final NumberFormatException e) {}
+        this.crawlDelayMillis = 0;
+        if (this.mem.containsKey(CRAWL_DELAY_MILLIS)) try {
+            this.crawlDelayMillis = (int) ByteArray.parseDecimal(this.mem.get(CRAWL_DELAY_MILLIS));
+        } catch (final NumberFormatException e) {
+        } else if (this.mem.containsKey(CRAWL_DELAY)) try {
+            this.crawlDelayMillis = 1000 * ((int) ByteArray.parseDecimal(this.mem.get(CRAWL_DELAY)));
+        } catch (final NumberFormatException e) {}
     }
 
     private void fillMultiValue(List<String> list, String listName) {
@@ -102,9 +126,9 @@ public class RobotsTxtEntry {
         if (theURL == null) throw new IllegalArgumentException("The url is missing");
 
         this.hostName = RobotsTxt.getHostPort(theURL).toLowerCase(Locale.ROOT);
-        this.allowPathList = new LinkedList<String>();
-        this.denyPathList = new LinkedList<String>();
-        this.sitemapList = new LinkedList<String>();
+        this.allowPathList = new ArrayList<String>();
+        this.denyPathList = new ArrayList<String>();
+        this.sitemapList = new ArrayList<String>();
         this.agentName = agentName;
 
         this.mem = new LinkedHashMap<String, byte[]>(10);
@@ -118,6 +142,7 @@ public class RobotsTxtEntry {
         readMultiValue(allowPathList,    this.allowPathList, ALLOW_PATH_LIST);
         readMultiValue(disallowPathList, this.denyPathList,  DISALLOW_PATH_LIST);
         readMultiValue(sitemapList,      this.sitemapList,   SITEMAP_LIST);
+        compile();
     }
 
     private void readMultiValue(List<String> externallist, List<String> internallist, String listName) {
@@ -141,7 +166,9 @@ public class RobotsTxtEntry {
     }
 
     protected Map<String, byte[]> getMem() {
-        if (!this.mem.containsKey(HOST_NAME)) this.mem.put(HOST_NAME, UTF8.getBytes(this.hostName));
+        synchronized (this.mem) {
+            if (!this.mem.containsKey(HOST_NAME)) this.mem.put(HOST_NAME, UTF8.getBytes(this.hostName));
+        }
         return this.mem;
     }
 
@@ -171,15 +198,23 @@ public class RobotsTxtEntry {
     }
 
     protected Date getLoadedDate() {
-        if (this.mem.containsKey(LOADED_DATE)) {
-            return new Date(ByteArray.parseDecimal(this.mem.get(LOADED_DATE)));
-        }
-        return null;
+        return this.loadedDate < 0 ? null : new Date(this.loadedDate);
+    }
+
+    /**
+     * @param maxAge the maximum age in milliseconds
+     * @return true if the robots.txt was loaded within the given time
+     */
+    protected boolean isFresh(final long maxAge) {
+        return this.loadedDate >= 0 && System.currentTimeMillis() - this.loadedDate <= maxAge;
     }
 
     protected void setLoadedDate(final Date newLoadedDate) {
         if (newLoadedDate != null) {
-            this.mem.put(LOADED_DATE, ASCII.getBytes(Long.toString(newLoadedDate.getTime())));
+            synchronized (this.mem) {
+                this.mem.put(LOADED_DATE, ASCII.getBytes(Long.toString(newLoadedDate.getTime())));
+            }
+            this.loadedDate = newLoadedDate.getTime();
         }
     }
 
@@ -198,29 +233,34 @@ public class RobotsTxtEntry {
     }
 
     public int getCrawlDelayMillis() {
-        if (this.mem.containsKey(CRAWL_DELAY_MILLIS)) try {
-            return (int) ByteArray.parseDecimal(this.mem.get(CRAWL_DELAY_MILLIS));
-        } catch (final NumberFormatException e) {
-            return 0;
-        }
-        if (this.mem.containsKey(CRAWL_DELAY)) try {
-            return 1000 * ((int) ByteArray.parseDecimal(this.mem.get(CRAWL_DELAY)));
-        } catch (final NumberFormatException e) {
-            return 0;
-        }
-        return 0;
+        return this.crawlDelayMillis;
     }
 
     public boolean isDisallowed(final MultiProtocolURL subpathURL) {
+        if (this.mem == null || this.denyPaths.isEmpty()) return false;
+        return this.denyPaths.matchingPrefix(path(subpathURL)) != null;
+    }
+
+    /**
+     * the entry is shared by all threads, therefore the reason is computed for the given url and not stored
+     * @param subpathURL
+     * @return the reason why access to the url is allowed or disallowed
+     */
+    public String getInfo(final MultiProtocolURL subpathURL) {
+        if (this.mem == null) return "no robots file available";
+        if (this.denyPaths.isEmpty()) return "no entry in robots.txt";
+        final String path = path(subpathURL);
+        final String element = this.denyPaths.matchingPrefix(path);
+        if (element != null) return "path '" + path + "' starts with '" + element + "' from deny path list = " + this.denyPathList.toString();
+        return "path '" + path + "' does not start with any element from deny path list";
+    }
+
+    /**
+     * @param subpathURL
+     * @return the path of the url in the form of the entries in the deny path list
+     */
+    private static String path(final MultiProtocolURL subpathURL) {
         String path = subpathURL.getFile();
-        if (this.mem == null) {
-            this.info = "no robots file available";
-            return false;
-        }
-        if (this.denyPathList.isEmpty()) {
-            this.info = "no entry in robots.txt";
-            return false;
-        }
 
         // if the path is null or empty we set it to /
         if (path == null || path.isEmpty()) {
@@ -236,20 +276,6 @@ public class RobotsTxtEntry {
             // escaping all occurences of ; because this char is used as special char in the Robots DB
         	path = RobotsTxt.ROBOTS_DB_PATH_SEPARATOR_MATCHER.matcher(path).replaceAll("%3B");
         }
-
-        for (final String element : this.denyPathList) {
-
-            // disallow rule
-            if (path.startsWith(element)) {
-                this.info = "path '" + path + "' starts with '" + element + "' from deny path list = " + this.denyPathList.toString();
-                return true;
-            }
-        }
-        this.info = "path '" + path + "' does not start with any element from deny path list";
-        return false;
-    }
-
-    public String getInfo() {
-        return this.info;
+        return path;
     }
 }
\ No newline at end of file
@@ -32,10 +32,13 @@ import java.io.PushbackInputStream;
 import java.io.StringReader;
 import java.net.MalformedURLException;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.xml.parsers.ParserConfigurationException;
 import javax.xml.parsers.SAXParser;
@@ -51,12 +54,19 @@ import org.xml.sax.SAXException;
 import org.xml.sax.SAXParseException;
 import org.xml.sax.helpers.DefaultHandler;
 
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.AnchorURL;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.lod.vocabulary.DublinCore;
 import net.yacy.cora.lod.vocabulary.Geo;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.JSONArray;
+import net.yacy.cora.util.JSONException;
+import net.yacy.cora.util.JSONObject;
+import net.yacy.cora.util.JSONTokener;
 import net.yacy.crawler.CrawlStacker;
 import net.yacy.search.schema.CollectionConfiguration;
+import net.yacy.search.schema.CollectionSchema;
 
 
 public class SurrogateReader extends DefaultHandler implements Runnable {
@@ -81,13 +91,15 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
     private boolean parsingValue;
     private DCEntry dcEntry;
     private String elementName;
-    /** Surrogates are either SolrInputDocument or DCEntry instances*/
+    /** Surrogates are either SolrInputDocument or DCEntry instances or lines of a Solr xml or flat json dump which are converted in {@link #take()} */
     private final BlockingQueue<Object> surrogates;
+    private final AtomicLong charsRead;
     private SAXParser saxParser;
     private final PushbackInputStream inputStream;
     private final CrawlStacker crawlStacker;
     private final CollectionConfiguration configuration;
     private final int concurrency;
+    private volatile boolean flatJSONDump;
 
     private static final ThreadLocal<SAXParser> tlSax = new ThreadLocal<SAXParser>();
     private static SAXParser getParser() throws SAXException {
@@ -117,6 +129,7 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
         this.elementName = null;
         this.surrogates = new ArrayBlockingQueue<>(queueSize);
         this.inputStream = stream;
+        this.charsRead = new AtomicLong(0);
         
         try {
             this.saxParser = getParser();
@@ -131,30 +144,15 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
         // test the syntax of the stream by reading parts of the beginning
         try {
             BufferedReader br = new BufferedReader(new InputStreamReader(this.inputStream, StandardCharsets.UTF_8));
-            if (isSolrDump()) {
+            final boolean solrDump = isSolrDump();
+            this.flatJSONDump = !solrDump && isFlatJSON();
+            if (solrDump || this.flatJSONDump) {
+                // the lines are converted by the threads which take them
                 String line;
                 while ((line = br.readLine()) != null) {
-                    if (!line.startsWith("<doc>")) continue;
-                    try {
-                        NamedList<Object> nl = new XMLResponseParser().processResponse(new StringReader("<result>" + line + "</result>")); // 
-                        SolrDocument doc = (SolrDocument) nl.iterator().next().getValue();
-
-                        // check if url is in accepted domain
-                        String u = (String) doc.getFieldValue("sku");
-                        if (u != null) {
-                            try {
-                                DigestURL url = new DigestURL(u);
-                                final String urlRejectReason = this.crawlStacker.urlInAcceptedDomain(url);
-                                if ( urlRejectReason == null ) {
-                                    // convert SolrDocument to SolrInputDocument
-                                    this.surrogates.put(this.configuration.toSolrInputDocument(doc));
-                                }
-                            } catch (MalformedURLException e) {
-                            }
-                        }
-                    } catch (Throwable ee) {
-                        // bad line
-                    }
+                    this.charsRead.addAndGet(line.length() + 1);
+                    if (solrDump ? !line.startsWith("<doc>") : line.length() == 0) continue;
+                    this.surrogates.put(solrDump ? new SolrXMLLine(line) : new FlatJSONLine(line));
                 }
             } else {
                 final InputSource inputSource = new InputSource(br);
@@ -167,6 +165,8 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
             ConcurrentLog.logException(e);
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
+        } catch (final InterruptedException e) {
+            ConcurrentLog.logException(e);
         } finally {
             for (int i = 0; i < this.concurrency; i++) {
                 try {
@@ -217,6 +217,35 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
 		}
 		return res;
 	}
+
+	/**
+	 * Guess the flat json format (one json object per line, see https://github.com/yacy/yacy_grid_parser/blob/master/README.md)
+	 * by a '{' as first character in the first {@value #PUSHBACK_SIZE} characters.
+	 *
+	 * @return true when inputStream is likely to contain a flat json dump
+	 */
+	private boolean isFlatJSON() {
+		boolean res = false;
+		byte[] b = new byte[PUSHBACK_SIZE];
+		int nbRead = -1;
+		try {
+			nbRead = this.inputStream.read(b);
+			if (nbRead > 0) {
+				res = new String(b, 0, nbRead, StandardCharsets.UTF_8).trim().startsWith("{");
+			}
+		} catch (IOException e) {
+			ConcurrentLog.logException(e);
+		} finally {
+			if (nbRead > 0) {
+				try {
+					this.inputStream.unread(b, 0, nbRead);
+				} catch (IOException e2) {
+					ConcurrentLog.logException(e2);
+				}
+			}
+		}
+		return res;
+	}
     
     @Override
     public void startElement(final String uri, final String name, String tag, final Attributes atts) throws SAXException {
@@ -299,13 +328,165 @@ public class SurrogateReader extends DefaultHandler implements Runnable {
         }
     }
 
+    /**
+     * Take the next surrogate. Lines of a Solr xml or flat json dump are converted to a SolrInputDocument
+     * in the calling thread, so that the conversion is done concurrently by all consumers.
+     * @return a SolrInputDocument, a DCEntry or {@link #POISON_DOCUMENT} at the end of the stream
+     */
     public Object take() {
         try {
-            return this.surrogates.take();
+            while (true) {
+                final Object surrogate = this.surrogates.take();
+                if (surrogate instanceof SolrXMLLine) {
+                    final SolrInputDocument doc = solrXML2Solr(((SolrXMLLine) surrogate).line);
+                    if (doc != null) return doc;
+                } else if (surrogate instanceof FlatJSONLine) {
+                    final SolrInputDocument doc = flatJSON2Solr(((FlatJSONLine) surrogate).line);
+                    if (doc != null) return doc;
+                } else {
+                    return surrogate;
+                }
+            }
         } catch (final InterruptedException e) {
             ConcurrentLog.logException(e);
             return null;
         }
     }
 
+    /**
+     * @return true if the stream is a flat json dump; the documents of such a dump are not enriched by the indexer
+     */
+    public boolean isFlatJSONDump() {
+        return this.flatJSONDump;
+    }
+
+    /**
+     * @return the number of characters read from the stream in a Solr xml or flat json dump, for progress reports
+     */
+    public long charactersRead() {
+        return this.charsRead.get();
+    }
+
+    private static final class SolrXMLLine {
+        private final String line;
+        private SolrXMLLine(final String line) {
+            this.line = line;
+        }
+    }
+
+    private static final class FlatJSONLine {
+        private final String line;
+        private FlatJSONLine(final String line) {
+            this.line = line;
+        }
+    }
+
+    /**
+     * convert a line of a Solr xml dump
+     * @return the document or null if the line cannot be parsed or the url is not in an accepted domain
+     */
+    private SolrInputDocument solrXML2Solr(final String line) {
+        try {
+            NamedList<Object> nl = new XMLResponseParser().processResponse(new StringReader("<result>" + line + "</result>")); // 
+            SolrDocument doc = (SolrDocument) nl.iterator().next().getValue();
+
+            // check if url is in accepted domain
+            String u = (String) doc.getFieldValue("sku");
+            if (u != null) {
+                try {
+                    DigestURL url = new DigestURL(u);
+                    final String urlRejectReason = this.crawlStacker.urlInAcceptedDomain(url);
+                    if ( urlRejectReason == null ) {
+                        // convert SolrDocument to SolrInputDocument
+                        return this.configuration.toSolrInputDocument(doc);
+                    }
+                } catch (MalformedURLException e) {
+                }
+            }
+        } catch (Throwable ee) {
+            // bad line
+        }
+        return null;
+    }
+
+    /**
+     * convert a line of a flat json dump, as it can be generated with yacy_grid_parser
+     * see https://github.com/yacy/yacy_grid_parser/blob/master/README.md
+     * @return the document or null if the line is not a document or cannot be parsed
+     */
+    public static SolrInputDocument flatJSON2Solr(final String line) {
+        try {
+            JSONTokener jt = new JSONTokener(line);
+            JSONObject json = new JSONObject(jt);
+            if ((json.has("index") && json.length() == 1) || json.length() == 0) return null;
+            SolrInputDocument surrogate = new SolrInputDocument();
+            for (String key: json.keySet()) {
+                Object o = json.get(key);
+                if (o instanceof JSONArray) {
+                    // transform this into a list
+                    JSONArray a = (JSONArray) o;
+                    // patch altered yacy grid schema (yacy grid does not split url lists into protocol and urlstub)
+                    if (key.equals("inboundlinks_sxt")) {
+                        // compute inboundlinks_urlstub_sxt and inboundlinks_protocol_sxt
+                        List<Object> urlstub = new ArrayList<>();
+                        List<Object> protocol = new ArrayList<>();
+                        for (int i = 0; i < a.length(); i++) {
+                            AnchorURL b = new AnchorURL((String) a.get(i));
+                            urlstub.add(b.urlstub(true, true));
+                            protocol.add(b.getProtocol());
+                        }
+                        CollectionSchema.inboundlinks_urlstub_sxt.add(surrogate, urlstub);
+                        CollectionSchema.inboundlinks_protocol_sxt.add(surrogate, protocol);
+                    } else if (key.equals("outboundlinks_sxt")) {
+                        // compute outboundlinks_urlstub_sxt and outboundlinks_protocol_sxt
+                        List<Object> urlstub = new ArrayList<>();
+                        List<Object> protocol = new ArrayList<>();
+                        for (int i = 0; i < a.length(); i++) {
+                            AnchorURL b = new AnchorURL((String) a.get(i));
+                            urlstub.add(b.urlstub(true, true));
+                            protocol.add(b.getProtocol());
+                        }
+                        CollectionSchema.outboundlinks_urlstub_sxt.add(surrogate, urlstub);
+                        CollectionSchema.outboundlinks_protocol_sxt.add(surrogate, protocol);
+                    } else if (key.equals("images_sxt")) {
+                        // compute images_urlstub_sxt and images_protocol_sxt
+                        List<Object> urlstub = new ArrayList<>();
+                        List<Object> protocol = new ArrayList<>();
+                        for (int i = 0; i < a.length(); i++) {
+                            AnchorURL b = new AnchorURL((String) a.get(i));
+                            urlstub.add(b.urlstub(true, true));
+                            protocol.add(b.getProtocol());
+                        }
+                        CollectionSchema.images_urlstub_sxt.add(surrogate, urlstub);
+                        CollectionSchema.images_protocol_sxt.add(surrogate, protocol);
+                    } else {
+                        List<Object> list = new ArrayList<>();
+                        for (int i = 0; i < a.length(); i++) list.add(a.get(i));
+                        CollectionSchema schema = CollectionSchema.valueOf(key);
+                        schema.add(surrogate, list);
+                    }
+                } else {
+                    // patch yacy grid altered schema (yacy grid does not have IDs any more, but they can be re-computed here)
+                    if (key.equals("url_s")) {
+                        DigestURL durl = new DigestURL(o.toString());
+                        String id = ASCII.String(durl.hash());
+                        surrogate.setField(CollectionSchema.sku.getSolrFieldName(), durl.toNormalform(true));
+                        surrogate.setField(CollectionSchema.id.getSolrFieldName(), id);
+                        surrogate.setField(CollectionSchema.host_id_s.getSolrFieldName(), id.substring(6));
+                    } else if (key.equals("referrer_url_s")) {
+                        DigestURL durl = new DigestURL(o.toString());
+                        String id = ASCII.String(durl.hash());
+                        surrogate.setField(CollectionSchema.referrer_id_s.getSolrFieldName(), id);
+                    } else {
+                        surrogate.setField(key, o.toString());
+                    }
+                }
+            }
+            return surrogate;
+        } catch (final JSONException | MalformedURLException | IllegalArgumentException e) {
+            ConcurrentLog.warn("SurrogateReader", "bad flat json line: " + e.getMessage());
+            return null;
+        }
+    }
+
 }
@@ -22,21 +22,37 @@
  */
 package net.yacy.document.importer;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.protocol.HeaderFramework;
 import net.yacy.cora.protocol.RequestHeader;
 import net.yacy.cora.protocol.ResponseHeader;
-import net.yacy.cora.util.ByteBuffer;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
 import net.yacy.document.TextParser;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+import net.yacy.kelondro.workflow.WorkflowProcessor;
 import net.yacy.search.Switchboard;
 import net.yacy.server.http.ChunkedInputStream;
 import org.jwat.common.HeaderLine;
@@ -55,25 +71,60 @@ import org.jwat.warc.WarcRecord;
  *
  * http://archive-access.sourceforge.net/warc/warc_file_format-0.9.html
  * http://archive-access.sourceforge.net/warc/
+ *
+ * The import is a pipeline: one reader thread per archive (several archives are read concurrently)
+ * extracts the http responses, a pool of decoder threads removes the transfer encoding and creates the
+ * crawler responses which are handed over to the indexing queues of the Switchboard. The queues between
+ * the stages are bounded, so that a reader waits if the parser and indexer are busy.
  */
 public class WarcImporter extends Thread implements Importer {
 
     static public WarcImporter job; // static object to assure only one importer is running (if started from a servlet, this object is used to store the thread)
 
-    private final InputStream source; // current input warc archive
+    private static final int READ_BUFFER_SIZE = 1 << 16;
+
+    private final InputStream[] sources; // input warc archives, null for files which are opened when they are read
+    private final File[] files; // input warc files or null
+    private final String[] names; // file names of input sources
     private String name; // file name of input source
-    
-    private int recordCnt; // number of responses indexed (for statistic)
+
+    private final AtomicInteger recordCnt; // number of responses indexed (for statistic)
+    private final AtomicInteger readCnt; // number of responses read (for statistic)
+    private final AtomicInteger skipCnt; // number of responses not indexed because of a read or indexing error (for statistic)
+    private final AtomicInteger activeReaders; // number of archives currently read (for statistic)
     private long startTime; // (for statistic)
-    private final long sourceSize; // length of the input source (for statistic)
-    private long consumed; // bytes consumed from input source (for statistic)
-    private boolean abort = false; // flag to signal stop of import
+    private final long sourceSize; // length of the input sources (for statistic)
+    private final AtomicLong consumed; // bytes consumed from input sources (for statistic)
+    private volatile boolean abort = false; // flag to signal stop of import
+
+    /**
+     * an http response read from the archive, the payload is not decoded yet
+     */
+    private static class WarcResponse {
+        private final DigestURL location;
+        private final HttpHeader http;
+        private final byte[] payload;
+
+        private WarcResponse(final DigestURL location, final HttpHeader http, final byte[] payload) {
+            this.location = location;
+            this.http = http;
+            this.payload = payload;
+        }
+    }
+
+    private static final WarcResponse POISON = new WarcResponse(null, null, null);
 
     public WarcImporter(InputStream f) {
     	super("WarcImporter - from InputStream");
-        source = f;
-        recordCnt = 0;
-        sourceSize = -1;
+        this.sources = new InputStream[]{f};
+        this.files = null;
+        this.names = new String[]{null};
+        this.recordCnt = new AtomicInteger(0);
+        this.readCnt = new AtomicInteger(0);
+        this.skipCnt = new AtomicInteger(0);
+        this.activeReaders = new AtomicInteger(0);
+        this.consumed = new AtomicLong(0);
+        this.sourceSize = -1;
     }
 
     /**
@@ -85,14 +136,37 @@ public class WarcImporter extends Thread implements Importer {
      */
     public WarcImporter (InputStream f, String urlinfo) {
         this(f);
-        name = urlinfo;
+        this.name = urlinfo;
+        this.names[0] = urlinfo;
+    }
+
+    public WarcImporter(File f) throws FileNotFoundException {
+        this(new File[]{f});
     }
 
-    public WarcImporter(File f) throws FileNotFoundException{
-       super("WarcImporter - from file " + f.getName());
-       name = f.getName();
-       sourceSize = f.length();
-       source = new FileInputStream(f);
+    /**
+     * Init the WarcImporter with several archives which are read concurrently
+     * @param files the warc archives (plain or gzip'd)
+     * @throws FileNotFoundException
+     */
+    public WarcImporter(File[] files) throws FileNotFoundException {
+        super("WarcImporter - from file " + files[0].getName() + (files.length > 1 ? " and " + (files.length - 1) + " more" : ""));
+        this.name = files.length == 1 ? files[0].getName() : files[0].getParentFile() == null ? files[0].getName() : files[0].getParentFile().getName() + " (" + files.length + " files)";
+        this.sources = new InputStream[files.length];
+        this.files = files;
+        this.names = new String[files.length];
+        long size = 0;
+        for (int i = 0; i < files.length; i++) {
+            if (!files[i].isFile() || !files[i].canRead()) throw new FileNotFoundException(files[i].getAbsolutePath());
+            this.names[i] = files[i].getName();
+            size += files[i].length();
+        }
+        this.sourceSize = size;
+        this.recordCnt = new AtomicInteger(0);
+        this.readCnt = new AtomicInteger(0);
+        this.skipCnt = new AtomicInteger(0);
+        this.activeReaders = new AtomicInteger(0);
+        this.consumed = new AtomicLong(0);
     }
 
     /**
@@ -103,92 +177,196 @@ public class WarcImporter extends Thread implements Importer {
      * @throws IOException
      */
     public void indexWarcRecords(InputStream f) throws IOException {
+        indexWarcRecords(new InputStream[]{f}, null, new String[]{this.name});
+    }
 
-        byte[] content;
+    private void indexWarcRecords(final InputStream[] archives, final File[] archiveFiles, final String[] archiveNames) throws IOException {
         job = this;
-        startTime = System.currentTimeMillis();
+        this.startTime = System.currentTimeMillis();
 
-        WarcReader localwarcReader = WarcReaderFactory.getReader(f);
-        WarcRecord wrec = localwarcReader.getNextRecord();
-        while (wrec != null && !abort) {
-
-            HeaderLine hl = wrec.getHeader(WarcConstants.FN_WARC_TYPE);
-            if (hl != null && hl.value.equals(WarcConstants.RT_RESPONSE)) { // filter responses
+        final int decoders = Math.max(1, WorkflowProcessor.availableCPU / 2);
+        final int readers = Math.min(archives.length, Math.max(1, WorkflowProcessor.availableCPU / 2));
+        // regardless of any exception the decoders get a poison for termination in the final block
+        final BlockingQueue<WarcResponse> responses = new ArrayBlockingQueue<WarcResponse>(decoders * 4);
+        final ExecutorService decoderService = Executors.newFixedThreadPool(decoders,
+                new NamePrefixThreadFactory(WarcImporter.class.getSimpleName() + ".decoder"));
+        final ExecutorService readerService = Executors.newFixedThreadPool(readers,
+                new NamePrefixThreadFactory(WarcImporter.class.getSimpleName() + ".reader"));
+        IOException failure = null;
+        try {
+            for (int i = 0; i < decoders; i++) {
+                decoderService.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        decode(responses);
+                    }
+                });
+            }
+            final List<Future<?>> readerResults = new ArrayList<Future<?>>(archives.length);
+            for (int i = 0; i < archives.length; i++) {
+                final InputStream archive = archives[i];
+                final File archiveFile = archiveFiles == null ? null : archiveFiles[i];
+                final String archiveName = archiveNames[i];
+                readerResults.add(readerService.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() throws IOException {
+                        if (WarcImporter.this.abort) return null;
+                        read(archive == null ? new FileInputStream(archiveFile) : archive, archiveName, responses);
+                        return null;
+                    }
+                }));
+            }
+            for (final Future<?> result: readerResults) {
+                try {
+                    result.get();
+                } catch (final ExecutionException e) {
+                    final Throwable cause = e.getCause();
+                    failure = cause instanceof IOException ? (IOException) cause : new IOException(cause.getMessage(), cause);
+                } catch (final InterruptedException e) {
+                    this.abort = true;
+                }
+            }
+        } finally {
+            readerService.shutdownNow();
+            for (int i = 0; i < decoders; i++) {
+                try {
+                    responses.put(POISON);
+                } catch (final InterruptedException e) {
+                    break;
+                }
+            }
+            decoderService.shutdown();
+            try {
+                while (!decoderService.awaitTermination(1, TimeUnit.SECONDS)) {
+                    if (this.abort) decoderService.shutdownNow();
+                }
+            } catch (final InterruptedException e) {
+                decoderService.shutdownNow();
+            }
+            job = null;
+        }
+        ConcurrentLog.info("WarcImporter", "Indexed " + this.recordCnt.get() + " documents; " + status());
+        if (failure != null) throw failure;
+    }
 
-                hl = wrec.getHeader(WarcConstants.FN_WARC_TARGET_URI);
-                DigestURL location = new DigestURL(hl.value);
+    /**
+     * reader stage: extract the http responses with a supported content type from one archive
+     */
+    private void read(final InputStream archive, final String archiveName, final BlockingQueue<WarcResponse> responses) throws IOException {
+        this.activeReaders.incrementAndGet();
+        final WarcReader localwarcReader = WarcReaderFactory.getReader(archive, READ_BUFFER_SIZE);
+        long lastConsumed = 0;
+        try {
+            WarcRecord wrec = localwarcReader.getNextRecord();
+            while (wrec != null && !this.abort) {
 
-                HttpHeader http = wrec.getHttpHeader();
+                HeaderLine hl = wrec.getHeader(WarcConstants.FN_WARC_TYPE);
+                if (hl != null && hl.value.equals(WarcConstants.RT_RESPONSE)) { // filter responses
 
-                if (http != null && http.statusCode == 200) { // process http response header OK (status 200)
+                    hl = wrec.getHeader(WarcConstants.FN_WARC_TARGET_URI);
+                    final HttpHeader http = wrec.getHttpHeader();
 
-                    if (TextParser.supportsMime(http.contentType) == null) { // check availability of parser
+                    if (hl != null && http != null && http.statusCode != null && http.statusCode == 200) { // process http response header OK (status 200)
 
-                        InputStream istream = wrec.getPayloadContent();
-                        hl = http.getHeader(HeaderFramework.TRANSFER_ENCODING);
-                        if (hl != null && hl.value.contains("chunked")) {
-                            // because chunked stream.read doesn't read source fully, make sure all chunks are read
-                            istream = new ChunkedInputStream(istream);
-                            final ByteBuffer bbuffer = new ByteBuffer();
-                            int c;
-                            while ((c = istream.read()) >= 0) {
-                                bbuffer.append(c);
+                        if (TextParser.supportsMime(http.contentType) == null) { // check availability of parser
+                            try {
+                                final DigestURL location = new DigestURL(hl.value);
+                                // the payload must be read before the next record; it is read completely until the end of the record
+                                final byte[] payload = FileUtils.read(wrec.getPayloadContent());
+                                this.readCnt.incrementAndGet();
+                                responses.put(new WarcResponse(location, http, payload));
+                            } catch (final IOException e) {
+                                this.skipCnt.incrementAndGet();
+                                ConcurrentLog.info("WarcImporter", "skipped record " + hl.value + " in " + archiveName + ": " + e.getMessage());
+                            } catch (final InterruptedException e) {
+                                this.abort = true;
                             }
-                            content = bbuffer.getBytes();
-                        } else {
-                            content = new byte[(int) http.getPayloadLength()];
-                            istream.read(content, 0, content.length);
                         }
-                        istream.close();
+                    }
+                }
+                final long c = localwarcReader.getConsumed();
+                this.consumed.addAndGet(c - lastConsumed);
+                lastConsumed = c;
+                wrec = localwarcReader.getNextRecord();
+            }
+        } finally {
+            localwarcReader.close();
+            try {archive.close();} catch (final IOException e) {}
+            this.activeReaders.decrementAndGet();
+        }
+    }
 
-                        RequestHeader requestHeader = new RequestHeader();
+    /**
+     * decoder stage: remove the transfer encoding and hand the responses over to the indexer until a poison is taken
+     */
+    private void decode(final BlockingQueue<WarcResponse> responses) {
+        final Switchboard sb = Switchboard.getSwitchboard();
+        WarcResponse entry;
+        try {
+            while ((entry = responses.take()) != POISON) {
+                if (this.abort) continue; // the reader threads may wait for space in the queue
+                try {
+                    final HttpHeader http = entry.http;
+                    byte[] content = entry.payload;
+                    final HeaderLine hl = http.getHeader(HeaderFramework.TRANSFER_ENCODING);
+                    if (hl != null && hl.value.contains("chunked")) {
+                        // because chunked stream.read doesn't read source fully, make sure all chunks are read
+                        content = FileUtils.read(new ChunkedInputStream(new ByteArrayInputStream(content)));
+                    }
 
-                        ResponseHeader responseHeader = new ResponseHeader(http.statusCode);
-                        for (HeaderLine hx : http.getHeaderList()) { // include all original response headers for parser
-                            responseHeader.put(hx.name, hx.value);
-                        }
+                    RequestHeader requestHeader = new RequestHeader();
+
+                    ResponseHeader responseHeader = new ResponseHeader(http.statusCode);
+                    for (HeaderLine hx : http.getHeaderList()) { // include all original response headers for parser
+                        responseHeader.put(hx.name, hx.value);
+                    }
+
+                    final Request request = new Request(
+                            ASCII.getBytes(sb.peers.mySeed().hash),
+                            entry.location,
+                            requestHeader.referer() == null ? null : requestHeader.referer().hash(),
+                            "warc",
+                            responseHeader.lastModified(),
+                            sb.crawler.defaultSurrogateProfile.handle(),
+                            0,
+                            sb.crawler.defaultSurrogateProfile.timezoneOffset());
+
+                    final Response response = new Response(
+                            request,
+                            requestHeader,
+                            responseHeader,
+                            sb.crawler.defaultSurrogateProfile,
+                            false,
+                            content
+                    );
 
-                        final Request request = new Request(
-                                ASCII.getBytes(Switchboard.getSwitchboard().peers.mySeed().hash),
-                                location,
-                                requestHeader.referer() == null ? null : requestHeader.referer().hash(),
-                                "warc",
-                                responseHeader.lastModified(),
-                                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.handle(),
-                                0,
-                                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile.timezoneOffset());
-
-                        final Response response = new Response(
-                                request,
-                                requestHeader,
-                                responseHeader,
-                                Switchboard.getSwitchboard().crawler.defaultSurrogateProfile,
-                                false,
-                                content
-                        );
-
-                        Switchboard.getSwitchboard().toIndexer(response);
-                        recordCnt++;
+                    // this blocks if the indexing queue is full
+                    if (sb.toIndexer(response) == null) {
+                        this.recordCnt.incrementAndGet();
+                    } else {
+                        this.skipCnt.incrementAndGet();
                     }
+                } catch (final IOException e) {
+                    this.skipCnt.incrementAndGet();
+                    ConcurrentLog.info("WarcImporter", "skipped record " + entry.location.toNormalform(true) + ": " + e.getMessage());
+                } catch (final RuntimeException e) {
+                    this.skipCnt.incrementAndGet();
+                    ConcurrentLog.logException(e);
                 }
             }
-            this.consumed = localwarcReader.getConsumed();
-            wrec = localwarcReader.getNextRecord();
+        } catch (final InterruptedException e) {
         }
-        localwarcReader.close();
-        ConcurrentLog.info("WarcImporter", "Indexed " + recordCnt + " documents");
-        job = null;
     }
 
     @Override
     public void run() {
         try {
-            this.indexWarcRecords(this.source);
+            this.indexWarcRecords(this.sources, this.files, this.names);
         } catch (IOException ex) {
             ConcurrentLog.info("WarcImporter", ex.getMessage());
         }
     }
-    
+
     /**
      * Set the flag to stop import
      */
@@ -211,7 +389,7 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public int count() {
-        return this.recordCnt;
+        return this.recordCnt.get();
     }
 
     /**
@@ -220,8 +398,8 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public int speed() {
-        if (this.recordCnt == 0) return 0;
-        return (int) (this.recordCnt / Math.max(0L, runningTime() ));
+        if (this.recordCnt.get() == 0) return 0;
+        return (int) (this.recordCnt.get() / Math.max(1L, runningTime()));
     }
 
     /**
@@ -240,17 +418,23 @@ public class WarcImporter extends Thread implements Importer {
      */
     @Override
     public long remainingTime() {
-        if (this.consumed == 0) {
+        final long c = this.consumed.get();
+        if (c == 0 || this.sourceSize < 0) {
             return 0;
         } else {
-            long speed = this.consumed / runningTime();
-            return (this.sourceSize - this.consumed) / speed;
+            long speed = Math.max(1L, c / Math.max(1L, runningTime()));
+            return Math.max(0L, this.sourceSize - c) / speed;
         }
     }
 
+    /**
+     * @return the throughput counters of the import
+     */
     @Override
     public String status() {
-        return "";
+        final long seconds = Math.max(1L, runningTime());
+        return "read " + this.readCnt.get() + " responses from " + this.activeReaders.get() + " active archives, indexed " + this.recordCnt.get() +
+                ", skipped " + this.skipCnt.get() + ", " + (this.consumed.get() / seconds / 1024L) + " KB/s";
     }
 
 }
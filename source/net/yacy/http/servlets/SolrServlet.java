@@ -102,6 +102,10 @@ public class SolrServlet extends HttpServlet {
 
 			SolrRequestInfo.setRequestInfo(new SolrRequestInfo(solrReq, solrRsp));
 			connector.getCore().execute(handler, solrReq, solrRsp);
+			if (defaultConnector && handler instanceof UpdateRequestHandler) {
+				// documents were changed without the Fulltext methods
+				sb.index.fulltext().invalidateKnownURLs();
+			}
 			Iterator<Map.Entry<String, String>> headers = solrRsp.httpHeaders();
 			while (headers.hasNext()) {
 				Map.Entry<String, String> entry = headers.next();
@@ -20,11 +20,8 @@ package net.yacy.http.servlets;
 
 import java.awt.Image;
 import java.awt.image.BufferedImage;
-import java.io.BufferedInputStream;
-import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
@@ -1057,33 +1054,17 @@ public class YaCyDefaultServlet extends HttpServlet  {
                 
                 String mimeType = Classification.ext2mime(targetExt, MimeTypes.Type.TEXT_HTML.asString());
 
-                InputStream fis;
-                long fileSize = targetFile.length();
-
-                if (fileSize <= Math.min(4 * 1024 * 1204, MemoryControl.available() / 100)) {
-                    // read file completely into ram, avoid that too many files are open at the same time
-                    fis = new ByteArrayInputStream(FileUtils.read(targetFile));
-                } else {
-                    fis = new BufferedInputStream(new FileInputStream(targetFile));
-                }
-
                 // set response header
                 response.setContentType(mimeType);
                 response.setStatus(HttpServletResponse.SC_OK);
                 ByteArrayOutputStream bas = new ByteArrayOutputStream(4096);
                 try {
-                	// apply templates
-                	TemplateEngine.writeTemplate(targetFile.getName(), fis, bas, templatePatterns);
+                	// apply templates; the template file is compiled once and rendered from the compiled form
+                	TemplateEngine.writeTemplate(targetFile.getName(), targetFile, bas, templatePatterns);
                 	
                     // handle SSI
                     parseSSI (bas.toByteArray(),request,response);
                 } finally {
-                	try {
-                		fis.close();
-                	} catch(IOException ignored) {
-                		ConcurrentLog.warn("FILEHANDLER", "YaCyDefaultServlet: could not close target file " + targetFile.getName());
-                	}
-                	
                 	try {
                 		bas.close();
                 	} catch(IOException ignored) {
@@ -85,6 +85,24 @@ public class ArrayStack implements BLOB {
      */
 
     private static final long maxFileSize = Integer.MAX_VALUE;
+
+    /**
+     * if true, heap files which are not the write target of an ArrayStack are memory mapped for read access.
+     * Set this before any ArrayStack is opened.
+     */
+    public static boolean mapReadOnlyHeaps = false;
+
+    /**
+     * the number of threads which open the heap files of an ArrayStack at the same time
+     */
+    public static int mountThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * if true, heap files without a dump of their index are opened in the background. The ArrayStack can be used
+     * right away; the entries of these files are added when their index is read from the heap file.
+     * Set this before any ArrayStack is opened.
+     */
+    public static boolean lazyMount = false;
     public  static final long oneMonth    = 1000L * 60L * 60L * 24L * 365L / 12L;
 
     private       int            keylength;
@@ -98,6 +116,14 @@ public class ArrayStack implements BLOB {
     private final String         prefix;
     private final int            buffersize;
     private final boolean        trimall;
+    private final boolean        offHeapIndex;
+    private final boolean        deleteonfail;
+    private       long           lastNewBLOB = 0; // creation time of the last file name from newBLOB()
+
+    /** the heap files which are opened in the background */
+    private final List<Future<blobItem>> mounting;
+    private       long           mountStart;
+    private volatile boolean     closed; // if true, heap files which are not opened yet are not opened any more
 
     /** the thread pool for the keeperOf executor service */
     private final ExecutorService executor;
@@ -114,7 +140,25 @@ public class ArrayStack implements BLOB {
             final int buffersize,
             final boolean trimall,
             final boolean deleteonfail) throws IOException {
+        this(heapLocation, prefix, ordering, keylength, buffersize, trimall, deleteonfail, false);
+    }
+
+    /**
+     * open an ArrayStack with a selectable index type for its heap files
+     * @param offHeapIndex if true, the key/seek indexes of all heap files of this stack are held
+     *   in direct memory outside of the java heap
+     */
+    public ArrayStack(
+            final File heapLocation,
+            final String prefix,
+            final ByteOrder ordering,
+            final int keylength,
+            final int buffersize,
+            final boolean trimall,
+            final boolean deleteonfail,
+            final boolean offHeapIndex) throws IOException {
         this.keylength = keylength;
+        this.offHeapIndex = offHeapIndex;
         this.prefix = prefix;
         this.ordering = ordering;
         this.buffersize = buffersize;
@@ -124,6 +168,9 @@ public class ArrayStack implements BLOB {
         this.repositoryAgeMax = Long.MAX_VALUE;
         this.repositorySizeMax = Long.MAX_VALUE;
         this.trimall = trimall;
+        this.deleteonfail = deleteonfail;
+        this.closed = false;
+        this.mounting = new ArrayList<Future<blobItem>>();
 
         // init the thread pool for the keeperOf executor service
         this.executor = new ThreadPoolExecutor(
@@ -181,9 +228,6 @@ public class ArrayStack implements BLOB {
         if (deletions) files = heapLocation.list(); // make a fresh list
 
         // find maximum time: the file with this time will be given a write buffer
-        final TreeMap<Long, blobItem> sortedItems = new TreeMap<Long, blobItem>();
-        BLOB oneBlob;
-        File f;
         long maxtime = 0;
         for (final String file : files) {
             if (file.length() >= 22 && file.charAt(this.prefix.length()) == '.' && file.endsWith(".blob")) {
@@ -195,38 +239,183 @@ public class ArrayStack implements BLOB {
             }
         }
 
-        // open all blob files
+        // open all blob files in parallel; in lazy mode, the files which need a scan to rebuild their index are
+        // opened in the background after all other files
+        final HashSet<String> dumps = new HashSet<String>();
+        for (final String file : files) {
+            final int p = file.indexOf(".blob.");
+            if (p > 0 && (file.endsWith(".idx") || file.endsWith(".idx.gz"))) dumps.add(file.substring(0, p + 5));
+        }
+        final List<FutureTask<blobItem>> open = new ArrayList<FutureTask<blobItem>>();
+        final List<FutureTask<blobItem>> lazy = new ArrayList<FutureTask<blobItem>>();
         for (final String file : files) {
             if (file.length() >= 22 && file.charAt(this.prefix.length()) == '.' && file.endsWith(".blob")) {
                 try {
-                   d = my_SHORT_MILSEC_FORMATTER.parse(file.substring(this.prefix.length() + 1, this.prefix.length() + 18), 0).getTime();
-                   f = new File(heapLocation, file);
-                   time = d.getTime();
-                   try {
-                       if (time == maxtime && !trimall) {
-                           oneBlob = new Heap(f, keylength, ordering, buffersize);
-                       } else {
-                           oneBlob = new HeapModifier(f, keylength, ordering);
-                           oneBlob.optimize(); // no writings here, can be used with minimum memory
-                       }
-                       sortedItems.put(Long.valueOf(time), new blobItem(d, f, oneBlob));
-                   } catch (final IOException e) {
-                       if (deleteonfail) {
-                           ConcurrentLog.warn("ArrayStack", "cannot read file " + f.getName() + ", deleting it (smart fail; alternative would be: crash; required user action would be same as deletion)");
-                           f.delete();
-                       } else {
-                           throw new IOException(e.getMessage(), e);
-                       }
-                   }
-               } catch (final ParseException e) {continue;}
+                    d = my_SHORT_MILSEC_FORMATTER.parse(file.substring(this.prefix.length() + 1, this.prefix.length() + 18), 0).getTime();
+                } catch (final ParseException e) {continue;}
+                final boolean write = d.getTime() == maxtime && !trimall;
+                if (lazyMount && !write && !dumps.contains(file)) {
+                    lazy.add(mountTask(d, new File(heapLocation, file), write, true));
+                } else {
+                    open.add(mountTask(d, new File(heapLocation, file), write, false));
+                }
             }
         }
+        this.mountStart = System.currentTimeMillis();
+        final ExecutorService mounter = Executors.newFixedThreadPool(Math.max(1, Math.min(mountThreads, open.size() + lazy.size())), new NamePrefixThreadFactory(this.prefix + ".mount"));
+        for (final FutureTask<blobItem> task: open) mounter.execute(task);
+        final TreeMap<Long, blobItem> sortedItems = new TreeMap<Long, blobItem>();
+        try {
+            long lastReport = this.mountStart;
+            for (int i = 0; i < open.size(); i++) {
+                final blobItem item = await(open.get(i));
+                if (item != null) sortedItems.put(Long.valueOf(item.creation.getTime()), item);
+                if (System.currentTimeMillis() - lastReport > 10000) {
+                    ConcurrentLog.info("ArrayStack", "mounted " + (i + 1) + " of " + open.size() + " BLOBs of " + this.prefix + " in " + heapLocation);
+                    lastReport = System.currentTimeMillis();
+                }
+            }
+        } catch (final IOException e) {
+            // skip the heaps which are not opened yet and close those which are open or opened now
+            this.closed = true;
+            mounter.shutdown();
+            for (final FutureTask<blobItem> task: open) try {
+                final blobItem item = task.get();
+                if (item != null) item.blob.close(true);
+            } catch (final InterruptedException | ExecutionException ee) {}
+            throw e;
+        }
+        if (open.size() > 1) ConcurrentLog.info("ArrayStack", "mounted " + open.size() + " BLOBs of " + this.prefix + " in " + (System.currentTimeMillis() - this.mountStart) + " milliseconds");
 
         // read the blob tree in a sorted way and write them into an array
         this.blobs = new CopyOnWriteArrayList<blobItem>();
         for (final blobItem bi : sortedItems.values()) {
             this.blobs.add(bi);
         }
+
+        // the remaining files are added when they are open
+        if (!lazy.isEmpty()) {
+            ConcurrentLog.info("ArrayStack", "mounting " + lazy.size() + " BLOBs of " + this.prefix + " in the background");
+            synchronized (this) {
+                this.mounting.addAll(lazy);
+            }
+            for (final FutureTask<blobItem> task: lazy) mounter.execute(task);
+        }
+        mounter.shutdown();
+    }
+
+    /**
+     * @param creation the creation date of the heap file
+     * @param location the heap file
+     * @param write if true, the heap file gets a write buffer
+     * @param background if true, the heap is added to the stack when it is open
+     * @return a task which opens the heap file
+     */
+    private FutureTask<blobItem> mountTask(final Date creation, final File location, final boolean write, final boolean background) {
+        return new FutureTask<blobItem>(new Callable<blobItem>() {
+            @Override
+            public blobItem call() throws IOException {
+                if (ArrayStack.this.closed) return null;
+                try {
+                    return new blobItem(creation, location, open(location, write));
+                } catch (final IOException e) {
+                    if (!ArrayStack.this.deleteonfail) throw e;
+                    ConcurrentLog.warn("ArrayStack", "cannot read file " + location.getName() + ", deleting it (smart fail; alternative would be: crash; required user action would be same as deletion)");
+                    location.delete();
+                    return null;
+                }
+            }
+        }) {
+            @Override
+            protected void done() {
+                if (background) mounted(false);
+            }
+        };
+    }
+
+    /**
+     * open a heap file
+     * @param location
+     * @param write if true, the heap gets a write buffer; otherwise it is opened for read access and deletions
+     * @return the heap
+     * @throws IOException
+     */
+    private BLOB open(final File location, final boolean write) throws IOException {
+        if (write) return new Heap(location, this.keylength, this.ordering, this.buffersize, this.offHeapIndex);
+        final HeapModifier heap = new HeapModifier(location, this.keylength, this.ordering, this.offHeapIndex);
+        heap.optimize(); // no writings here, can be used with minimum memory
+        if (mapReadOnlyHeaps) map(heap);
+        return heap;
+    }
+
+    /**
+     * wait for a task which opens a heap file
+     * @param task
+     * @return the opened heap or null if it could not be opened and was deleted
+     * @throws IOException if the heap could not be opened
+     */
+    private blobItem await(final Future<blobItem> task) throws IOException {
+        try {
+            return task.get();
+        } catch (final InterruptedException e) {
+            throw new IOException("interrupted while mounting BLOBs of " + this.prefix, e);
+        } catch (final ExecutionException e) {
+            final Throwable cause = e.getCause() == null ? e : e.getCause();
+            throw new IOException(cause.getMessage(), cause);
+        }
+    }
+
+    /**
+     * add the heaps which were opened in the background to the stack
+     * @param wait if true, wait until all heaps are opened
+     */
+    private synchronized void mounted(final boolean wait) {
+        while (!this.mounting.isEmpty()) {
+            boolean added = false;
+            for (final Future<blobItem> task: new ArrayList<Future<blobItem>>(this.mounting)) {
+                if (!task.isDone()) continue;
+                this.mounting.remove(task);
+                added = true;
+                if (task.isCancelled()) continue;
+                blobItem item;
+                try {
+                    item = await(task);
+                } catch (final IOException e) {
+                    ConcurrentLog.severe("ArrayStack", "cannot mount a BLOB of " + this.prefix + ": " + e.getMessage());
+                    item = null;
+                }
+                if (item == null) continue;
+                if (this.blobs == null) {
+                    // the stack was closed while the heap was opened
+                    item.blob.close(false);
+                    continue;
+                }
+                // keep the order of creation
+                int p = this.blobs.size();
+                while (p > 0 && this.blobs.get(p - 1).creation.after(item.creation)) p--;
+                this.blobs.add(p, item);
+            }
+            if (added) this.notifyAll();
+            if (this.mounting.isEmpty()) {
+                if (this.blobs != null) ConcurrentLog.info("ArrayStack", "mounted all BLOBs of " + this.prefix + " in " + (System.currentTimeMillis() - this.mountStart) + " milliseconds");
+                return;
+            }
+            if (!wait) return;
+            // the mount threads need the lock to add their heaps, waiting releases it
+            try {
+                this.wait(1000);
+            } catch (final InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            }
+        }
+    }
+
+    /**
+     * @return the number of heap files which are still opened in the background
+     */
+    public synchronized int mounting() {
+        return this.mounting.size();
     }
 
     @Override
@@ -257,14 +446,16 @@ public class ArrayStack implements BLOB {
         } catch (final ParseException e) {
             throw new IOException("date parse problem with file " + location.toString() + ": " + e.getMessage());
         }
-        BLOB oneBlob;
-        if (full && this.buffersize > 0 && !this.trimall) {
-            oneBlob = new Heap(location, this.keylength, this.ordering, this.buffersize);
-        } else {
-            oneBlob = new HeapModifier(location, this.keylength, this.ordering);
-            oneBlob.optimize();
+        this.blobs.add(new blobItem(d, location, open(location, full && this.buffersize > 0 && !this.trimall)));
+    }
+
+    private static void map(final HeapModifier heap) {
+        try {
+            heap.map();
+        } catch (final IOException e) {
+            // this is not fatal, the heap is then read with normal file access
+            ConcurrentLog.warn("ArrayStack", "cannot map heap file " + heap.name() + ": " + e.getMessage());
         }
-        this.blobs.add(new blobItem(d, location, oneBlob));
     }
 
     private synchronized void unmountBLOB(final File location, final boolean writeIDX) {
@@ -325,6 +516,51 @@ public class ArrayStack implements BLOB {
         return bestMatch;
     }
 
+    /**
+     * size-tiered selection of files to merge: files are grouped into tiers where the size of the
+     * files in one tier differs by less than factor 4. If a tier contains at least minTierCount files,
+     * the two smallest files of the lowest such tier are unmounted. Merging files of equal size
+     * keeps the number of rewrites of each entry logarithmic in the number of dumps.
+     * @param minTierSize files up to this size are all in the lowest tier
+     * @param minTierCount the number of files in a tier that triggers a merge
+     * @param maxResultSize the maximum size of the merged file
+     * @return two unmounted files or null if no tier is full
+     */
+    public synchronized File[] unmountSizeTiered(final long minTierSize, final int minTierCount, final long maxResultSize) {
+        if (this.blobs.size() < Math.max(2, minTierCount)) return null;
+        final int[] count = new int[32];
+        final int[] tiers = new int[this.blobs.size()];
+        for (int i = 0; i < this.blobs.size(); i++) {
+            final long q = this.blobs.get(i).location.length() / Math.max(1, minTierSize);
+            tiers[i] = Math.min(count.length - 1, (64 - Long.numberOfLeadingZeros(q) + 1) / 2);
+            count[tiers[i]]++;
+        }
+        for (int tier = 0; tier < count.length; tier++) {
+            if (count[tier] < Math.max(2, minTierCount)) continue;
+            // find the two smallest files of the tier
+            File f0 = null, f1 = null;
+            long m = 0;
+            for (int i = 0; i < this.blobs.size(); i++) {
+                if (tiers[i] != tier) continue;
+                final File f = this.blobs.get(i).location;
+                if (f0 == null || f.length() < f0.length()) {
+                    f1 = f0;
+                    f0 = f;
+                } else if (f1 == null || f.length() < f1.length()) {
+                    f1 = f;
+                }
+            }
+            if (f0 == null || f1 == null) continue;
+            if (f0.length() + f1.length() > maxResultSize) return null; // higher tiers are even larger
+            for (final blobItem b: this.blobs) if (b.location.equals(f0) || b.location.equals(f1)) m += b.blob.mem();
+            if (!MemoryControl.request(m, true)) return null;
+            unmountBLOB(f1, false);
+            unmountBLOB(f0, false);
+            return new File[]{f0, f1};
+        }
+        return null;
+    }
+
     public synchronized File unmountOldest() {
         if (this.blobs.isEmpty()) return null;
         if (System.currentTimeMillis() - this.blobs.get(0).creation.getTime() < this.fileAgeLimit) return null;
@@ -386,7 +622,13 @@ public class ArrayStack implements BLOB {
      */
     public synchronized File newBLOB(final Date creation) {
         //return new File(heapLocation, DateFormatter.formatShortSecond(creation) + "." + blobSalt + ".blob");
-        return new File(this.heapLocation, this.prefix + "." + my_SHORT_MILSEC_FORMATTER.format(creation) + ".blob");
+        // concurrent dumps and queued merges may ask for a name within the same millisecond; names must not repeat
+        long t = creation.getTime();
+        if (t <= this.lastNewBLOB && t > this.lastNewBLOB - 1000) t = this.lastNewBLOB + 1;
+        File f;
+        while ((f = new File(this.heapLocation, this.prefix + "." + my_SHORT_MILSEC_FORMATTER.format(new Date(t)) + ".blob")).exists()) t++;
+        this.lastNewBLOB = t;
+        return f;
     }
 
     @Override
@@ -456,7 +698,9 @@ public class ArrayStack implements BLOB {
             // make a new blob file and assign it in this item
             this.creation = new Date();
             this.location = newBLOB(this.creation);
-            this.blob = (buffer == 0) ? new HeapModifier(this.location, ArrayStack.this.keylength, ArrayStack.this.ordering) : new Heap(this.location, ArrayStack.this.keylength, ArrayStack.this.ordering, buffer);
+            this.blob = (buffer == 0) ?
+                    new HeapModifier(this.location, ArrayStack.this.keylength, ArrayStack.this.ordering, ArrayStack.this.offHeapIndex) :
+                    new Heap(this.location, ArrayStack.this.keylength, ArrayStack.this.ordering, buffer, ArrayStack.this.offHeapIndex);
         }
     }
 
@@ -475,6 +719,7 @@ public class ArrayStack implements BLOB {
      */
     @Override
     public synchronized void clear() throws IOException {
+        mounted(true);
         for (final blobItem bi: this.blobs) {
             bi.blob.clear();
             bi.blob.close(false);
@@ -571,26 +816,31 @@ public class ArrayStack implements BLOB {
         if (this.blobs.isEmpty()) return null;
         if (this.blobs.size() == 1) {
             final blobItem bi = this.blobs.get(0);
-            if (bi.blob.containsKey(key)) return bi;
+            if (mightContain(bi.blob, key) && bi.blob.containsKey(key)) return bi;
             return null;
         }
 
         // first check the current blob only because that has most probably the key if any has that key
         int bs1 = this.blobs.size() - 1;
         blobItem bi = this.blobs.get(bs1);
-        if (bi.blob.containsKey(key)) return bi;
-        if (this.blobs.size() == 2) {
+        if (mightContain(bi.blob, key) && bi.blob.containsKey(key)) return bi;
+
+        // the bloom filters sort out most of the remaining blobs; only the candidates are asked
+        final List<blobItem> candidates = new ArrayList<blobItem>(bs1);
+        for (int i = 0; i < bs1; i++) {
+            bi = this.blobs.get(i);
+            if (mightContain(bi.blob, key)) candidates.add(bi);
+        }
+        if (candidates.size() <= 1) {
             // this should not be done concurrently
-            bi = this.blobs.get(0);
-            if (bi.blob.containsKey(key)) return bi;
+            for (final blobItem b: candidates) if (b.blob.containsKey(key)) return b;
             return null;
         }
 
         // start a concurrent query to database tables
         final CompletionService<blobItem> cs = new ExecutorCompletionService<blobItem>(this.executor);
         int accepted = 0;
-        for (int i = 0; i < bs1; i++) {
-            final blobItem b = this.blobs.get(i);
+        for (final blobItem b: candidates) {
             try {
                 cs.submit(new Callable<blobItem>() {
                     @Override
@@ -631,6 +881,10 @@ public class ArrayStack implements BLOB {
         return null;
     }
 
+    private static boolean mightContain(final BLOB blob, final byte[] key) {
+        return !(blob instanceof HeapReader) || ((HeapReader) blob).mightContain(key);
+    }
+
     /**
      * retrieve the whole BLOB from the table
      * @param key  the primary key
@@ -682,6 +936,23 @@ public class ArrayStack implements BLOB {
         return new BlobValues(key);
     }
 
+    /**
+     * get all heaps in the array which contain the key, in the same order as getAll returns their BLOBs.
+     * The heaps can be used to read parts of the BLOBs; they may be closed concurrently when they are merged,
+     * then they return null for every read.
+     * @param key
+     * @return the heaps or null if a BLOB which contains the key is not a heap and cannot be read in parts
+     */
+    public List<HeapReader> getAllReaders(final byte[] key) {
+        final List<HeapReader> readers = new ArrayList<HeapReader>();
+        for (final blobItem bi: this.blobs) {
+            if (bi.blob == null || !mightContain(bi.blob, key) || !bi.blob.containsKey(key)) continue;
+            if (!(bi.blob instanceof HeapReader)) return null;
+            readers.add((HeapReader) bi.blob);
+        }
+        return readers;
+    }
+
     private class BlobValues extends LookAheadIterator<byte[]> {
 
         private final Iterator<blobItem> bii;
@@ -696,7 +967,7 @@ public class ArrayStack implements BLOB {
         protected byte[] next0() {
             while (this.bii.hasNext()) {
                 final BLOB b = this.bii.next().blob;
-                if (b == null) continue;
+                if (b == null || !mightContain(b, this.key)) continue;
                 try {
                     final byte[] n = b.get(this.key);
                     if (n != null) return n;
@@ -753,7 +1024,7 @@ public class ArrayStack implements BLOB {
         protected Long next0() {
             while (this.bii.hasNext()) {
                 final BLOB b = this.bii.next().blob;
-                if (b == null) continue;
+                if (b == null || !mightContain(b, this.key)) continue;
                 try {
                     final long l = b.length(this.key);
                     if (l >= 0) return Long.valueOf(l);
@@ -816,6 +1087,7 @@ public class ArrayStack implements BLOB {
      */
     @Override
     public synchronized int replace(final byte[] key, final Rewriter rewriter) throws IOException, SpaceExceededException {
+        mounted(true);
         int d = 0;
         for (final blobItem bi: this.blobs) {
             d += bi.blob.replace(key, rewriter);
@@ -831,6 +1103,7 @@ public class ArrayStack implements BLOB {
      */
     @Override
     public synchronized int reduce(final byte[] key, final Reducer reduce) throws IOException, SpaceExceededException {
+        mounted(true);
         int d = 0;
         for (final blobItem bi: this.blobs) {
             d += bi.blob.reduce(key, reduce);
@@ -845,6 +1118,7 @@ public class ArrayStack implements BLOB {
      */
     @Override
     public synchronized void delete(final byte[] key) throws IOException {
+        mounted(true); // the key must also be deleted in the heaps which are not open yet
         final long m = mem();
         if (this.blobs.isEmpty()) {
             // do nothing
@@ -903,6 +1177,9 @@ public class ArrayStack implements BLOB {
      */
     @Override
     public synchronized void close(final boolean writeIDX) {
+        // heaps which are opened in the background now are added to the stack when they are open and closed with it
+        this.closed = true;
+        mounted(true);
         for (final blobItem bi: this.blobs) bi.blob.close(writeIDX);
         this.blobs.clear();
         this.blobs = null;
@@ -1073,7 +1350,7 @@ public class ArrayStack implements BLOB {
             if (e < 0) {
             	s = c1.shrinkReferences();
             	if (s > 0) ConcurrentLog.info("ArrayStack", "shrinking index for " + ASCII.String(c1.getTermHash()) + " by " + s + " to " + c1.size() + " entries");
-                writer.add(c1.getTermHash(), c1.exportCollection());
+                writer.add(c1.getTermHash(), c1.exportCollection(ReferenceContainer.exportBlockRows));
                 if (i1.hasNext()) {
                     c1lh = c1.getTermHash();
                     c1 = i1.next();
@@ -1086,7 +1363,7 @@ public class ArrayStack implements BLOB {
             if (e > 0) {
                 s = c2.shrinkReferences();
                 if (s > 0) ConcurrentLog.info("ArrayStack", "shrinking index for " + ASCII.String(c2.getTermHash()) + " by " + s + " to " + c2.size() + " entries");
-                writer.add(c2.getTermHash(), c2.exportCollection());
+                writer.add(c2.getTermHash(), c2.exportCollection(ReferenceContainer.exportBlockRows));
                 if (i2.hasNext()) {
                     c2lh = c2.getTermHash();
                     c2 = i2.next();
@@ -1101,7 +1378,7 @@ public class ArrayStack implements BLOB {
             c1 = c1.merge(c2);
             s = c1.shrinkReferences();
             if (s > 0) ConcurrentLog.info("ArrayStack", "shrinking index for " + ASCII.String(c1.getTermHash()) + " by " + s + " to " + c1.size() + " entries");
-            writer.add(c1.getTermHash(), c1.exportCollection());
+            writer.add(c1.getTermHash(), c1.exportCollection(ReferenceContainer.exportBlockRows));
             c1lh = c1.getTermHash();
             c2lh = c2.getTermHash();
             if (i1.hasNext() && i2.hasNext()) {
@@ -1131,7 +1408,7 @@ public class ArrayStack implements BLOB {
             //System.out.println("FLUSH REMAINING 1: " + c1.getWordHash());
             s = c1.shrinkReferences();
             if (s > 0) ConcurrentLog.info("ArrayStack", "shrinking index for " + ASCII.String(c1.getTermHash()) + " by " + s + " to " + c1.size() + " entries");
-            writer.add(c1.getTermHash(), c1.exportCollection());
+            writer.add(c1.getTermHash(), c1.exportCollection(ReferenceContainer.exportBlockRows));
             if (i1.hasNext()) {
                 c1lh = c1.getTermHash();
                 c1 = i1.next();
@@ -1144,7 +1421,7 @@ public class ArrayStack implements BLOB {
             //System.out.println("FLUSH REMAINING 2: " + c2.getWordHash());
             s = c2.shrinkReferences();
             if (s > 0) ConcurrentLog.info("ArrayStack", "shrinking index for " + ASCII.String(c2.getTermHash()) + " by " + s + " to " + c2.size() + " entries");
-            writer.add(c2.getTermHash(), c2.exportCollection());
+            writer.add(c2.getTermHash(), c2.exportCollection(ReferenceContainer.exportBlockRows));
             if (i2.hasNext()) {
                 c2lh = c2.getTermHash();
                 c2 = i2.next();
@@ -1168,7 +1445,7 @@ public class ArrayStack implements BLOB {
             assert c != null;
             s = c.shrinkReferences();
             if (s > 0) ConcurrentLog.info("ArrayStack", "shrinking index for " + ASCII.String(c.getTermHash()) + " by " + s + " to " + c.size() + " entries");
-            writer.add(c.getTermHash(), c.exportCollection());
+            writer.add(c.getTermHash(), c.exportCollection(ReferenceContainer.exportBlockRows));
             if (i.hasNext()) {
                 clh = c.getTermHash();
                 c = i.next();
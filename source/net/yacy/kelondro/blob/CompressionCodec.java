@@ -0,0 +1,59 @@
+// CompressionCodec.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.IOException;
+
+/**
+ * A compression format of the entries of a {@link Compressor}. Every compressed entry starts with the two magic
+ * bytes of its codec, so that entries of different codecs can be stored in the same BLOB and the codec can be
+ * changed at any time.
+ */
+public interface CompressionCodec {
+
+    /**
+     * @return the two bytes which start every entry compressed with this codec
+     */
+    public byte[] magic();
+
+    /**
+     * @return the name of the codec as used in the configuration
+     */
+    public String name();
+
+    /**
+     * @param b the uncompressed content
+     * @param level the compression level from 0 (no compression) to 9 (best compression); may be ignored by the codec
+     * @return the compressed content, starting with the magic bytes
+     * @throws IOException
+     */
+    public byte[] compress(byte[] b, int level) throws IOException;
+
+    /**
+     * @param b the compressed content, starting with the magic bytes
+     * @return the uncompressed content
+     * @throws IOException if the content is damaged or cannot be decompressed by this codec
+     */
+    public byte[] decompress(byte[] b) throws IOException;
+
+}
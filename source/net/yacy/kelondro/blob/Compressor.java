@@ -27,20 +27,18 @@
 
 package net.yacy.kelondro.blob;
 
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.IOException;
-import java.io.InputStream;
-import java.io.OutputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.zip.Deflater;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
 
+import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.order.ByteOrder;
 import net.yacy.cora.order.CloneableIterator;
 import net.yacy.cora.util.ByteArray;
@@ -51,10 +49,15 @@ import net.yacy.kelondro.util.MemoryControl;
 
 public class Compressor implements BLOB, Iterable<byte[]> {
 
-    private static byte[] gzipMagic  = {(byte) 'z', (byte) '|'}; // magic for gzip-encoded content
     private static byte[] plainMagic = {(byte) 'p', (byte) '|'}; // magic for plain content (no encoding)
 
     private final BLOB backend;
+
+    /** the codecs which can be read, by the first byte of their magic */
+    private final CompressionCodec[] codecs;
+
+    /** the codec for new entries */
+    private volatile CompressionCodec codec;
     
     /** entries which are not yet compressed, format is RAW (without magic) */
     private TreeMap<byte[], byte[]> buffer;
@@ -81,7 +84,22 @@ public class Compressor implements BLOB, Iterable<byte[]> {
      * @param compressionLevel the compression level : supported values ranging from 0 - no compression, to 9 - best compression
      */
     public Compressor(final BLOB backend, final long buffersize, final long lockTimeout, final int compressionLevel) {
+        this(backend, buffersize, lockTimeout, compressionLevel, new GzipCodec());
+    }
+
+    /**
+     * @param backend the backend storage
+     * @param buffersize the maximum total size (in bytes) of uncompressed in-memory entries before compressing and flushing to the backend
+     * @param lockTimeout maximum time to acquire a synchronization lock on get() and insert() operations
+     * @param compressionLevel the compression level : supported values ranging from 0 - no compression, to 9 - best compression
+     * @param codec the codec for new entries. Entries of the gzip and lz4 codecs can always be read, other codecs must be added with addCodec()
+     */
+    public Compressor(final BLOB backend, final long buffersize, final long lockTimeout, final int compressionLevel, final CompressionCodec codec) {
         this.backend = backend;
+        this.codecs = new CompressionCodec[256];
+        addCodec(new GzipCodec());
+        addCodec(new LZ4Codec());
+        setCodec(codec);
         this.maxbufferlength = buffersize;
         this.lockTimeout = lockTimeout;
         this.lock = new ReentrantLock();
@@ -138,29 +156,40 @@ public class Compressor implements BLOB, Iterable<byte[]> {
     	}
     }
 
-    private static byte[] compress(final byte[] b, final int compressionLevel) {
-        final int l = b.length;
-        if (l < 100) return markWithPlainMagic(b);
-        final byte[] bb = compressAddMagic(b, compressionLevel);
-        if (bb.length >= l) return markWithPlainMagic(b);
-        return bb;
+    /**
+     * make a codec known, so that its entries can be read
+     * @param codec
+     */
+    public void addCodec(final CompressionCodec codec) {
+        this.codecs[codec.magic()[0] & 0xff] = codec;
+    }
+
+    /**
+     * set the codec for new entries; entries of other codecs remain readable
+     * @param codec
+     */
+    public void setCodec(final CompressionCodec codec) {
+        addCodec(codec);
+        this.codec = codec;
+    }
+
+    public CompressionCodec getCodec() {
+        return this.codec;
     }
 
-    private static byte[] compressAddMagic(final byte[] b, final int compressionLevel) {
+    private byte[] compress(final byte[] b) {
+        final int l = b.length;
+        if (l < 100) return markWithPlainMagic(b);
         // compress a byte array and add a leading magic for the compression
+        final byte[] bb;
         try {
-            //System.out.print("/(" + cdr + ")"); // DEBUG
-            final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length / 5);
-            baos.write(gzipMagic);
-            final OutputStream os = new GZIPOutputStream(baos, 65536){{def.setLevel(compressionLevel);}};
-            os.write(b);
-            os.close();
-            baos.close();
-            return baos.toByteArray();
+            bb = this.codec.compress(b, this.compressionLevel);
         } catch (final IOException e) {
             ConcurrentLog.severe("Compressor", "", e);
-            return null;
+            return markWithPlainMagic(b);
         }
+        if (bb.length >= l) return markWithPlainMagic(b);
+        return bb;
     }
 
     private static byte[] markWithPlainMagic(final byte[] b) {
@@ -172,41 +201,25 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         return r;
     }
 
-    private static byte[] decompress(final byte[] b) {
+    private byte[] decompress(final byte[] b) {
         // use a magic in the head of the bytes to identify compression type
         if (b == null) return null;
-        if (ByteArray.startsWith(b, gzipMagic)) {
-            //System.out.print("\\"); // DEBUG
-            final ByteArrayInputStream bais = new ByteArrayInputStream(b);
-            // eat up the magic
-            bais.read();
-            bais.read();
-            // decompress what is remaining
-            InputStream gis;
-            try {
-                gis = new GZIPInputStream(bais);
-                final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length);
-                final byte[] buf = new byte[1024 * 4];
-                int n;
-                while ((n = gis.read(buf)) > 0) baos.write(buf, 0, n);
-                gis.close();
-                bais.close();
-                baos.close();
-
-                return baos.toByteArray();
-            } catch (final IOException e) {
-                ConcurrentLog.logException(e);
-                return null;
-            }
-        } else if (ByteArray.startsWith(b, plainMagic)) {
-            //System.out.print("-"); // DEBUG
+        if (ByteArray.startsWith(b, plainMagic)) {
             final byte[] r = new byte[b.length - 2];
             System.arraycopy(b, 2, r, 0, b.length - 2);
             return r;
-        } else {
+        }
+        final CompressionCodec c = b.length < 2 || b[1] != (byte) '|' ? null : this.codecs[b[0] & 0xff];
+        if (c == null) {
             // we consider that the entry is also plain, but without leading magic
             return b;
         }
+        try {
+            return c.decompress(b);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+            return null;
+        }
     }
 
     @Override
@@ -226,7 +239,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         		b = this.buffer.remove(key);
         		if (b != null) {
         			this.bufferlength = this.bufferlength - b.length;
-           			this.backend.insert(key, compress(b, this.compressionLevel));
+           			this.backend.insert(key, compress(b));
         			return b;
         		}
         	} finally {
@@ -425,7 +438,7 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         final Map.Entry<byte[], byte[]> entry = this.buffer.entrySet().iterator().next();
         this.buffer.remove(entry.getKey());
         try {
-            this.backend.insert(entry.getKey(), compress(entry.getValue(), this.compressionLevel));
+            this.backend.insert(entry.getKey(), compress(entry.getValue()));
             this.bufferlength -= entry.getValue().length;
             return true;
         } catch (final IOException e) {
@@ -488,5 +501,65 @@ public class Compressor implements BLOB, Iterable<byte[]> {
         this.lockTimeout = lockTimeout;
     }
 
+    /**
+     * compare the codecs on the entries of a BLOB, i.e. the file.array of the HTCACHE:
+     * Compressor &lt;BLOB path&gt; &lt;prefix&gt; [&lt;maximum number of entries&gt;]
+     * @param args
+     */
+    public static void main(final String[] args) {
+        if (args.length < 2) {
+            System.out.println("usage: Compressor <BLOB path> <prefix> [<maximum number of entries>]");
+            return;
+        }
+        final int max = args.length > 2 ? Integer.parseInt(args[2]) : 5000;
+        try {
+            final ArrayStack stack = new ArrayStack(new File(args[0]), args[1], Base64Order.enhancedCoder, 12, 1024 * 1024, false, false);
+            final Compressor reader = new Compressor(stack, 0, 1000, Deflater.BEST_COMPRESSION);
+            final DictionaryCodec trained = new DictionaryCodec();
+            reader.addCodec(trained);
+            final List<byte[]> samples = new ArrayList<byte[]>();
+            final Iterator<byte[]> keys = stack.keys(true, false);
+            long size = 0;
+            while (keys.hasNext() && samples.size() < max) {
+                final byte[] b = reader.decompress(stack.get(keys.next()));
+                if (b == null || b.length < 100) continue;
+                samples.add(b);
+                size += b.length;
+            }
+            stack.close(false);
+            System.out.println(samples.size() + " entries, " + size + " bytes");
+            // train the dictionary on the first entries, test it on all
+            final long t0 = System.currentTimeMillis();
+            trained.setDictionary(DictionaryCodec.train(samples.subList(0, Math.min(samples.size(), 200)), DictionaryCodec.DICTIONARY_SIZE));
+            System.out.println("dictionary training: " + (System.currentTimeMillis() - t0) + " ms");
+
+            final CompressionCodec[] codecs = {new GzipCodec(), new GzipCodec(), new LZ4Codec(), new DictionaryCodec(), trained};
+            final int[] levels = {Deflater.BEST_COMPRESSION, Deflater.BEST_SPEED, 0, Deflater.DEFAULT_COMPRESSION, Deflater.DEFAULT_COMPRESSION};
+            final String[] names = {"gzip, level 9", "gzip, level 1", "lz4", "dictionary, built-in", "dictionary, trained"};
+            for (int round = 0; round < 5; round++) { // the first rounds warm up the JIT
+                for (int c = 0; c < codecs.length; c++) {
+                    long compressed = 0, compressTime = 0, decompressTime = 0;
+                    for (final byte[] b: samples) {
+                        long t = System.nanoTime();
+                        final byte[] z = codecs[c].compress(b, levels[c]);
+                        compressTime += System.nanoTime() - t;
+                        t = System.nanoTime();
+                        codecs[c].decompress(z);
+                        decompressTime += System.nanoTime() - t;
+                        compressed += z.length;
+                    }
+                    if (round < 4) continue;
+                    System.out.println(String.format("%-22s ratio %5.3f, compression %7.1f MB/s, decompression %7.1f MB/s",
+                            names[c], ((double) compressed) / size, size * 1000.0d / compressTime, size * 1000.0d / decompressTime));
+                }
+            }
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        } catch (final SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+        }
+        ConcurrentLog.shutdown();
+    }
+
 
 }
@@ -0,0 +1,338 @@
+// DictionaryCodec.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Adler32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Deflate-encoded content with a preset dictionary. Small web pages share a lot of markup which gzip cannot
+ * use because every entry is compressed on its own; with a dictionary of frequent HTML fragments, these are
+ * found already in the first bytes of an entry. The zlib format stores the Adler-32 checksum of the dictionary
+ * in every entry, so entries remain readable after a new dictionary was trained, as long as the old
+ * dictionary is also known.
+ */
+public class DictionaryCodec implements CompressionCodec {
+
+    public static final String NAME = "dictionary";
+    private static final byte[] MAGIC = {(byte) 'd', (byte) '|'};
+    private static final String DICTIONARY_EXTENSION = ".dict";
+
+    /** the size of a trained dictionary; deflate can only use the last 32KB of dictionary and content */
+    public static final int DICTIONARY_SIZE = 16 * 1024;
+
+    /** the built-in dictionary, frequent fragments of HTML pages; the most frequent are at the end */
+    public static final byte[] HTML_DICTIONARY = UTF8.getBytes(
+            "</option><option value=\"\" selected=\"selected\"></select></textarea><input type=\"hidden\" name=\"\" value=\"\" />" +
+            "<input type=\"text\" name=\"q\" /><input type=\"submit\" value=\"Search\" /><button type=\"button\"></button>" +
+            "<form action=\"\" method=\"post\"></form><label for=\"\"></label><table><tbody><tr><th></th><td></td></tr></tbody></table>" +
+            "<h1></h1><h2></h2><h3></h3><h4></h4><strong></strong><em></em><br /><hr /><blockquote></blockquote><pre></pre><code></code>" +
+            "<noscript></noscript><iframe src=\"\" width=\"\" height=\"\" frameborder=\"0\"></iframe>" +
+            "<meta property=\"og:title\" content=\"\" /><meta property=\"og:description\" content=\"\" /><meta property=\"og:image\" content=\"\" />" +
+            "<meta property=\"og:url\" content=\"\" /><meta property=\"og:type\" content=\"website\" /><meta name=\"twitter:card\" content=\"summary\" />" +
+            "<meta name=\"robots\" content=\"index, follow\" /><meta name=\"keywords\" content=\"\" /><meta name=\"description\" content=\"\" />" +
+            "<meta http-equiv=\"X-UA-Compatible\" content=\"IE=edge\" /><meta http-equiv=\"Content-Type\" content=\"text/html; charset=utf-8\" />" +
+            "<meta name=\"viewport\" content=\"width=device-width, initial-scale=1\" /><meta charset=\"utf-8\" />" +
+            "<link rel=\"shortcut icon\" href=\"/favicon.ico\" /><link rel=\"alternate\" type=\"application/rss+xml\" title=\"RSS\" href=\"\" />" +
+            "<link rel=\"canonical\" href=\"https://www.\" /><link rel=\"stylesheet\" type=\"text/css\" href=\"/css/style.css\" media=\"all\" />" +
+            "<script type=\"text/javascript\" src=\"/js/jquery.min.js\"></script><script type=\"text/javascript\">//<![CDATA[\n//]]></script>" +
+            "<!DOCTYPE html PUBLIC \"-//W3C//DTD XHTML 1.0 Transitional//EN\" \"http://www.w3.org/TR/xhtml1/DTD/xhtml1-transitional.dtd\">" +
+            "<html xmlns=\"http://www.w3.org/1999/xhtml\" lang=\"en\"><!DOCTYPE html><html lang=\"en\"><head><title></title></head>" +
+            "<body class=\"\"><header id=\"header\"><nav class=\"navbar\"><footer id=\"footer\"><p>&copy; All rights reserved.</p></footer>" +
+            "<ul class=\"menu\"><li class=\"menu-item\"><a href=\"/\" title=\"Home\">Home</a></li><li><a href=\"https://www.\" target=\"_blank\" rel=\"noopener\">" +
+            "<img src=\"\" alt=\"\" width=\"\" height=\"\" /></a></li></ul><span class=\"\"></span></p><p>" +
+            "<div class=\"container\"><div class=\"row\"><div class=\"content\"><div id=\"content\"><div class=\"clear\"></div></div></div>\n" +
+            "</div>\n</div>\n</a></li>\n<li><a href=\"/\"></a></li>\n<li><a href=\"http://www.\"></a></li>\n<div class=\"\"></div>\n");
+
+    private final Map<Integer, byte[]> dictionaries; // all known dictionaries by their Adler-32 checksum
+    private volatile byte[] dictionary;               // the dictionary for compression
+
+    /**
+     * create a codec with the built-in dictionary
+     */
+    public DictionaryCodec() {
+        this.dictionaries = new ConcurrentHashMap<Integer, byte[]>();
+        this.dictionary = HTML_DICTIONARY;
+        add(HTML_DICTIONARY);
+    }
+
+    @Override
+    public byte[] magic() {
+        return MAGIC;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    /**
+     * make a dictionary known for decompression
+     * @param dict
+     * @return the Adler-32 checksum of the dictionary
+     */
+    public int add(final byte[] dict) {
+        final int id = adler(dict);
+        this.dictionaries.put(id, dict);
+        return id;
+    }
+
+    /**
+     * @param dict the dictionary which is used for the compression of new entries
+     */
+    public void setDictionary(final byte[] dict) {
+        add(dict);
+        this.dictionary = dict;
+    }
+
+    /**
+     * @return true if the compression uses a trained dictionary and not the built-in one
+     */
+    public boolean isTrained() {
+        return this.dictionary != HTML_DICTIONARY;
+    }
+
+    /**
+     * load all dictionaries of a directory; the most recent one is used for the compression of new entries
+     * @param dir
+     */
+    public void load(final File dir) {
+        final String[] list = dir.list();
+        if (list == null) return;
+        long latest = 0;
+        for (final String name: list) {
+            if (!name.endsWith(DICTIONARY_EXTENSION)) continue;
+            final File f = new File(dir, name);
+            try {
+                final byte[] dict = FileUtils.read(f);
+                add(dict);
+                if (f.lastModified() >= latest) {
+                    latest = f.lastModified();
+                    this.dictionary = dict;
+                }
+            } catch (final IOException e) {
+                ConcurrentLog.warn("DictionaryCodec", "cannot read dictionary " + f + ": " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * store a dictionary in a directory and use it for the compression of new entries.
+     * The dictionary is stored before it is used, so that all entries written with it can be read after a restart.
+     * @param dir
+     * @param dict
+     * @throws IOException
+     */
+    public void store(final File dir, final byte[] dict) throws IOException {
+        dir.mkdirs();
+        final File f = new File(dir, Integer.toHexString(adler(dict)) + DICTIONARY_EXTENSION);
+        FileUtils.copy(dict, f);
+        setDictionary(dict);
+    }
+
+    @Override
+    public byte[] compress(final byte[] b, final int level) throws IOException {
+        final Deflater deflater = new Deflater(level);
+        try {
+            deflater.setDictionary(this.dictionary);
+            deflater.setInput(b);
+            deflater.finish();
+            byte[] out = new byte[6 + b.length / 3 + 64];
+            out[0] = MAGIC[0];
+            out[1] = MAGIC[1];
+            writeInt(out, 2, b.length);
+            int p = 6;
+            while (!deflater.finished()) {
+                if (p == out.length) {
+                    final byte[] o = new byte[out.length * 2];
+                    System.arraycopy(out, 0, o, 0, p);
+                    out = o;
+                }
+                p += deflater.deflate(out, p, out.length - p);
+            }
+            final byte[] r = new byte[p];
+            System.arraycopy(out, 0, r, 0, p);
+            return r;
+        } finally {
+            deflater.end();
+        }
+    }
+
+    @Override
+    public byte[] decompress(final byte[] b) throws IOException {
+        if (b.length < 6) throw new IOException("dictionary entry too short");
+        final int length = readInt(b, 2);
+        if (length < 0) throw new IOException("dictionary entry with negative length");
+        // deflate expands a byte to at most 1032 bytes; a larger length is a damaged entry and must not be allocated
+        if (length > (long) (b.length - 6) * 1032) throw new IOException("dictionary entry with impossible length " + length);
+        final Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(b, 6, b.length - 6);
+            final byte[] out = new byte[length];
+            int p = 0;
+            while (p < length && !inflater.finished()) {
+                final int n = inflater.inflate(out, p, length - p);
+                if (n == 0) {
+                    if (inflater.needsDictionary()) {
+                        final byte[] dict = this.dictionaries.get(inflater.getAdler());
+                        if (dict == null) throw new IOException("unknown dictionary " + Integer.toHexString(inflater.getAdler()));
+                        inflater.setDictionary(dict);
+                    } else if (inflater.needsInput()) {
+                        throw new IOException("truncated dictionary entry");
+                    }
+                }
+                p += n;
+            }
+            if (p != length) throw new IOException("dictionary entry has wrong length");
+            return out;
+        } catch (final DataFormatException e) {
+            throw new IOException("damaged dictionary entry: " + e.getMessage());
+        } finally {
+            inflater.end();
+        }
+    }
+
+    /**
+     * Train a dictionary from sample entries. The samples are cut into segments; the score of a segment is the number
+     * of samples which contain its short substrings. The segments with the best scores are taken, and each short
+     * substring counts only for the first segment which contains it, so that the dictionary has no repetitions.
+     * @param samples the uncompressed entries; only the first 8KB of each sample are used, a few hundred samples are enough
+     * @param size the size of the dictionary
+     * @return the dictionary, with the best segments at the end
+     */
+    public static byte[] train(final List<byte[]> samples, final int size) {
+        final int d = 8;         // length of the short substrings
+        final int k = 64;        // length of the segments
+        final int sampleSize = 8 * 1024; // only the beginning of a sample is used, this is where a dictionary helps most
+
+        // count the number of samples which contain each substring
+        final Map<Long, int[]> frequency = new HashMap<Long, int[]>();
+        for (int s = 0; s < samples.size(); s++) {
+            final byte[] sample = samples.get(s);
+            final int end = Math.min(sample.length, sampleSize) - d;
+            for (int i = 0; i <= end; i++) {
+                final long h = dmer(sample, i, d);
+                int[] f = frequency.get(h);
+                if (f == null) frequency.put(h, f = new int[]{0, -1});
+                if (f[1] != s) {f[0]++; f[1] = s;}
+            }
+        }
+
+        // score the segments
+        final PriorityQueue<long[]> segments = new PriorityQueue<long[]>(1024, new Comparator<long[]>() {
+            @Override
+            public int compare(final long[] a, final long[] b) {
+                return Long.compare(b[0], a[0]);
+            }
+        });
+        for (int s = 0; s < samples.size(); s++) {
+            final byte[] sample = samples.get(s);
+            final int end = Math.min(sample.length, sampleSize) - k;
+            for (int i = 0; i <= end; i += k / 2) {
+                final long score = score(sample, i, k, d, frequency);
+                if (score > 0) segments.add(new long[]{score, s, i});
+            }
+        }
+
+        // take the best segments; a segment is scored again if an earlier segment contained some of its substrings
+        final List<long[]> selected = new ArrayList<long[]>();
+        int length = 0;
+        while (length < size && !segments.isEmpty()) {
+            final long[] segment = segments.poll();
+            final byte[] sample = samples.get((int) segment[1]);
+            final int p = (int) segment[2];
+            final long score = score(sample, p, k, d, frequency);
+            if (score <= 0) continue;
+            if (score < segment[0] && !segments.isEmpty() && score < segments.peek()[0]) {
+                segment[0] = score;
+                segments.add(segment);
+                continue;
+            }
+            for (int i = p; i <= p + k - d; i++) {
+                final int[] f = frequency.get(dmer(sample, i, d));
+                if (f != null) f[0] = 0;
+            }
+            selected.add(segment);
+            length += k;
+        }
+
+        // deflate finds the nearest match first; put the best segments at the end
+        final byte[] dict = new byte[Math.min(size, length)];
+        int q = dict.length;
+        for (final long[] segment: selected) {
+            final int n = Math.min(k, q);
+            if (n <= 0) break;
+            q -= n;
+            System.arraycopy(samples.get((int) segment[1]), (int) segment[2], dict, q, n);
+        }
+        return dict;
+    }
+
+    private static long score(final byte[] sample, final int p, final int k, final int d, final Map<Long, int[]> frequency) {
+        long score = 0;
+        for (int i = p; i <= p + k - d; i++) {
+            final int[] f = frequency.get(dmer(sample, i, d));
+            if (f != null && f[0] > 1) score += f[0];
+        }
+        return score;
+    }
+
+    private static long dmer(final byte[] b, final int p, final int d) {
+        long h = 0;
+        for (int i = 0; i < d; i++) h = (h << 8) | (b[p + i] & 0xff);
+        return h;
+    }
+
+    private static int adler(final byte[] dict) {
+        final Adler32 a = new Adler32();
+        a.update(dict);
+        return (int) a.getValue();
+    }
+
+    private static int readInt(final byte[] b, final int p) {
+        return ((b[p] & 0xff) << 24) | ((b[p + 1] & 0xff) << 16) | ((b[p + 2] & 0xff) << 8) | (b[p + 3] & 0xff);
+    }
+
+    private static void writeInt(final byte[] b, final int p, final int v) {
+        b[p] = (byte) (v >>> 24);
+        b[p + 1] = (byte) (v >>> 16);
+        b[p + 2] = (byte) (v >>> 8);
+        b[p + 3] = (byte) v;
+    }
+
+}
@@ -0,0 +1,80 @@
+// GzipCodec.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * gzip-encoded content, the original format of the {@link Compressor}
+ */
+public class GzipCodec implements CompressionCodec {
+
+    public static final String NAME = "gzip";
+    private static final byte[] MAGIC = {(byte) 'z', (byte) '|'};
+
+    @Override
+    public byte[] magic() {
+        return MAGIC;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] compress(final byte[] b, final int level) throws IOException {
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length / 5);
+        baos.write(MAGIC);
+        final OutputStream os = new GZIPOutputStream(baos, 65536){{def.setLevel(level);}};
+        os.write(b);
+        os.close();
+        baos.close();
+        return baos.toByteArray();
+    }
+
+    @Override
+    public byte[] decompress(final byte[] b) throws IOException {
+        final ByteArrayInputStream bais = new ByteArrayInputStream(b);
+        // eat up the magic
+        bais.read();
+        bais.read();
+        // decompress what is remaining
+        final InputStream gis = new GZIPInputStream(bais);
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream(b.length);
+        final byte[] buf = new byte[1024 * 4];
+        int n;
+        while ((n = gis.read(buf)) > 0) baos.write(buf, 0, n);
+        gis.close();
+        bais.close();
+        baos.close();
+        return baos.toByteArray();
+    }
+
+}
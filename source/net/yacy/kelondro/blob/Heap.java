@@ -85,7 +85,25 @@ public final class Heap extends HeapModifier implements BLOB {
             final int keylength,
             final ByteOrder ordering,
             int buffermax) throws IOException {
-        super(heapFile, keylength, ordering);
+        this(heapFile, keylength, ordering, buffermax, false);
+    }
+
+    /**
+     * create a heap file with a selectable index type
+     * @param heapFile
+     * @param keylength
+     * @param ordering
+     * @param buffermax
+     * @param offHeapIndex if true, the key/seek index is held in direct memory outside of the java heap
+     * @throws IOException
+     */
+    public Heap(
+            final File heapFile,
+            final int keylength,
+            final ByteOrder ordering,
+            int buffermax,
+            final boolean offHeapIndex) throws IOException {
+        super(heapFile, keylength, ordering, offHeapIndex);
         this.buffermax = buffermax;
         this.buffer = new TreeMap<byte[], byte[]>(ordering);
         this.buffersize = 0;
@@ -253,6 +271,34 @@ public final class Heap extends HeapModifier implements BLOB {
         }
     }
 
+    /**
+     * read a part of a BLOB
+     * @param key
+     * @param offset the position of the first byte within the BLOB
+     * @param length the number of bytes to read
+     * @return the bytes or null if the BLOB does not exist or is shorter than offset + length
+     * @throws IOException
+     */
+    @Override
+    public byte[] get(byte[] key, final long offset, final int length) throws IOException {
+        key = normalizeKey(key);
+
+        synchronized (this) {
+            // check the buffer
+            if (this.buffer != null) {
+                final byte[] blob = this.buffer.get(key);
+                if (blob != null) {
+                    if (offset < 0 || length < 0 || offset + length > blob.length) return null;
+                    final byte[] b = new byte[length];
+                    System.arraycopy(blob, (int) offset, b, 0, length);
+                    return b;
+                }
+            }
+
+            return super.get(key, offset, length);
+        }
+    }
+
     /**
      * retrieve the size of the BLOB
      * @param key
@@ -320,6 +366,21 @@ public final class Heap extends HeapModifier implements BLOB {
         return this.buffermax;
     }
 
+    /**
+     * a heap with a write buffer grows with each insert, therefore it is never memory mapped
+     */
+    @Override
+    public void map() {
+    }
+
+    /**
+     * a heap with a write buffer gets new keys, therefore it cannot use a bloom filter
+     */
+    @Override
+    protected boolean bloomFilterEnabled() {
+        return false;
+    }
+
     /**
      * write a whole byte array as BLOB to the table
      * @param key  the primary key
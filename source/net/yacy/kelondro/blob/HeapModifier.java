@@ -58,6 +58,18 @@ public class HeapModifier extends HeapReader implements BLOB {
         super(heapFile, keylength, ordering);
     }
 
+    /**
+     * create a heap file with a selectable index type
+     * @param heapFile
+     * @param keylength
+     * @param ordering
+     * @param offHeapIndex if true, the key/seek index is held in direct memory outside of the java heap
+     * @throws IOException
+     */
+    public HeapModifier(final File heapFile, final int keylength, final ByteOrder ordering, final boolean offHeapIndex) throws IOException {
+        super(heapFile, keylength, ordering, offHeapIndex);
+    }
+
     /**
      * clears the content of the database
      * @throws IOException
@@ -66,6 +78,8 @@ public class HeapModifier extends HeapReader implements BLOB {
     public synchronized void clear() throws IOException {
         this.index.clear();
         this.free.clear();
+        this.bloom = null;
+        unmap();
         this.file.close();
         this.file = null;
         FileUtils.deletedelete(this.heapFile);
@@ -232,7 +246,8 @@ public class HeapModifier extends HeapReader implements BLOB {
                 Long seek = this.free.lastKey();
                 int size = this.free.get(seek).intValue();
                 if (seek.longValue() + size + 4 != this.file.length()) return;
-                // shrink the file
+                // shrink the file; a memory mapping must not survive a truncation
+                unmap();
                 this.file.setLength(seek.longValue());
                 this.free.remove(seek);
             }
@@ -46,8 +46,11 @@ import net.yacy.cora.storage.HandleMap;
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.LookAheadIterator;
 import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.index.BloomFilter;
+import net.yacy.kelondro.index.OffHeapHandleMap;
 import net.yacy.kelondro.index.RowHandleMap;
 import net.yacy.kelondro.io.CachedFileWriter;
+import net.yacy.kelondro.io.MappedFileReader;
 import net.yacy.kelondro.io.Writer;
 import net.yacy.kelondro.util.FileUtils;
 import net.yacy.kelondro.util.MemoryControl;
@@ -60,34 +63,61 @@ public class HeapReader {
 
 	private final static ConcurrentLog log = new ConcurrentLog("HeapReader");
 
+    // if true, heaps which do not grow have a bloom filter that lets lookups skip heaps without the key
+    public static boolean useBloomFilter = true;
+    public final static int bloomFilterBitsPerKey = 10; // about 1% false positives
+
     // input values
     protected int                keylength;  // the length of the primary key
     protected File               heapFile;   // the file of the heap
     protected final ByteOrder    ordering;   // the ordering on keys
+    protected final boolean      offHeapIndex; // if true, the index is stored in direct memory outside of the java heap
 
     // computed values
     protected Writer             file;       // a random access to the file
+    protected MappedFileReader   mapped;     // an optional memory mapped read access to the file, only for heaps which do not grow
     protected HandleMap          index;      // key/seek relation for used records
     protected Gap                free;       // set of {seek, size} pairs denoting space and position of free records
-    private   File               fingerprintFileIdx, fingerprintFileGap; // files with dumped indexes. Will be deleted if file is written
+    protected BloomFilter        bloom;      // filter for the keys in the index or null if every key must be looked up in the index
+    private   File               fingerprintFileIdx, fingerprintFileGap, fingerprintFileBloom; // files with dumped indexes. Will be deleted if file is written
     private   Date               closeDate;  // records a time when the file was closed; used for debugging
 
     public HeapReader(
             final File heapFile,
             final int keylength,
             final ByteOrder ordering) throws IOException {
+        this(heapFile, keylength, ordering, false);
+    }
+
+    /**
+     * open a heap file for reading
+     * @param heapFile
+     * @param keylength
+     * @param ordering
+     * @param offHeapIndex if true, the key/seek index is an OffHeapHandleMap instead of a RowHandleMap
+     * @throws IOException
+     */
+    public HeapReader(
+            final File heapFile,
+            final int keylength,
+            final ByteOrder ordering,
+            final boolean offHeapIndex) throws IOException {
         this.ordering = ordering;
+        this.offHeapIndex = offHeapIndex;
         this.heapFile = heapFile;
         this.keylength = keylength;
         this.index = null; // will be created as result of initialization process
         this.free = null; // will be initialized later depending on existing idx/gap file
         this.heapFile.getParentFile().mkdirs();
         this.file = new CachedFileWriter(this.heapFile);
+        this.mapped = null;
+        this.bloom = null;
         this.closeDate = null;
 
         // read or initialize the index
         this.fingerprintFileIdx = null;
         this.fingerprintFileGap = null;
+        this.fingerprintFileBloom = null;
         if (initIndexReadDump()) {
             // verify that everything worked just fine
             // pick some elements of the index
@@ -109,6 +139,7 @@ public class HeapReader {
             if (!ok) {
                 log.warn("verification of idx file for " + heapFile.toString() + " failed, re-building index");
                 initIndexReadFromHeap();
+                this.fingerprintFileBloom = null; // the dump of the bloom filter does not fit either
             } else {
                 log.info("using a dump of the index of " + heapFile.toString() + ".");
             }
@@ -120,6 +151,9 @@ public class HeapReader {
         // merge gaps that follow directly
         mergeFreeEntries();
 
+        // read or compute the bloom filter
+        if (useBloomFilter && bloomFilterEnabled()) initBloomFilter();
+
         // after the initial initialization of the heap, we close the file again
         // to make more room to file pointers which may run out if the number
         // of file descriptors is too low and the number of files is too high
@@ -135,6 +169,39 @@ public class HeapReader {
         this.index.optimize();
     }
 
+    /**
+     * heaps where entries are added must not have a bloom filter because the filter is not updated
+     * @return true if the heap may have a bloom filter
+     */
+    protected boolean bloomFilterEnabled() {
+        return true;
+    }
+
+    private void initBloomFilter() {
+        if (this.fingerprintFileBloom != null && this.fingerprintFileBloom.exists()) try {
+            this.bloom = new BloomFilter(this.fingerprintFileBloom);
+            return;
+        } catch (final IOException e) {
+            log.warn("cannot read bloom filter " + this.fingerprintFileBloom.getName() + ": " + e.getMessage());
+            FileUtils.deletedelete(this.fingerprintFileBloom);
+            this.fingerprintFileBloom = null;
+        }
+        synchronized (this.index) {
+            this.bloom = BloomFilter.of(this.index.keys(true, null), this.index.size(), bloomFilterBitsPerKey);
+        }
+    }
+
+    /**
+     * test with the bloom filter if the heap may contain a key. This is much cheaper than a lookup
+     * in the index and can be used to skip heaps which do not contain the key.
+     * @param key
+     * @return false if the key is not in the heap; true if the key may be in the heap
+     */
+    public boolean mightContain(final byte[] key) {
+        final BloomFilter b = this.bloom;
+        return b == null || b.mightContain(normalizeKey(key));
+    }
+
     protected byte[] normalizeKey(byte[] key) {
         // check size of key: zero-filled keys are only possible of the ordering is
         // an instance of the natural ordering. Base64-orderings cannot use zeros in keys.
@@ -168,15 +235,20 @@ public class HeapReader {
         if (!this.fingerprintFileIdx.exists()) this.fingerprintFileIdx = new File(this.fingerprintFileIdx.getAbsolutePath() + ".gz");
         this.fingerprintFileGap = HeapWriter.fingerprintGapFile(this.heapFile, fingerprint);
         if (!this.fingerprintFileGap.exists()) this.fingerprintFileGap = new File(this.fingerprintFileGap.getAbsolutePath() + ".gz");
+        this.fingerprintFileBloom = HeapWriter.fingerprintBloomFile(this.heapFile, fingerprint);
         if (!this.fingerprintFileIdx.exists() || !this.fingerprintFileGap.exists()) {
-            deleteAllFingerprints(this.heapFile, this.fingerprintFileIdx.getName(), this.fingerprintFileGap.getName());
+            deleteAllFingerprints(this.heapFile, this.fingerprintFileIdx.getName(), this.fingerprintFileGap.getName(), null);
             return false;
         }
+        // a bloom filter is optional; older dumps do not have one
+        deleteAllFingerprints(this.heapFile, this.fingerprintFileIdx.getName(), this.fingerprintFileGap.getName(), this.fingerprintFileBloom.getName());
 
         // there is an index and a gap file:
         // read the index file:
         try {
-            this.index = new RowHandleMap(this.keylength, this.ordering, 8, this.fingerprintFileIdx);
+            this.index = this.offHeapIndex ?
+                    new OffHeapHandleMap(this.keylength, this.ordering, 8, this.fingerprintFileIdx) :
+                    new RowHandleMap(this.keylength, this.ordering, 8, this.fingerprintFileIdx);
         } catch (final IOException e) {
             ConcurrentLog.logException(e);
             return false;
@@ -220,6 +292,10 @@ public class HeapReader {
             FileUtils.deletedelete(this.fingerprintFileGap);
             this.fingerprintFileGap = null;
         }
+        if (this.fingerprintFileBloom != null) {
+            FileUtils.deletedelete(this.fingerprintFileBloom);
+            this.fingerprintFileBloom = null;
+        }
     }
 
     protected static String fingerprintFileHash(File f) {
@@ -231,7 +307,7 @@ public class HeapReader {
         return fp.substring(0, 12);
     }
 
-    private static void deleteAllFingerprints(File f, String exception1, String exception2) {
+    private static void deleteAllFingerprints(File f, String exception1, String exception2, String exception3) {
         File d = f.getParentFile();
         String n = f.getName();
         String[] l = d.list();
@@ -239,8 +315,10 @@ public class HeapReader {
             if (!l[i].startsWith(n)) continue;
             if (exception1 != null && l[i].equals(exception1)) continue;
             if (exception2 != null && l[i].equals(exception2)) continue;
+            if (exception3 != null && l[i].equals(exception3)) continue;
             if (l[i].endsWith(".idx") ||
                 l[i].endsWith(".gap") ||
+                l[i].endsWith(".bloom") ||
                 l[i].endsWith(".idx.gz") ||
                 l[i].endsWith(".gap.gz")
                ) FileUtils.deletedelete(new File(d, l[i]));
@@ -252,7 +330,9 @@ public class HeapReader {
         log.info("generating index for " + this.heapFile.toString() + ", " + (this.file.length() / 1024 / 1024) + " MB. Please wait.");
 
         this.free = new Gap();
-        RowHandleMap.initDataConsumer indexready = RowHandleMap.asynchronusInitializer(this.name() + ".initializer", this.keylength, this.ordering, 8, Math.max(10, (int) (Runtime.getRuntime().freeMemory() / (10 * 1024 * 1024))));
+        // the off-heap index is filled directly; the asynchronous initializer produces a RowHandleMap
+        final OffHeapHandleMap offHeap = this.offHeapIndex ? new OffHeapHandleMap(this.keylength, this.ordering, 8, (int) Math.min(Integer.MAX_VALUE, this.file.length() / 1024)) : null;
+        RowHandleMap.initDataConsumer indexready = offHeap != null ? null : RowHandleMap.asynchronusInitializer(this.name() + ".initializer", this.keylength, this.ordering, 8, Math.max(10, (int) (Runtime.getRuntime().freeMemory() / (10 * 1024 * 1024))));
         byte[] key = new byte[this.keylength];
         int reclen;
         long seek = 0;
@@ -287,7 +367,13 @@ public class HeapReader {
                 if (reclen > 0) this.free.put(seek, reclen);
             } else {
                 if (this.ordering.wellformed(key)) {
-                    indexready.consume(key, seek);
+                    if (offHeap == null) {
+                        indexready.consume(key, seek);
+                    } else try {
+                        offHeap.putUnique(key, seek);
+                    } catch (final SpaceExceededException e) {
+                        throw new IOException(e.getMessage(), e);
+                    }
                     key = new byte[this.keylength];
                 } else {
                     // free the lost space
@@ -302,15 +388,19 @@ public class HeapReader {
             seek += 4L + reclen;
         }
         }
-        indexready.finish();
+        if (offHeap != null) {
+            this.index = offHeap;
+        } else {
+            indexready.finish();
 
-        // finish the index generation
-        try {
-            this.index = indexready.result();
-        } catch (final InterruptedException e) {
-        	ConcurrentLog.logException(e);
-        } catch (final ExecutionException e) {
-        	ConcurrentLog.logException(e);
+            // finish the index generation
+            try {
+                this.index = indexready.result();
+            } catch (final InterruptedException e) {
+                ConcurrentLog.logException(e);
+            } catch (final ExecutionException e) {
+                ConcurrentLog.logException(e);
+            }
         }
         log.info("finished index generation for " + this.heapFile.toString() + ", " + this.index.size() + " entries, " + this.free.size() + " gaps.");
     }
@@ -349,6 +439,35 @@ public class HeapReader {
         return this.heapFile.toString();
     }
 
+    /**
+     * switch read access to a memory mapped file. This must only be used for heaps which do not grow any more,
+     * like heaps which are not the write target of an ArrayStack. Reads are then served from the page cache
+     * without a system call and without the file read buffer.
+     * @throws IOException
+     */
+    public void map() throws IOException {
+        if (this.index == null) return;
+        synchronized (this.index) {
+            if (this.mapped != null) return;
+            this.mapped = new MappedFileReader(this.heapFile);
+        }
+        log.info("mapped heap file " + this.heapFile.getName() + " into memory, " + (this.mapped.length() / 1024 / 1024) + " MB");
+    }
+
+    /**
+     * remove the memory mapping; must be called before the length of the heap file is changed
+     */
+    protected void unmap() {
+        final MappedFileReader m = this.mapped;
+        if (m == null) return;
+        this.mapped = null;
+        m.close();
+    }
+
+    public boolean isMapped() {
+        return this.mapped != null;
+    }
+
     public File location() {
         return this.heapFile;
     }
@@ -494,6 +613,10 @@ public class HeapReader {
             final long pos = this.index.get(key);
             if (pos < 0) return null;
 
+            // use the memory mapping if available
+            final MappedFileReader m = this.mapped;
+            if (m != null) return getMapped(m, key, pos);
+
             // access the file and read the container
             this.file.seek(pos);
             final int len = this.file.readInt() - this.keylength;
@@ -549,6 +672,77 @@ public class HeapReader {
         }
     }
 
+    /**
+     * read a blob from the memory mapped heap file; must be called while the index is locked
+     */
+    private byte[] getMapped(final MappedFileReader m, final byte[] key, final long pos) throws IOException, SpaceExceededException {
+        final int len = m.readInt(pos) - this.keylength;
+        if (len < 0) {
+            log.severe("file " + this.heapFile + " corrupted at " + pos + ": negative len. len = " + len + ", pk.len = " + this.keylength);
+            this.index.remove(key);
+            return null;
+        }
+        final long memr = len + this.keylength + 64;
+        if (MemoryControl.available() < memr) {
+            if (!MemoryControl.request(memr, true)) throw new SpaceExceededException(memr, "HeapReader.getMapped()/check"); // not enough memory available for this blob
+        }
+        final byte[] keyf = new byte[this.keylength];
+        m.readFully(pos + 4, keyf, 0, keyf.length);
+        if (!this.ordering.equal(key, keyf)) {
+            log.severe("indexed verification access failed for " + this.heapFile.toString());
+            this.index.remove(key);
+            return null;
+        }
+        // copy the blob straight from the page cache into the result
+        final byte[] blob;
+        try {
+            blob = new byte[len];
+        } catch (final OutOfMemoryError e) {
+            throw new SpaceExceededException(len, "HeapReader.getMapped()/blob");
+        }
+        m.readFully(pos + 4 + this.keylength, blob, 0, len);
+        return blob;
+    }
+
+    /**
+     * read a part of a BLOB. This is used to read single blocks of large BLOBs without loading the whole BLOB.
+     * @param key
+     * @param offset the position of the first byte within the BLOB
+     * @param length the number of bytes to read
+     * @return the bytes or null if the BLOB does not exist, is shorter than offset + length or the heap is closed
+     * @throws IOException
+     */
+    public byte[] get(byte[] key, final long offset, final int length) throws IOException {
+        if (this.index == null) return null; // the heap was closed, i.e. because it is merged
+        key = normalizeKey(key);
+
+        synchronized (this.index) {
+            final long pos = this.index.get(key);
+            if (pos < 0) return null;
+            final MappedFileReader m = this.mapped;
+            final int len;
+            if (m != null) {
+                len = m.readInt(pos) - this.keylength;
+            } else {
+                this.file.seek(pos);
+                len = this.file.readInt() - this.keylength;
+            }
+            if (offset < 0 || length < 0 || offset + length > len) return null;
+            if (!checkKey(key, pos)) {
+                log.severe("indexed verification access failed for " + this.heapFile.toString());
+                return null;
+            }
+            final byte[] b = new byte[length];
+            if (m != null) {
+                m.readFully(pos + 4 + this.keylength + offset, b, 0, length);
+            } else {
+                this.file.seek(pos + 4 + this.keylength + offset);
+                this.file.readFully(b, 0, length);
+            }
+            return b;
+        }
+    }
+
     public byte[] get(Object key) {
         if (!(key instanceof byte[])) return null;
         try {
@@ -563,11 +757,16 @@ public class HeapReader {
 
     protected boolean checkKey(byte[] key, final long pos) throws IOException {
         key = normalizeKey(key);
+        final byte[] keyf = new byte[this.keylength];
+        final MappedFileReader m = this.mapped;
+        if (m != null) {
+            m.readFully(pos + 4, keyf, 0, keyf.length);
+            return this.ordering.equal(key, keyf);
+        }
         this.file.seek(pos);
         this.file.readInt(); // skip the size value
 
         // read the key
-        final byte[] keyf = new byte[this.keylength];
         this.file.readFully(keyf, 0, keyf.length);
         return this.ordering.equal(key, keyf);
     }
@@ -592,6 +791,8 @@ public class HeapReader {
             if (pos < 0) return -1;
 
             // access the file and read the size of the container
+            final MappedFileReader m = this.mapped;
+            if (m != null) return m.readInt(pos) - this.keylength;
             this.file.seek(pos);
             return this.file.readInt() - this.keylength;
         }
@@ -604,6 +805,7 @@ public class HeapReader {
         if (this.index == null) return;
         synchronized (this.index) {
             try {
+            unmap();
             if (this.file != null)
     			try {
     				this.file.close();
@@ -643,6 +845,8 @@ public class HeapReader {
                             this.index.dump(newFingerprintFileIdx);
                             log.info("wrote a dump for the " + this.index.size() +  " index entries of " + this.heapFile.getName()+ " in " + (System.currentTimeMillis() - start) + " milliseconds.");
                         }
+                        final File newFingerprintFileBloom = HeapWriter.fingerprintBloomFile(this.heapFile, fingerprint);
+                        if (this.bloom != null && !newFingerprintFileBloom.exists()) this.bloom.dump(newFingerprintFileBloom);
                     }
                     this.index.close();
                     this.index = null;
@@ -654,6 +858,7 @@ public class HeapReader {
             this.free = null;
             if (this.index != null) this.index.close();
             this.index = null;
+            this.bloom = null;
             this.closeDate = new Date();
             } catch (Throwable e) {ConcurrentLog.logException(e);}
             log.info("close HeapFile " + this.heapFile.getName() + "; trace: " + ConcurrentLog.stackTrace());
@@ -0,0 +1,222 @@
+// LZ4Codec.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.blob;
+
+import java.io.IOException;
+
+/**
+ * A fast codec of the LZ family: the content is written as one block in the LZ4 block format, preceded by the
+ * length of the uncompressed content. The compression ratio is lower than with gzip, but compression and
+ * decompression need only a fraction of the CPU time.
+ */
+public class LZ4Codec implements CompressionCodec {
+
+    public static final String NAME = "lz4";
+    private static final byte[] MAGIC = {(byte) 'l', (byte) '|'};
+
+    private static final int MIN_MATCH = 4;
+    private static final int LAST_LITERALS = 5; // the last bytes of a block are always literals
+    private static final int MF_LIMIT = 12;     // a match must not start within the last bytes of a block
+    private static final int MAX_DISTANCE = 65535;
+    private static final int HASH_BITS = 14;
+
+    @Override
+    public byte[] magic() {
+        return MAGIC;
+    }
+
+    @Override
+    public String name() {
+        return NAME;
+    }
+
+    @Override
+    public byte[] compress(final byte[] b, final int level) throws IOException {
+        final byte[] out = new byte[6 + b.length + b.length / 255 + 16];
+        out[0] = MAGIC[0];
+        out[1] = MAGIC[1];
+        writeInt(out, 2, b.length);
+        final int end = compressBlock(b, out, 6);
+        final byte[] r = new byte[end];
+        System.arraycopy(out, 0, r, 0, end);
+        return r;
+    }
+
+    @Override
+    public byte[] decompress(final byte[] b) throws IOException {
+        if (b.length < 6) throw new IOException("lz4 entry too short");
+        final int length = readInt(b, 2);
+        if (length < 0) throw new IOException("lz4 entry with negative length");
+        // a byte of an lz4 block expands to at most 255 bytes; a larger length is a damaged entry and must not be allocated
+        if (length > (long) (b.length - 6) * 255) throw new IOException("lz4 entry with impossible length " + length);
+        final byte[] out = new byte[length];
+        try {
+            if (decompressBlock(b, 6, b.length, out) != length) throw new IOException("lz4 entry has wrong length");
+        } catch (final ArrayIndexOutOfBoundsException e) {
+            throw new IOException("damaged lz4 entry");
+        }
+        return out;
+    }
+
+    /**
+     * compress the source into one LZ4 block
+     * @param src the source content
+     * @param dst the target array, at least src.length + src.length / 255 + 16 bytes after dstOff
+     * @param dstOff the position of the block in dst
+     * @return the position after the block in dst
+     */
+    protected static int compressBlock(final byte[] src, final byte[] dst, final int dstOff) {
+        final int end = src.length;
+        int op = dstOff;
+        int anchor = 0;
+        if (end >= MF_LIMIT + 1) {
+            final int[] table = new int[1 << HASH_BITS];
+            final int mfLimit = end - MF_LIMIT;
+            final int matchLimit = end - LAST_LITERALS;
+            int ip = 1;
+            int searches = 1 << 6; // skip faster over content that does not compress
+            while (ip < mfLimit) {
+                final int seq = readInt(src, ip);
+                final int h = hash(seq);
+                final int ref = table[h] - 1;
+                table[h] = ip + 1;
+                if (ref < 0 || ip - ref > MAX_DISTANCE || readInt(src, ref) != seq) {
+                    ip += searches++ >>> 6;
+                    continue;
+                }
+                searches = 1 << 6;
+                // extend the match backwards and forwards
+                int mp = ref;
+                while (ip > anchor && mp > 0 && src[ip - 1] == src[mp - 1]) {ip--; mp--;}
+                int len = MIN_MATCH;
+                while (ip + len < matchLimit && src[ip + len] == src[mp + len]) len++;
+                op = writeSequence(src, anchor, ip - anchor, ip - mp, len, dst, op);
+                ip += len;
+                anchor = ip;
+                if (ip < mfLimit) table[hash(readInt(src, ip - 2))] = ip - 1;
+            }
+        }
+        // the last literals
+        final int literals = end - anchor;
+        final int token = op++;
+        op = writeLength(literals, dst, token, 4, op);
+        System.arraycopy(src, anchor, dst, op, literals);
+        return op + literals;
+    }
+
+    private static int writeSequence(final byte[] src, final int anchor, final int literals, final int distance, final int len, final byte[] dst, int op) {
+        final int token = op++;
+        op = writeLength(literals, dst, token, 4, op);
+        System.arraycopy(src, anchor, dst, op, literals);
+        op += literals;
+        dst[op++] = (byte) distance;
+        dst[op++] = (byte) (distance >>> 8);
+        final int ml = len - MIN_MATCH;
+        if (ml >= 15) {
+            dst[token] |= 15;
+            op = writeLengthBytes(ml - 15, dst, op);
+        } else {
+            dst[token] |= ml;
+        }
+        return op;
+    }
+
+    private static int writeLength(final int length, final byte[] dst, final int token, final int shift, final int op) {
+        if (length >= 15) {
+            dst[token] = (byte) (15 << shift);
+            return writeLengthBytes(length - 15, dst, op);
+        }
+        dst[token] = (byte) (length << shift);
+        return op;
+    }
+
+    private static int writeLengthBytes(int length, final byte[] dst, int op) {
+        while (length >= 255) {
+            dst[op++] = (byte) 255;
+            length -= 255;
+        }
+        dst[op++] = (byte) length;
+        return op;
+    }
+
+    /**
+     * decompress one LZ4 block
+     * @param src the array with the block
+     * @param srcOff the position of the block
+     * @param srcEnd the position after the block
+     * @param dst the target array
+     * @return the number of bytes written to dst
+     */
+    protected static int decompressBlock(final byte[] src, final int srcOff, final int srcEnd, final byte[] dst) throws IOException {
+        int ip = srcOff;
+        int op = 0;
+        while (ip < srcEnd) {
+            final int token = src[ip++] & 0xff;
+            // literals
+            int literals = token >>> 4;
+            if (literals == 15) {
+                int l;
+                do {l = src[ip++] & 0xff; literals += l;} while (l == 255);
+            }
+            System.arraycopy(src, ip, dst, op, literals);
+            ip += literals;
+            op += literals;
+            if (ip >= srcEnd) break; // the last sequence has no match
+            // match
+            final int distance = (src[ip] & 0xff) | ((src[ip + 1] & 0xff) << 8);
+            ip += 2;
+            if (distance == 0 || distance > op) throw new IOException("damaged lz4 entry: wrong match distance");
+            int len = token & 15;
+            if (len == 15) {
+                int l;
+                do {l = src[ip++] & 0xff; len += l;} while (l == 255);
+            }
+            len += MIN_MATCH;
+            int mp = op - distance;
+            if (distance >= len) {
+                System.arraycopy(dst, mp, dst, op, len);
+                op += len;
+            } else {
+                // the match overlaps with the bytes it produces
+                for (int i = 0; i < len; i++) dst[op++] = dst[mp++];
+            }
+        }
+        return op;
+    }
+
+    private static int hash(final int seq) {
+        return (seq * -1640531535) >>> (32 - HASH_BITS);
+    }
+
+    private static int readInt(final byte[] b, final int p) {
+        return ((b[p] & 0xff) << 24) | ((b[p + 1] & 0xff) << 16) | ((b[p + 2] & 0xff) << 8) | (b[p + 3] & 0xff);
+    }
+
+    private static void writeInt(final byte[] b, final int p, final int v) {
+        b[p] = (byte) (v >>> 24);
+        b[p + 1] = (byte) (v >>> 16);
+        b[p + 2] = (byte) (v >>> 8);
+        b[p + 3] = (byte) v;
+    }
+
+}
@@ -212,6 +212,16 @@ public final class WordReferenceRow extends AbstractReference implements WordRef
         this.entry = urlEntryRow.newEntry(external, true);
     }
 
+    /**
+     * parse the property form of an entry which is a part of a string, without allocations for the single properties
+     * @param external
+     * @param from the position of the opening bracket of the property form
+     * @param to the position after the closing bracket of the property form
+     */
+    public WordReferenceRow(final String external, final int from, final int to) {
+        this.entry = urlEntryRow.newEntry(external, from, to);
+    }
+
     private WordReferenceRow(final byte[] row) {
         this.entry = urlEntryRow.newEntry(row);
     }
@@ -0,0 +1,161 @@
+/**
+ *  BloomFilter
+ *  Copyright 2026 by the YaCy contributors
+ *  First released 17.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Iterator;
+
+/**
+ * a bloom filter for byte[] keys. The filter answers if a key may be contained in a set of keys;
+ * a negative answer is always correct, a positive answer is wrong with a probability which
+ * depends on the number of bits per key (about 1% for 10 bits per key).
+ * The filter is used to skip heap files which do not contain a key without asking their index.
+ * Keys can only be added, a removal of keys from the underlying set does not change the filter.
+ */
+public final class BloomFilter {
+
+    private static final int MAGIC = 0x59424631; // 'YBF1'
+
+    private final long[] bits;
+    private final long nbits;
+    private final int hashes;
+
+    /**
+     * create an empty filter
+     * @param expectedKeys the number of keys that shall be stored in the filter
+     * @param bitsPerKey the number of bits for each key, 10 is a good value
+     */
+    public BloomFilter(final int expectedKeys, final int bitsPerKey) {
+        final long n = Math.max(64L, (long) Math.max(1, expectedKeys) * Math.max(1, bitsPerKey));
+        this.bits = new long[(int) Math.min(Integer.MAX_VALUE - 8, (n + 63) >>> 6)];
+        this.nbits = (long) this.bits.length << 6;
+        this.hashes = Math.max(1, Math.min(16, (int) Math.round(bitsPerKey * Math.log(2))));
+    }
+
+    /**
+     * load a filter from a file which was written with dump()
+     * @param file
+     * @throws IOException if the file cannot be read or has a wrong format
+     */
+    public BloomFilter(final File file) throws IOException {
+        final DataInputStream is = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 64 * 1024));
+        try {
+            if (is.readInt() != MAGIC) throw new IOException("wrong magic in bloom filter file " + file.getName());
+            this.hashes = is.readInt();
+            final int words = is.readInt();
+            if (this.hashes < 1 || words < 1 || (long) words * 8 + 12 != file.length()) throw new IOException("wrong size of bloom filter file " + file.getName());
+            this.bits = new long[words];
+            this.nbits = (long) words << 6;
+            for (int i = 0; i < words; i++) this.bits[i] = is.readLong();
+        } finally {
+            is.close();
+        }
+    }
+
+    /**
+     * create a filter for all keys of an iterator
+     * @param keys
+     * @param size the number of keys in the iterator
+     * @param bitsPerKey
+     * @return a filter with all keys
+     */
+    public static BloomFilter of(final Iterator<byte[]> keys, final int size, final int bitsPerKey) {
+        final BloomFilter filter = new BloomFilter(size, bitsPerKey);
+        while (keys.hasNext()) filter.add(keys.next());
+        return filter;
+    }
+
+    public void add(final byte[] key) {
+        final long h = hash(key);
+        final int h1 = (int) h;
+        final int h2 = (int) (h >>> 32);
+        for (int i = 0; i < this.hashes; i++) {
+            final long b = ((h1 + (long) i * h2) & Long.MAX_VALUE) % this.nbits;
+            this.bits[(int) (b >>> 6)] |= 1L << b;
+        }
+    }
+
+    /**
+     * @param key
+     * @return false if the key was never added to the filter, true if it may have been added
+     */
+    public boolean mightContain(final byte[] key) {
+        final long h = hash(key);
+        final int h1 = (int) h;
+        final int h2 = (int) (h >>> 32);
+        for (int i = 0; i < this.hashes; i++) {
+            final long b = ((h1 + (long) i * h2) & Long.MAX_VALUE) % this.nbits;
+            if ((this.bits[(int) (b >>> 6)] & (1L << b)) == 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * @return the size of the filter in bytes
+     */
+    public long mem() {
+        return (long) this.bits.length * 8;
+    }
+
+    /**
+     * write the filter to a file; the file is written to a temporary file first and renamed afterwards
+     * @param file
+     * @throws IOException
+     */
+    public void dump(final File file) throws IOException {
+        final File tmp = new File(file.getParentFile(), file.getName() + ".prt");
+        final DataOutputStream os = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 64 * 1024));
+        try {
+            os.writeInt(MAGIC);
+            os.writeInt(this.hashes);
+            os.writeInt(this.bits.length);
+            for (final long w: this.bits) os.writeLong(w);
+        } finally {
+            os.close();
+        }
+        if (file.exists()) file.delete();
+        if (!tmp.renameTo(file)) throw new IOException("cannot rename " + tmp + " to " + file);
+    }
+
+    /**
+     * 64 bit FNV-1a hash with a final avalanche mix; the two halves are used for double hashing
+     */
+    private static long hash(final byte[] key) {
+        long h = 0xcbf29ce484222325L;
+        for (final byte b: key) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,649 @@
+/**
+ *  OffHeapHandleMap
+ *  Copyright 2026 by the YaCy contributors
+ *  First released 17.10.2026 at http://yacy.net
+ *
+ *  This library is free software; you can redistribute it and/or
+ *  modify it under the terms of the GNU Lesser General Public
+ *  License as published by the Free Software Foundation; either
+ *  version 2.1 of the License, or (at your option) any later version.
+ *
+ *  This library is distributed in the hope that it will be useful,
+ *  but WITHOUT ANY WARRANTY; without even the implied warranty of
+ *  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ *  Lesser General Public License for more details.
+ *
+ *  You should have received a copy of the GNU Lesser General Public License
+ *  along with this program in the file lgpl21.txt
+ *  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package net.yacy.kelondro.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.NoSuchElementException;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.yacy.cora.order.ByteOrder;
+import net.yacy.cora.order.CloneableIterator;
+import net.yacy.cora.order.NaturalOrder;
+import net.yacy.cora.storage.HandleMap;
+import net.yacy.cora.util.SpaceExceededException;
+
+/**
+ * A HandleMap which stores all keys and values in direct memory outside of the java heap.
+ * The entries are held in an open addressing hash table with linear probing; the key order
+ * which is needed for ordered iteration and dumps is computed on demand and cached until the
+ * next modification. The dump format is the same as the format of the RowHandleMap, so both
+ * implementations can read the fingerprint idx files of each other.
+ */
+public final class OffHeapHandleMap implements HandleMap, Iterable<Map.Entry<byte[], Long>> {
+
+    private static final int SEGMENT_BYTES = 1 << 30;
+    private static final float LOAD_FACTOR = 0.75f;
+    private static final byte FREE = 0, USED = 1;
+
+    private final int keylength, idxbytes, slotsize, slotsPerSegmentShift;
+    private final ByteOrder ordering;
+    private ByteBuffer[] segments;
+    private long capacity; // number of slots, always a power of two
+    private int size;
+    private IntBuffer order; // slot numbers in key order, null if the order must be computed again
+
+    /**
+     * initialize an empty off-heap HandleMap
+     * @param keylength the length of the keys
+     * @param objectOrder the order of the keys
+     * @param idxbytes the number of bytes of a value in the dump format
+     * @param expectedspace the number of entries which are expected
+     */
+    public OffHeapHandleMap(final int keylength, final ByteOrder objectOrder, final int idxbytes, final int expectedspace) {
+        this.keylength = keylength;
+        this.ordering = objectOrder;
+        this.idxbytes = idxbytes;
+        this.slotsize = 1 + keylength + idxbytes; // values are stored with idxbytes width, like in the RowHandleMap
+        this.slotsPerSegmentShift = 31 - Integer.numberOfLeadingZeros(SEGMENT_BYTES / this.slotsize);
+        this.size = 0;
+        this.order = null;
+        allocate(capacityFor(expectedspace));
+    }
+
+    /**
+     * initialize an off-heap HandleMap with the content of a dumped index
+     * @param keylength
+     * @param objectOrder
+     * @param idxbytes
+     * @param file a dump written by a RowHandleMap or an OffHeapHandleMap
+     * @throws IOException
+     * @throws SpaceExceededException
+     */
+    public OffHeapHandleMap(final int keylength, final ByteOrder objectOrder, final int idxbytes, final File file) throws IOException, SpaceExceededException {
+        this(keylength, objectOrder, idxbytes, (int) Math.min(Integer.MAX_VALUE, file.length() / (keylength + idxbytes)));
+        InputStream is = new BufferedInputStream(new FileInputStream(file), 1024 * 1024);
+        try {
+            if (file.getName().endsWith(".gz")) is = new GZIPInputStream(is);
+            final DataInputStream dis = new DataInputStream(is);
+            final byte[] a = new byte[keylength + idxbytes];
+            while (true) {
+                try {
+                    dis.readFully(a);
+                } catch (final EOFException e) {
+                    break;
+                }
+                if (!this.ordering.wellformed(a, 0, keylength)) continue;
+                final byte[] key = new byte[keylength];
+                System.arraycopy(a, 0, key, 0, keylength);
+                put(key, NaturalOrder.decodeLong(a, keylength, idxbytes));
+            }
+        } finally {
+            is.close();
+        }
+    }
+
+    private static long capacityFor(final long entries) {
+        long c = 16;
+        while (c * LOAD_FACTOR <= entries) c <<= 1;
+        return c;
+    }
+
+    private void allocate(final long newCapacity) {
+        final long slotsPerSegment = 1L << this.slotsPerSegmentShift;
+        final int count = (int) ((newCapacity + slotsPerSegment - 1) / slotsPerSegment);
+        final ByteBuffer[] s = new ByteBuffer[count];
+        try {
+            for (int i = 0; i < count; i++) {
+                s[i] = ByteBuffer.allocateDirect((int) (Math.min(slotsPerSegment, newCapacity - i * slotsPerSegment) * this.slotsize));
+            }
+        } catch (final OutOfMemoryError e) {
+            throw new OutOfMemoryError("cannot allocate " + (newCapacity * this.slotsize) + " bytes of direct memory for OffHeapHandleMap; increase -XX:MaxDirectMemorySize");
+        }
+        this.segments = s;
+        this.capacity = newCapacity;
+    }
+
+    private ByteBuffer segment(final long slot) {
+        return this.segments[(int) (slot >>> this.slotsPerSegmentShift)];
+    }
+
+    private int offset(final long slot) {
+        return (int) (slot & ((1L << this.slotsPerSegmentShift) - 1)) * this.slotsize;
+    }
+
+    private boolean used(final long slot) {
+        return segment(slot).get(offset(slot)) == USED;
+    }
+
+    private void readKey(final long slot, final byte[] key) {
+        final ByteBuffer d = segment(slot).duplicate();
+        d.position(offset(slot) + 1);
+        d.get(key, 0, this.keylength);
+    }
+
+    private long value(final long slot) {
+        final ByteBuffer b = segment(slot);
+        final int o = offset(slot) + 1 + this.keylength;
+        long c = 0;
+        for (int i = 0; i < this.idxbytes; i++) c = (c << 8) | (b.get(o + i) & 0xFFL);
+        return c;
+    }
+
+    private void setValue(final long slot, long value) {
+        final ByteBuffer b = segment(slot);
+        final int o = offset(slot) + 1 + this.keylength;
+        for (int i = this.idxbytes - 1; i >= 0; i--) {
+            b.put(o + i, (byte) (value & 0xFF));
+            value >>= 8;
+        }
+    }
+
+    private void write(final long slot, final byte[] key, final long value) {
+        final ByteBuffer d = segment(slot).duplicate();
+        d.position(offset(slot));
+        d.put(USED);
+        d.put(key, 0, this.keylength);
+        setValue(slot, value);
+    }
+
+    private void copySlot(final long from, final long to) {
+        final ByteBuffer s = segment(from).duplicate();
+        s.position(offset(from));
+        s.limit(offset(from) + this.slotsize);
+        final ByteBuffer d = segment(to).duplicate();
+        d.position(offset(to));
+        d.put(s);
+    }
+
+    private boolean keyEquals(final long slot, final byte[] key) {
+        final ByteBuffer b = segment(slot);
+        final int o = offset(slot) + 1;
+        for (int i = 0; i < this.keylength; i++) {
+            if (b.get(o + i) != key[i]) return false;
+        }
+        return true;
+    }
+
+    private long home(final byte[] key) {
+        // FNV-1a; the keys are mostly base64 hashes, but we cannot rely on that
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < this.keylength; i++) {
+            h ^= key[i] & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return (h ^ (h >>> 32)) & (this.capacity - 1);
+    }
+
+    private byte[] normalizeKey(final byte[] key) {
+        if (key.length == this.keylength) return key;
+        final byte[] k = new byte[this.keylength];
+        System.arraycopy(key, 0, k, 0, Math.min(key.length, this.keylength));
+        return k;
+    }
+
+    /**
+     * @return the slot of the key or -1 if the key does not exist
+     */
+    private long find(final byte[] key) {
+        long slot = home(key);
+        while (used(slot)) {
+            if (keyEquals(slot, key)) return slot;
+            slot = (slot + 1) & (this.capacity - 1);
+        }
+        return -1;
+    }
+
+    private void grow() {
+        final ByteBuffer[] old = this.segments;
+        final long oldCapacity = this.capacity;
+        final long slotsPerSegment = 1L << this.slotsPerSegmentShift;
+        allocate(oldCapacity << 1);
+        final byte[] key = new byte[this.keylength];
+        for (long slot = 0; slot < oldCapacity; slot++) {
+            final ByteBuffer b = old[(int) (slot / slotsPerSegment)];
+            final int o = (int) (slot % slotsPerSegment) * this.slotsize;
+            if (b.get(o) != USED) continue;
+            final ByteBuffer d = b.duplicate();
+            d.position(o);
+            d.limit(o + this.slotsize);
+            final ByteBuffer k = d.duplicate();
+            k.position(o + 1);
+            k.get(key);
+            long s = home(key);
+            while (used(s)) s = (s + 1) & (this.capacity - 1);
+            final ByteBuffer t = segment(s).duplicate();
+            t.position(offset(s));
+            t.put(d);
+        }
+    }
+
+    @Override
+    public synchronized long mem() {
+        return this.capacity * this.slotsize + (this.order == null ? 0 : this.order.capacity() * 4L);
+    }
+
+    @Override
+    public void optimize() {
+        // the hash table is always compact enough
+    }
+
+    @Override
+    public synchronized int dump(final File file) throws IOException {
+        final File tmp = new File(file.getParentFile(), file.getName() + ".prt");
+        final IntBuffer o = sortedOrder();
+        int c = 0;
+        final FileOutputStream fileStream = new FileOutputStream(tmp);
+        OutputStream os = new BufferedOutputStream(fileStream, 1024 * 1024);
+        try {
+            if (file.getName().endsWith(".gz")) os = new GZIPOutputStream(os, 65536){{def.setLevel(Deflater.BEST_COMPRESSION);}};
+            // the slot content behind the flag byte is exactly one record of the dump format
+            final byte[] a = new byte[this.keylength + this.idxbytes];
+            for (int i = 0; i < this.size; i++) {
+                final long slot = slotOf(o.get(i));
+                final ByteBuffer d = segment(slot).duplicate();
+                d.position(offset(slot) + 1);
+                d.get(a);
+                os.write(a);
+                c++;
+            }
+            os.flush();
+        } finally {
+            os.close();
+        }
+        tmp.renameTo(file);
+        return c;
+    }
+
+    @Override
+    public synchronized void clear() {
+        allocate(16);
+        this.size = 0;
+        this.order = null;
+    }
+
+    @Override
+    public synchronized byte[] smallestKey() {
+        if (this.size == 0) return null;
+        final byte[] key = new byte[this.keylength];
+        readKey(slotOf(sortedOrder().get(0)), key);
+        return key;
+    }
+
+    @Override
+    public synchronized byte[] largestKey() {
+        if (this.size == 0) return null;
+        final byte[] key = new byte[this.keylength];
+        readKey(slotOf(sortedOrder().get(this.size - 1)), key);
+        return key;
+    }
+
+    @Override
+    public synchronized boolean has(final byte[] key) {
+        assert key != null;
+        return find(normalizeKey(key)) >= 0;
+    }
+
+    @Override
+    public synchronized long get(final byte[] key) {
+        assert key != null;
+        final long slot = find(normalizeKey(key));
+        return slot < 0 ? -1 : value(slot);
+    }
+
+    @Override
+    public synchronized long put(final byte[] key, final long l) throws SpaceExceededException {
+        assert l >= 0 : "l = " + l;
+        assert key != null;
+        final byte[] k = normalizeKey(key);
+        final long slot = find(k);
+        if (slot >= 0) {
+            final long old = value(slot);
+            setValue(slot, l);
+            return old;
+        }
+        insert(k, l);
+        return -1;
+    }
+
+    @Override
+    public synchronized void putUnique(final byte[] key, final long l) throws SpaceExceededException {
+        put(key, l);
+    }
+
+    private void insert(final byte[] key, final long l) throws SpaceExceededException {
+        if (this.size + 1 > this.capacity * LOAD_FACTOR) {
+            if (this.capacity >= (1L << 31)) throw new SpaceExceededException(this.capacity * this.slotsize * 2, "OffHeapHandleMap.insert");
+            grow();
+        }
+        long slot = home(key);
+        while (used(slot)) slot = (slot + 1) & (this.capacity - 1);
+        write(slot, key, l);
+        this.size++;
+        this.order = null;
+    }
+
+    @Override
+    public synchronized long add(final byte[] key, final long a) throws SpaceExceededException {
+        assert key != null;
+        final byte[] k = normalizeKey(key);
+        final long slot = find(k);
+        if (slot < 0) {
+            insert(k, a);
+            return 1;
+        }
+        final long i = value(slot) + a;
+        setValue(slot, i);
+        return i;
+    }
+
+    @Override
+    public long inc(final byte[] key) throws SpaceExceededException {
+        return add(key, 1);
+    }
+
+    @Override
+    public long dec(final byte[] key) throws SpaceExceededException {
+        return add(key, -1);
+    }
+
+    /**
+     * a hash table cannot contain double entries
+     */
+    @Override
+    public ArrayList<long[]> removeDoubles() {
+        return new ArrayList<long[]>(0);
+    }
+
+    @Override
+    public synchronized ArrayList<byte[]> top(final int count) {
+        final ArrayList<byte[]> list = new ArrayList<byte[]>();
+        for (long slot = 0; slot < this.capacity && list.size() < count; slot++) {
+            if (!used(slot)) continue;
+            final byte[] key = new byte[this.keylength];
+            readKey(slot, key);
+            list.add(key);
+        }
+        return list;
+    }
+
+    @Override
+    public synchronized long remove(final byte[] key) {
+        assert key != null;
+        final long slot = find(normalizeKey(key));
+        if (slot < 0) return -1;
+        final long value = value(slot);
+        removeSlot(slot);
+        return value;
+    }
+
+    /**
+     * delete a slot and shift following entries of the probe sequence backwards,
+     * so that no tombstones are needed
+     */
+    private void removeSlot(long slot) {
+        final long mask = this.capacity - 1;
+        final byte[] key = new byte[this.keylength];
+        long next = (slot + 1) & mask;
+        while (used(next)) {
+            readKey(next, key);
+            final long h = home(key);
+            // move the entry if its home is not cyclically within (slot, next]
+            if ((next > slot && (h <= slot || h > next)) || (next < slot && h <= slot && h > next)) {
+                copySlot(next, slot);
+                slot = next;
+            }
+            next = (next + 1) & mask;
+        }
+        segment(slot).put(offset(slot), FREE);
+        this.size--;
+        this.order = null;
+    }
+
+    @Override
+    public synchronized long removeone() {
+        if (this.size == 0) return -1;
+        for (long slot = 0; slot < this.capacity; slot++) {
+            if (!used(slot)) continue;
+            final long value = value(slot);
+            removeSlot(slot);
+            return value;
+        }
+        return -1;
+    }
+
+    @Override
+    public synchronized int size() {
+        return this.size;
+    }
+
+    @Override
+    public synchronized boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    @Override
+    public synchronized CloneableIterator<byte[]> keys(final boolean up, final byte[] firstKey) {
+        final IntBuffer o = sortedOrder();
+        final int s = this.size;
+        int start;
+        if (firstKey == null) {
+            start = up ? 0 : s - 1;
+        } else {
+            // binary search for the first key which is not before firstKey in iteration direction
+            final byte[] fk = normalizeKey(firstKey);
+            final byte[] key = new byte[this.keylength];
+            int lo = 0, hi = s;
+            while (lo < hi) {
+                final int mid = (lo + hi) >>> 1;
+                readKey(slotOf(o.get(mid)), key);
+                if (this.ordering.compare(key, fk) < 0) lo = mid + 1; else hi = mid;
+            }
+            if (up) {
+                start = lo;
+            } else {
+                start = lo;
+                if (start >= s) {
+                    start = s - 1;
+                } else {
+                    readKey(slotOf(o.get(start)), key);
+                    if (this.ordering.compare(key, fk) > 0) start--;
+                }
+            }
+        }
+        return new KeyIterator(o, start, up);
+    }
+
+    @Override
+    public synchronized void close() {
+        this.segments = null;
+        this.order = null;
+        this.size = 0;
+        this.capacity = 0;
+    }
+
+    @Override
+    public Iterator<Entry<byte[], Long>> iterator() {
+        final CloneableIterator<byte[]> i = keys(true, null);
+        return new Iterator<Entry<byte[], Long>>() {
+            @Override
+            public boolean hasNext() {
+                return i.hasNext();
+            }
+            @Override
+            public Entry<byte[], Long> next() {
+                final byte[] b = i.next();
+                return new AbstractMap.SimpleImmutableEntry<byte[], Long>(b, Long.valueOf(get(b)));
+            }
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        };
+    }
+
+    private long slotOf(final int orderEntry) {
+        return orderEntry & 0xffffffffL;
+    }
+
+    /**
+     * compute the slot numbers in key order; the result is cached until the next modification
+     */
+    private IntBuffer sortedOrder() {
+        if (this.order != null) return this.order;
+        final IntBuffer o = ByteBuffer.allocateDirect(Math.max(4, this.size * 4)).asIntBuffer();
+        int c = 0;
+        for (long slot = 0; slot < this.capacity; slot++) {
+            if (used(slot)) o.put(c++, (int) slot);
+        }
+        assert c == this.size;
+        sort(o, 0, c - 1, new byte[this.keylength], new byte[this.keylength]);
+        this.order = o;
+        return o;
+    }
+
+    private int compareSlots(final int a, final int b, final byte[] ka, final byte[] kb) {
+        readKey(slotOf(a), ka);
+        readKey(slotOf(b), kb);
+        return this.ordering.compare(ka, kb);
+    }
+
+    private void sort(final IntBuffer o, int lo, int hi, final byte[] ka, final byte[] kb) {
+        while (lo < hi) {
+            if (hi - lo < 16) {
+                for (int i = lo + 1; i <= hi; i++) {
+                    final int v = o.get(i);
+                    int j = i - 1;
+                    while (j >= lo && compareSlots(o.get(j), v, ka, kb) > 0) {
+                        o.put(j + 1, o.get(j));
+                        j--;
+                    }
+                    o.put(j + 1, v);
+                }
+                return;
+            }
+            final int pivot = o.get((lo + hi) >>> 1);
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (compareSlots(o.get(i), pivot, ka, kb) < 0) i++;
+                while (compareSlots(o.get(j), pivot, ka, kb) > 0) j--;
+                if (i <= j) {
+                    final int t = o.get(i);
+                    o.put(i, o.get(j));
+                    o.put(j, t);
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller part to bound the stack depth
+            if (j - lo < hi - i) {
+                sort(o, lo, j, ka, kb);
+                lo = i;
+            } else {
+                sort(o, i, hi, ka, kb);
+                hi = j;
+            }
+        }
+    }
+
+    private final class KeyIterator implements CloneableIterator<byte[]> {
+
+        private IntBuffer o;
+        private int p;
+        private final boolean up;
+        private byte[] last;
+
+        private KeyIterator(final IntBuffer o, final int start, final boolean up) {
+            this.o = o;
+            this.p = start;
+            this.up = up;
+            this.last = null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            synchronized (OffHeapHandleMap.this) {
+                if (this.o != OffHeapHandleMap.this.order && OffHeapHandleMap.this.segments != null) {
+                    // the map was modified; continue behind the last returned key in the new order
+                    if (this.last == null) {
+                        final KeyIterator i = (KeyIterator) keys(this.up, null);
+                        this.o = i.o;
+                        this.p = i.p;
+                    } else {
+                        final KeyIterator i = (KeyIterator) keys(this.up, this.last);
+                        this.o = i.o;
+                        this.p = i.p;
+                        if (this.p >= 0 && this.p < OffHeapHandleMap.this.size) {
+                            final byte[] key = new byte[OffHeapHandleMap.this.keylength];
+                            readKey(slotOf(this.o.get(this.p)), key);
+                            if (OffHeapHandleMap.this.ordering.equal(key, this.last)) this.p += this.up ? 1 : -1;
+                        }
+                    }
+                }
+                return this.p >= 0 && this.p < OffHeapHandleMap.this.size;
+            }
+        }
+
+        @Override
+        public byte[] next() {
+            synchronized (OffHeapHandleMap.this) {
+                if (!hasNext()) throw new NoSuchElementException();
+                final byte[] key = new byte[OffHeapHandleMap.this.keylength];
+                readKey(slotOf(this.o.get(this.p)), key);
+                this.p += this.up ? 1 : -1;
+                this.last = key;
+                return key;
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public CloneableIterator<byte[]> clone(final Object modifier) {
+            return keys(this.up, (byte[]) modifier);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+}
@@ -192,6 +192,25 @@ public final class Row implements Serializable {
         return new Entry(external, decimalCardinal);
     }
 
+    public final Entry newEntry(final String external, final int from, final int to) {
+        if (external == null) return null;
+        return new Entry(external, from, to);
+    }
+
+    /**
+     * @param s
+     * @param from
+     * @param to
+     * @return the number of the column with the nickname s.substring(from, to) or -1 if there is no such column
+     */
+    private final int column(final String s, final int from, final int to) {
+        for (int i = 0; i < this.row.length; i++) {
+            final String nick = this.row[i].nickname;
+            if (nick.length() == to - from && s.regionMatches(from, nick, 0, to - from)) return i;
+        }
+        return -1;
+    }
+
     public final EntryIndex newEntryIndex(final byte[] rowinstance, final int index) {
         if (rowinstance == null) return null;
         assert (rowinstance[0] != 0);
@@ -332,6 +351,62 @@ public final class Row implements Serializable {
             }
         }
 
+        /**
+         * parse the external form of an entry with decimal cardinals from a part of a string. The result is the same as
+         * the one of {@link #Entry(String, boolean)}, but no substrings are allocated for the tokens and the cardinals.
+         * Tokens with an unknown nickname are ignored.
+         * @param external
+         * @param from the position of the first character of the external form
+         * @param to the position after the last character of the external form
+         */
+        public Entry(final String external, int from, int to) {
+            if (from < to && external.charAt(from) == '{') {from++; to--;}
+            this.rowinstance = new byte[Row.this.objectsize];
+            this.offset = 0;
+            int ts = from; // the start of the current token
+            while (ts < to) {
+                int te = external.indexOf(',', ts);
+                if (te < 0 || te > to) te = to;
+                int p = external.indexOf('=', ts);
+                if (p < 0 || p >= te) p = external.indexOf(':', ts);
+                if (p > ts && p < te) {
+                    // the nickname, trimmed and unquoted
+                    int ns = ts, ne = p;
+                    while (ns < ne && external.charAt(ns) <= ' ') ns++;
+                    while (ne > ns && external.charAt(ne - 1) <= ' ') ne--;
+                    if (ne - ns > 1 && external.charAt(ns) == '"' && external.charAt(ne - 1) == '"') {ns++; ne--;}
+                    final int column = column(external, ns, ne);
+                    if (column >= 0) {
+                        final Column col = Row.this.row[column];
+                        final int clstrt = Row.this.colstart[column];
+                        if (p + 1 == te) {
+                            setCol(clstrt, col.cellwidth, null);
+                        } else if (col.celltype == Column.celltype_cardinal) {
+                            try {
+                                setCol(col.encoder, this.offset + clstrt, col.cellwidth, NumberTools.parseLongDecSubstring(external, p + 1, te));
+                            } catch (final NumberFormatException e) {
+                                ConcurrentLog.severe("kelondroRow", "NumberFormatException for celltype_cardinal, celltype = " + col.celltype + ", encoder = " + col.encoder + ", value = '" + external.substring(p + 1, te).trim() + "'");
+                                setCol(col.encoder, this.offset + clstrt, col.cellwidth, 0);
+                            }
+                        } else if (col.celltype == Column.celltype_binary) {
+                            assert col.cellwidth == 1;
+                            try {
+                                this.rowinstance[this.offset + clstrt] = (byte) NumberTools.parseIntDecSubstring(external, p + 1, te);
+                            } catch (final NumberFormatException e) {
+                                ConcurrentLog.severe("kelondroRow", "NumberFormatException for celltype_binary, celltype = " + col.celltype + ", encoder = " + col.encoder + ", value = '" + external.substring(p + 1, te).trim() + "'");
+                                this.rowinstance[this.offset + clstrt] = 0;
+                            }
+                        } else if (col.celltype == Column.celltype_bitfield) {
+                            setCol(clstrt, col.cellwidth, (new Bitfield(col.cellwidth, external.substring(p + 1, te).trim())).bytes());
+                        } else {
+                            setCol(clstrt, col.cellwidth, external, p + 1, te);
+                        }
+                    }
+                }
+                ts = te + 1;
+            }
+        }
+
         protected final int colstart(final int column) {
             return Row.this.colstart[column];
         }
@@ -430,6 +505,25 @@ public final class Row implements Serializable {
             }
         }
 
+        /**
+         * set a cell to the UTF-8 encoding of the trimmed characters of s between from and to
+         */
+        private final void setCol(final int clstrt, final int length, final String s, int from, int to) {
+            while (from < to && s.charAt(from) <= ' ') from++;
+            while (to > from && s.charAt(to - 1) <= ' ') to--;
+            final int l = Math.min(length, to - from);
+            for (int i = 0; i < l; i++) {
+                final char c = s.charAt(from + i);
+                if (c >= 0x80) {
+                    // not ASCII, the encoding has more bytes than characters
+                    setCol(clstrt, length, UTF8.getBytes(s.substring(from, to)));
+                    return;
+                }
+                this.rowinstance[this.offset + clstrt + i] = (byte) c;
+            }
+            for (int i = l; i < length; i++) this.rowinstance[this.offset + clstrt + i] = 0;
+        }
+
         public final void setCol(final int column, final byte c) {
             this.rowinstance[this.offset + Row.this.colstart[column]] = c;
         }
@@ -173,6 +173,16 @@ public class RowCollection implements Sortable<Row.Entry>, Iterable<Row.Entry>,
     private static Column exportColumn0, exportColumn1, exportColumn2, exportColumn3, exportColumn4, collectionColumnProducer;
 
     protected static final long exportOverheadSize = 14;
+
+    /*
+     * an exported collection may have a block index appended behind the rows: the primary key of the first row
+     * of every block of rows, followed by a trailer with the number of rows in a block and a magic. The rows
+     * stay at the same position, so such an export can be imported like any other export, but a reader can
+     * find the block of a key within the block index and read only that block.
+     */
+    public static final int exportHeaderSize = (int) exportOverheadSize;
+    public static final int exportBlockTrailerSize = 8;
+    private static final byte[] exportBlockMagic = ASCII.getBytes("RBI1");
     
     private static Row exportRow(final int chunkcachelength) {
         /*
@@ -211,6 +221,15 @@ public class RowCollection implements Sortable<Row.Entry>, Iterable<Row.Entry>,
     }
 
     public synchronized byte[] exportCollection() {
+        return exportCollection(Integer.MAX_VALUE);
+    }
+
+    /**
+     * export the collection with a block index if it has more than the given number of rows
+     * @param blockRows the number of rows in one block
+     * @return the exported collection
+     */
+    public synchronized byte[] exportCollection(final int blockRows) {
         // returns null if the collection is empty
         sort(); // experimental; supervise CPU load
         //uniq();
@@ -218,7 +237,10 @@ public class RowCollection implements Sortable<Row.Entry>, Iterable<Row.Entry>,
         assert this.sortBound == this.chunkcount; // on case the collection is sorted
         assert size() * this.rowdef.objectsize <= this.chunkcache.length : "this.size() = " + size() + ", objectsize = " + this.rowdef.objectsize + ", chunkcache.length = " + this.chunkcache.length;
         final Row row = exportRow(size() * this.rowdef.objectsize);
-        final Row.Entry entry = row.newEntry();
+        final long length = exportedLength(size(), this.rowdef, blockRows);
+        if (length > Integer.MAX_VALUE) throw new kelondroException("exported collection too large: " + length);
+        final byte[] b = new byte[(int) length];
+        final Row.Entry entry = row.newEntry(b, 0, false);
         assert (this.sortBound <= this.chunkcount) : "sortBound = " + this.sortBound + ", chunkcount = " + this.chunkcount;
         assert (this.chunkcount <= this.chunkcache.length / this.rowdef.objectsize) : "chunkcount = " + this.chunkcount + ", chunkcache.length = " + this.chunkcache.length + ", rowdef.objectsize = " + this.rowdef.objectsize;
         entry.setCol(exp_chunkcount, this.chunkcount);
@@ -227,7 +249,55 @@ public class RowCollection implements Sortable<Row.Entry>, Iterable<Row.Entry>,
         entry.setCol(exp_order_type, (this.rowdef.objectOrder == null) ? ASCII.getBytes("__") : ASCII.getBytes(this.rowdef.objectOrder.signature()));
         entry.setCol(exp_order_bound, this.sortBound);
         entry.setCol(exp_collection, this.chunkcache);
-        return entry.bytes();
+        if (length > row.objectsize) {
+            // append the block index
+            int p = row.objectsize;
+            for (int i = 0; i < this.chunkcount; i += blockRows) {
+                System.arraycopy(this.chunkcache, i * this.rowdef.objectsize, b, p, this.rowdef.primaryKeyLength);
+                p += this.rowdef.primaryKeyLength;
+            }
+            NaturalOrder.encodeLong(blockRows, b, p, 4);
+            System.arraycopy(exportBlockMagic, 0, b, p + 4, exportBlockMagic.length);
+        }
+        return b;
+    }
+
+    /**
+     * compute the length of an exported collection
+     * @param size the number of rows
+     * @param rowdef
+     * @param blockRows the number of rows in one block; a collection with at most that many rows has no block index
+     * @return the length of the export in bytes
+     */
+    public static long exportedLength(final int size, final Row rowdef, final int blockRows) {
+        final long length = exportOverheadSize + ((long) size) * rowdef.objectsize;
+        if (size <= blockRows) return length;
+        final long blocks = (size + (long) blockRows - 1) / blockRows;
+        return length + blocks * rowdef.primaryKeyLength + exportBlockTrailerSize;
+    }
+
+    /**
+     * read the number of rows from the header of an exported collection
+     * @param b the export or at least its first four bytes
+     * @return the number of rows
+     */
+    public static int exportedRowCount(final byte[] b) {
+        return (int) NaturalOrder.decodeLong(b, 0, 4);
+    }
+
+    /**
+     * read the trailer of an exported collection with a block index
+     * @param b
+     * @param offset the position of the trailer within b
+     * @return the number of rows in one block or -1 if there is no block index trailer at that position
+     */
+    public static int exportedBlockRows(final byte[] b, final int offset) {
+        if (offset < 0 || offset + exportBlockTrailerSize > b.length) return -1;
+        for (int i = 0; i < exportBlockMagic.length; i++) {
+            if (b[offset + 4 + i] != exportBlockMagic[i]) return -1;
+        }
+        final int blockRows = (int) NaturalOrder.decodeLong(b, offset, 4);
+        return blockRows > 0 ? blockRows : -1;
     }
 
     public void saveCollection(final File file) throws IOException {
@@ -356,6 +426,19 @@ public class RowCollection implements Sortable<Row.Entry>, Iterable<Row.Entry>,
         return b;
     }
 
+    /**
+     * copy a range of rows in one step, i.e. for a decoder which must not lock the collection for each row
+     * @param from the index of the first row
+     * @param to the index after the last row
+     * @return the rows one after the other, each with the size of the row definition
+     */
+    public synchronized final byte[] getRows(final int from, final int to) {
+        assert from >= 0 && from <= to && to <= this.chunkcount : "from = " + from + ", to = " + to + ", chunkcount = " + this.chunkcount;
+        final byte[] b = new byte[(to - from) * this.rowdef.objectsize];
+        System.arraycopy(this.chunkcache, from * this.rowdef.objectsize, b, 0, b.length);
+        return b;
+    }
+
     @Override
     public synchronized final Row.Entry get(final int index, final boolean clone) {
         assert (index >= 0) : "get: access with index " + index + " is below zero";
@@ -90,8 +90,12 @@ public class RowSet extends RowCollection implements Index, Iterable<Row.Entry>,
         final long alloc = ((long) size) * ((long) rowdef.objectsize);
         assert alloc <= Integer.MAX_VALUE : "alloc = " + alloc;
         if (alloc > Integer.MAX_VALUE) throw new SpaceExceededException((int) alloc, "importRowSet: alloc > Integer.MAX_VALUE");
-        assert alloc == b.length - exportOverheadSize;
-        if (alloc != b.length - exportOverheadSize) throw new SpaceExceededException((int) alloc, "importRowSet: alloc != b.length - exportOverheadSize");
+        if (alloc != b.length - exportOverheadSize) {
+            // the export may have a block index behind the rows
+            final int blockRows = exportedBlockRows(b, b.length - exportBlockTrailerSize);
+            assert blockRows > 0 && exportedLength(size, rowdef, blockRows) == b.length : "b.length = " + b.length + ", size = " + size;
+            if (blockRows <= 0 || exportedLength(size, rowdef, blockRows) != b.length) throw new SpaceExceededException((int) alloc, "importRowSet: alloc != b.length - exportOverheadSize");
+        }
         MemoryControl.request((int) alloc, true);
         final byte[] chunkcache;
         try {
@@ -99,11 +103,6 @@ public class RowSet extends RowCollection implements Index, Iterable<Row.Entry>,
         } catch (final OutOfMemoryError e) {
             throw new SpaceExceededException((int) alloc, "importRowSet: OutOfMemoryError");
         }
-        //assert b.length - exportOverheadSize == size * rowdef.objectsize : "b.length = " + b.length + ", size * rowdef.objectsize = " + size * rowdef.objectsize;
-        if (b.length - exportOverheadSize != alloc) {
-            ConcurrentLog.severe("RowSet", "exportOverheadSize wrong: b.length = " + b.length + ", size * rowdef.objectsize = " + size * rowdef.objectsize);
-            return new RowSet(rowdef, 0);
-        }
         System.arraycopy(b, (int) exportOverheadSize, chunkcache, 0, chunkcache.length);
         return new RowSet(rowdef, size, chunkcache, orderbound);
     }
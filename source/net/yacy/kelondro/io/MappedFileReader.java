@@ -0,0 +1,122 @@
+// MappedFileReader.java
+// ---------------------
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+
+package net.yacy.kelondro.io;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * read-only access to a file using memory mapped segments. All read methods use absolute
+ * positions and do not share a file pointer, therefore they can be used concurrently.
+ * The mapping is done at construction time; if the file is changed in length afterwards,
+ * the reader must be closed and a new one must be created. Changes within the mapped
+ * length are visible because the mapping shares the page cache with the file.
+ */
+public final class MappedFileReader {
+
+    private static final int SEGMENT_SIZE = 1 << 30; // 1 GB per mapped segment
+
+    private final File file;
+    private final long length;
+    private MappedByteBuffer[] segments;
+
+    public MappedFileReader(final File file) throws IOException {
+        this.file = file;
+        final RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            final FileChannel channel = raf.getChannel();
+            this.length = channel.size();
+            final int count = (int) ((this.length + SEGMENT_SIZE - 1) / SEGMENT_SIZE);
+            this.segments = new MappedByteBuffer[count];
+            for (int i = 0; i < count; i++) {
+                final long start = (long) i * SEGMENT_SIZE;
+                this.segments[i] = channel.map(FileChannel.MapMode.READ_ONLY, start, Math.min(SEGMENT_SIZE, this.length - start));
+            }
+        } finally {
+            // the mapping stays valid after the channel is closed
+            raf.close();
+        }
+    }
+
+    public File file() {
+        return this.file;
+    }
+
+    /**
+     * @return the length of the file at the time when it was mapped
+     */
+    public long length() {
+        return this.length;
+    }
+
+    /**
+     * read bytes from the given position
+     * @param pos the absolute position in the file
+     * @param b the target array
+     * @param off the offset in the target array
+     * @param len the number of bytes to read
+     * @throws IOException if the reader is closed or the requested range is outside of the mapped file
+     */
+    public void readFully(final long pos, final byte[] b, int off, int len) throws IOException {
+        final MappedByteBuffer[] s = this.segments;
+        if (s == null) throw new IOException("mapped file " + this.file.getName() + " is closed");
+        if (pos < 0 || pos + len > this.length) throw new IOException("EOF in " + this.file.getName() + ", length = " + this.length + ", requested = " + len + " at " + pos);
+        long p = pos;
+        while (len > 0) {
+            final int segment = (int) (p / SEGMENT_SIZE);
+            final int offset = (int) (p % SEGMENT_SIZE);
+            final int chunk = Math.min(len, s[segment].limit() - offset);
+            // a duplicate has its own position, so concurrent readers do not interfere
+            final ByteBuffer d = s[segment].duplicate();
+            d.position(offset);
+            d.get(b, off, chunk);
+            p += chunk;
+            off += chunk;
+            len -= chunk;
+        }
+    }
+
+    public int readInt(final long pos) throws IOException {
+        final MappedByteBuffer[] s = this.segments;
+        if (s == null) throw new IOException("mapped file " + this.file.getName() + " is closed");
+        final int segment = (int) (pos / SEGMENT_SIZE);
+        final int offset = (int) (pos % SEGMENT_SIZE);
+        if (pos >= 0 && pos + 4 <= this.length && offset + 4 <= s[segment].limit()) {
+            return s[segment].getInt(offset); // big-endian, like RandomAccessFile.readInt()
+        }
+        final byte[] b = new byte[4];
+        readFully(pos, b, 0, 4);
+        return ((b[0] & 0xFF) << 24) | ((b[1] & 0xFF) << 16) | ((b[2] & 0xFF) << 8) | (b[3] & 0xFF);
+    }
+
+    /**
+     * release the mapping. The memory is unmapped by the garbage collector once no
+     * buffer refers to it any more.
+     */
+    public void close() {
+        this.segments = null;
+    }
+
+}
@@ -26,12 +26,22 @@ package net.yacy.kelondro.rwi;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
 import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.kelondro.blob.ArrayStack;
 import net.yacy.kelondro.util.MemoryControl;
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
 
 
 /**
@@ -45,6 +55,11 @@ import net.yacy.kelondro.util.MemoryControl;
  * to use this class, first instantiate a object and then start the concurrent execution
  * of merging with a call to the start() - method. To shut down all mergings, call terminate()
  * only once.
+ *
+ * Dumps are done by the dispatcher thread itself. Merges are handed over to a pool of merge
+ * workers; at most one merge is running for each ArrayStack, so that merges of different
+ * index cells run in parallel while the files of one cell are merged one after another.
+ * The merge bandwidth can be limited to keep the IO load of merges away from searches.
  */
 public class IODispatcher extends Thread {
 
@@ -56,14 +71,47 @@ public class IODispatcher extends Thread {
     private   ArrayBlockingQueue<DumpJob<? extends Reference>> dumpQueue;
     private   boolean                      terminate;
     private final int                      writeBufferSize;
+    private final int                      mergeThreads; // maximum number of concurrent merges
+    private final long                     maxMergeBandwidth; // bytes per second, 0 = unlimited
+    private final int                      tierThreshold; // number of files in a size tier that triggers a merge, 0 = no tiered compaction
+    private final ExecutorService          mergeWorkers;
+    private final Set<ArrayStack>          mergingArrays; // arrays which have a running merge
+    private final AtomicInteger            runningMerges;
+    private final AtomicLong               mergeCount, mergedBytes, mergeTime, throttleTime;
+    private long                           throttleDue; // time when the bandwidth reserved by the last merge is used up
 
     public IODispatcher(final int dumpQueueLength, final int mergeQueueLength, final int writeBufferSize) {
+        this(dumpQueueLength, mergeQueueLength, writeBufferSize, 1, 0, 0);
+    }
+
+    /**
+     * @param dumpQueueLength maximum number of waiting dump jobs
+     * @param mergeQueueLength maximum number of waiting merge jobs
+     * @param writeBufferSize the write buffer size for dumps and merges
+     * @param mergeThreads the number of merges that may run concurrently (for different arrays)
+     * @param maxMergeBandwidth the maximum number of bytes per second that are read by merges, 0 for no limit
+     * @param tierThreshold if greater than 1, index cells merge files of similar size as soon as a size tier
+     *   has that many files (size-tiered compaction); otherwise the best matching pairs are merged
+     */
+    public IODispatcher(final int dumpQueueLength, final int mergeQueueLength, final int writeBufferSize,
+            final int mergeThreads, final long maxMergeBandwidth, final int tierThreshold) {
     	super("IODispatcher");
         this.termination = new Semaphore(0);
         this.controlQueue = new Semaphore(0);
         this.dumpQueue = new ArrayBlockingQueue<DumpJob<? extends Reference>>(dumpQueueLength);
-        this.mergeQueue = new ArrayBlockingQueue<MergeJob>(mergeQueueLength);
+        this.mergeQueue = new ArrayBlockingQueue<MergeJob>(Math.max(1, mergeQueueLength));
         this.writeBufferSize = writeBufferSize;
+        this.mergeThreads = Math.max(1, mergeThreads);
+        this.maxMergeBandwidth = Math.max(0, maxMergeBandwidth);
+        this.tierThreshold = tierThreshold > 1 ? tierThreshold : 0;
+        this.mergeWorkers = Executors.newFixedThreadPool(this.mergeThreads, new NamePrefixThreadFactory("IODispatcher.merge"));
+        this.mergingArrays = Collections.newSetFromMap(new ConcurrentHashMap<ArrayStack, Boolean>());
+        this.runningMerges = new AtomicInteger(0);
+        this.mergeCount = new AtomicLong(0);
+        this.mergedBytes = new AtomicLong(0);
+        this.mergeTime = new AtomicLong(0);
+        this.throttleTime = new AtomicLong(0);
+        this.throttleDue = 0;
         this.terminate = false;
     }
 
@@ -80,15 +128,31 @@ public class IODispatcher extends Thread {
         }
     }
 
+    /**
+     * queue a dump of a ram cache to a new BLOB file which is mounted to the given array afterwards
+     * @param cache the cache to be dumped
+     * @param file the new BLOB file
+     * @param array the array where the BLOB is mounted after the dump
+     * @param mounted if not null, the cache is dumped non-destructive because it is still read during the dump;
+     *   mounted.run() is called after the new BLOB file has been mounted to the array
+     */
     @SuppressWarnings("unchecked")
-	protected synchronized void dump(final ReferenceContainerCache<? extends Reference> cache, final File file, final ReferenceContainerArray<? extends Reference> array) {
+	protected synchronized void dump(final ReferenceContainerCache<? extends Reference> cache, final File file, final ReferenceContainerArray<? extends Reference> array, final Runnable mounted) {
         if (this.dumpQueue == null || this.controlQueue == null || !isAlive()) {
             log.warn("emergency dump of file " + file.getName());
-             if (!cache.isEmpty()) cache.dump(file, (int) Math.min(MemoryControl.available() / 3, this.writeBufferSize), true);
+            if (!cache.isEmpty()) cache.dump(file, (int) Math.min(MemoryControl.available() / 3, this.writeBufferSize), mounted == null);
+            if (mounted != null) {
+                try {
+                    array.mountBLOBFile(file);
+                } catch (final IOException e) {
+                    ConcurrentLog.logException(e);
+                }
+                mounted.run();
+            }
         } else {
             @SuppressWarnings("rawtypes")
             final
-            DumpJob<? extends Reference> job = new DumpJob(cache, file, array);
+            DumpJob<? extends Reference> job = new DumpJob(cache, file, array, mounted);
             // check if the dispatcher is running
             if (isAlive()) {
                 try {
@@ -96,7 +160,7 @@ public class IODispatcher extends Thread {
                     log.info("appended dump job for file " + file.getName());
                 } catch (final IllegalStateException e) {
                     log.warn("could not append dump job, emergency dump of file " + file.getName());
-                    cache.dump(file, (int) Math.min(MemoryControl.available() / 3, this.writeBufferSize), true);
+                    job.dump();
                 } finally {
                     this.controlQueue.release();
                 }
@@ -111,6 +175,84 @@ public class IODispatcher extends Thread {
         return (this.controlQueue == null || !isAlive()) ? 0 : this.controlQueue.availablePermits();
     }
 
+    /**
+     * the number of waiting and running merge jobs for one array. Index cells use this instead
+     * of the global queue length so that each cell can keep its own merges going.
+     * @param array
+     * @return the number of merge jobs for the given array
+     */
+    protected synchronized int queueLength(final ArrayStack array) {
+        if (this.mergeQueue == null || !isAlive()) return 0;
+        int c = this.mergingArrays.contains(array) ? 1 : 0;
+        for (final MergeJob job: this.mergeQueue) if (job.array == array) c++;
+        return c;
+    }
+
+    /**
+     * @return the number of files in one size tier that triggers a merge of that tier, 0 if the size-tiered policy is off
+     */
+    public int tierThreshold() {
+        return this.tierThreshold;
+    }
+
+    public int dumpQueueSize() {
+        final ArrayBlockingQueue<DumpJob<? extends Reference>> q = this.dumpQueue;
+        return q == null ? 0 : q.size();
+    }
+
+    public int mergeQueueSize() {
+        final ArrayBlockingQueue<MergeJob> q = this.mergeQueue;
+        return q == null ? 0 : q.size();
+    }
+
+    public int mergeThreads() {
+        return this.mergeThreads;
+    }
+
+    public int runningMerges() {
+        return this.runningMerges.get();
+    }
+
+    public long mergeCount() {
+        return this.mergeCount.get();
+    }
+
+    /**
+     * @return the number of bytes of input files of all finished merges
+     */
+    public long mergedBytes() {
+        return this.mergedBytes.get();
+    }
+
+    /**
+     * @return the time in milliseconds which was spent in merges, without waiting time of the bandwidth limitation
+     */
+    public long mergeTime() {
+        return this.mergeTime.get();
+    }
+
+    /**
+     * @return the time in milliseconds which merges had to wait because of the bandwidth limitation
+     */
+    public long throttleTime() {
+        return this.throttleTime.get();
+    }
+
+    /**
+     * @return the average merge bandwidth in bytes per second of a single merge
+     */
+    public long mergeBandwidth() {
+        final long t = this.mergeTime.get();
+        return t == 0 ? 0 : this.mergedBytes.get() * 1000L / t;
+    }
+
+    /**
+     * @return the bandwidth limit for merges in bytes per second, 0 if unlimited
+     */
+    public long maxMergeBandwidth() {
+        return this.maxMergeBandwidth;
+    }
+
     protected synchronized void merge(final File f1, final File f2, final ReferenceFactory<? extends Reference> factory, final ArrayStack array, final File newFile) {
         if (this.mergeQueue == null || this.controlQueue == null || !isAlive()) {
             if (f2 == null) {
@@ -131,6 +273,8 @@ public class IODispatcher extends Thread {
                     }
                 } catch (final IllegalStateException e) { // because mergeQueue size is 1, IllegalStateException could happen frequently (serial execution ensured in run() )
                 	log.warn("Could not add merge job to queue: " + e.getMessage());
+                	// the files are already unmounted; put them back to the array to merge them later
+                	job.remount();
                 } finally {
                     this.controlQueue.release();
                 }
@@ -171,26 +315,15 @@ public class IODispatcher extends Thread {
                     continue loop;
                 }
 
-                // otherwise do a merge operation
-                if (!this.mergeQueue.isEmpty() && !MemoryControl.shortStatus()) {
-                	File f = null, f1 = null, f2 = null;
+                // otherwise start a merge operation; if no job can be started because the workers are busy,
+                // a finishing worker releases the control queue again. Merges which are waiting at
+                // termination time are done after the loop.
+                if (!this.terminate && !this.mergeQueue.isEmpty() && !MemoryControl.shortStatus()) {
                     try {
-                        mergeJob = this.mergeQueue.take();
-                        f = mergeJob.newFile;
-                        f1 = mergeJob.f1;
-                        f2 = mergeJob.f2;
-                        mergeJob.merge();
-                    } catch (final InterruptedException e) {
-                        log.severe("main run job was interrupted (2)", e);
+                        mergeJob = nextMergeJob();
+                        if (mergeJob != null) this.mergeWorkers.execute(mergeJob);
                     } catch (final Throwable e) {
-                        if (f2 == null) {
-                            log.severe("main run job had errors (2), dump to " + f + " failed. Input file is " + f1, e);
-                        } else {
-                            log.severe("main run job had errors (2), dump to " + f + " failed. Input files are " + f1 + " and " + f2, e);
-                        }
-                    } finally {
-                        // make sure (on error) loop never hangs on controlQueue.acquire() (after/on error)
-                        if (this.terminate) this.controlQueue.release();
+                        log.severe("main run job had errors (2), could not start merge job", e);
                     }
                     continue loop;
                 }
@@ -209,6 +342,15 @@ public class IODispatcher extends Thread {
             log.severe("main run job failed (4)", e);
         } finally {
             log.info("terminating run job");
+            // wait for running merges and do waiting merges here; their files are unmounted and would be lost otherwise
+            this.mergeWorkers.shutdown();
+            try {
+                this.mergeWorkers.awaitTermination(1, TimeUnit.HOURS);
+            } catch (final InterruptedException e) {
+                ConcurrentLog.logException(e);
+            }
+            MergeJob job;
+            while ((job = this.mergeQueue.poll()) != null) job.run();
             this.controlQueue = null;
             this.dumpQueue = null;
             this.mergeQueue = null;
@@ -220,22 +362,72 @@ public class IODispatcher extends Thread {
         private final ReferenceContainerCache<ReferenceType> cache;
         private final File file;
         private final ReferenceContainerArray<ReferenceType> array;
-        private DumpJob(final ReferenceContainerCache<ReferenceType> cache, final File file, final ReferenceContainerArray<ReferenceType> array) {
+        private final Runnable mounted;
+        private DumpJob(final ReferenceContainerCache<ReferenceType> cache, final File file, final ReferenceContainerArray<ReferenceType> array, final Runnable mounted) {
             this.cache = cache;
             this.file = file;
             this.array = array;
+            this.mounted = mounted;
         }
         private void dump() {
             try {
-                if (!this.cache.isEmpty()) this.cache.dump(this.file, (int) Math.min(MemoryControl.available() / 3, IODispatcher.this.writeBufferSize), true);
+                if (!this.cache.isEmpty()) this.cache.dump(this.file, (int) Math.min(MemoryControl.available() / 3, IODispatcher.this.writeBufferSize), this.mounted == null);
                 this.array.mountBLOBFile(this.file);
             } catch (final IOException e) {
                 ConcurrentLog.logException(e);
+            } finally {
+                // release the cache also if the dump failed, otherwise it would be kept forever
+                if (this.mounted != null) this.mounted.run();
+            }
+        }
+    }
+
+    /**
+     * find the first waiting merge job for an array which has no running merge and
+     * remove it from the queue. The array of the job is marked as busy.
+     * @return a merge job or null if all waiting jobs must wait for a free worker or for their array
+     */
+    private synchronized MergeJob nextMergeJob() {
+        if (this.runningMerges.get() >= this.mergeThreads) return null;
+        final Iterator<MergeJob> i = this.mergeQueue.iterator();
+        while (i.hasNext()) {
+            final MergeJob job = i.next();
+            if (this.mergingArrays.add(job.array)) {
+                i.remove();
+                this.runningMerges.incrementAndGet();
+                return job;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * wait until the merge bandwidth allows to read the given number of bytes. Every merge
+     * reserves the time which is needed to read its input at the maximum bandwidth; a merge
+     * starts when the reservations of the previous merges are used up.
+     * @param bytes the size of the input files of a merge
+     */
+    private void throttle(final long bytes) {
+        if (this.maxMergeBandwidth <= 0) return;
+        final long start = System.currentTimeMillis();
+        final long due;
+        synchronized (this.mergingArrays) {
+            if (this.throttleDue < start) this.throttleDue = start;
+            due = this.throttleDue;
+            this.throttleDue += bytes * 1000L / this.maxMergeBandwidth;
+        }
+        // do not delay a shutdown
+        while (!this.terminate && System.currentTimeMillis() < due) {
+            try {
+                Thread.sleep(Math.min(1000, due - System.currentTimeMillis()));
+            } catch (final InterruptedException e) {
+                break;
             }
         }
+        this.throttleTime.addAndGet(System.currentTimeMillis() - start);
     }
 
-    private class MergeJob {
+    private class MergeJob implements Runnable {
 
         private final File f1, f2, newFile;
         private final ArrayStack array;
@@ -254,6 +446,39 @@ public class IODispatcher extends Thread {
             this.array = array;
         }
 
+        @Override
+        public void run() {
+            final long size = this.f1.length() + (this.f2 == null ? 0 : this.f2.length());
+            try {
+                throttle(size);
+                final long start = System.currentTimeMillis();
+                merge();
+                IODispatcher.this.mergeTime.addAndGet(System.currentTimeMillis() - start);
+                IODispatcher.this.mergedBytes.addAndGet(size);
+                IODispatcher.this.mergeCount.incrementAndGet();
+            } catch (final Throwable e) {
+                if (this.f2 == null) {
+                    log.severe("merge job had errors, dump to " + this.newFile + " failed. Input file is " + this.f1, e);
+                } else {
+                    log.severe("merge job had errors, dump to " + this.newFile + " failed. Input files are " + this.f1 + " and " + this.f2, e);
+                }
+            } finally {
+                if (IODispatcher.this.mergingArrays.remove(this.array)) IODispatcher.this.runningMerges.decrementAndGet();
+                // wake up the dispatcher to start the next waiting merge
+                final Semaphore control = IODispatcher.this.controlQueue;
+                if (control != null) control.release();
+            }
+        }
+
+        private void remount() {
+            try {
+                this.array.mountBLOB(this.f1, false);
+                if (this.f2 != null) this.array.mountBLOB(this.f2, false);
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+            }
+        }
+
         private File merge() {
         	if (!this.f1.exists()) {
         	    log.warn("merge of file (1) " + this.f1.getName() + " failed: file does not exists");
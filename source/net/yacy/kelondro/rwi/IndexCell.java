@@ -31,8 +31,10 @@ import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import net.yacy.cora.order.ByteOrder;
 import net.yacy.cora.order.CloneableIterator;
@@ -70,6 +72,7 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
     // class variables
     private final ReferenceContainerArray<ReferenceType> array;
     private       ReferenceContainerCache<ReferenceType> ram;
+    private final List<ReferenceContainerCache<ReferenceType>> dumping; // read-only ram caches which are handed to the dispatcher but not yet mounted as BLOB
     private final ComparableARC<byte[], Integer>         countCache;
     private       int                                    maxRamEntries;
     private       IODispatcher                           merger; // pointer to shared merger
@@ -91,13 +94,15 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
             final long targetFileSize,
             final long maxFileSize,
             final int writeBufferSize,
-            final IODispatcher merger
+            final IODispatcher merger,
+            final boolean offHeapIndex
             ) throws IOException {
         super(factory);
 
         this.merger = merger;
-        this.array = new ReferenceContainerArray<ReferenceType>(cellPath, prefix, factory, termOrder, termSize);
+        this.array = new ReferenceContainerArray<ReferenceType>(cellPath, prefix, factory, termOrder, termSize, offHeapIndex);
         this.ram = new ReferenceContainerCache<ReferenceType>(factory, termOrder, termSize);
+        this.dumping = new CopyOnWriteArrayList<ReferenceContainerCache<ReferenceType>>();
         this.countCache = new ComparableARC<byte[], Integer>(1000, termOrder);
         this.maxRamEntries = maxRamEntries;
         this.lastCleanup = System.currentTimeMillis();
@@ -146,17 +151,28 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
                         final File dumpFile = IndexCell.this.array.newContainerBLOBFile();
                         // a critical point: when the ram is handed to the dump job,
                         // don't write into it any more. Use a fresh one instead
-                        ReferenceContainerCache<ReferenceType> ramdump;
+                        final ReferenceContainerCache<ReferenceType> ramdump;
                         final ByteOrder termOrder = IndexCell.this.ram.termKeyOrdering();
                         final int termSize = IndexCell.this.ram.termKeyLength();
+                        // if there is enough memory, the old cache is kept readable until the dump is mounted,
+                        // otherwise it is dumped destructive to free memory during the dump
+                        final boolean keepReadable = !MemoryControl.shortStatus();
                         synchronized (this) {
                             ramdump = IndexCell.this.ram;
+                            // the cache must be visible in the dumping tier before it disappears as ram cache
+                            if (keepReadable) IndexCell.this.dumping.add(ramdump);
                             // get a fresh ram cache
                             IndexCell.this.ram = new ReferenceContainerCache<ReferenceType>(IndexCell.this.factory, termOrder, termSize);
                         }
-                        // WARNING : if this cell is queried before this dump termination, terms are no longer in the cache and would therefore not be found
-                        // dump the buffer
-                        IndexCell.this.merger.dump(ramdump, dumpFile, IndexCell.this.array);
+                        // dump the buffer; terms are still found in the dumping tier until the new BLOB is mounted
+                        IndexCell.this.merger.dump(ramdump, dumpFile, IndexCell.this.array, keepReadable ? new Runnable() {
+                            @Override
+                            public void run() {
+                                IndexCell.this.dumping.remove(ramdump);
+                                IndexCell.this.countCache.clear();
+                                ramdump.clear();
+                            }
+                        } : null);
                         IndexCell.this.lastDump = System.currentTimeMillis();
                     } catch (final Throwable e) {
                         // catch all exceptions
@@ -186,31 +202,42 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
     private boolean shrink(final long targetFileSize, final long maxFileSize) {
         if (this.array.entries() < 2) return false;
         boolean donesomething = false;
+        int term;
+
+        // the queue length is counted for this cell only, the merges of different cells run in parallel
+        if (this.merger.tierThreshold() > 1) {
+            // size-tiered compaction: merge files of similar size
+            term = 10;
+            while (term-- > 0 && (this.array.mergeQueueLength(this.merger) < 3 || this.array.entries() >= 50)) {
+                if (!this.array.shrinkSizeTiered(this.merger, targetFileSize, maxFileSize)) break;
+                donesomething = true;
+            }
+        } else {
+            // first try to merge small files that match
+            term = 10;
+            while (term-- > 0 && (this.array.mergeQueueLength(this.merger) < 3 || this.array.entries() >= 50)) {
+                if (!this.array.shrinkBestSmallFiles(this.merger, targetFileSize)) break;
+                donesomething = true;
+            }
 
-        // first try to merge small files that match
-        int term = 10;
-        while (term-- > 0 && (this.merger.queueLength() < 3 || this.array.entries() >= 50)) {
-            if (!this.array.shrinkBestSmallFiles(this.merger, targetFileSize)) break;
-            donesomething = true;
-        }
-
-        // then try to merge simply any small file
-        term = 10;
-        while (term-- > 0 && (this.merger.queueLength() < 2)) {
-            if (!this.array.shrinkAnySmallFiles(this.merger, targetFileSize)) break;
-            donesomething = true;
+            // then try to merge simply any small file
+            term = 10;
+            while (term-- > 0 && (this.array.mergeQueueLength(this.merger) < 2)) {
+                if (!this.array.shrinkAnySmallFiles(this.merger, targetFileSize)) break;
+                donesomething = true;
+            }
         }
 
         // if there is no small file, then merge matching files up to limit
         term = 10;
-        while (term-- > 0 && (this.merger.queueLength() < 1)) {
+        while (term-- > 0 && (this.array.mergeQueueLength(this.merger) < 1)) {
             if (!this.array.shrinkUpToMaxSizeFiles(this.merger, maxFileSize)) break;
             donesomething = true;
         }
 
         // rewrite old files (hack from sixcooler, see http://forum.yacy-websuche.de/viewtopic.php?p=15004#p15004)
         term = 10;
-        while (term-- > 0 && (this.merger.queueLength() < 1)) {
+        while (term-- > 0 && (this.array.mergeQueueLength(this.merger) < 1)) {
             if (!this.array.shrinkOldFiles(this.merger)) break;
             donesomething = true;
         }
@@ -305,6 +332,9 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
     @Override
     public boolean has(final byte[] termHash) {
         if (this.ram.has(termHash)) return true;
+        for (final ReferenceContainerCache<ReferenceType> d: this.dumping) {
+            if (d.has(termHash)) return true;
+        }
         return this.array.has(termHash);
     }
 
@@ -317,6 +347,12 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
         final Integer cachedCount = this.countCache.get(termHash);
         if (cachedCount != null) return cachedCount.intValue();
 
+        // count from containers which are currently dumped; must be read before the file array
+        int countDumping = 0;
+        for (final ReferenceContainerCache<ReferenceType> d: this.dumping) {
+            countDumping += d.count(termHash);
+        }
+
         int countFile = 0;
         // read fresh values from file
         try {
@@ -329,7 +365,7 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
         // count from container in ram
         final ReferenceContainer<ReferenceType> countRam = this.ram.get(termHash, null);
         assert countRam == null || countRam.size() >= 0;
-        int c = countRam == null ? countFile : countFile + countRam.size();
+        int c = countRam == null ? countFile + countDumping : countFile + countDumping + countRam.size();
         // exclude entries from delayed remove
         synchronized (this.removeDelayedURLs) {
             final HandleSet s = this.removeDelayedURLs.get(termHash);
@@ -351,7 +387,7 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
      */
     @Override
     public ReferenceContainer<ReferenceType> get(final byte[] termHash, final HandleSet urlselection) throws IOException {
-        final ReferenceContainer<ReferenceType> c0 = this.ram.get(termHash, null);
+        final ReferenceContainer<ReferenceType> c0 = mergeDumping(termHash, this.ram.get(termHash, null));
         ReferenceContainer<ReferenceType> c1 = null;
         try {
             c1 = this.array.get(termHash);
@@ -385,6 +421,50 @@ public final class IndexCell<ReferenceType extends Reference> extends AbstractBu
         return result;
     }
 
+    /**
+     * get a cursor on the references of a term which looks up single url hashes and reads only the blocks of the
+     * BLOB files which may contain them. This is used to join a term with many references with a small container.
+     * @param termHash
+     * @return the cursor or null if the BLOB files cannot be read block by block
+     * @throws IOException
+     */
+    public ReferenceCursor<ReferenceType> cursor(final byte[] termHash) throws IOException {
+        final ReferenceContainer<ReferenceType> c0 = mergeDumping(termHash, this.ram.get(termHash, null));
+        final List<ReferenceBlocks<ReferenceType>> c1 = this.array.getBlocks(termHash);
+        if (c1 == null) return null;
+        HandleSet removed;
+        synchronized (this.removeDelayedURLs) {
+            removed = this.removeDelayedURLs.get(termHash);
+            if (removed != null) removed = removed.clone();
+        }
+        return new ReferenceCursor<ReferenceType>(termHash, c1, c0, removed);
+    }
+
+    /**
+     * merge the containers for the given term from all caches which are currently dumped
+     * into the given ram container. The dumping caches must be read before the BLOB array
+     * because a dump job first mounts its BLOB and then removes its cache from the dumping tier.
+     * Containers from the dumping tier are always copied, because the dump job still reads them.
+     * @param termHash
+     * @param ramContainer the container from the ram cache, may be null
+     * @return the merged container or null if neither the ram nor any dumping cache has the term
+     */
+    private ReferenceContainer<ReferenceType> mergeDumping(final byte[] termHash, final ReferenceContainer<ReferenceType> ramContainer) {
+        ReferenceContainer<ReferenceType> result = ramContainer;
+        for (final ReferenceContainerCache<ReferenceType> d: this.dumping) {
+            final ReferenceContainer<ReferenceType> c = d.get(termHash, null);
+            if (c == null || c.isEmpty()) continue;
+            // the dumping cache is read concurrently by the dump job, therefore never return a direct link to it
+            try {
+                result = result == null ? c.topLevelClone() : result.merge(c);
+            } catch (final SpaceExceededException e) {
+                // go silently over the problem
+                ConcurrentLog.logException(e);
+            }
+        }
+        return result;
+    }
+
     /**
      * deleting a container affects the containers in RAM and all the BLOB files
      * the deleted containers are merged and returned as result of the method
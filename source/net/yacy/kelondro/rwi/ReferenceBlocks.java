@@ -0,0 +1,182 @@
+// ReferenceBlocks.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.rwi;
+
+import java.io.IOException;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.ByteOrder;
+import net.yacy.kelondro.blob.HeapReader;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.index.RowCollection;
+
+/**
+ * The references of a term in one BLOB file, read block by block. Containers which were written with a block
+ * index are searched in the block index, and only the block which may contain a url hash is read; containers
+ * without a block index (small containers and containers from older BLOB files) are read as a single block.
+ */
+public class ReferenceBlocks<ReferenceType extends Reference> {
+
+    private final ReferenceFactory<ReferenceType> factory;
+    private final HeapReader heap;
+    private final byte[] termHash;
+    private final Row rowdef;
+    private final ByteOrder ordering;
+    private final long length;
+    private final int size, blockRows, blockCount;
+    private byte[] blockIndex; // the first url hash of every block; loaded with the first seek
+    private int block;         // the block which was read last or -1
+    private byte[] rows;       // the rows of that block
+    private int blocksRead;
+
+    /**
+     * @param factory
+     * @param heap the heap which contains the container of the term
+     * @param termHash
+     * @throws IOException if the container cannot be read
+     */
+    public ReferenceBlocks(final ReferenceFactory<ReferenceType> factory, final HeapReader heap, final byte[] termHash) throws IOException {
+        this.factory = factory;
+        this.heap = heap;
+        this.termHash = termHash;
+        this.rowdef = factory.getRow();
+        this.ordering = this.rowdef.getOrdering();
+        this.length = heap.length(termHash);
+        if (this.length < RowCollection.exportHeaderSize) throw new IOException("no container for " + ASCII.String(termHash) + " in " + heap.name());
+        this.size = RowCollection.exportedRowCount(read(0, 4));
+        if (this.length == RowCollection.exportedLength(this.size, this.rowdef, Integer.MAX_VALUE)) {
+            // no block index; all rows are in one block
+            this.blockRows = Math.max(1, this.size);
+            this.blockCount = this.size == 0 ? 0 : 1;
+        } else {
+            this.blockRows = RowCollection.exportedBlockRows(read(this.length - RowCollection.exportBlockTrailerSize, RowCollection.exportBlockTrailerSize), 0);
+            if (this.blockRows <= 0 || RowCollection.exportedLength(this.size, this.rowdef, this.blockRows) != this.length) {
+                throw new IOException("unknown container layout for " + ASCII.String(termHash) + " in " + heap.name() + ", length = " + this.length + ", size = " + this.size);
+            }
+            this.blockCount = (this.size + this.blockRows - 1) / this.blockRows;
+        }
+        this.blockIndex = null;
+        this.block = -1;
+        this.rows = null;
+        this.blocksRead = 0;
+    }
+
+    /**
+     * @return the number of references
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of blocks of the container
+     */
+    public int blocks() {
+        return this.blockCount;
+    }
+
+    /**
+     * @return the number of blocks which were read so far
+     */
+    public int blocksRead() {
+        return this.blocksRead;
+    }
+
+    /**
+     * find the reference for a url hash. Consecutive calls with ascending url hashes are fastest:
+     * the block index is searched forward from the last block with a galloping search.
+     * @param urlhash
+     * @return the reference or null if the container has no reference for the url hash
+     * @throws IOException if a block cannot be read
+     */
+    public ReferenceType seek(final byte[] urlhash) throws IOException {
+        final int b = findBlock(urlhash);
+        if (b < 0) return null;
+        if (b != this.block) {
+            final int first = b * this.blockRows;
+            final int count = Math.min(this.blockRows, this.size - first);
+            this.rows = read(RowCollection.exportHeaderSize + ((long) first) * this.rowdef.objectsize, count * this.rowdef.objectsize);
+            this.block = b;
+            this.blocksRead++;
+        }
+
+        // binary search within the block
+        final int objectsize = this.rowdef.objectsize;
+        int lo = 0, hi = this.rows.length / objectsize - 1;
+        while (lo <= hi) {
+            final int mid = (lo + hi) >>> 1;
+            final int c = this.ordering.compare(urlhash, 0, this.rows, mid * objectsize, this.rowdef.primaryKeyLength);
+            if (c == 0) return this.factory.produceSlow(this.rowdef.newEntry(this.rows, mid * objectsize, false));
+            if (c < 0) hi = mid - 1; else lo = mid + 1;
+        }
+        return null;
+    }
+
+    /**
+     * @param urlhash
+     * @return the last block with a first url hash which is not greater than the given url hash, or -1 if there is none
+     * @throws IOException
+     */
+    private int findBlock(final byte[] urlhash) throws IOException {
+        if (this.blockCount <= 1) return this.blockCount - 1;
+        if (this.blockIndex == null) {
+            this.blockIndex = read(RowCollection.exportHeaderSize + ((long) this.size) * this.rowdef.objectsize, this.blockCount * this.rowdef.primaryKeyLength);
+        }
+        int lo = Math.max(0, this.block), hi;
+        if (compareBlock(urlhash, lo) < 0) {
+            // the url hash is before the current block: search from the beginning
+            if (compareBlock(urlhash, 0) < 0) return -1;
+            hi = lo;
+            lo = 0;
+        } else {
+            // gallop forward until a block starts behind the url hash
+            int step = 1;
+            hi = lo + step;
+            while (hi < this.blockCount && compareBlock(urlhash, hi) >= 0) {
+                lo = hi;
+                step <<= 1;
+                hi = lo + step;
+            }
+            hi = Math.min(hi, this.blockCount);
+        }
+        // the block index at lo is not greater than the url hash, at hi it is greater or hi is the end
+        while (hi - lo > 1) {
+            final int mid = (lo + hi) >>> 1;
+            if (compareBlock(urlhash, mid) >= 0) lo = mid; else hi = mid;
+        }
+        return lo;
+    }
+
+    private int compareBlock(final byte[] urlhash, final int block) {
+        return this.ordering.compare(urlhash, 0, this.blockIndex, block * this.rowdef.primaryKeyLength, this.rowdef.primaryKeyLength);
+    }
+
+    private byte[] read(final long offset, final int len) throws IOException {
+        final byte[] b = this.heap.get(this.termHash, offset, len);
+        // the container must not have been changed since the header was read
+        if (b == null || (this.blockCount > 0 && this.heap.length(this.termHash) != this.length)) {
+            throw new IOException("cannot read " + len + " bytes at " + offset + " of " + ASCII.String(this.termHash) + " in " + this.heap.name());
+        }
+        return b;
+    }
+}
@@ -26,6 +26,7 @@
 
 package net.yacy.kelondro.rwi;
 
+import java.io.IOException;
 import java.lang.reflect.Array;
 import java.lang.reflect.Method;
 import java.util.ArrayList;
@@ -60,6 +61,7 @@ public class ReferenceContainer<ReferenceType extends Reference> extends RowSet
     private   byte[] termHash;
     protected ReferenceFactory<ReferenceType> factory;
     public static int maxReferences = 0; // overwrite this to enable automatic index shrinking. 0 means no shrinking
+    public static final int exportBlockRows = 128; // containers in BLOB files get a block index with one entry for each block of that many references
 
     public ReferenceContainer(final ReferenceFactory<ReferenceType> factory, final byte[] termHash, final RowSet collection) {
         super(collection);
@@ -416,6 +418,42 @@ public class ReferenceContainer<ReferenceType extends Reference> extends RowSet
         return joinConstructiveByEnumeration(factory, i1, i2, maxDistance);
     }
 
+    /**
+     * join a container with the references of a term which are read block by block. The references of the container
+     * are probed in ascending order, so the cursor gallops through the block indexes of the BLOB files and reads only
+     * the blocks which may contain a reference of the container. This is much faster than a join of two containers
+     * if the cursor has many more references than the container.
+     * @param factory
+     * @param small the container with the smaller number of references
+     * @param large the cursor on the references of the other term
+     * @param maxDistance
+     * @return the joined references or null if one of the input is empty
+     * @throws SpaceExceededException
+     * @throws IOException if a block cannot be read, i.e. because the BLOB file was merged concurrently
+     */
+    public static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> joinConstructive(
+            final ReferenceFactory<ReferenceType> factory,
+            final ReferenceContainer<ReferenceType> small,
+            final ReferenceCursor<ReferenceType> large,
+            final int maxDistance) throws SpaceExceededException, IOException {
+        if (small == null || large == null) return null;
+        if (small.isEmpty() || large.size() == 0) return null;
+        small.sort(); // the cursor is fastest when it moves in one direction
+        final ReferenceContainer<ReferenceType> conj = new ReferenceContainer<ReferenceType>(factory, null, 0);
+        final Iterator<ReferenceType> se = small.entries();
+        ReferenceType ie1, ie2;
+        while (se.hasNext()) {
+            ie1 = se.next();
+            ie2 = large.seek(ie1.urlhash());
+            if (ie2 == null) continue;
+            // this is a hit. Calculate word distance:
+            ie1 = factory.produceFast(ie1, true);
+            ie1.join(ie2);
+            if (ie1.distance() <= maxDistance) conj.add(ie1);
+        }
+        return conj;
+    }
+
     private static <ReferenceType extends Reference> ReferenceContainer<ReferenceType> joinConstructiveByTest(
             final ReferenceFactory<ReferenceType> factory,
             final ReferenceContainer<ReferenceType> small,
@@ -26,8 +26,10 @@ package net.yacy.kelondro.rwi;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Date;
 import java.util.Iterator;
+import java.util.List;
 
 import net.yacy.cora.order.ByteOrder;
 import net.yacy.cora.order.CloneableIterator;
@@ -36,6 +38,7 @@ import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 import net.yacy.kelondro.blob.ArrayStack;
 import net.yacy.kelondro.blob.BLOB;
+import net.yacy.kelondro.blob.HeapReader;
 import net.yacy.kelondro.data.word.Word;
 import net.yacy.kelondro.index.Row;
 import net.yacy.kelondro.index.RowSet;
@@ -56,6 +59,7 @@ public final class ReferenceContainerArray<ReferenceType extends Reference> {
      * is still possible
      * @param payloadrow the row definition for the BLOB data structure
      * @param log
+     * @param offHeapIndex if true, the BLOB indexes are held in direct memory outside of the java heap
      * @throws IOException
      */
     public ReferenceContainerArray(
@@ -63,7 +67,8 @@ public final class ReferenceContainerArray<ReferenceType extends Reference> {
     		final String prefix,
     		final ReferenceFactory<ReferenceType> factory,
     		final ByteOrder termOrder,
-    		final int termSize) throws IOException {
+    		final int termSize,
+    		final boolean offHeapIndex) throws IOException {
         this.factory = factory;
         this.array = new ArrayStack(
             heapLocation,
@@ -72,7 +77,8 @@ public final class ReferenceContainerArray<ReferenceType extends Reference> {
             termSize,
             0,
             true,
-            true);
+            true,
+            offHeapIndex);
     }
 
     public synchronized void close() {
@@ -324,7 +330,44 @@ public final class ReferenceContainerArray<ReferenceType extends Reference> {
     	return c;
     }
 
+    /**
+     * get the references of a term in all BLOB files as block lists, which read only the blocks that are needed
+     * @param termHash
+     * @return the block lists in the order in which get() merges the containers, or null if the term cannot be read block by block
+     * @throws IOException
+     */
+    public List<ReferenceBlocks<ReferenceType>> getBlocks(final byte[] termHash) throws IOException {
+        final List<HeapReader> readers = this.array.getAllReaders(termHash);
+        if (readers == null) return null;
+        final List<ReferenceBlocks<ReferenceType>> blocks = new ArrayList<ReferenceBlocks<ReferenceType>>(readers.size());
+        for (final HeapReader reader: readers) {
+            blocks.add(new ReferenceBlocks<ReferenceType>(this.factory, reader, termHash));
+        }
+        return blocks;
+    }
+
     public int count(final byte[] termHash) throws IOException {
+        final long timeout = System.currentTimeMillis() + METHOD_MAXRUNTIME;
+        final List<HeapReader> readers = this.array.getAllReaders(termHash);
+        if (readers == null) return countByLength(termHash);
+        // the number of references is read from the header of the containers, because the length of
+        // a container with a block index is not a multiple of the row size
+        int c = 0, k = 0;
+        for (final HeapReader reader: readers) {
+            final byte[] header = reader.get(termHash, 0, 4);
+            if (header != null) c += RowSet.exportedRowCount(header);
+            assert c >= 0;
+            k++;
+            if (System.currentTimeMillis() > timeout) {
+                ConcurrentLog.warn("ReferenceContainerArray", "timout in count(): " + k + " tables searched. timeout = " + METHOD_MAXRUNTIME);
+                return c;
+            }
+        }
+        assert c >= 0;
+        return c;
+    }
+
+    private int countByLength(final byte[] termHash) throws IOException {
         final long timeout = System.currentTimeMillis() + METHOD_MAXRUNTIME;
         final Iterator<Long> entries = this.array.lengthAll(termHash).iterator();
         if (entries == null || !entries.hasNext()) return 0;
@@ -379,7 +422,10 @@ public final class ReferenceContainerArray<ReferenceType extends Reference> {
             if (b == null) return null;
             final ReferenceContainer<ReferenceType> c = this.rewriter.reduce(new ReferenceContainer<ReferenceType>(ReferenceContainerArray.this.factory, this.wordHash, RowSet.importRowSet(b, ReferenceContainerArray.this.factory.getRow())));
             if (c == null) return null;
-            final byte bb[] = c.exportCollection();
+            // the record is rewritten in place and must not grow, therefore a container without a block index keeps that layout
+            final Row row = ReferenceContainerArray.this.factory.getRow();
+            final boolean blocked = b.length != RowSet.exportedLength(RowSet.exportedRowCount(b), row, Integer.MAX_VALUE);
+            final byte bb[] = c.exportCollection(blocked ? ReferenceContainer.exportBlockRows : Integer.MAX_VALUE);
             assert bb.length <= b.length;
             return bb;
         }
@@ -423,6 +469,22 @@ public final class ReferenceContainerArray<ReferenceType extends Reference> {
         return true;
     }
 
+    public boolean shrinkSizeTiered(final IODispatcher merger, final long targetFileSize, final long maxFileSize) {
+        final File[] ff = this.array.unmountSizeTiered(targetFileSize / 8, merger.tierThreshold(), maxFileSize);
+        if (ff == null) return false;
+        ConcurrentLog.info("RICELL-shrink0", "unmountSizeTiered(" + targetFileSize / 8 + ", " + merger.tierThreshold() + ", " + maxFileSize + ")");
+        merger.merge(ff[0], ff[1], this.factory, this.array, newContainerBLOBFile());
+        return true;
+    }
+
+    /**
+     * @param merger
+     * @return the number of waiting and running merges of this array
+     */
+    public int mergeQueueLength(final IODispatcher merger) {
+        return merger.queueLength(this.array);
+    }
+
     public boolean shrinkOldFiles(final IODispatcher merger) {
         final File ff = this.array.unmountOldest();
         if (ff == null) return false;
@@ -157,7 +157,7 @@ public final class ReferenceContainerCache<ReferenceType extends Reference> exte
             if (container != null && term.length == this.termSize) {
                 //System.out.println("Dump: " + wordHash);
                 try {
-                    dump.add(term, container.exportCollection());
+                    dump.add(term, container.exportCollection(ReferenceContainer.exportBlockRows));
                 } catch (final IOException e) {
                     ConcurrentLog.logException(e);
                 } catch (final SpaceExceededException e) {
@@ -0,0 +1,107 @@
+// ReferenceCursor.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.rwi;
+
+import java.io.IOException;
+import java.util.List;
+
+import net.yacy.cora.storage.HandleSet;
+
+/**
+ * The references of a term in a whole index cell, looked up one url hash at a time instead of loading them.
+ * The BLOB files are read with {@link ReferenceBlocks}; the references in RAM are taken from their container.
+ * If a url hash is referenced in several parts, the reference from the part which comes first is returned,
+ * in the same order in which {@link IndexCell#get(byte[], HandleSet)} merges the parts.
+ */
+public class ReferenceCursor<ReferenceType extends Reference> {
+
+    private final byte[] termHash;
+    private final List<ReferenceBlocks<ReferenceType>> blocks;
+    private final ReferenceContainer<ReferenceType> ram;
+    private final HandleSet removed;
+    private final int size;
+
+    /**
+     * @param termHash
+     * @param blocks the references in the BLOB files
+     * @param ram the references in RAM or null
+     * @param removed url hashes which are not returned or null
+     */
+    public ReferenceCursor(
+            final byte[] termHash,
+            final List<ReferenceBlocks<ReferenceType>> blocks,
+            final ReferenceContainer<ReferenceType> ram,
+            final HandleSet removed) {
+        this.termHash = termHash;
+        this.blocks = blocks;
+        this.ram = ram;
+        this.removed = removed;
+        int s = ram == null ? 0 : ram.size();
+        for (final ReferenceBlocks<ReferenceType> b: blocks) s += b.size();
+        this.size = s;
+    }
+
+    public byte[] getTermHash() {
+        return this.termHash;
+    }
+
+    /**
+     * @return the number of references; references to the same url in several parts are counted more than once
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @return the number of blocks in all BLOB files
+     */
+    public int blocks() {
+        int c = 0;
+        for (final ReferenceBlocks<ReferenceType> b: this.blocks) c += b.blocks();
+        return c;
+    }
+
+    /**
+     * @return the number of blocks which were read from all BLOB files
+     */
+    public int blocksRead() {
+        int c = 0;
+        for (final ReferenceBlocks<ReferenceType> b: this.blocks) c += b.blocksRead();
+        return c;
+    }
+
+    /**
+     * find the reference for a url hash; consecutive calls should use ascending url hashes
+     * @param urlhash
+     * @return the reference or null if the term has no reference for the url hash
+     * @throws IOException if a block cannot be read
+     */
+    public ReferenceType seek(final byte[] urlhash) throws IOException {
+        if (this.removed != null && this.removed.has(urlhash)) return null;
+        for (final ReferenceBlocks<ReferenceType> b: this.blocks) {
+            final ReferenceType r = b.seek(urlhash);
+            if (r != null) return r;
+        }
+        return this.ram == null ? null : this.ram.getReference(urlhash);
+    }
+}
@@ -27,17 +27,33 @@
 
 package net.yacy.kelondro.rwi;
 
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
 import java.util.TreeMap;
 
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.ConcurrentLog;
 import net.yacy.cora.util.SpaceExceededException;
 
 
 public class TermSearch <ReferenceType extends Reference> {
 
+    private final static ConcurrentLog log = new ConcurrentLog("TermSearch");
+
+    // a term of a conjunction is joined block by block instead of being loaded if it has at least that many references ..
+    private static final int CURSOR_MIN_SIZE = 10000;
+    // .. and at least that factor more references than the term with the fewest references
+    private static final int CURSOR_FACTOR = 16;
+
+    private final Index<ReferenceType> base;
+    private final HandleSet urlselection;
     private final ReferenceContainer<ReferenceType> joinResult;
     private TreeMap<byte[], ReferenceContainer<ReferenceType>> inclusionContainers;
+    private final TreeMap<byte[], ReferenceCursor<ReferenceType>> inclusionCursors;
 
     public TermSearch(
             Index<ReferenceType> base,
@@ -47,14 +63,21 @@ public class TermSearch <ReferenceType extends Reference> {
             ReferenceFactory<ReferenceType> termFactory,
             int maxDistance) throws SpaceExceededException {
 
+        this.base = base;
+        this.urlselection = urlselection;
+        this.inclusionCursors = new TreeMap<byte[], ReferenceCursor<ReferenceType>>(Base64Order.enhancedCoder);
         this.inclusionContainers =
             (queryHashes.isEmpty()) ?
                 new TreeMap<byte[], ReferenceContainer<ReferenceType>>(Base64Order.enhancedCoder) :
+            (base instanceof IndexCell && queryHashes.size() > 1) ?
+                searchConjunction((IndexCell<ReferenceType>) base, queryHashes, urlselection) :
                 base.searchConjunction(queryHashes, urlselection);
 
         if (!this.inclusionContainers.isEmpty() &&
-            (this.inclusionContainers.size() < queryHashes.size()))
+            (this.inclusionContainers.size() + this.inclusionCursors.size() < queryHashes.size())) {
             this.inclusionContainers = new TreeMap<byte[], ReferenceContainer<ReferenceType>>(Base64Order.enhancedCoder); // prevent that only a subset is returned
+            this.inclusionCursors.clear();
+        }
 
         TreeMap<byte[], ReferenceContainer<ReferenceType>> exclusionContainers =
             (this.inclusionContainers.isEmpty()) ?
@@ -62,18 +85,121 @@ public class TermSearch <ReferenceType extends Reference> {
                 base.searchConjunction(excludeHashes, urlselection);
 
         // join and exclude the result
-        this.joinResult = ReferenceContainer.joinExcludeContainers(
-                termFactory,
-                this.inclusionContainers.values(),
-                exclusionContainers.values(),
-                maxDistance);
+        if (this.inclusionCursors.isEmpty()) {
+            this.joinResult = ReferenceContainer.joinExcludeContainers(
+                    termFactory,
+                    this.inclusionContainers.values(),
+                    exclusionContainers.values(),
+                    maxDistance);
+        } else {
+            // join the loaded containers first, then probe the terms with many references with the (small) join result
+            ReferenceContainer<ReferenceType> rc = ReferenceContainer.joinContainers(termFactory, this.inclusionContainers.values(), maxDistance);
+            final List<ReferenceCursor<ReferenceType>> cursors = new ArrayList<ReferenceCursor<ReferenceType>>(this.inclusionCursors.values());
+            Collections.sort(cursors, new Comparator<ReferenceCursor<ReferenceType>>() {
+                @Override
+                public int compare(final ReferenceCursor<ReferenceType> c1, final ReferenceCursor<ReferenceType> c2) {
+                    return c1.size() < c2.size() ? -1 : c1.size() == c2.size() ? 0 : 1;
+                }
+            });
+            for (final ReferenceCursor<ReferenceType> cursor: cursors) {
+                if (rc == null || rc.isEmpty()) break;
+                rc = join(termFactory, rc, cursor, maxDistance);
+            }
+            if (rc == null || rc.isEmpty()) {
+                rc = ReferenceContainer.emptyContainer(termFactory, null, 0);
+            } else {
+                ReferenceContainer.excludeContainers(termFactory, rc, exclusionContainers.values());
+            }
+            this.joinResult = rc;
+        }
+    }
+
+    /**
+     * collect the containers of the terms of a conjunction. Terms with many more references than the smallest term
+     * are not loaded; a cursor is opened for them, which reads only the blocks that are needed for the join.
+     * @return the loaded containers, or an empty map if a term has no references
+     */
+    private TreeMap<byte[], ReferenceContainer<ReferenceType>> searchConjunction(final IndexCell<ReferenceType> cell, final HandleSet queryHashes, final HandleSet urlselection) {
+        final TreeMap<byte[], ReferenceContainer<ReferenceType>> containers = new TreeMap<byte[], ReferenceContainer<ReferenceType>>(Base64Order.enhancedCoder);
+
+        // the counts are read from the headers of the containers
+        final List<byte[]> terms = new ArrayList<byte[]>(queryHashes.size());
+        final int[] counts = new int[queryHashes.size()];
+        int min = Integer.MAX_VALUE;
+        for (final byte[] termHash: queryHashes) {
+            final int c = cell.count(termHash);
+            counts[terms.size()] = c;
+            terms.add(termHash);
+            if (c < min) min = c;
+        }
+
+        for (int i = 0; i < terms.size(); i++) {
+            final byte[] termHash = terms.get(i);
+            if (counts[i] >= CURSOR_MIN_SIZE && counts[i] >= CURSOR_FACTOR * (long) min) {
+                ReferenceCursor<ReferenceType> cursor = null;
+                try {
+                    cursor = cell.cursor(termHash);
+                } catch (final IOException e) {
+                    log.warn("cannot open cursor, loading the container: " + e.getMessage());
+                }
+                if (cursor != null && cursor.size() > 0) {
+                    this.inclusionCursors.put(termHash, cursor);
+                    continue;
+                }
+            }
+            final ReferenceContainer<ReferenceType> container;
+            try {
+                container = cell.get(termHash, urlselection);
+            } catch (final IOException e) {
+                ConcurrentLog.logException(e);
+                continue;
+            }
+            if (container == null || container.isEmpty()) {
+                this.inclusionCursors.clear();
+                return new TreeMap<byte[], ReferenceContainer<ReferenceType>>(Base64Order.enhancedCoder);
+            }
+            containers.put(termHash, container);
+        }
+        return containers;
+    }
+
+    private ReferenceContainer<ReferenceType> join(
+            final ReferenceFactory<ReferenceType> termFactory,
+            final ReferenceContainer<ReferenceType> rc,
+            final ReferenceCursor<ReferenceType> cursor,
+            final int maxDistance) throws SpaceExceededException {
+        try {
+            final ReferenceContainer<ReferenceType> result = ReferenceContainer.joinConstructive(termFactory, rc, cursor, maxDistance);
+            if (log.isFine()) log.fine("joined " + rc.size() + " references with " + cursor.size() + " references of a cursor, read " + cursor.blocksRead() + " of " + cursor.blocks() + " blocks");
+            return result;
+        } catch (final IOException e) {
+            // a BLOB file was changed during the join; load the whole container instead
+            log.info("join with cursor failed, loading the container: " + e.getMessage());
+            return ReferenceContainer.joinConstructive(termFactory, rc, load(cursor.getTermHash()), maxDistance);
+        }
+    }
+
+    private ReferenceContainer<ReferenceType> load(final byte[] termHash) {
+        this.inclusionCursors.remove(termHash);
+        ReferenceContainer<ReferenceType> container = null;
+        try {
+            container = this.base.get(termHash, this.urlselection);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+        if (container != null) this.inclusionContainers.put(termHash, container);
+        return container;
     }
 
     public ReferenceContainer<ReferenceType> joined() {
         return this.joinResult;
     }
 
-    public TreeMap<byte[], ReferenceContainer<ReferenceType>> inclusion() {
+    /**
+     * @return the containers of all included terms; terms which were joined block by block are loaded now
+     */
+    public synchronized TreeMap<byte[], ReferenceContainer<ReferenceType>> inclusion() {
+        for (final byte[] termHash: new ArrayList<byte[]>(this.inclusionCursors.keySet())) load(termHash);
         return this.inclusionContainers;
     }
 
@@ -54,6 +54,7 @@ public abstract class AbstractBlockingThread<J extends WorkflowJob> extends Abst
         long timestamp;
         long memstamp0, memstamp1;
         long busyCycles = 0;
+        boolean retired = false;
 
         while (this.running) {
             try {
@@ -67,6 +68,12 @@ public abstract class AbstractBlockingThread<J extends WorkflowJob> extends Abst
                         }
                     }
                 }
+                // terminate if the concurrency of the manager was lowered
+                if (this.manager.retire()) {
+                    retired = true;
+                    this.running = false;
+                    break;
+                }
                 // do job
                 timestamp = System.currentTimeMillis();
                 memstamp0 = MemoryControl.used();
@@ -108,7 +115,7 @@ public abstract class AbstractBlockingThread<J extends WorkflowJob> extends Abst
                 busyCycles++;
             }
         }
-        this.manager.decExecutors();
+        if (!retired) this.manager.decExecutors();
         this.close();
         logSystem("thread '" + this.getName() + "' terminated.");
     }
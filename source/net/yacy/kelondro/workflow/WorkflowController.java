@@ -0,0 +1,295 @@
+// WorkflowController.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.kelondro.workflow;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Distributes a fixed number of threads among the stages of a workflow. In every tuning step the
+ * block, exec and passOn times of the stages since the last step are compared: a stage with a full
+ * input queue whose threads are busy with their jobs is the bottleneck and gets one more thread; the
+ * thread is taken from the budget or from a stage whose threads are mostly waiting for input.
+ * The queue limit of each stage grows and shrinks with its concurrency.
+ */
+public class WorkflowController {
+
+    private final static ConcurrentLog log = new ConcurrentLog("WorkflowController");
+
+    // a stage is a bottleneck if its queue is filled at least that much ..
+    protected static final double FULL_QUEUE = 0.75d;
+    // .. and its threads waited at most that share of their time for input ..
+    protected static final double BUSY_WAIT = 0.1d;
+    // .. and at most that share of their time for the next stage
+    protected static final double BUSY_PASSON = 0.25d;
+    // a stage has too many threads if they waited at least that share of their time for input
+    protected static final double IDLE_WAIT = 0.5d;
+    // the queue limit of a stage is at least that factor of its concurrency
+    protected static final int QUEUE_FACTOR = 2;
+
+    /**
+     * the state and the last decision for one workflow stage
+     */
+    public static class Stage {
+        private final WorkflowProcessor<?> processor;
+        private final int minConcurrency, maxConcurrency, minQueueSize;
+        private long lastBlock, lastExec, lastPassOn, lastCount;
+        private volatile long jobs;
+        private volatile double waitShare, execShare, passOnShare, fill;
+        private volatile String decision;
+        private volatile long decisionTime;
+
+        private Stage(final WorkflowProcessor<?> processor, final int minConcurrency, final int maxConcurrency) {
+            this.processor = processor;
+            this.minConcurrency = Math.max(1, minConcurrency);
+            this.maxConcurrency = Math.max(this.minConcurrency, maxConcurrency);
+            this.minQueueSize = processor.getMaxQueueSize();
+            this.lastBlock = processor.getBlockTime();
+            this.lastExec = processor.getExecTime();
+            this.lastPassOn = processor.getPassOnTime();
+            this.lastCount = processor.getExecCount();
+            this.jobs = 0;
+            this.waitShare = 0.0d;
+            this.execShare = 0.0d;
+            this.passOnShare = 0.0d;
+            this.fill = 0.0d;
+            this.decision = "not tuned yet";
+            this.decisionTime = 0;
+        }
+
+        /**
+         * compute the shares of the thread time since the last sample
+         */
+        protected void sample(final long block, final long exec, final long passOn, final long count, final int queueSize) {
+            final long dBlock = Math.max(0, block - this.lastBlock);
+            final long dExec = Math.max(0, exec - this.lastExec);
+            final long dPassOn = Math.max(0, passOn - this.lastPassOn);
+            final long total = dBlock + dExec + dPassOn;
+            this.jobs = Math.max(0, count - this.lastCount);
+            this.waitShare = total == 0 ? 0.0d : ((double) dBlock) / total;
+            this.execShare = total == 0 ? 0.0d : ((double) dExec) / total;
+            this.passOnShare = total == 0 ? 0.0d : ((double) dPassOn) / total;
+            final int limit = this.processor.getMaxQueueSize();
+            this.fill = limit <= 0 ? 0.0d : Math.min(1.0d, ((double) queueSize) / limit);
+            this.lastBlock = block;
+            this.lastExec = exec;
+            this.lastPassOn = passOn;
+            this.lastCount = count;
+        }
+
+        private void decide(final int concurrency, final String reason) {
+            final int old = this.processor.getMaxConcurrency();
+            if (concurrency != old) {
+                this.processor.setMaxConcurrency(concurrency);
+                this.decision = "concurrency " + old + " -> " + concurrency + ": " + reason;
+                log.info(this.processor.getName() + ": " + this.decision);
+            } else {
+                this.decision = reason;
+            }
+            this.processor.setMaxQueueSize(Math.max(this.minQueueSize, concurrency * QUEUE_FACTOR));
+            this.decisionTime = System.currentTimeMillis();
+        }
+
+        private String load() {
+            return this.jobs + " jobs, " + percent(this.execShare) + " exec, " + percent(this.waitShare) + " waiting for input, " +
+                   percent(this.passOnShare) + " passing on, queue " + percent(this.fill) + " full";
+        }
+
+        public WorkflowProcessor<?> getProcessor() {
+            return this.processor;
+        }
+
+        public int getMinConcurrency() {
+            return this.minConcurrency;
+        }
+
+        public int getMaxConcurrency() {
+            return this.maxConcurrency;
+        }
+
+        public long getJobs() {
+            return this.jobs;
+        }
+
+        public double getWaitShare() {
+            return this.waitShare;
+        }
+
+        public double getExecShare() {
+            return this.execShare;
+        }
+
+        public double getPassOnShare() {
+            return this.passOnShare;
+        }
+
+        public double getFill() {
+            return this.fill;
+        }
+
+        /**
+         * @return the reason for the current concurrency of the stage
+         */
+        public String getDecision() {
+            return this.decision;
+        }
+
+        /**
+         * @return the time of the last tuning step or 0 if the stage was not tuned yet
+         */
+        public long getDecisionTime() {
+            return this.decisionTime;
+        }
+    }
+
+    private final List<Stage> stages;
+    private int budget;
+
+    public WorkflowController() {
+        this.stages = new ArrayList<Stage>();
+        this.budget = 0;
+    }
+
+    /**
+     * add a stage to the controlled workflow. The concurrency of the processor at this time is added to the
+     * thread budget of the workflow, the queue size at this time is the lower limit of the queue size.
+     * @param processor
+     * @param minConcurrency the lowest concurrency of the stage
+     * @param maxConcurrency the highest concurrency of the stage
+     */
+    public synchronized void add(final WorkflowProcessor<?> processor, final int minConcurrency, final int maxConcurrency) {
+        this.stages.add(new Stage(processor, minConcurrency, maxConcurrency));
+        this.budget += processor.getInitialConcurrency();
+    }
+
+    public synchronized List<Stage> stages() {
+        return Collections.unmodifiableList(new ArrayList<Stage>(this.stages));
+    }
+
+    /**
+     * @return the number of threads which are distributed among the stages
+     */
+    public int getBudget() {
+        return this.budget;
+    }
+
+    /**
+     * sample the statistics of all stages and move threads to the bottleneck
+     * @return true if the concurrency of a stage was changed
+     */
+    public synchronized boolean tune() {
+        for (final Stage stage: this.stages) {
+            final WorkflowProcessor<?> p = stage.processor;
+            stage.sample(p.getBlockTime(), p.getExecTime(), p.getPassOnTime(), p.getExecCount(), p.getQueueSize());
+        }
+        return decide();
+    }
+
+    /**
+     * set all stages back to the concurrency and queue size they had when they were added
+     */
+    public synchronized void reset() {
+        for (final Stage stage: this.stages) {
+            stage.decide(stage.processor.getInitialConcurrency(), "tuning disabled");
+        }
+    }
+
+    /**
+     * distribute the threads according to the last samples
+     * @return true if the concurrency of a stage was changed
+     */
+    protected boolean decide() {
+        final int[] concurrency = new int[this.stages.size()];
+        final String[] reason = new String[concurrency.length];
+        int total = 0;
+        int bottleneck = -1;
+        for (int i = 0; i < concurrency.length; i++) {
+            final Stage stage = this.stages.get(i);
+            concurrency[i] = stage.processor.getMaxConcurrency();
+            total += concurrency[i];
+            if (stage.jobs == 0 && stage.fill == 0.0d) {
+                reason[i] = "idle";
+                continue;
+            }
+            reason[i] = "unchanged, " + stage.load();
+            if (stage.fill >= FULL_QUEUE && stage.waitShare <= BUSY_WAIT && stage.passOnShare <= BUSY_PASSON) {
+                // the stage cannot keep up with its input; if there are several, take the one with the fullest queue
+                if (bottleneck < 0 || stage.fill > this.stages.get(bottleneck).fill) bottleneck = i;
+            }
+        }
+
+        // release threads which mostly wait for input
+        boolean changed = false;
+        for (int i = 0; i < concurrency.length; i++) {
+            final Stage stage = this.stages.get(i);
+            if (i == bottleneck || concurrency[i] <= stage.minConcurrency) continue;
+            if (stage.waitShare >= IDLE_WAIT && stage.fill < FULL_QUEUE) {
+                concurrency[i]--;
+                total--;
+                reason[i] = "released a thread, " + stage.load();
+                changed = true;
+            }
+        }
+
+        // give a thread to the bottleneck
+        if (bottleneck >= 0) {
+            final Stage stage = this.stages.get(bottleneck);
+            if (concurrency[bottleneck] >= stage.maxConcurrency) {
+                reason[bottleneck] = "bottleneck at maximum concurrency, " + stage.load();
+            } else if (total < this.budget) {
+                concurrency[bottleneck]++;
+                reason[bottleneck] = "bottleneck, " + stage.load();
+                changed = true;
+            } else {
+                // take a thread from the stage with the lowest exec share
+                int donor = -1;
+                for (int i = 0; i < concurrency.length; i++) {
+                    final Stage other = this.stages.get(i);
+                    if (i == bottleneck || concurrency[i] <= other.minConcurrency || other.fill >= FULL_QUEUE) continue;
+                    if (donor < 0 || other.execShare < this.stages.get(donor).execShare) donor = i;
+                }
+                if (donor < 0) {
+                    reason[bottleneck] = "bottleneck, but all " + this.budget + " threads are in use, " + stage.load();
+                } else {
+                    concurrency[donor]--;
+                    concurrency[bottleneck]++;
+                    reason[donor] = "gave a thread to " + stage.processor.getName() + ", " + this.stages.get(donor).load();
+                    reason[bottleneck] = "bottleneck, got a thread from " + this.stages.get(donor).processor.getName() + ", " + stage.load();
+                    changed = true;
+                }
+            }
+        }
+
+        for (int i = 0; i < concurrency.length; i++) {
+            this.stages.get(i).decide(concurrency[i], reason[i]);
+        }
+        return changed;
+    }
+
+    private static String percent(final double share) {
+        return ((int) Math.round(share * 100.0d)) + "%";
+    }
+}
@@ -47,6 +47,10 @@ public class WorkflowProcessor<J extends WorkflowJob> {
     private BlockingQueue<J> input;
     private final WorkflowProcessor<J> output;
     private final int maxpoolsize;
+    private volatile int concurrency; // the number of executors that may run, changed by the WorkflowController
+    private volatile int queueLimit;  // the number of entries that may wait in the input queue before enQueue blocks
+    private final Object notFull;
+    private final AtomicInteger waitingProducers;
     private final WorkflowTask<J> task;
     private final String processName, description;
     private final String[] childs;
@@ -64,7 +68,12 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         this.task = task;
         this.childs = childnames;
         this.maxpoolsize = maxpoolsize;
-        this.input = new LinkedBlockingQueue<J>(Math.max(maxpoolsize + 1, inputQueueSize));
+        this.concurrency = maxpoolsize;
+        this.queueLimit = Math.max(maxpoolsize + 1, inputQueueSize);
+        // the queue is not limited itself, the limit is enforced in enQueue() to be able to change it at runtime
+        this.input = new LinkedBlockingQueue<J>();
+        this.notFull = new Object();
+        this.waitingProducers = new AtomicInteger(0);
         this.output = output;
         this.executor = Executors.newCachedThreadPool(new NamePrefixThreadFactory(name));
         this.executorRunning = new AtomicInteger(0);
@@ -99,12 +108,40 @@ public class WorkflowProcessor<J extends WorkflowJob> {
 
     public int getMaxQueueSize() {
         if (this.input == null) return 0;
-        return this.input.size() + this.input.remainingCapacity();
+        return this.queueLimit;
     }
 
+    /**
+     * set the number of entries that may wait in the input queue; enQueue() blocks while the queue is full.
+     * @param limit the new limit, at least the current concurrency + 1
+     */
+    public void setMaxQueueSize(final int limit) {
+        this.queueLimit = Math.max(this.concurrency + 1, limit);
+        wakeProducers();
+    }
+
+    /**
+     * @return the number of executors that may run at the same time
+     */
     public int getMaxConcurrency() {
+        return this.concurrency;
+    }
+
+    /**
+     * @return the concurrency given at construction time
+     */
+    public int getInitialConcurrency() {
         return this.maxpoolsize;
     }
+
+    /**
+     * set the number of executors that may run at the same time. A higher value is used when
+     * the next jobs are enqueued, with a lower value surplus executors terminate after their current job.
+     * @param concurrency the new concurrency, at least 1
+     */
+    public void setMaxConcurrency(final int concurrency) {
+        this.concurrency = Math.max(1, concurrency);
+    }
     
     public int getExecutors() {
         return this.executorRunning.get();
@@ -117,6 +154,22 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         this.executorRunning.decrementAndGet();
     }
 
+    /**
+     * check if the calling executor is superfluous because the concurrency was lowered.
+     * If true is returned, the executor is already removed from the count and must terminate
+     * without calling decExecutors().
+     * This method may only be called within the AbstractBlockingThread while loop!!
+     * @return true if the executor shall terminate
+     */
+    public boolean retire() {
+        if (this.executorRunning.get() <= this.concurrency) return false;
+        synchronized (this.executorRunning) {
+            if (this.executorRunning.get() <= this.concurrency) return false;
+            this.executorRunning.decrementAndGet();
+            return true;
+        }
+    }
+
     public J take() throws InterruptedException {
         // read from the input queue
         if (this.input == null) {
@@ -125,9 +178,16 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         final long t = System.currentTimeMillis();
         final J j = this.input.take();
         this.blockTime += System.currentTimeMillis() - t;
+        if (this.waitingProducers.get() > 0) wakeProducers();
         return j;
     }
 
+    private void wakeProducers() {
+        synchronized (this.notFull) {
+            this.notFull.notifyAll();
+        }
+    }
+
     public void passOn(final J next) {
         // don't mix this method up with enQueue()!
         // this method enqueues into the _next_ queue, not this queue!
@@ -145,23 +205,9 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         }
     }
 
-    private synchronized void relaxCapacity() {
-        if (this.input.isEmpty()) {
-            return;
-        }
-        if (this.input.remainingCapacity() > 1000) {
-            return;
-        }
-        final BlockingQueue<J> i = new LinkedBlockingQueue<J>();
-        J e;
-        while (!this.input.isEmpty()) {
-            e = this.input.poll();
-            if (e == null) {
-                break;
-            }
-            i.add(e);
-        }
-        this.input = i;
+    private void relaxCapacity() {
+        this.queueLimit = Integer.MAX_VALUE;
+        wakeProducers();
     }
 
     public void enQueue(final J in) {
@@ -182,9 +228,20 @@ public class WorkflowProcessor<J extends WorkflowJob> {
         // execute concurrent in thread
         while (this.input != null) {
             try {
+                if (this.input.size() >= this.queueLimit) {
+                    // wait until the executors have taken enough entries
+                    this.waitingProducers.incrementAndGet();
+                    try {
+                        synchronized (this.notFull) {
+                            while (this.input != null && this.input.size() >= this.queueLimit) this.notFull.wait(100);
+                        }
+                    } finally {
+                        this.waitingProducers.decrementAndGet();
+                    }
+                }
                 this.input.put(in);
-                if (this.input.size() > this.executorRunning.get() && this.executorRunning.get() < this.maxpoolsize) synchronized (executor) {
-                    if (this.input.size() > this.executorRunning.get() && this.executorRunning.get() < this.maxpoolsize) {
+                if (this.input.size() > this.executorRunning.get() && this.executorRunning.get() < this.concurrency) synchronized (this.executorRunning) {
+                    if (this.input.size() > this.executorRunning.get() && this.executorRunning.get() < this.concurrency) {
                         this.executorRunning.incrementAndGet();
                         this.executor.submit(new InstantBlockingThread<J>(this));
                     }
@@ -89,6 +89,7 @@ import net.yacy.cora.federate.solr.connector.SolrConnector;
 import net.yacy.cora.federate.solr.instance.RemoteInstance;
 import net.yacy.cora.order.Base64Order;
 import net.yacy.cora.order.Digest;
+import net.yacy.cora.protocol.ByteArrayBody;
 import net.yacy.cora.protocol.ClientIdentification;
 import net.yacy.cora.protocol.Domains;
 import net.yacy.cora.protocol.http.HTTPClient;
@@ -1718,26 +1719,43 @@ public final class Protocol {
             return errorCause;
         }
 
+        RWITransferCodec.learn(targetSeed, in); // the response tells if the peer can read the binary format
+
         if ( !(result.equals("ok")) ) {
             targetSeed.setFlagAcceptRemoteIndex(false); // the peer does not want our index
             sb.peers.addConnected(targetSeed); // update the peer
             return result;
         }
 
-        // in now contains a list of unknown hashes
-        String uhss = in.get("unknownURL");
-        if ( uhss == null ) {
-            return "no unknownURL tag in response";
-        }
-        uhss = uhss.trim();
-        if ( uhss.isEmpty() || uhss.equals(",") ) {
-            return null;
-        } // all url's known, we are ready here
+        final String[] uhs;
+        if (RWITransferCodec.FORMAT.equals(in.get("transferFormat"))) {
+            // the unknown urls are marked in a bit field over all url hashes of the transfer
+            final String bits = in.get("unknownURLBits");
+            if ( bits == null ) {
+                return "no unknownURLBits tag in response";
+            }
+            final List<byte[]> unknown = RWITransferCodec.decodeSelection(RWITransferCodec.urlHashes(indexes), bits.trim());
+            if ( unknown.isEmpty() ) {
+                return null;
+            } // all url's known
+            uhs = new String[unknown.size()];
+            for (int i = 0; i < uhs.length; i++) uhs[i] = ASCII.String(unknown.get(i));
+        } else {
+            // in now contains a list of unknown hashes
+            String uhss = in.get("unknownURL");
+            if ( uhss == null ) {
+                return "no unknownURL tag in response";
+            }
+            uhss = uhss.trim();
+            if ( uhss.isEmpty() || uhss.equals(",") ) {
+                return null;
+            } // all url's known, we are ready here
 
-        final String[] uhs = CommonPattern.COMMA.split(uhss);
-        if ( uhs.length == 0 ) {
-            return null;
-        } // all url's known
+            uhs = CommonPattern.COMMA.split(uhss);
+            if ( uhs.length == 0 ) {
+                return null;
+            } // all url's known
+        }
 
         EventChannel.channels(EventChannel.DHTSEND).addMessage(new RSSMessage("Sent " + indexes.size() + " RWIs " + indexes.toString() + " to " + targetSeed.getName() + "/[" + targetSeed.hash + "], " + uhs.length + " URLs there unknown", "", targetSeed.hash));
 
@@ -1772,7 +1790,8 @@ public final class Protocol {
     /**
 	 * Transfer Reverse Word Index entries to remote peer. If the used IP is not
 	 * responding, this IP (interface) is removed from targtSeed IP list. Remote
-	 * peer responds with list of unknown url hashes
+	 * peer responds with list of unknown url hashes. Peers which announced that they
+	 * can read the binary format of {@link RWITransferCodec} get the entries in that format.
 	 *
 	 * @param targetSeed
 	 *            the target peer
@@ -1816,11 +1835,24 @@ public final class Protocol {
                 gzipBody = false;
             }
 
+            byte[] binaryPost = null;
+            if (RWITransferCodec.accepts(targetSeed)) {
+                try {
+                    binaryPost = RWITransferCodec.encode(indexes, gzipBody);
+                } catch (final IOException e) {
+                    Network.log.warn("yacyClient.transferRWI binary encoding failed, using property form: " + e.getMessage());
+                }
+            }
+
             int indexcount = 0;
-            final StringBuilder entrypost = new StringBuilder(indexes.size() * 73);
+            final StringBuilder entrypost = new StringBuilder(binaryPost == null ? indexes.size() * 73 : 0);
             Iterator<WordReference> eenum;
             Reference entry;
             for ( final ReferenceContainer<WordReference> ic : indexes ) {
+                if (binaryPost != null) {
+                    indexcount += ic.size();
+                    continue;
+                }
                 eenum = ic.entries();
                 while ( eenum.hasNext() ) {
                     entry = eenum.next();
@@ -1843,18 +1875,25 @@ public final class Protocol {
                 final Map<String, ContentBody> parts = basicRequestParts(Switchboard.getSwitchboard(), targetSeed.hash, salt);
                 parts.put("wordc", UTF8.StringBody(Integer.toString(indexes.size())));
                 parts.put("entryc", UTF8.StringBody(Integer.toString(indexcount)));
-                parts.put("indexes", UTF8.StringBody(entrypost.toString()));
+                if (binaryPost == null) {
+                    parts.put("indexes", UTF8.StringBody(entrypost.toString()));
+                } else {
+                    // the file name ending with .gz makes the receiving servlet keep the binary content
+                    parts.put("format", UTF8.StringBody(RWITransferCodec.FORMAT));
+                    parts.put("rwi", new ByteArrayBody(binaryPost, "rwi.gz"));
+                }
+                final boolean gzipPost = gzipBody && binaryPost == null; // the binary format is already compressed
                 final HTTPClient httpClient = new HTTPClient(ClientIdentification.yacyInternetCrawlerAgent, timeout);
                 byte[] content = null;
                 try {
 					content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/transferRWI.html"),
-							targetSeed.getHexHash() + ".yacyh", parts, gzipBody, true);
+							targetSeed.getHexHash() + ".yacyh", parts, gzipPost, true);
                 } catch(final IOException e) {
                     if(targetBaseURL.isHTTPS()) {
                     	targetBaseURL = targetSeed.getPublicMultiprotocolURL(ip, false);
                     	/* Failed with https : retry with http on the same address */
 						content = httpClient.POSTbytes(new MultiProtocolURL(targetBaseURL, "/yacy/transferRWI.html"),
-								targetSeed.getHexHash() + ".yacyh", parts, gzipBody, true);
+								targetSeed.getHexHash() + ".yacyh", parts, gzipPost, true);
 						if(content != null) {
 							/* Success with http : mark SSL as unavailable on the target peer */
             				markSSLUnavailableOnPeer(Switchboard.getSwitchboard().peers, targetSeed, ip, "yacyClient.transferRWI");
@@ -1867,8 +1906,16 @@ public final class Protocol {
                 // this should return a list of urlhashes that are unknown
 
                 final Map<String, String> result = FileUtils.table(v);
+                if (binaryPost != null) {
+                    if ("missing indexes".equals(result.get("result"))) {
+                        // the peer does not read the binary format (any more), send the property form
+                        RWITransferCodec.reject(targetSeed);
+                        return transferRWI(targetSeed, indexes, gzipBody, timeout, preferHttps);
+                    }
+                    result.put("transferFormat", RWITransferCodec.FORMAT);
+                }
                 // return the transfered index data in bytes (for debugging only)
-                result.put("indexPayloadSize", Integer.toString(entrypost.length()));
+                result.put("indexPayloadSize", Integer.toString(binaryPost == null ? entrypost.length() : binaryPost.length));
                 result.put(Seed.IP, ip); // add used ip to result for error handling (in case no "result" key was received)
                 return result;
             } catch (final Exception e ) {
@@ -0,0 +1,266 @@
+// RWIIngest.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.rwi.Index;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.rwi.ReferenceFactory;
+
+/**
+ * The ingestion of RWI entries which are received from other peers with transferRWI. The accepted entries of
+ * a transfer are collected in a {@link Batch} with one container for each term; each container is added to the
+ * index with one call, which synchronizes on the RAM cache once for each term instead of once for each entry.
+ * The number of transfers which are ingested at the same time is bounded; further transfers wait for a free
+ * slot. For each sending peer the number of received and blocked entries and the processing time are counted.
+ */
+public final class RWIIngest {
+
+    private static final ReferenceFactory<WordReference> factory = new WordReferenceFactory();
+    private static final Object lock = new Object();
+    private static int active = 0; // the number of transfers which are ingested now, guarded by lock
+    private static final ConcurrentHashMap<String, Peer> peers = new ConcurrentHashMap<String, Peer>();
+
+    /**
+     * the ingest statistics of one sending peer
+     */
+    public static final class Peer {
+        private final String hash;
+        private String name;
+        private long transfers, received, blocked, time, firstAccess, lastAccess;
+
+        private Peer(final String hash) {
+            this.hash = hash;
+            this.name = null;
+            this.transfers = 0;
+            this.received = 0;
+            this.blocked = 0;
+            this.time = 0;
+            this.firstAccess = System.currentTimeMillis();
+            this.lastAccess = this.firstAccess;
+        }
+
+        private synchronized void count(final String name, final int received, final int blocked, final long time) {
+            if (name != null) this.name = name;
+            this.transfers++;
+            this.received += received;
+            this.blocked += blocked;
+            this.time += time;
+            this.lastAccess = System.currentTimeMillis();
+        }
+
+        public String hash() {
+            return this.hash;
+        }
+
+        public synchronized String name() {
+            return this.name;
+        }
+
+        public synchronized long transfers() {
+            return this.transfers;
+        }
+
+        public synchronized long received() {
+            return this.received;
+        }
+
+        public synchronized long blocked() {
+            return this.blocked;
+        }
+
+        /**
+         * @return the processing time of all transfers in milliseconds
+         */
+        public synchronized long time() {
+            return this.time;
+        }
+
+        public synchronized long firstAccess() {
+            return this.firstAccess;
+        }
+
+        public synchronized long lastAccess() {
+            return this.lastAccess;
+        }
+
+        /**
+         * @return the number of received entries per second of processing time
+         */
+        public synchronized long rate() {
+            return this.received * 1000L / Math.max(1, this.time);
+        }
+
+        /**
+         * @return the number of received entries per hour since the first transfer
+         */
+        public synchronized long perHour() {
+            return this.received * 3600000L / Math.max(60000, this.lastAccess - this.firstAccess);
+        }
+    }
+
+    /**
+     * the received entries of one transfer, grouped by term
+     */
+    public static final class Batch {
+        private final TreeMap<byte[], ReferenceContainer<WordReference>> containers;
+        private int size;
+
+        public Batch() {
+            this.containers = new TreeMap<byte[], ReferenceContainer<WordReference>>(Word.commonHashOrder);
+            this.size = 0;
+        }
+
+        /**
+         * add an entry; an entry for a url which is already in the batch for the same term is replaced
+         * @param termHash
+         * @param entry
+         * @throws SpaceExceededException
+         */
+        public void add(final byte[] termHash, final WordReference entry) throws SpaceExceededException {
+            ReferenceContainer<WordReference> container = this.containers.get(termHash);
+            if (container == null) {
+                container = new ReferenceContainer<WordReference>(factory, termHash, 1);
+                this.containers.put(termHash, container);
+            }
+            container.put(entry);
+            this.size++;
+        }
+
+        /**
+         * @return the number of added entries
+         */
+        public int size() {
+            return this.size;
+        }
+
+        /**
+         * @return the number of terms
+         */
+        public int terms() {
+            return this.containers.size();
+        }
+
+        public Collection<ReferenceContainer<WordReference>> containers() {
+            return this.containers.values();
+        }
+
+        /**
+         * add the containers of the batch to the index
+         * @param index the term index, may be null
+         */
+        public void store(final Index<WordReference> index) {
+            if (index == null) return;
+            for (final ReferenceContainer<WordReference> container: this.containers.values()) {
+                try {
+                    index.add(container);
+                } catch (final IOException e) {
+                    ConcurrentLog.logException(e);
+                } catch (final SpaceExceededException e) {
+                    ConcurrentLog.logException(e);
+                }
+            }
+        }
+    }
+
+    /**
+     * start the ingestion of a transfer; if the given number of transfers is already ingested, wait until one of
+     * them is finished
+     * @param limit the maximum number of transfers which are ingested at the same time
+     * @param timeout the maximum time in milliseconds to wait for another transfer to finish
+     * @return true if the ingestion may start; then {@link #leave()} must be called when it is finished
+     */
+    public static boolean enter(final int limit, final long timeout) {
+        final long deadline = System.currentTimeMillis() + timeout;
+        synchronized (lock) {
+            while (active >= limit) {
+                final long wait = deadline - System.currentTimeMillis();
+                if (wait <= 0) return false;
+                try {
+                    lock.wait(wait);
+                } catch (final InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+            }
+            active++;
+            return true;
+        }
+    }
+
+    /**
+     * finish the ingestion of a transfer which was started with {@link #enter(int, long)}
+     */
+    public static void leave() {
+        synchronized (lock) {
+            active--;
+            lock.notify();
+        }
+    }
+
+    /**
+     * @return the number of transfers which are ingested now
+     */
+    public static int active() {
+        synchronized (lock) {
+            return active;
+        }
+    }
+
+    /**
+     * count the result of the ingestion of a transfer
+     * @param peerHash the hash of the sending peer
+     * @param peerName the name of the sending peer or null if it is unknown
+     * @param received the number of stored entries
+     * @param blocked the number of rejected entries
+     * @param time the processing time in milliseconds
+     * @return the statistics of the peer
+     */
+    public static Peer count(final String peerHash, final String peerName, final int received, final int blocked, final long time) {
+        Peer peer = peers.get(peerHash);
+        if (peer == null) {
+            peer = new Peer(peerHash);
+            final Peer p = peers.putIfAbsent(peerHash, peer);
+            if (p != null) peer = p;
+        }
+        peer.count(peerName, received, blocked, time);
+        return peer;
+    }
+
+    /**
+     * @return the statistics of all peers which sent entries
+     */
+    public static Collection<Peer> peers() {
+        return new ArrayList<Peer>(peers.values());
+    }
+}
@@ -0,0 +1,351 @@
+// RWITransferCodec.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.rwi.ReferenceFactory;
+
+/**
+ * A binary wire format for the transfer of RWI entries with transferRWI, used instead of the
+ * property form of each entry for peers which announce that they can read it.
+ * <p>
+ * The data is a gzip stream which contains the magic {@link #FORMAT}, the widths of the columns of
+ * {@link WordReferenceRow#urlEntryRow} and then the reference containers. The entries of each container are
+ * sorted by url hash and written column by column: first the url hashes as deltas of their 72 bit value
+ * (6 bit for each base64 character), then the bytes of each further column for all entries. Similar values
+ * are neighbours this way, which compresses much better than the rows themselves.
+ * <p>
+ * The response to such a transfer names the unknown urls with a bit for each distinct url hash of the
+ * transfer in the order of {@link #urlHashes(Iterable)} instead of a list of hashes.
+ */
+public final class RWITransferCodec {
+
+    /** the name of the format; it is the post value of the format attribute and announced in the formats response attribute */
+    public static final String FORMAT = "rwi1";
+
+    /** if false, the property form is always used for the transfer */
+    public static boolean enabled = true;
+
+    private static final byte[] MAGIC = FORMAT.getBytes();
+    private static final long MASK60 = (1L << 60) - 1;
+    private static final int MAX_ENTRIES = 100000; // the maximum number of entries in one container and in all containers of a transfer
+    private static final ReferenceFactory<WordReference> factory = new WordReferenceFactory();
+
+    // known capabilities of remote peers; key is the peer hash
+    private static final Map<String, Boolean> peers = new ConcurrentHashMap<String, Boolean>();
+    // peers which failed to read a binary transfer; they announce the format but get the property form
+    private static final Set<String> rejected = Collections.newSetFromMap(new ConcurrentHashMap<String, Boolean>());
+
+    /**
+     * @param target a remote peer
+     * @return true if the binary format can be used for a transfer to the peer
+     */
+    public static boolean accepts(final Seed target) {
+        return enabled && Boolean.TRUE.equals(peers.get(target.hash));
+    }
+
+    /**
+     * remember if a peer can read the binary format; all transferRWI responses of peers which can read
+     * it contain the format name in the 'formats' attribute. The response of a peer which was rejected
+     * before is ignored.
+     * @param target the remote peer
+     * @param response the transferRWI response of the peer
+     */
+    public static void learn(final Seed target, final Map<String, String> response) {
+        if (rejected.contains(target.hash)) return;
+        final String formats = response.get("formats");
+        peers.put(target.hash, formats != null && formats.contains(FORMAT));
+    }
+
+    /**
+     * remember that a peer cannot read the binary format, even if its later responses announce it
+     * @param target
+     */
+    public static void reject(final Seed target) {
+        rejected.add(target.hash);
+        peers.put(target.hash, Boolean.FALSE);
+    }
+
+    /**
+     * encode the reference containers
+     * @param containers
+     * @param compress if false, the gzip stream is written without compression
+     * @return the binary form of the containers
+     * @throws IOException if the containers contain malformed url hashes
+     */
+    public static byte[] encode(final Iterable<ReferenceContainer<WordReference>> containers, final boolean compress) throws IOException {
+        final Row row = WordReferenceRow.urlEntryRow;
+        final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        final OutputStream out = new BufferedOutputStream(new GZIPOutputStream(baos, 8192) {{
+            this.def.setLevel(compress ? Deflater.DEFAULT_COMPRESSION : Deflater.NO_COMPRESSION);
+        }}, 8192);
+        out.write(MAGIC);
+        writeVarLong(out, row.columns());
+        for (int c = 0; c < row.columns(); c++) writeVarLong(out, row.width(c));
+        final List<ReferenceContainer<WordReference>> list = new ArrayList<ReferenceContainer<WordReference>>();
+        for (final ReferenceContainer<WordReference> container: containers) list.add(container);
+        writeVarLong(out, list.size());
+        for (final ReferenceContainer<WordReference> container: list) {
+            // copy the rows and sort them by url hash
+            final int n = container.size();
+            final byte[][] rows = new byte[n][];
+            final long[] hi = new long[n], lo = new long[n];
+            final Iterator<WordReference> i = container.entries();
+            int count = 0;
+            while (i.hasNext() && count < n) {
+                final byte[] b = new byte[row.objectsize];
+                i.next().toKelondroEntry().writeToArray(b, 0);
+                if (!Base64Order.enhancedCoder.wellformed(b, 0, row.primaryKeyLength)) throw new IOException("malformed url hash in container " + new String(container.getTermHash()));
+                rows[count++] = b;
+            }
+            final Integer[] order = sortedOrder(rows, count);
+            for (int k = 0; k < count; k++) {
+                final byte[] b = rows[order[k]];
+                hi[k] = Base64Order.enhancedCoder.decodeLong(b, 0, 2);
+                lo[k] = Base64Order.enhancedCoder.decodeLong(b, 2, 10);
+            }
+            out.write(container.getTermHash(), 0, row.primaryKeyLength);
+            writeVarLong(out, count);
+
+            // url hashes as deltas of their numeric value
+            long ph = 0, pl = 0;
+            for (int k = 0; k < count; k++) {
+                long dl = lo[k] - pl, dh = hi[k] - ph;
+                if (dl < 0) {
+                    dl += 1L << 60;
+                    dh--;
+                }
+                writeVarLong72(out, dh, dl);
+                ph = hi[k];
+                pl = lo[k];
+            }
+
+            // all other columns
+            for (int c = 1; c < row.columns(); c++) {
+                final int start = row.colstart[c], width = row.width(c);
+                for (int k = 0; k < count; k++) out.write(rows[order[k]], start, width);
+            }
+        }
+        out.close();
+        return baos.toByteArray();
+    }
+
+    /**
+     * decode the binary form of reference containers
+     * @param data the result of {@link #encode(Iterable, boolean)}
+     * @return the containers
+     * @throws IOException if the data is not in the binary format or the row layout is different from the local row layout
+     */
+    public static List<ReferenceContainer<WordReference>> decode(final byte[] data) throws IOException {
+        final Row row = WordReferenceRow.urlEntryRow;
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new GZIPInputStream(new ByteArrayInputStream(data), 8192), 8192));
+        try {
+            final byte[] magic = new byte[MAGIC.length];
+            in.readFully(magic);
+            for (int i = 0; i < MAGIC.length; i++) if (magic[i] != MAGIC[i]) throw new IOException("wrong format");
+            if (readVarLong(in) != row.columns()) throw new IOException("incompatible row layout");
+            for (int c = 0; c < row.columns(); c++) if (readVarLong(in) != row.width(c)) throw new IOException("incompatible row layout");
+            final long containerCount = readVarLong(in);
+            if (containerCount < 0 || containerCount > MAX_ENTRIES) throw new IOException("bad container count " + containerCount);
+            long total = 0;
+            final List<ReferenceContainer<WordReference>> containers = new ArrayList<ReferenceContainer<WordReference>>();
+            for (long t = 0; t < containerCount; t++) {
+                final byte[] termHash = new byte[row.primaryKeyLength];
+                in.readFully(termHash);
+                final long count = readVarLong(in);
+                if (count < 0 || count > MAX_ENTRIES) throw new IOException("bad entry count " + count);
+                total += count;
+                if (total > MAX_ENTRIES) throw new IOException("too many entries");
+                final int n = (int) count;
+                final byte[][] rows = new byte[n][];
+                final long[] value = new long[2];
+                long ph = 0, pl = 0;
+                for (int k = 0; k < n; k++) {
+                    readVarLong72(in, value);
+                    long h = ph + value[0], l = pl + value[1];
+                    if (l > MASK60) {
+                        l &= MASK60;
+                        h++;
+                    }
+                    rows[k] = new byte[row.objectsize];
+                    Base64Order.enhancedCoder.encodeLong(h, rows[k], 0, 2);
+                    Base64Order.enhancedCoder.encodeLong(l, rows[k], 2, 10);
+                    ph = h;
+                    pl = l;
+                }
+                for (int c = 1; c < row.columns(); c++) {
+                    final int start = row.colstart[c], width = row.width(c);
+                    for (int k = 0; k < n; k++) in.readFully(rows[k], start, width);
+                }
+                final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(factory, termHash, n);
+                for (int k = 0; k < n; k++) container.add(factory.produceSlow(row.newEntry(rows[k])));
+                containers.add(container);
+            }
+            return containers;
+        } catch (final SpaceExceededException e) {
+            throw new IOException(e.getMessage());
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * @param containers
+     * @return the distinct url hashes of all entries in the containers in base64 order
+     */
+    public static List<byte[]> urlHashes(final Iterable<ReferenceContainer<WordReference>> containers) {
+        final TreeSet<byte[]> hashes = new TreeSet<byte[]>(Base64Order.enhancedCoder);
+        for (final ReferenceContainer<WordReference> container: containers) {
+            final Iterator<WordReference> i = container.entries();
+            while (i.hasNext()) hashes.add(i.next().urlhash());
+        }
+        return new ArrayList<byte[]>(hashes);
+    }
+
+    /**
+     * encode a subset of the url hashes as bit field
+     * @param urls the result of {@link #urlHashes(Iterable)}
+     * @param selected the subset
+     * @return a base64 encoded bit field with a bit for each url
+     */
+    public static String encodeSelection(final List<byte[]> urls, final HandleSet selected) {
+        final byte[] bits = new byte[(urls.size() + 7) / 8];
+        for (int i = 0; i < urls.size(); i++) {
+            if (selected.has(urls.get(i))) bits[i >> 3] |= 1 << (i & 7);
+        }
+        return Base64Order.enhancedCoder.encode(bits);
+    }
+
+    /**
+     * decode a bit field of {@link #encodeSelection(List, HandleSet)}
+     * @param urls the url hashes which were used for the bit field
+     * @param selection the bit field
+     * @return the selected url hashes
+     */
+    public static List<byte[]> decodeSelection(final List<byte[]> urls, final String selection) {
+        final byte[] bits = Base64Order.enhancedCoder.decode(selection);
+        final List<byte[]> selected = new ArrayList<byte[]>();
+        for (int i = 0; i < urls.size() && (i >> 3) < bits.length; i++) {
+            if ((bits[i >> 3] & (1 << (i & 7))) != 0) selected.add(urls.get(i));
+        }
+        return selected;
+    }
+
+    private static Integer[] sortedOrder(final byte[][] rows, final int count) {
+        final Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++) order[k] = k;
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                return Base64Order.enhancedCoder.compare(rows[a], rows[b], WordReferenceRow.urlEntryRow.primaryKeyLength);
+            }
+        });
+        return order;
+    }
+
+    private static void writeVarLong(final OutputStream out, long v) throws IOException {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(final InputStream in) throws IOException {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            final int b = in.read();
+            if (b < 0) throw new EOFException();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) return v;
+        }
+        throw new IOException("malformed number");
+    }
+
+    /**
+     * write a 72 bit number
+     * @param hi the upper 12 bit
+     * @param lo the lower 60 bit
+     */
+    private static void writeVarLong72(final OutputStream out, long hi, long lo) throws IOException {
+        while (hi != 0 || (lo & ~0x7FL) != 0) {
+            out.write((int) ((lo & 0x7F) | 0x80));
+            lo = (lo >>> 7) | ((hi & 0x7F) << 53);
+            hi >>>= 7;
+        }
+        out.write((int) lo);
+    }
+
+    private static void readVarLong72(final InputStream in, final long[] value) throws IOException {
+        long hi = 0, lo = 0;
+        for (int shift = 0; shift < 72; shift += 7) {
+            final int b = in.read();
+            if (b < 0) throw new EOFException();
+            final long g = b & 0x7F;
+            if (shift + 7 <= 60) {
+                lo |= g << shift;
+            } else if (shift >= 60) {
+                hi |= g << (shift - 60);
+            } else {
+                lo |= (g << shift) & MASK60;
+                hi |= g >>> (60 - shift);
+            }
+            if ((b & 0x80) == 0) {
+                value[0] = hi;
+                value[1] = lo;
+                return;
+            }
+        }
+        throw new IOException("malformed url hash delta");
+    }
+}
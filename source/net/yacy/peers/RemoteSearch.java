@@ -48,14 +48,14 @@ import net.yacy.search.SwitchboardConstants;
 import net.yacy.search.index.Segment;
 import net.yacy.search.query.QueryParams;
 import net.yacy.search.query.SearchEvent;
+import net.yacy.search.query.SearchTask;
 import net.yacy.search.query.SecondarySearchSuperviser;
 
 /**
  * Handle remote YaCy peers selection and search requests on them, targeting either their Solr index or RWI (Reverse Word Index)
  */
-public class RemoteSearch extends Thread {
+public class RemoteSearch extends SearchTask {
 
-    private static final ThreadGroup ysThreadGroup = new ThreadGroup("yacySearchThreadGroup");
     public static final ConcurrentLog log = new ConcurrentLog("DHT");
     
     final private SearchEvent event;
@@ -87,7 +87,7 @@ public class RemoteSearch extends Thread {
               final Seed targetPeer,
               final SecondarySearchSuperviser secondarySearchSuperviser,
               final Blacklist blacklist) {
-        super(ysThreadGroup, "yacySearch_" + targetPeer.getName());
+        super(event, "yacySearch_" + targetPeer.getName());
         this.event = event;
         this.wordhashes = wordhashes;
         this.excludehashes = excludehashes;
@@ -279,7 +279,7 @@ public class RemoteSearch extends Thread {
 								SwitchboardConstants.REMOTESEARCH_MAXLOAD_SOLR_DEFAULT)) {
 					continue;
 				}
-                Thread t = solrRemoteSearch(event, solrQuery, start, count, s, targets, blacklist, useFacets, true);
+                final SearchTask t = solrRemoteSearch(event, solrQuery, start, count, s, targets, blacklist, useFacets, true);
                 event.nodeSearchThreads.add(t);
             }
         }
@@ -318,7 +318,7 @@ public class RemoteSearch extends Thread {
         }
     }
 
-    public static Thread secondaryRemoteSearch(
+    public static SearchTask secondaryRemoteSearch(
     		final SearchEvent event,
             final Set<String> wordhashes,
             final String urlhashes,
@@ -334,7 +334,7 @@ public class RemoteSearch extends Thread {
         // prepare seed targets and threads
         final Seed targetPeer = event.peers.getConnected(targethash);
         if (targetPeer == null || targetPeer.hash == null) return null;
-        Thread secondary = new Thread("RemoteSearch.secondaryRemoteSearch(" + wordhashes + " to " + targethash + ")") {
+        final SearchTask secondary = new SearchTask(event, "RemoteSearch.secondaryRemoteSearch(" + wordhashes + " to " + targethash + ")") {
             @Override
             public void run() {
                 event.oneFeederStarted();
@@ -385,7 +385,7 @@ public class RemoteSearch extends Thread {
      * @param incrementNavigators when true, increment event navigators either with facet counts or with individual results
      * @return the created and running Thread instance
      */
-    public static Thread solrRemoteSearch(
+    public static SearchTask solrRemoteSearch(
                     final SearchEvent event,
                     final SolrQuery solrQuery,
                     final int start,
@@ -402,7 +402,7 @@ public class RemoteSearch extends Thread {
         // check own peer status
         if (event.peers.mySeed() == null) { return null; }
         // prepare threads
-        Thread solr = new Thread("RemoteSearch.solrRemoteSearch(" + solrQuery.getQuery() + " to " + (targetPeer == null ? "myself" : targetPeer.hash) + ")") {
+        final SearchTask solr = new SearchTask(event, "RemoteSearch.solrRemoteSearch(" + solrQuery.getQuery() + " to " + (targetPeer == null ? "myself" : targetPeer.hash) + ")") {
             @Override
             public void run() {
                     int urls = 0;
@@ -0,0 +1,540 @@
+// HostLinkGraph.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.peers.graphics;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A directed graph of links between hosts. Each host hash is mapped to an integer id; the links of a host
+ * are stored in primitive arrays in forward direction (target ids and link counts) and in reverse direction
+ * (source ids and the position of the link in the forward list of the source), so that both the outgoing
+ * and the incoming references of a host are found in O(degree) time.
+ *
+ * A host may be known only as a link target: such a node has no host name and is not reported as an
+ * existing host. It is removed as soon as no link points to it.
+ *
+ * All methods are synchronized; callers which combine several calls to one update may synchronize on the
+ * graph object themselves.
+ */
+public class HostLinkGraph {
+
+    private static final int MAGIC = 0x57534731; // "WSG1"
+    private static final int INITIAL_NODES = 256;
+    private static final int INITIAL_DEGREE = 4;
+
+    private final Map<String, Integer> ids;
+    private String[] hashes;
+    private String[] names;
+    private int[] dates;
+    private boolean[] latest;
+    private int[][] outTarget;
+    private int[][] outCount;
+    private int[] outDegree;
+    private int[][] inSource;
+    private int[][] inPos;
+    private int[] inDegree;
+    private int nodes;       // high water mark of used ids
+    private int[] free;      // ids of removed nodes which can be reused
+    private int freeCount;
+    private int hosts;       // number of nodes with a host name
+    private long edges;
+
+    public HostLinkGraph() {
+        this.ids = new HashMap<String, Integer>();
+        init(INITIAL_NODES);
+    }
+
+    private void init(final int capacity) {
+        this.ids.clear();
+        this.hashes = new String[capacity];
+        this.names = new String[capacity];
+        this.dates = new int[capacity];
+        this.latest = new boolean[capacity];
+        this.outTarget = new int[capacity][];
+        this.outCount = new int[capacity][];
+        this.outDegree = new int[capacity];
+        this.inSource = new int[capacity][];
+        this.inPos = new int[capacity][];
+        this.inDegree = new int[capacity];
+        this.nodes = 0;
+        this.free = new int[16];
+        this.freeCount = 0;
+        this.hosts = 0;
+        this.edges = 0;
+    }
+
+    public synchronized void clear() {
+        init(INITIAL_NODES);
+    }
+
+    /**
+     * @return the number of hosts with a host name
+     */
+    public synchronized int size() {
+        return this.hosts;
+    }
+
+    /**
+     * @return the number of links between hosts
+     */
+    public synchronized long edges() {
+        return this.edges;
+    }
+
+    /**
+     * @return an upper bound of the node ids, to iterate with {@link #hash(int)}
+     */
+    public synchronized int capacity() {
+        return this.nodes;
+    }
+
+    /**
+     * @param hosthash
+     * @return the id of the host or -1 if the host is not in the graph
+     */
+    public synchronized int id(final String hosthash) {
+        final Integer id = this.ids.get(hosthash);
+        return id == null ? -1 : id.intValue();
+    }
+
+    /**
+     * @param id
+     * @return the host hash of the node or null if the id is not used
+     */
+    public synchronized String hash(final int id) {
+        return this.hashes[id];
+    }
+
+    /**
+     * @param id
+     * @return the host name of the node or null if the host is known only as a link target
+     */
+    public synchronized String name(final int id) {
+        return this.names[id];
+    }
+
+    /**
+     * @param id
+     * @return the date of the latest change of the outgoing links as yyyyMMdd number
+     */
+    public synchronized int date(final int id) {
+        return this.dates[id];
+    }
+
+    /**
+     * @param id
+     * @return true if the node was changed since the last call of {@link #joinLatest()}
+     */
+    public synchronized boolean isLatest(final int id) {
+        return this.latest[id];
+    }
+
+    /**
+     * @param hosthash
+     * @return true if the host is in the graph with a host name
+     */
+    public synchronized boolean exists(final String hosthash) {
+        final int id = id(hosthash);
+        return id >= 0 && this.names[id] != null;
+    }
+
+    /**
+     * @param hosthash
+     * @return the host name or null if the host is not in the graph with a host name
+     */
+    public synchronized String hostName(final String hosthash) {
+        final int id = id(hosthash);
+        return id < 0 ? null : this.names[id];
+    }
+
+    /**
+     * get or create the node of a host
+     * @param hosthash
+     * @param hostname the host name or null if the host is only a link target
+     * @param date the date for a new node or a node which gets its host name now
+     * @param touch if true the date of an existing node is set to the given date and the node is marked as latest change
+     * @return the id of the node
+     */
+    public synchronized int node(final String hosthash, final String hostname, final int date, final boolean touch) {
+        int id = id(hosthash);
+        if (id < 0) {
+            id = this.freeCount > 0 ? this.free[--this.freeCount] : this.nodes++;
+            if (id >= this.hashes.length) grow();
+            this.hashes[id] = hosthash;
+            this.names[id] = hostname;
+            this.dates[id] = date;
+            this.latest[id] = hostname != null;
+            this.outDegree[id] = 0;
+            this.inDegree[id] = 0;
+            this.ids.put(hosthash, id);
+            if (hostname != null) this.hosts++;
+            return id;
+        }
+        if (this.names[id] == null && hostname != null) {
+            this.names[id] = hostname;
+            this.dates[id] = date;
+            this.latest[id] = true;
+            this.hosts++;
+        }
+        if (touch) {
+            this.dates[id] = date;
+            this.latest[id] = true;
+        }
+        return id;
+    }
+
+    /**
+     * add links from one host to another host
+     * @param source the node id of the linking host
+     * @param target the node id of the linked host
+     * @param count the number of links to add
+     */
+    public synchronized void addReference(final int source, final int target, final int count) {
+        final int[] targets = this.outTarget[source];
+        final int degree = this.outDegree[source];
+        for (int p = 0; p < degree; p++) {
+            if (targets[p] == target) {
+                final long c = (long) this.outCount[source][p] + count;
+                this.outCount[source][p] = c > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) c;
+                return;
+            }
+        }
+        // a new link
+        if (targets == null || degree == targets.length) {
+            final int n = targets == null ? INITIAL_DEGREE : degree * 2;
+            this.outTarget[source] = targets == null ? new int[n] : Arrays.copyOf(targets, n);
+            this.outCount[source] = targets == null ? new int[n] : Arrays.copyOf(this.outCount[source], n);
+        }
+        this.outTarget[source][degree] = target;
+        this.outCount[source][degree] = count;
+        this.outDegree[source] = degree + 1;
+        final int[] sources = this.inSource[target];
+        final int indegree = this.inDegree[target];
+        if (sources == null || indegree == sources.length) {
+            final int n = sources == null ? INITIAL_DEGREE : indegree * 2;
+            this.inSource[target] = sources == null ? new int[n] : Arrays.copyOf(sources, n);
+            this.inPos[target] = sources == null ? new int[n] : Arrays.copyOf(this.inPos[target], n);
+        }
+        this.inSource[target][indegree] = source;
+        this.inPos[target][indegree] = degree;
+        this.inDegree[target] = indegree + 1;
+        this.edges++;
+    }
+
+    /**
+     * limit the number of linked hosts of a host: if there are more than max linked hosts, the links
+     * with the smallest counts are removed until only shrinkTo linked hosts are left
+     * @param source the node id of the linking host
+     * @param max
+     * @param shrinkTo
+     */
+    public synchronized void limit(final int source, final int max, final int shrinkTo) {
+        if (this.outDegree[source] <= max) return;
+        while (this.outDegree[source] > shrinkTo) {
+            final int[] counts = this.outCount[source];
+            int min = 0;
+            for (int p = 1; p < this.outDegree[source]; p++) {
+                if (counts[p] < counts[min]) min = p;
+                if (counts[min] == 1) break;
+            }
+            removeReference(source, min);
+        }
+    }
+
+    /**
+     * @param id
+     * @return the number of hosts linked by this host
+     */
+    public synchronized int outDegree(final int id) {
+        return this.outDegree[id];
+    }
+
+    /**
+     * @param id
+     * @param p the position of the link, 0 &lt;= p &lt; outDegree(id)
+     * @return the node id of the linked host
+     */
+    public synchronized int outTarget(final int id, final int p) {
+        return this.outTarget[id][p];
+    }
+
+    /**
+     * @param id
+     * @param p the position of the link, 0 &lt;= p &lt; outDegree(id)
+     * @return the number of links to the linked host
+     */
+    public synchronized int outCount(final int id, final int p) {
+        return this.outCount[id][p];
+    }
+
+    /**
+     * @param id
+     * @return the number of hosts linking to this host
+     */
+    public synchronized int inDegree(final int id) {
+        return this.inDegree[id];
+    }
+
+    /**
+     * @param id
+     * @param q the position of the link, 0 &lt;= q &lt; inDegree(id)
+     * @return the node id of the linking host
+     */
+    public synchronized int inSource(final int id, final int q) {
+        return this.inSource[id][q];
+    }
+
+    /**
+     * @param id
+     * @param q the position of the link, 0 &lt;= q &lt; inDegree(id)
+     * @return the number of links from the linking host
+     */
+    public synchronized int inCount(final int id, final int q) {
+        return this.outCount[this.inSource[id][q]][this.inPos[id][q]];
+    }
+
+    /**
+     * @param hosthash
+     * @return a map from the linked host hashes to the link counts or null if the host is not in the graph with a host name
+     */
+    public synchronized Map<String, Integer> outgoing(final String hosthash) {
+        final int id = id(hosthash);
+        if (id < 0 || this.names[id] == null) return null;
+        final Map<String, Integer> map = new HashMap<String, Integer>();
+        for (int p = 0; p < this.outDegree[id]; p++) {
+            map.put(this.hashes[this.outTarget[id][p]], this.outCount[id][p]);
+        }
+        return map;
+    }
+
+    /**
+     * @param hosthash
+     * @return a map from the linking host hashes to the link counts or null if the host is not in the graph with a host name
+     */
+    public synchronized Map<String, Integer> incoming(final String hosthash) {
+        final int id = id(hosthash);
+        if (id < 0 || this.names[id] == null) return null;
+        final Map<String, Integer> map = new HashMap<String, Integer>();
+        for (int q = 0; q < this.inDegree[id]; q++) {
+            map.put(this.hashes[this.inSource[id][q]], inCount(id, q));
+        }
+        return map;
+    }
+
+    /**
+     * @param hostname
+     * @return the hashes of all hosts with the given host name, compared case-insensitive
+     */
+    public synchronized Set<String> hostHashes(final String hostname) {
+        final Set<String> set = new HashSet<String>();
+        for (int id = 0; id < this.nodes; id++) {
+            if (this.names[id] != null && this.names[id].equalsIgnoreCase(hostname)) set.add(this.hashes[id]);
+        }
+        return set;
+    }
+
+    /**
+     * remove the latest change marks of all nodes
+     */
+    public synchronized void joinLatest() {
+        Arrays.fill(this.latest, false);
+    }
+
+    /**
+     * remove the hosts with the oldest dates if there are more than max hosts, until shrinkTo hosts are left.
+     * The links from removed hosts are removed, links to removed hosts are kept.
+     * @param max
+     * @param shrinkTo
+     */
+    public synchronized void trim(final int max, final int shrinkTo) {
+        if (this.hosts <= max) return;
+        final long[] order = new long[this.hosts];
+        int c = 0;
+        for (int id = 0; id < this.nodes; id++) {
+            if (this.names[id] != null) order[c++] = ((long) this.dates[id] << 32) | id;
+        }
+        Arrays.sort(order, 0, c);
+        for (int i = 0; i < c && this.hosts > shrinkTo; i++) {
+            final int id = (int) order[i];
+            while (this.outDegree[id] > 0) removeReference(id, this.outDegree[id] - 1);
+            this.names[id] = null;
+            this.latest[id] = false;
+            this.hosts--;
+            if (this.inDegree[id] == 0) release(id);
+        }
+    }
+
+    /**
+     * write the graph to a file
+     * @param file
+     * @throws IOException
+     */
+    public synchronized void save(final File file) throws IOException {
+        // nodes are written in the order of their ids; links refer to the position of the target in the file
+        final int[] ordinal = new int[this.nodes];
+        int count = 0;
+        for (int id = 0; id < this.nodes; id++) {
+            ordinal[id] = this.hashes[id] == null ? -1 : count++;
+        }
+        final File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(count);
+            for (int id = 0; id < this.nodes; id++) {
+                if (this.hashes[id] == null) continue;
+                out.writeUTF(this.hashes[id]);
+                out.writeUTF(this.names[id] == null ? "" : this.names[id]);
+                out.writeInt(this.dates[id]);
+            }
+            for (int id = 0; id < this.nodes; id++) {
+                if (this.hashes[id] == null) continue;
+                out.writeInt(this.outDegree[id]);
+                for (int p = 0; p < this.outDegree[id]; p++) {
+                    out.writeInt(ordinal[this.outTarget[id][p]]);
+                    out.writeInt(this.outCount[id][p]);
+                }
+            }
+        } finally {
+            out.close();
+        }
+        if (file.exists()) file.delete();
+        if (!tmp.renameTo(file)) throw new IOException("cannot rename " + tmp + " to " + file);
+    }
+
+    /**
+     * @param file
+     * @return true if the file was written with {@link #save(File)}
+     */
+    public static boolean isGraphFile(final File file) {
+        if (!file.exists() || file.length() < 8) return false;
+        try {
+            final DataInputStream in = new DataInputStream(new FileInputStream(file));
+            try {
+                return in.readInt() == MAGIC;
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * replace the content of the graph with a file which was written with {@link #save(File)}
+     * @param file
+     * @throws IOException if the file cannot be read; the graph is empty then
+     */
+    public synchronized void load(final File file) throws IOException {
+        final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+        try {
+            if (in.readInt() != MAGIC) throw new IOException("wrong file format: " + file);
+            final int count = in.readInt();
+            int capacity = INITIAL_NODES;
+            while (capacity < count) capacity <<= 1;
+            init(capacity);
+            for (int id = 0; id < count; id++) {
+                final String hash = in.readUTF();
+                final String name = in.readUTF();
+                node(hash, name.isEmpty() ? null : name, in.readInt(), false);
+            }
+            for (int id = 0; id < count; id++) {
+                final int degree = in.readInt();
+                for (int p = 0; p < degree; p++) {
+                    final int target = in.readInt();
+                    final int c = in.readInt();
+                    if (target >= 0 && target < count) addReference(id, target, c);
+                }
+            }
+            joinLatest();
+        } catch (final IOException e) {
+            init(INITIAL_NODES);
+            throw e;
+        } finally {
+            in.close();
+        }
+    }
+
+    private void removeReference(final int source, final int p) {
+        final int target = this.outTarget[source][p];
+        // remove the reverse link, the last reverse link of the target takes its place
+        int q = 0;
+        while (this.inSource[target][q] != source || this.inPos[target][q] != p) q++;
+        final int lastIn = --this.inDegree[target];
+        this.inSource[target][q] = this.inSource[target][lastIn];
+        this.inPos[target][q] = this.inPos[target][lastIn];
+        // remove the forward link, the last link of the source takes its place
+        final int last = --this.outDegree[source];
+        if (p != last) {
+            final int moved = this.outTarget[source][last];
+            this.outTarget[source][p] = moved;
+            this.outCount[source][p] = this.outCount[source][last];
+            int r = 0;
+            while (this.inSource[moved][r] != source || this.inPos[moved][r] != last) r++;
+            this.inPos[moved][r] = p;
+        }
+        this.edges--;
+        if (this.names[target] == null && this.inDegree[target] == 0 && this.outDegree[target] == 0) release(target);
+    }
+
+    private void release(final int id) {
+        this.ids.remove(this.hashes[id]);
+        this.hashes[id] = null;
+        this.names[id] = null;
+        this.outTarget[id] = null;
+        this.outCount[id] = null;
+        this.inSource[id] = null;
+        this.inPos[id] = null;
+        this.outDegree[id] = 0;
+        this.inDegree[id] = 0;
+        this.latest[id] = false;
+        if (this.freeCount == this.free.length) this.free = Arrays.copyOf(this.free, this.freeCount * 2);
+        this.free[this.freeCount++] = id;
+    }
+
+    private void grow() {
+        final int n = this.hashes.length * 2;
+        this.hashes = Arrays.copyOf(this.hashes, n);
+        this.names = Arrays.copyOf(this.names, n);
+        this.dates = Arrays.copyOf(this.dates, n);
+        this.latest = Arrays.copyOf(this.latest, n);
+        this.outTarget = Arrays.copyOf(this.outTarget, n);
+        this.outCount = Arrays.copyOf(this.outCount, n);
+        this.outDegree = Arrays.copyOf(this.outDegree, n);
+        this.inSource = Arrays.copyOf(this.inSource, n);
+        this.inPos = Arrays.copyOf(this.inPos, n);
+        this.inDegree = Arrays.copyOf(this.inDegree, n);
+    }
+}
@@ -28,6 +28,7 @@
 package net.yacy.peers.graphics;
 
 import java.io.File;
+import java.io.IOException;
 import java.io.Serializable;
 import java.text.ParseException;
 import java.util.Collection;
@@ -36,9 +37,7 @@ import java.util.HashSet;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
-import java.util.SortedMap;
 import java.util.TreeMap;
-import java.util.TreeSet;
 import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.LinkedBlockingQueue;
 
@@ -67,6 +66,8 @@ import net.yacy.search.Switchboard;
 
 /**
  * Holds lists of links per host names to allow reconstructing a web graph structure of links.
+ * The links are stored in a {@link HostLinkGraph}, which answers outgoing and incoming references of a host
+ * without decoding or scanning the whole structure.
  */
 public class WebStructureGraph {
 
@@ -85,18 +86,10 @@ public class WebStructureGraph {
     private final File structureFile;
     
     /** 
-     * <p>Older structure entries (notably loaded from the backup file).</p>
-     * <p>Maps from two parts concatenated string keys to byte array encoded references lists : 
-     * "'b64hash(6)','hostname" to 'date-yyyymmdd(8)'{'target-b64hash(6)''target-count-hex(4)'}*</p> 
+     * <p>The host link graph. Hosts changed since the last {@link #joinOldNew()} are the latest entries,
+     * all other hosts are the elder entries (notably loaded from the backup file).</p>
      * */
-    private final TreeMap<String, byte[]> structure_old;
-    
-    /** 
-     * <p>Recently computed structure entries</p>
-     * <p>Maps from two parts concatenated string keys to byte array encoded references lists : 
-     * "'b64hash(6)','hostname" to 'date-yyyymmdd(8)'{'target-b64hash(6)''target-count-hex(4)'}*</p> 
-     *  */
-    private final TreeMap<String, byte[]> structure_new;
+    private final HostLinkGraph graph;
     
     /** Queue used to receive new entries to store */
     private final BlockingQueue<LearnObject> publicRefDNSResolvingQueue;
@@ -131,50 +124,56 @@ public class WebStructureGraph {
 	 *            backup file
 	 */
     public WebStructureGraph(final File structureFile) {
-        this.structure_old = new TreeMap<String, byte[]>();
-        this.structure_new = new TreeMap<String, byte[]>();
+        this.graph = new HostLinkGraph();
         this.structureFile = structureFile;
         this.publicRefDNSResolvingQueue = new LinkedBlockingQueue<LearnObject>();
 
         // load web structure from file if exists
-        Map<String, byte[]> loadedStructureB;
-        try {
-        	if(this.structureFile != null && this.structureFile.exists()) {
-        		loadedStructureB = FileUtils.loadMapB(this.structureFile);
-                log.info("loaded dump of " + loadedStructureB.size() + " entries from " + this.structureFile.toString());
-        	} else {
-        		loadedStructureB = new TreeMap<String, byte[]>();
-        	}
-        } catch (final OutOfMemoryError e ) {
-            loadedStructureB = new TreeMap<String, byte[]>();
-        }
-        this.structure_old.putAll(loadedStructureB);
-        
-        // delete out-dated entries in case the structure is too big
-        if ( this.structure_old.size() > maxhosts ) {
-            // fill a set with last-modified - dates of the structure
-            final TreeSet<String> delset = new TreeSet<String>();
-            String key;
-            byte[] value;
-            for ( final Map.Entry<String, byte[]> entry : this.structure_old.entrySet() ) {
-                key = entry.getKey();
-                value = entry.getValue();
-                if ( value != null && value.length >= 8 ) {
-                    delset.add(UTF8.String(value).substring(0, 8) + key);
+        if (this.structureFile != null && this.structureFile.exists()) {
+            try {
+                if (HostLinkGraph.isGraphFile(this.structureFile)) {
+                    this.graph.load(this.structureFile);
+                } else {
+                    // the file was written by an older version as a map of reference strings
+                    final Map<String, byte[]> loadedStructureB = FileUtils.loadMapB(this.structureFile);
+                    if (loadedStructureB != null) loadReferenceStrings(loadedStructureB);
                 }
-            }
-            int delcount = this.structure_old.size() - (maxhosts * 9 / 10);
-            final Iterator<String> j = delset.iterator();
-            while ( (delcount > 0) && (j.hasNext()) ) {
-                this.structure_old.remove(j.next().substring(8));
-                delcount--;
+                log.info("loaded dump of " + this.graph.size() + " hosts with " + this.graph.edges() + " links from " + this.structureFile.toString());
+            } catch (final IOException e) {
+                log.warn("cannot load web structure from " + this.structureFile.toString() + ": " + e.getMessage());
+                this.graph.clear();
+            } catch (final OutOfMemoryError e) {
+                this.graph.clear();
             }
         }
 
+        // delete out-dated entries in case the structure is too big
+        this.graph.trim(maxhosts, maxhosts * 9 / 10);
+
         this.publicRefDNSResolvingWorker = new PublicRefDNSResolvingProcess();
         this.publicRefDNSResolvingWorker.start();
     }
 
+    /**
+     * Fill the graph with entries of the former file format
+     * @param structure maps from "'b64hash(6)','hostname" to 'date-yyyymmdd(8)'{'target-b64hash(6)''target-count-hex(4)'}*
+     */
+    private void loadReferenceStrings(final Map<String, byte[]> structure) {
+        synchronized (this.graph) {
+            for (final Map.Entry<String, byte[]> entry : structure.entrySet()) {
+                final String key = entry.getKey();
+                final String refs = UTF8.String(entry.getValue());
+                if (key.length() < 8 || refs.length() < 8 || (refs.length() - 8) % 10 != 0) continue;
+                final int date = parseDate(refs.substring(0, 8));
+                final int source = this.graph.node(key.substring(0, 6), key.substring(7), date, true);
+                for (final Map.Entry<String, Integer> ref : refstr2map(refs).entrySet()) {
+                    this.graph.addReference(source, this.graph.node(ref.getKey(), null, date, false), ref.getValue().intValue());
+                }
+            }
+            this.graph.joinLatest();
+        }
+    }
+
     /**
      * Task consuming the queue of new entries to compute and add to the structure
      */
@@ -199,8 +198,7 @@ public class WebStructureGraph {
      * Clear the complete web structure.
      */
     public void clear() {
-        this.structure_old.clear();
-        this.structure_new.clear();
+        this.graph.clear();
     }
     
     public void generateCitationReference(final DigestURL url, final Document document) {
@@ -286,39 +284,22 @@ public class WebStructureGraph {
     }
 
     /**
-     * @return an empty references map serialized to a string
+     * @return the current date as yyyyMMdd number
      */
-    private static String none2refstr() {
-        return GenericFormatter.SHORT_DAY_FORMATTER.format();
+    private static int today() {
+        return parseDate(GenericFormatter.SHORT_DAY_FORMATTER.format());
     }
-    
+
     /**
-     * @param map references mapping from host hashes to counts
-     * @return the map serialized as a string
+     * @param date a date formatted with {@link GenericFormatter#PATTERN_SHORT_DAY}
+     * @return the date as yyyyMMdd number, the current date if the date cannot be parsed
      */
-    private static String map2refstr(final Map<String, Integer> map) {
-        final StringBuilder s = new StringBuilder(GenericFormatter.PATTERN_SHORT_DAY.length() + map.size() * 10);
-        s.append(GenericFormatter.SHORT_DAY_FORMATTER.format());
-        String h;
-        for ( final Map.Entry<String, Integer> entry : map.entrySet() ) {
-            s.append(entry.getKey());
-            h = Integer.toHexString(entry.getValue().intValue());
-            final int hl = h.length();
-            if ( hl == 0 ) {
-                s.append("0000");
-            } else if ( hl == 1 ) {
-                s.append("000").append(h);
-            } else if ( hl == 2 ) {
-                s.append("00").append(h);
-            } else if ( hl == 3 ) {
-                s.append('0').append(h);
-            } else if ( hl == 4 ) {
-                s.append(h);
-            } else {
-                s.append("FFFF");
-            }
+    private static int parseDate(final String date) {
+        try {
+            return Integer.parseInt(date);
+        } catch (final NumberFormatException e) {
+            return today();
         }
-        return s.toString();
     }
 
     /**
@@ -326,28 +307,8 @@ public class WebStructureGraph {
      * @return true when this host hash is present in this web structure (either in latest or elder known entries)
      */
     public boolean exists(final String hosthash) {
-        // returns a map with a hosthash(String):refcount(Integer) relation
         assert hosthash.length() == 6;
-        SortedMap<String, byte[]> tailMap;
-        synchronized ( this.structure_old ) {
-            tailMap = this.structure_old.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    return true;
-                }
-            }
-        }
-        synchronized ( this.structure_new ) {
-            tailMap = this.structure_new.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    return true;
-                }
-            }
-        }
-        return false;
+        return this.graph.exists(hosthash);
     }
     
     /**
@@ -358,41 +319,12 @@ public class WebStructureGraph {
     public StructureEntry outgoingReferences(final String hosthash) {
         // returns a map with a hosthash(String):refcount(Integer) relation
         assert hosthash.length() == 6;
-        SortedMap<String, byte[]> tailMap;
-        Map<String, Integer> h = new HashMap<String, Integer>();
-        String hostname = "";
-        String date = "";
-        String ref;
-        synchronized ( this.structure_old ) {
-            tailMap = this.structure_old.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    hostname = key.substring(7);
-                    ref = ASCII.String(tailMap.get(key));
-                    date = ref.substring(0, 8);
-                    h = refstr2map(ref);
-                }
-            }
-        }
-        synchronized ( this.structure_new ) {
-            tailMap = this.structure_new.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    ref = ASCII.String(tailMap.get(key));
-                    if ( hostname.isEmpty() ) {
-                        hostname = key.substring(7);
-                    }
-                    if ( date.isEmpty() ) {
-                        date = ref.substring(0, 8);
-                    }
-                    h.putAll(refstr2map(ref));
-                }
-            }
+        synchronized ( this.graph ) {
+            final Map<String, Integer> h = this.graph.outgoing(hosthash);
+            if (h == null || h.isEmpty()) return null;
+            final int id = this.graph.id(hosthash);
+            return new StructureEntry(hosthash, this.graph.name(id), Integer.toString(this.graph.date(id)), h);
         }
-        if (h.isEmpty()) return null;
-        return new StructureEntry(hosthash, hostname, date, h);
     }
     
     /**
@@ -432,26 +364,14 @@ public class WebStructureGraph {
      * @return incoming structure with references mapped from source host hashes to counts or null when the target is not known
      */
     public StructureEntry incomingReferences(final String hosthash) {
-        final String hostname = hostHash2hostName(hosthash);
-        if ( hostname == null ) {
-            return null;
-        }
-        // collect the references
-        WebStructureGraph.StructureEntry sentry;
-        final HashMap<String, Integer> hosthashes = new HashMap<String, Integer>();
-        Iterator<WebStructureGraph.StructureEntry> i = new StructureIterator(false);
-        while ( i.hasNext() ) {
-            sentry = i.next();
-            if ( sentry.references.containsKey(hosthash) ) {
-                hosthashes.put(sentry.hosthash, sentry.references.get(hosthash));
-            }
-        }
-        i = new StructureIterator(true);
-        while ( i.hasNext() ) {
-            sentry = i.next();
-            if ( sentry.references.containsKey(hosthash) ) {
-                hosthashes.put(sentry.hosthash, sentry.references.get(hosthash));
+        final Map<String, Integer> hosthashes;
+        final String hostname;
+        synchronized ( this.graph ) {
+            hostname = this.graph.hostName(hosthash);
+            if ( hostname == null ) {
+                return null;
             }
+            hosthashes = this.graph.incoming(hosthash);
         }
         // construct a new structureEntry Object
         return new StructureEntry(
@@ -461,6 +381,7 @@ public class WebStructureGraph {
             hosthashes);
     }
 
+
     public static class HostReferenceFactory implements ReferenceFactory<HostReference>, Serializable {
 
         private static final long serialVersionUID=7461135579006223155L;
@@ -580,61 +501,48 @@ public class WebStructureGraph {
         final ReferenceContainerCache<HostReference> idx =
             new ReferenceContainerCache<HostReference>(hostReferenceFactory, Base64Order.enhancedCoder, 6);
 
-        // we iterate over all structure entries.
-        // one structure entry has information that a specific host links to a list of other hosts
-        incomingReferencesEnrich(idx, new StructureIterator(false), 3000);
-        incomingReferencesEnrich(idx, new StructureIterator(true), 3000);
-
-        // fill the cache again and set fill time
-        hostReferenceIndexCache = idx;
-        hostReferenceIndexCacheTime = System.currentTimeMillis();
-        //incomingReferencesTest(hostReferenceIndexCache);
-        return hostReferenceIndexCache;
-    }
-
-    private void incomingReferencesEnrich(
-        final ReferenceContainerCache<HostReference> idx,
-        final Iterator<WebStructureGraph.StructureEntry> structureIterator,
-        final long time) {
-        // we iterate over all structure entries.
-        // one structure entry has information that a specific host links to a list of other hosts
-        final long timeout = time == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + time;
-        byte[] term;
-        HostReference hr;
-        WebStructureGraph.StructureEntry sentry;
-        structureLoop: while ( structureIterator.hasNext() ) {
-            sentry = structureIterator.next();
-            // then we loop over all the hosts that are linked from sentry.hosthash
-            refloop: for ( final Map.Entry<String, Integer> refhosthashandcounter : sentry.references
-                .entrySet() ) {
-                term = UTF8.getBytes(refhosthashandcounter.getKey());
+        // one container per linked host, filled from the reverse links of the graph
+        synchronized ( this.graph ) {
+            final int capacity = this.graph.capacity();
+            final long[] modified = new long[capacity];
+            for ( int id = 0; id < capacity; id++ ) {
+                modified[id] = -1;
+                if ( this.graph.name(id) == null || this.graph.outDegree(id) == 0 ) {
+                    continue;
+                }
                 try {
-                    hr =
-                        new HostReference(
-                            ASCII.getBytes(sentry.hosthash),
-                            GenericFormatter.SHORT_DAY_FORMATTER.parse(sentry.date, 0).getTime().getTime(),
-                            refhosthashandcounter.getValue().intValue());
+                    modified[id] = GenericFormatter.SHORT_DAY_FORMATTER.parse(Integer.toString(this.graph.date(id)), 0).getTime().getTime();
                 } catch (final ParseException e ) {
-                    continue refloop;
                 }
-                // each term refers to an index entry. look if we already have such an entry
-                ReferenceContainer<HostReference> r = idx.get(term, null);
+            }
+            targetLoop: for ( int target = 0; target < capacity; target++ ) {
+                final int indegree = this.graph.inDegree(target);
+                if ( this.graph.hash(target) == null || indegree == 0 ) {
+                    continue targetLoop;
+                }
                 try {
-                    if ( r == null ) {
-                        r = new ReferenceContainer<HostReference>(hostReferenceFactory, term);
-                        r.add(hr);
+                    final ReferenceContainer<HostReference> r =
+                        new ReferenceContainer<HostReference>(hostReferenceFactory, ASCII.getBytes(this.graph.hash(target)), indegree);
+                    for ( int q = 0; q < indegree; q++ ) {
+                        final int source = this.graph.inSource(target, q);
+                        if ( modified[source] < 0 ) {
+                            continue;
+                        }
+                        r.add(new HostReference(ASCII.getBytes(this.graph.hash(source)), modified[source], this.graph.inCount(target, q)));
+                    }
+                    if ( !r.isEmpty() ) {
                         idx.add(r);
-                    } else {
-                        r.put(hr);
                     }
                 } catch (final SpaceExceededException e ) {
-                    continue refloop;
+                    continue targetLoop;
                 }
             }
-            if ( System.currentTimeMillis() > timeout ) {
-                break structureLoop;
-            }
         }
+
+        // fill the cache again and set fill time
+        hostReferenceIndexCache = idx;
+        hostReferenceIndexCacheTime = System.currentTimeMillis();
+        return hostReferenceIndexCache;
     }
 
     /**
@@ -645,31 +553,10 @@ public class WebStructureGraph {
     public int referencesCount(final String hosthash) {
         assert hosthash.length() == 6 : "hosthash = " + hosthash;
         if (hosthash == null || hosthash.length() != 6) return 0;
-        SortedMap<String, byte[]> tailMap;
-        int c = 0;
-        try {
-        synchronized ( this.structure_old ) {
-            tailMap = this.structure_old.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    c = refstr2count(UTF8.String(tailMap.get(key)));
-                }
-            }
+        synchronized ( this.graph ) {
+            final int id = this.graph.id(hosthash);
+            return id < 0 ? 0 : this.graph.outDegree(id);
         }
-        synchronized ( this.structure_new ) {
-            tailMap = this.structure_new.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    c += refstr2count(UTF8.String(tailMap.get(key)));
-                }
-            }
-        }
-        } catch (final Throwable t) {
-            this.clear();
-        }
-        return c;
     }
 
     /**
@@ -679,26 +566,7 @@ public class WebStructureGraph {
     public String hostHash2hostName(final String hosthash) {
         // returns the host as string, null if unknown
         assert hosthash.length() == 6;
-        SortedMap<String, byte[]> tailMap;
-        synchronized ( this.structure_old ) {
-            tailMap = this.structure_old.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    return key.substring(7);
-                }
-            }
-        }
-        synchronized ( this.structure_new ) {
-            tailMap = this.structure_new.tailMap(hosthash);
-            if ( !tailMap.isEmpty() ) {
-                final String key = tailMap.firstKey();
-                if ( key.startsWith(hosthash) ) {
-                    return key.substring(7);
-                }
-            }
-        }
-        return null;
+        return this.graph.hostName(hosthash);
     }
     
 	/**
@@ -713,114 +581,35 @@ public class WebStructureGraph {
 	 *         the host name is not known
 	 */
 	public Set<String> hostName2HostHashes(final String hostName) {
-		Set<String> hashes = new HashSet<>();
-		synchronized (this.structure_old) {
-			String keyHostName, hash;
-			for (String key : structure_old.keySet()) {
-				hash = key.substring(0, 6);
-				keyHostName = key.substring(7);
-				if (keyHostName.equalsIgnoreCase(hostName)) {
-					hashes.add(hash);
-				}
-			}
-		}
-		synchronized (this.structure_new) {
-			String keyHostName, hash;
-			for (String key : structure_new.keySet()) {
-				hash = key.substring(0, 6);
-				keyHostName = key.substring(7);
-				if (keyHostName.equalsIgnoreCase(hostName)) {
-					hashes.add(hash);
-				}
-			}
-		}
-		return hashes;
+		return this.graph.hostHashes(hostName);
 	}
 
 
     protected void learnrefs(final LearnObject lro) {
         final DigestURL url = lro.url;
         final String sourceHosthash = url.hosthash();
+        final int today = today();
 
-        // parse the new reference string and join it with the stored references
-        final StructureEntry structure = outgoingReferences(sourceHosthash);
-        final Map<String, Integer> refs = (structure == null) ? new HashMap<String, Integer>() : structure.references;
-        int c;
-        for (final DigestURL u : lro.globalRefURLs) {
-        	String domain = u.hosthash();
-        	if (Switchboard.getSwitchboard() != null && Switchboard.getSwitchboard().shallTerminate()) break;
-            if (!exists(domain)) {
-                // this must be recorded as an host with no references
-                synchronized ( this.structure_new ) {
-                    this.structure_new.put(domain + "," + u.getHost(), UTF8.getBytes(none2refstr()));
-                }
-            }
-            c = 0;
-            Integer existingCount = refs.get(domain);
-            if ( existingCount != null) {
-                c = existingCount.intValue();
-            }
-            refs.put(domain, Integer.valueOf(++c));
-        }
-
-        // check if the maxref is exceeded
-        if ( refs.size() > maxref ) {
-            int shrink = refs.size() - (maxref * 9 / 10);
-            delloop: while ( shrink > 0 ) {
-                // shrink the references: the entry with the smallest number of references is removed
-                int minrefcount = Integer.MAX_VALUE;
-                String minrefkey = null;
-                findloop: for ( final Map.Entry<String, Integer> entry : refs.entrySet() ) {
-                    if ( entry.getValue().intValue() < minrefcount ) {
-                        minrefcount = entry.getValue().intValue();
-                        minrefkey = entry.getKey();
-                    }
-                    if ( minrefcount == 1 ) {
-                        break findloop;
-                    }
-                }
-                // remove the smallest
-                if ( minrefkey == null ) {
-                    break delloop;
-                }
-                refs.remove(minrefkey);
-                shrink--;
+        // add the new references to the stored references of the source host
+        synchronized ( this.graph ) {
+            final int source = this.graph.node(sourceHosthash, url.getHost(), today, true);
+            for (final DigestURL u : lro.globalRefURLs) {
+                if (Switchboard.getSwitchboard() != null && Switchboard.getSwitchboard().shallTerminate()) break;
+                // a host which is not known yet is recorded as an host with no references
+                final int target = this.graph.node(u.hosthash(), u.getHost(), today, false);
+                this.graph.addReference(source, target, 1);
             }
-        }
-
-        // store the map back to the structure
-        synchronized ( this.structure_new ) {
-            this.structure_new.put(sourceHosthash + "," + url.getHost(), UTF8.getBytes(map2refstr(refs)));
-        }
-    }
 
-    private static void joinStructure(final TreeMap<String, byte[]> into, final TreeMap<String, byte[]> from) {
-        for ( final Map.Entry<String, byte[]> e : from.entrySet() ) {
-            if ( into.containsKey(e.getKey()) ) {
-                final Map<String, Integer> s0 = refstr2map(UTF8.String(into.get(e.getKey())));
-                final Map<String, Integer> s1 = refstr2map(UTF8.String(e.getValue()));
-                for ( final Map.Entry<String, Integer> r : s1.entrySet() ) {
-                    if ( s0.containsKey(r.getKey()) ) {
-                        s0.put(r.getKey(), s0.get(r.getKey()).intValue() + r.getValue().intValue());
-                    } else {
-                        s0.put(r.getKey(), r.getValue().intValue());
-                    }
-                }
-                into.put(e.getKey(), UTF8.getBytes(map2refstr(s0)));
-            } else {
-                into.put(e.getKey(), e.getValue());
-            }
+            // check if the maxref is exceeded: the entries with the smallest number of references are removed
+            this.graph.limit(source, maxref, maxref * 9 / 10);
         }
     }
 
     /**
-     * Feed the elder entries structure map with latest computed entries map and then clear this last one.
+     * Mark the latest computed entries as elder entries.
      */
     public void joinOldNew() {
-        synchronized ( this.structure_new ) {
-            joinStructure(this.structure_old, this.structure_new);
-            this.structure_new.clear();
-        }
+        this.graph.joinLatest();
     }
 
     /**
@@ -829,37 +618,23 @@ public class WebStructureGraph {
     public String hostWithMaxReferences() {
         // find host with most references
         Map<String, Integer> hostNamesToRefsNb = new TreeMap<>();
-        int refsize, maxref = 0;
+        int maxref = 0;
         String hostName, maxHostName = null;
         Integer refsNb;
-        synchronized ( this.structure_old ) {
-            for ( final Map.Entry<String, byte[]> entry : this.structure_old.entrySet() ) {
-                refsize = entry.getValue().length;
-                hostName = entry.getKey().substring(7);
-                refsNb = hostNamesToRefsNb.get(hostName);
-                if(refsNb == null) {
-                	refsNb = refsize;
-                } else {
-                	refsNb += refsize;
-                }
-                if ( refsNb > maxref ) {
-                    maxref = refsNb;
-                    maxHostName = hostName;
+        synchronized ( this.graph ) {
+            final int capacity = this.graph.capacity();
+            for ( int id = 0; id < capacity; id++ ) {
+                hostName = this.graph.name(id);
+                if ( hostName == null ) {
+                    continue;
                 }
-                hostNamesToRefsNb.put(hostName, refsNb);
-            }
-        }
-        synchronized ( this.structure_new ) {
-            for ( final Map.Entry<String, byte[]> entry : this.structure_new.entrySet() ) {
-                refsize = entry.getValue().length;
-                hostName = entry.getKey().substring(7);
                 refsNb = hostNamesToRefsNb.get(hostName);
                 if(refsNb == null) {
-                	refsNb = refsize;
+                	refsNb = this.graph.outDegree(id);
                 } else {
-                	refsNb += refsize;
+                	refsNb += this.graph.outDegree(id);
                 }
-                if ( refsNb > maxref ) {
+                if ( refsNb > maxref || maxHostName == null ) {
                     maxref = refsNb;
                     maxHostName = hostName;
                 }
@@ -871,14 +646,12 @@ public class WebStructureGraph {
     
     public ReversibleScoreMap<String> hostReferenceScore() {
         ReversibleScoreMap<String> result = new ClusteredScoreMap<String>(ASCII.identityASCIIComparator);
-        synchronized ( this.structure_old ) {
-            for ( final Map.Entry<String, byte[]> entry : this.structure_old.entrySet() ) {
-                result.set(entry.getKey().substring(7), (entry.getValue().length - 8) / 10);
-            }
-        }
-        synchronized ( this.structure_new ) {
-            for ( final Map.Entry<String, byte[]> entry : this.structure_new.entrySet() ) {
-                result.set(entry.getKey().substring(7), (entry.getValue().length - 8) / 10);
+        synchronized ( this.graph ) {
+            final int capacity = this.graph.capacity();
+            for ( int id = 0; id < capacity; id++ ) {
+                if ( this.graph.name(id) != null ) {
+                    result.set(this.graph.name(id), this.graph.outDegree(id));
+                }
             }
         }
         return result;
@@ -900,8 +673,11 @@ public class WebStructureGraph {
      */
     private class StructureIterator extends LookAheadIterator<StructureEntry> implements Iterator<StructureEntry> {
 
-    	/** Internal iterator instance */
-        private final Iterator<Map.Entry<String, byte[]>> i;
+    	/** iterate the latest or the elder entries */
+        private final boolean latest;
+
+        /** next host id to look at */
+        private int id;
 
         /**
          * @param latest <ul>
@@ -910,40 +686,28 @@ public class WebStructureGraph {
          * </ul>
          */
         private StructureIterator(final boolean latest) {
-            this.i = ((latest) ? WebStructureGraph.this.structure_new : WebStructureGraph.this.structure_old).entrySet().iterator();
+            this.latest = latest;
+            this.id = 0;
         }
 
         /**
-         * Iterate to the next structure entry, decoding on the fly the references information from the byte array
+         * Iterate to the next structure entry, collecting the references of the host from the graph
          */
         @Override
         public StructureEntry next0() {
-            Map.Entry<String, byte[]> entry = null;
-            String dom = null;
-            byte[] ref = null;
-            String refs;
-            while ( this.i.hasNext() ) {
-                entry = this.i.next();
-                ref = entry.getValue();
-                if ( (ref.length - 8) % 10 != 0 ) {
-                    continue;
-                }
-                dom = entry.getKey();
-                if ( dom.length() >= 8 ) {
-                    break;
+            final HostLinkGraph g = WebStructureGraph.this.graph;
+            synchronized ( g ) {
+                while ( this.id < g.capacity() ) {
+                    final int i = this.id++;
+                    final String hostname = g.name(i);
+                    if ( hostname == null || g.isLatest(i) != this.latest ) {
+                        continue;
+                    }
+                    final String hosthash = g.hash(i);
+                    return new StructureEntry(hosthash, hostname, Integer.toString(g.date(i)), g.outgoing(hosthash));
                 }
-                dom = null;
             }
-            if ( entry == null || dom == null ) {
-                return null;
-            }
-            assert (ref.length - 8) % 10 == 0 : "refs = " + ref + ", length = " + ref.length;
-            refs = UTF8.String(ref);
-            return new StructureEntry(
-                dom.substring(0, 6),
-                dom.substring(7),
-                refs.substring(0, 8),
-                refstr2map(refs));
+            return null;
         }
     }
 
@@ -1010,33 +774,26 @@ public class WebStructureGraph {
 
         // save to web structure file
         if(this.structureFile != null) {
-        	log.info("Saving Web Structure File: new = "
-        			+ this.structure_new.size()
-        			+ " entries, old = "
-        			+ this.structure_old.size()
-        			+ " entries");
         	final long time = System.currentTimeMillis();
         	joinOldNew();
-        	log.info("dumping " + structure_old.size() + " entries to " + structureFile.toString());
-        	if ( !this.structure_old.isEmpty() ) {
-        		synchronized ( this.structure_old ) {
-        			if ( !this.structure_old.isEmpty() ) {
-        				FileUtils
-                        	.saveMapB(
-                        			this.structureFile,
-                        			this.structure_old,
-                        			"Web Structure Syntax: <b64hash(6)>','<host> to <date-yyyymmdd(8)>{<target-b64hash(6)><target-count-hex(4)>}*");
+        	log.info("dumping " + this.graph.size() + " hosts with " + this.graph.edges() + " links to " + this.structureFile.toString());
+        	synchronized ( this.graph ) {
+        		if ( this.graph.size() > 0 ) {
+        			try {
+        				this.graph.save(this.structureFile);
         				final long t = Math.max(1, System.currentTimeMillis() - time);
         				log.info("Saved Web Structure File: "
-        						+ this.structure_old.size()
+        						+ this.graph.size()
         						+ " entries in "
         						+ t
         						+ " milliseconds, "
-        						+ (this.structure_old.size() * 1000 / t)
+        						+ (this.graph.size() * 1000 / t)
         						+ " entries/second");
+        			} catch (final IOException e) {
+        				ConcurrentLog.logException(e);
         			}
-        			this.structure_old.clear();
         		}
+        		this.graph.clear();
         	}
         }
     }
@@ -35,6 +35,7 @@ import java.io.ObjectOutputStream;
 import java.io.PrintWriter;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.ConcurrentModificationException;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -44,6 +45,7 @@ import java.util.Map.Entry;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
@@ -106,6 +108,8 @@ public class Blacklist {
     private final ConcurrentMap<BlacklistType, HandleSet> cachedUrlHashs;
     private final ConcurrentMap<BlacklistType, Map<String, Set<Pattern>>> hostpaths_matchable; // key=host, value=path; mapped url is http://host/path; path does not start with '/' here
     private final ConcurrentMap<BlacklistType, Map<String, Set<Pattern>>> hostpaths_notmatchable; // key=host, value=path; mapped url is http://host/path; path does not start with '/' here
+    private final ConcurrentMap<BlacklistType, BlacklistMatcher> matchers; // compiled form of the hostpaths maps, rebuilt after a modification
+    private final AtomicInteger modifications; // counts the modifications of the hostpaths maps
 
     public Blacklist(final File rootPath) {
 
@@ -115,6 +119,8 @@ public class Blacklist {
         this.hostpaths_matchable = new ConcurrentHashMap<BlacklistType, Map<String, Set<Pattern>>>();
         this.hostpaths_notmatchable = new ConcurrentHashMap<BlacklistType, Map<String, Set<Pattern>>>();
         this.cachedUrlHashs = new ConcurrentHashMap<BlacklistType, HandleSet>();
+        this.matchers = new ConcurrentHashMap<BlacklistType, BlacklistMatcher>();
+        this.modifications = new AtomicInteger(0);
 
         for (final BlacklistType blacklistType : BlacklistType.values()) {
             this.hostpaths_matchable.put(blacklistType, new ConcurrentHashMap<String, Set<Pattern>>());
@@ -173,6 +179,7 @@ public class Blacklist {
         for (final HandleSet entry : this.cachedUrlHashs.values()) {
             entry.clear();
         }
+        this.modifications.incrementAndGet();
     }
 
     public final int size() {
@@ -194,6 +201,10 @@ public class Blacklist {
         for (final BlacklistFile blf : blFiles) {
             loadList(blf, sep);
         }
+        // compile the lists now, not with the first url check
+        for (final BlacklistType blacklistType : BlacklistType.values()) {
+            matcher(blacklistType);
+        }
     }
 
     /**
@@ -256,6 +267,7 @@ public class Blacklist {
                 }
             }
         }
+        this.modifications.incrementAndGet();
     }
 
     public final void loadList(final BlacklistType blacklistType, final String fileNames, final String sep) {
@@ -279,6 +291,7 @@ public class Blacklist {
 
         final Map<String, Set<Pattern>> blacklistMapNotMatch = getBlacklistMap(blacklistType, false);
         removePatternFromMap(host, path, blacklistMapNotMatch);
+        this.modifications.incrementAndGet();
 
         //TODO: check if delete from blacklist is desired, on reload entry will not be available in any blacklist
         //      even if remove (above) from internal maps (at runtime) is only done for given blacklistType
@@ -412,6 +425,7 @@ public class Blacklist {
 					Pattern pattern = Pattern.compile(p, Pattern.CASE_INSENSITIVE);
 
 					hostList.add(pattern);
+					this.modifications.incrementAndGet();
 
 					// Append the line to the file.
 					final String newEntry = h + "/" + pattern;
@@ -491,6 +505,7 @@ public class Blacklist {
                 hostList.add(pattern);
             }
         }
+        this.modifications.incrementAndGet();
 
         // Append the line to the file.
         PrintWriter pw = null;
@@ -633,6 +648,9 @@ public class Blacklist {
             throw new IllegalArgumentException("path may not be null");
         }
 
+        final BlacklistMatcher matcher = matcher(blacklistType);
+        if (matcher != null) return matcher.isListed(hostlow, path);
+
         // getting the proper blacklists
         final Map<String, Set<Pattern>> blacklistMapMatched = getBlacklistMap(blacklistType, true);
         
@@ -641,6 +659,30 @@ public class Blacklist {
         return Blacklist.isListed(hostlow, path, blacklistMapMatched, blacklistMapNotMatched);
     }
 
+    /**
+     * get the compiled form of a blacklist; it is compiled again if the blacklist was modified since the last compilation
+     * @param blacklistType
+     * @return the matcher or null if the blacklist is modified concurrently while it is compiled
+     */
+    private BlacklistMatcher matcher(final BlacklistType blacklistType) {
+        final int version = this.modifications.get();
+        BlacklistMatcher matcher = this.matchers.get(blacklistType);
+        if (matcher != null && matcher.version() == version) return matcher;
+        synchronized (this.matchers) {
+            matcher = this.matchers.get(blacklistType);
+            if (matcher != null && matcher.version() == version) return matcher;
+            final long start = System.currentTimeMillis();
+            try {
+                matcher = new BlacklistMatcher(version, getBlacklistMap(blacklistType, true), getBlacklistMap(blacklistType, false));
+            } catch (final ConcurrentModificationException e) {
+                return null; // the next check compiles the modified list
+            }
+            this.matchers.put(blacklistType, matcher);
+            if (log.isFine()) log.fine("compiled blacklist " + blacklistType + " in " + (System.currentTimeMillis() - start) + " milliseconds");
+            return matcher;
+        }
+    }
+
     /**
      * Check if the URL made of the specified host and path is blacklisted. All parameters must not be null.
      * @param hostlow host part
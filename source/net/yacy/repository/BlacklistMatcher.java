@@ -0,0 +1,318 @@
+// BlacklistMatcher.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+/**
+ * An immutable, compiled form of the blacklist maps of one blacklist type. It gives the same answers as
+ * {@link Blacklist#isListed(String, String, Map, Map)} but does not scan the maps for each url:
+ * <ul>
+ * <li>host entries without regular expressions are stored in a trie of the host names and a trie of the
+ * reversed host names; a lookup walks over the characters of the host once and collects the path patterns
+ * of all entries for host prefixes ('www.example.*', 'www.example') and suffixes ('*.example.org', 'example.org')</li>
+ * <li>host entries with regular expressions are compiled once; a literal text which each matching host must
+ * contain is extracted from the expression and used to skip the expression without running the regular expression</li>
+ * <li>the path patterns of a host entry are combined into one alternative pattern, and the frequent
+ * pattern '.*' is answered without a regular expression</li>
+ * </ul>
+ * A matcher is created for a specific modification state of the blacklist and must be replaced when the blacklist changes.
+ */
+final class BlacklistMatcher {
+
+    private final int version;
+    private final Map<String, PathMatcher> exact;
+    private final Node prefixes, suffixes;
+    private final Pattern[] regexHosts;
+    private final String[] regexLiterals;
+    private final PathMatcher[] regexPaths;
+
+    /**
+     * compile the blacklist maps
+     * @param version the modification state of the blacklist which is compiled
+     * @param blacklistMapMatched blacklist patterns indexed by matchable hosts
+     * @param blacklistMapNotMatched blacklist patterns indexed by host regular expressions
+     */
+    BlacklistMatcher(final int version, final Map<String, Set<Pattern>> blacklistMapMatched, final Map<String, Set<Pattern>> blacklistMapNotMatched) {
+        this.version = version;
+        this.exact = new HashMap<String, PathMatcher>();
+        this.prefixes = new Node();
+        this.suffixes = new Node();
+        for (final Map.Entry<String, Set<Pattern>> entry: blacklistMapMatched.entrySet()) {
+            final String key = entry.getKey();
+            final PathMatcher paths = PathMatcher.of(entry.getValue());
+            if (paths == null) continue;
+            this.exact.put(key, paths);
+            if (!key.isEmpty() && key.charAt(key.length() - 1) == '*') {
+                // 'www.example.*': matches hosts which start with 'www.example.'
+                this.prefixes.add(key.substring(0, key.length() - 1), false).wildcard = paths;
+            } else if (!key.isEmpty() && key.charAt(0) == '*') {
+                // '*.example.org': matches hosts which end with '.example.org'
+                this.suffixes.add(key.substring(1), true).wildcard = paths;
+            } else {
+                // 'example.org': matches the host itself and hosts which start with 'example.org.' or end with '.example.org'
+                this.prefixes.add(key, false).label = paths;
+                this.suffixes.add(key, true).label = paths;
+            }
+        }
+
+        final List<Pattern> hosts = new ArrayList<Pattern>();
+        final List<String> literals = new ArrayList<String>();
+        final List<PathMatcher> paths = new ArrayList<PathMatcher>();
+        for (final Map.Entry<String, Set<Pattern>> entry: blacklistMapNotMatched.entrySet()) {
+            final PathMatcher p = PathMatcher.of(entry.getValue());
+            if (p == null) continue;
+            try {
+                hosts.add(Pattern.compile(entry.getKey()));
+                literals.add(requiredLiteral(entry.getKey()));
+                paths.add(p);
+            } catch (final PatternSyntaxException e) {
+                // such an entry never matched
+            }
+        }
+        this.regexHosts = hosts.toArray(new Pattern[hosts.size()]);
+        this.regexLiterals = literals.toArray(new String[literals.size()]);
+        this.regexPaths = paths.toArray(new PathMatcher[paths.size()]);
+    }
+
+    /**
+     * find the longest text which is contained in every string matching a regular expression,
+     * e.g. 'tracker.' for '.*tracker\..*'. Only simple expressions are analysed.
+     * @param regex a valid regular expression without flags
+     * @return the text or null if no such text was found
+     */
+    static String requiredLiteral(final String regex) {
+        if (regex.indexOf('|') >= 0 || regex.indexOf("(?") >= 0 || regex.indexOf("\\Q") >= 0) return null;
+        String best = null;
+        final StringBuilder run = new StringBuilder();
+        int depth = 0; // parentheses and character classes are skipped, they may be optional
+        for (int i = 0; i < regex.length(); i++) {
+            char c = regex.charAt(i);
+            boolean literal = false;
+            if (c == '\\') {
+                if (i + 1 >= regex.length()) return null;
+                c = regex.charAt(++i);
+                literal = !Character.isLetterOrDigit(c);
+                // predefined classes and boundaries; other escapes like \x2e or \p{L} are not analysed
+                if (!literal && "dDwWsSbB".indexOf(c) < 0) return null;
+            } else if (c == '(' || c == '[') {
+                depth++;
+            } else if (c == ')' || c == ']') {
+                if (--depth < 0) return null; // i.e. '[]a]', a bracket is a character of the class
+            } else {
+                literal = Character.isLetterOrDigit(c) || c == '-' || c == '_' || c == ':' || c == '/';
+            }
+            if (depth > 0) continue;
+            final char next = i + 1 < regex.length() ? regex.charAt(i + 1) : 0;
+            if (literal && next != '?' && next != '*' && next != '{') {
+                run.append(c);
+                if (next != '+') continue; // a repeated character is contained at least once, but ends the text
+            }
+            if (run.length() > 0 && (best == null || run.length() > best.length())) best = run.toString();
+            run.setLength(0);
+        }
+        if (run.length() > 0 && (best == null || run.length() > best.length())) best = run.toString();
+        return best;
+    }
+
+    /**
+     * combine regular expressions into one expression which matches if one of the expressions matches
+     * @param expressions
+     * @param flags the flags of all expressions
+     * @return the combined pattern or null if the expressions cannot be combined without changing their meaning
+     */
+    static Pattern combine(final Iterable<String> expressions, final int flags) {
+        if ((flags & (Pattern.LITERAL | Pattern.COMMENTS)) != 0) return null;
+        final StringBuilder sb = new StringBuilder();
+        for (final String s: expressions) {
+            // numbered or named back references would refer to the groups of other expressions
+            for (int i = 0; i < s.length() - 1; i++) {
+                if (s.charAt(i) == '\\') {
+                    final char n = s.charAt(i + 1);
+                    if ((n >= '1' && n <= '9') || n == 'k') return null;
+                    i++;
+                }
+            }
+            if (sb.length() > 0) sb.append('|');
+            sb.append("(?:").append(s).append(')');
+        }
+        try {
+            return Pattern.compile(sb.toString(), flags);
+        } catch (final PatternSyntaxException e) {
+            return null; // i.e. duplicate group names
+        }
+    }
+
+    int version() {
+        return this.version;
+    }
+
+    /**
+     * Check if the URL made of the specified host and path is blacklisted. All parameters must not be null.
+     * @param hostlow host part
+     * @param path path on the host
+     * @return true when host/path is blacklisted
+     */
+    boolean isListed(final String hostlow, final String path) {
+        final String p = (!path.isEmpty() && path.charAt(0) == '/') ? path.substring(1) : path;
+        final int length = hostlow.length();
+
+        // the complete host
+        final PathMatcher e = this.exact.get(hostlow);
+        if (e != null && e.matches(p)) return true;
+
+        // host prefixes ending before a dot which is not the first character
+        Node node = this.prefixes;
+        for (int i = 0; i < length && node != null; i++) {
+            final char c = hostlow.charAt(i);
+            if (c == '.' && i > 0 && node.label != null && node.label.matches(p)) return true;
+            node = node.child(c);
+            if (node != null && c == '.' && i > 0 && node.wildcard != null && node.wildcard.matches(p)) return true;
+        }
+
+        // host suffixes starting after a dot or with a dot
+        node = this.suffixes;
+        for (int i = length - 1; node != null; i--) {
+            if (i >= 0 && hostlow.charAt(i) == '.' && node.label != null && node.label.matches(p)) return true;
+            if (i < 0) break;
+            final char c = hostlow.charAt(i);
+            node = node.child(c);
+            if (node != null && c == '.' && node.wildcard != null && node.wildcard.matches(p)) return true;
+        }
+
+        // host regular expressions
+        for (int i = 0; i < this.regexHosts.length; i++) {
+            if (this.regexLiterals[i] != null && hostlow.indexOf(this.regexLiterals[i]) < 0) continue;
+            if (this.regexHosts[i].matcher(hostlow).matches() && this.regexPaths[i].matches(p)) return true;
+        }
+        return false;
+    }
+
+    /**
+     * a node of a character trie
+     */
+    private static final class Node {
+        private char[] keys = new char[0];
+        private Node[] children = new Node[0];
+        /** path patterns of an entry without wildcard which ends at this node */
+        private PathMatcher label = null;
+        /** path patterns of an entry with wildcard which ends at this node */
+        private PathMatcher wildcard = null;
+
+        private Node child(final char c) {
+            final char[] k = this.keys;
+            for (int i = 0; i < k.length; i++) if (k[i] == c) return this.children[i];
+            return null;
+        }
+
+        /**
+         * find or create the node for a string
+         * @param s the string
+         * @param reverse if true, the characters are added from the end to the start of the string
+         * @return the node of the last character
+         */
+        private Node add(final String s, final boolean reverse) {
+            Node node = this;
+            for (int i = 0; i < s.length(); i++) {
+                final char c = s.charAt(reverse ? s.length() - 1 - i : i);
+                Node next = node.child(c);
+                if (next == null) {
+                    next = new Node();
+                    final int n = node.keys.length;
+                    final char[] k = new char[n + 1];
+                    final Node[] ch = new Node[n + 1];
+                    System.arraycopy(node.keys, 0, k, 0, n);
+                    System.arraycopy(node.children, 0, ch, 0, n);
+                    k[n] = c;
+                    ch[n] = next;
+                    node.keys = k;
+                    node.children = ch;
+                }
+                node = next;
+            }
+            return node;
+        }
+    }
+
+    /**
+     * the path patterns of a host entry
+     */
+    private static final class PathMatcher {
+        private final boolean all;
+        private final Pattern[] patterns;
+
+        private PathMatcher(final boolean all, final Pattern[] patterns) {
+            this.all = all;
+            this.patterns = patterns;
+        }
+
+        /**
+         * @param set the path patterns of a host entry
+         * @return a matcher or null if the set is empty
+         */
+        private static PathMatcher of(final Set<Pattern> set) {
+            final Pattern[] a = set.toArray(new Pattern[0]);
+            if (a.length == 0) return null;
+            // group the patterns by their flags, duplicate expressions are removed
+            final Map<Integer, Map<String, Pattern>> groups = new LinkedHashMap<Integer, Map<String, Pattern>>();
+            for (final Pattern pattern: a) {
+                if (".*".equals(pattern.pattern())) return new PathMatcher(true, null);
+                Map<String, Pattern> g = groups.get(pattern.flags());
+                if (g == null) {
+                    g = new LinkedHashMap<String, Pattern>();
+                    groups.put(pattern.flags(), g);
+                }
+                g.put(pattern.pattern(), pattern);
+            }
+            final List<Pattern> patterns = new ArrayList<Pattern>();
+            for (final Map.Entry<Integer, Map<String, Pattern>> g: groups.entrySet()) {
+                if (g.getValue().size() == 1) {
+                    patterns.addAll(g.getValue().values());
+                    continue;
+                }
+                final Pattern combined = combine(g.getValue().keySet(), g.getKey());
+                if (combined == null) {
+                    patterns.addAll(g.getValue().values());
+                } else {
+                    patterns.add(combined);
+                }
+            }
+            return new PathMatcher(false, patterns.toArray(new Pattern[patterns.size()]));
+        }
+
+        private boolean matches(final String path) {
+            if (this.all) return true;
+            for (final Pattern pattern: this.patterns) {
+                if (pattern.matcher(path).matches()) return true;
+            }
+            return false;
+        }
+    }
+}
@@ -55,6 +55,7 @@ import net.yacy.crawler.data.Cache;
 import net.yacy.crawler.data.CrawlProfile;
 import net.yacy.crawler.retrieval.FTPLoader;
 import net.yacy.crawler.retrieval.FileLoader;
+import net.yacy.crawler.retrieval.HTTPAsyncLoader;
 import net.yacy.crawler.retrieval.HTTPLoader;
 import net.yacy.crawler.retrieval.Request;
 import net.yacy.crawler.retrieval.Response;
@@ -80,6 +81,7 @@ public final class LoaderDispatcher {
     private final SMBLoader smbLoader;
     private final FileLoader fileLoader;
     private final ConcurrentHashMap<DigestURL, Semaphore> loaderSteering; // a map that delivers a 'finish' semaphore for urls
+    private HTTPAsyncLoader httpAsyncLoader; // created on demand
 
     public LoaderDispatcher(final Switchboard sb) {
         this.sb = sb;
@@ -91,6 +93,23 @@ public final class LoaderDispatcher {
         this.smbLoader = new SMBLoader(sb, LoaderDispatcher.log);
         this.fileLoader = new FileLoader(sb, LoaderDispatcher.log);
         this.loaderSteering = new ConcurrentHashMap<DigestURL, Semaphore>();
+        this.httpAsyncLoader = null;
+    }
+
+    /**
+     * @return the asynchronous http loader; it is started with the first call of this method
+     * @throws IOException when the loader cannot be started
+     */
+    public synchronized HTTPAsyncLoader httpAsyncLoader() throws IOException {
+        if (this.httpAsyncLoader == null) this.httpAsyncLoader = new HTTPAsyncLoader(this.sb, this.httpLoader, LoaderDispatcher.log);
+        return this.httpAsyncLoader;
+    }
+
+    public synchronized void close() {
+        if (this.httpAsyncLoader != null) {
+            this.httpAsyncLoader.close();
+            this.httpAsyncLoader = null;
+        }
     }
 
     public boolean isSupportedProtocol(final String protocol) {
@@ -257,11 +276,85 @@ public final class LoaderDispatcher {
             throw new IOException("empty response (code " + response.getStatus() + ") for url " + url.toNormalform(true));
         }
 
+        storeToCache(response, crawlProfile);
+        return response;
+    }
+
+    /**
+     * load a http or https resource without blocking the calling thread. This is meant for crawler loads with many
+     * concurrent requests; the checks and the cache handling are the same as in {@link #load(Request, CacheStrategy, int, BlacklistType, ClientIdentification.Agent)},
+     * but a delay demanded by the last access time of the host is waited for without a sleeping thread.
+     * @param request the request essentials
+     * @param cacheStrategy strategy according to NOCACHE, IFFRESH, IFEXIST, CACHEONLY
+     * @param blacklistType
+     * @param agent
+     * @param callback receives the response or the failure
+     * @throws IOException when the asynchronous loader cannot be started
+     */
+    public void loadAsync(final Request request, final CacheStrategy cacheStrategy, final BlacklistType blacklistType, final ClientIdentification.Agent agent, final HTTPAsyncLoader.Callback callback) throws IOException {
+        final HTTPAsyncLoader asyncLoader = httpAsyncLoader();
+        final DigestURL url = request.url();
+        final String host = url.getHost();
+        final CrawlProfile crawlProfile = request.profileHandle() == null ? null : this.sb.crawler.get(UTF8.getBytes(request.profileHandle()));
+        try {
+            if (!url.getProtocol().equals("http") && !url.getProtocol().equals("https")) {
+                throw new IOException("Unsupported protocol '" + url.getProtocol() + "' for asynchronous loading in url " + url);
+            }
+
+            // check if url is in blacklist
+            if (blacklistType != null && host != null && Switchboard.urlBlacklist.isListed(blacklistType, host.toLowerCase(Locale.ROOT), url.getFile())) {
+                this.sb.crawlQueues.errorURL.push(request.url(), request.depth(), crawlProfile, FailCategory.FINAL_LOAD_CONTEXT, "url in blacklist", -1);
+                throw new IOException("DISPATCHER Rejecting URL '" + request.url().toString() + "'. URL is in blacklist.$");
+            }
+
+            // check if we have the page in the cache
+            final Response response = loadFromCache(request, cacheStrategy, agent, url, crawlProfile);
+            if (response != null) {
+                callback.loaded(response);
+                return;
+            }
+            if (cacheStrategy == CacheStrategy.CACHEONLY) {
+                throw new IOException("cache only strategy");
+            }
+        } catch (final IOException e) {
+            callback.failed(e);
+            return;
+        }
+
+        // the access time is remembered as the time when the request will be sent
+        final long wait = accessWait(agent, url);
+        if (host != null) {
+            if (accessTime.size() > accessTimeMaxsize) accessTime.clear(); // prevent a memory leak here
+            accessTime.put(host, System.currentTimeMillis() + wait);
+        }
+        asyncLoader.load(request, crawlProfile, protocolMaxFileSize(url), blacklistType, agent, wait, new HTTPAsyncLoader.Callback() {
+            @Override
+            public void loaded(final Response response) {
+                if (response.getContent() == null) {
+                    callback.failed(new IOException("empty response (code " + response.getStatus() + ") for url " + url.toNormalform(true)));
+                    return;
+                }
+                storeToCache(response, crawlProfile);
+                callback.loaded(response);
+            }
+            @Override
+            public void failed(final IOException e) {
+                callback.failed(e);
+            }
+        });
+    }
+
+    /**
+     * store a loaded response to the cache if the crawl profile and the response allow it
+     * @param response
+     * @param crawlProfile
+     */
+    private void storeToCache(final Response response, final CrawlProfile crawlProfile) {
         // we got something. Now check if we want to store that to the cache
         // first check looks if we want to store the content to the cache
         if (crawlProfile == null || !crawlProfile.storeHTCache()) {
             // no caching wanted. Thats ok, do not write any message
-            return response;
+            return;
         }
         // second check tells us if the protocol tells us something about caching
         final String storeError = response.shallStoreCacheForCrawler();
@@ -278,7 +371,6 @@ public final class LoaderDispatcher {
         } else {
             LoaderDispatcher.log.warn("cannot write " + response.url() + " to Cache (4): " + storeError);
         }
-        return response;
     }
 
     /**
@@ -423,10 +515,7 @@ public final class LoaderDispatcher {
 	private void checkAccessTime(ClientIdentification.Agent agent, final DigestURL url) {
 		if (!url.isLocal()) {
 			String host = url.getHost();
-			final Long lastAccess = accessTime.get(host);
-			long wait = 0;
-			if (lastAccess != null)
-				wait = Math.max(0, agent.minimumDelta + lastAccess.longValue() - System.currentTimeMillis());
+			final long wait = accessWait(agent, url);
 			if (wait > 0) {
 				// force a sleep here. Instead just sleep we clean up the
 				// accessTime map
@@ -444,6 +533,18 @@ public final class LoaderDispatcher {
 		}
 	}
 
+	/**
+	 * @param agent agent identifier
+	 * @param url target url
+	 * @return the time in milliseconds until the host of the url may be accessed again; 0 for local urls
+	 */
+	private static long accessWait(ClientIdentification.Agent agent, final DigestURL url) {
+		if (url.isLocal()) return 0;
+		final Long lastAccess = accessTime.get(url.getHost());
+		if (lastAccess == null) return 0;
+		return Math.max(0, agent.minimumDelta + lastAccess.longValue() - System.currentTimeMillis());
+	}
+
 	/**
 	 * @param url the URL of a resource to load
 	 * @return the crawler configured maximum size allowed to load for the protocol of the URL 
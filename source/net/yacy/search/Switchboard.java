@@ -39,8 +39,6 @@ package net.yacy.search;
 import java.io.BufferedInputStream;
 import java.io.BufferedOutputStream;
 import java.io.BufferedReader;
-import java.io.ByteArrayInputStream;
-import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
@@ -54,7 +52,6 @@ import java.net.InetAddress;
 import java.net.MalformedURLException;
 import java.net.ServerSocket;
 import java.net.Socket;
-import java.nio.charset.StandardCharsets;
 import java.security.NoSuchAlgorithmException;
 import java.security.PublicKey;
 import java.security.spec.InvalidKeySpecException;
@@ -80,6 +77,7 @@ import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 import java.util.zip.Deflater;
@@ -90,6 +88,7 @@ import java.util.zip.ZipInputStream;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.apache.commons.io.input.CloseShieldInputStream;
 import org.apache.solr.common.SolrDocument;
 import org.apache.solr.common.SolrException;
 import org.apache.solr.common.SolrInputDocument;
@@ -133,13 +132,11 @@ import net.yacy.cora.protocol.http.HTTPClient;
 import net.yacy.cora.protocol.http.ProxySettings;
 import net.yacy.cora.util.CommonPattern;
 import net.yacy.cora.util.ConcurrentLog;
-import net.yacy.cora.util.JSONArray;
-import net.yacy.cora.util.JSONObject;
-import net.yacy.cora.util.JSONTokener;
 import net.yacy.cora.util.Memory;
 import net.yacy.crawler.CrawlStacker;
 import net.yacy.crawler.CrawlSwitchboard;
 import net.yacy.crawler.HarvestProcess;
+import net.yacy.crawler.HostBalancer;
 import net.yacy.crawler.data.Cache;
 import net.yacy.crawler.data.CrawlProfile;
 import net.yacy.crawler.data.CrawlProfile.CrawlAttribute;
@@ -187,6 +184,7 @@ import net.yacy.gui.Tray;
 import net.yacy.http.YaCyHttpServer;
 import net.yacy.kelondro.blob.ArrayStack;
 import net.yacy.kelondro.blob.BEncodedHeap;
+import net.yacy.kelondro.blob.HeapReader;
 import net.yacy.kelondro.blob.Tables;
 import net.yacy.kelondro.blob.Tables.SortDirection;
 import net.yacy.kelondro.data.meta.URIMetadataNode;
@@ -200,6 +198,7 @@ import net.yacy.kelondro.util.SetTools;
 import net.yacy.kelondro.workflow.BusyThread;
 import net.yacy.kelondro.workflow.InstantBusyThread;
 import net.yacy.kelondro.workflow.OneTimeBusyThread;
+import net.yacy.kelondro.workflow.WorkflowController;
 import net.yacy.kelondro.workflow.WorkflowProcessor;
 import net.yacy.kelondro.workflow.WorkflowTask;
 import net.yacy.kelondro.workflow.WorkflowThread;
@@ -209,6 +208,7 @@ import net.yacy.peers.EventChannel;
 import net.yacy.peers.Network;
 import net.yacy.peers.NewsPool;
 import net.yacy.peers.Protocol;
+import net.yacy.peers.RWITransferCodec;
 import net.yacy.peers.Seed;
 import net.yacy.peers.SeedDB;
 import net.yacy.peers.graphics.NetworkGraph;
@@ -227,6 +227,7 @@ import net.yacy.search.index.SingleDocumentMatcher;
 import net.yacy.search.query.AccessTracker;
 import net.yacy.search.query.SearchEvent;
 import net.yacy.search.query.SearchEventCache;
+import net.yacy.search.query.SearchExecutor;
 import net.yacy.search.ranking.RankingProfile;
 import net.yacy.search.schema.CollectionConfiguration;
 import net.yacy.search.schema.CollectionSchema;
@@ -307,6 +308,7 @@ public final class Switchboard extends serverSwitch {
     public WorkflowProcessor<IndexingQueueEntry> indexingCondensementProcessor;
     public WorkflowProcessor<IndexingQueueEntry> indexingAnalysisProcessor;
     public WorkflowProcessor<IndexingQueueEntry> indexingStorageProcessor;
+    public WorkflowController indexingController;
 
     public RobotsTxtConfig robotstxtConfig = null;
     public boolean useTailCache;
@@ -576,13 +578,19 @@ public final class Switchboard extends serverSwitch {
 
         // initialize index
         ReferenceContainer.maxReferences = getConfigInt("index.maxReferences", 0);
+        if (getConfigBool("crawler.depthCache.offHeap", false)) HostBalancer.useOffHeapDepthCache();
+        ArrayStack.mapReadOnlyHeaps = getConfigBool("index.mapReadOnlyHeaps", false);
+        if (getConfigInt("index.mount.threads", 0) > 0) ArrayStack.mountThreads = getConfigInt("index.mount.threads", 0);
+        ArrayStack.lazyMount = getConfigBool("index.mount.lazy", false);
+        HeapReader.useBloomFilter = getConfigBool("index.bloomFilter", true);
+        SearchExecutor.maxThreads = getConfigInt(SwitchboardConstants.SEARCH_EXECUTOR_THREADS, SwitchboardConstants.SEARCH_EXECUTOR_THREADS_DEFAULT);
+        SearchExecutor.maxTasksPerQuery = getConfigInt(SwitchboardConstants.SEARCH_EXECUTOR_QUERYBUDGET, SwitchboardConstants.SEARCH_EXECUTOR_QUERYBUDGET_DEFAULT);
         final File segmentsPath = new File(new File(indexPath, networkName), "SEGMENTS");
         try {this.index = new Segment(this.log, segmentsPath, archivePath, solrCollectionConfigurationWork, solrWebgraphConfigurationWork);} catch (IOException e) {ConcurrentLog.logException(e);}
-        if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_RWI, true)) try {
-            this.index.connectRWI(wordCacheMaxCount, fileSizeMax);
-        } catch (final IOException e) {ConcurrentLog.logException(e);}
-        if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_CITATION, true)) try {
-            this.index.connectCitation(wordCacheMaxCount, fileSizeMax);
+        this.index.setOffHeapIndex(getConfigBool("index.offHeapIndex.rwi", false), getConfigBool("index.offHeapIndex.citation", false));
+        this.index.setMergeOptions(getConfigInt("index.merge.threads", 1), getConfigLong("index.merge.maxBandwidth", 0), getConfigInt("index.merge.tierThreshold", 0));
+        try {
+            this.index.connectRWIAndCitation(this.getConfigBool(SwitchboardConstants.CORE_SERVICE_RWI, true), this.getConfigBool(SwitchboardConstants.CORE_SERVICE_CITATION, true), wordCacheMaxCount, fileSizeMax);
         } catch (final IOException e) {ConcurrentLog.logException(e);}
 		if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_FULLTEXT,
 				SwitchboardConstants.CORE_SERVICE_FULLTEXT_DEFAULT)) {
@@ -661,6 +669,7 @@ public final class Switchboard extends serverSwitch {
         //final long startedSeedListAquisition = System.currentTimeMillis();
 
         // init a DHT transmission dispatcher
+		RWITransferCodec.enabled = getConfigBool(SwitchboardConstants.INDEX_DIST_BINARY, true);
 		this.dhtDispatcher = (this.peers.sizeConnected() == 0) ? null : new Dispatcher(this, true, 10000);
 
         // set up local robots.txt
@@ -769,6 +778,8 @@ public final class Switchboard extends serverSwitch {
 						SwitchboardConstants.HTCACHE_SYNC_LOCK_TIMEOUT_DEFAULT),
 				getConfigInt(SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL,
 						SwitchboardConstants.HTCACHE_COMPRESSION_LEVEL_DEFAULT));
+		Cache.setCompressionCodec(getConfig(SwitchboardConstants.HTCACHE_COMPRESSION_CODEC,
+				SwitchboardConstants.HTCACHE_COMPRESSION_CODEC_DEFAULT));
         final File transactiondir = new File(this.htCachePath, "snapshots");
 		Transactions.init(transactiondir, getConfigLong(SwitchboardConstants.SNAPSHOTS_WKHTMLTOPDF_TIMEOUT,
 				SwitchboardConstants.SNAPSHOTS_WKHTMLTOPDF_TIMEOUT_DEFAULT));
@@ -907,7 +918,8 @@ public final class Switchboard extends serverSwitch {
         // load the robots.txt db
         this.log.config("Initializing robots.txt DB");
 		this.robots = new RobotsTxt(this.tables, this.loader,
-				this.getConfigInt(SwitchboardConstants.ROBOTS_TXT_THREADS_ACTIVE_MAX, SwitchboardConstants.ROBOTS_TXT_THREADS_ACTIVE_MAX_DEFAULT));
+				this.getConfigInt(SwitchboardConstants.ROBOTS_TXT_THREADS_ACTIVE_MAX, SwitchboardConstants.ROBOTS_TXT_THREADS_ACTIVE_MAX_DEFAULT),
+				this.getConfigInt(SwitchboardConstants.ROBOTS_TXT_CACHE_SIZE, RobotsTxt.DEFAULT_CACHE_SIZE));
         try {
             this.log.config("Loaded robots.txt DB: " + this.robots.size() + " entries");
         } catch (final IOException e) {
@@ -1096,6 +1108,13 @@ public final class Switchboard extends serverSwitch {
                 this.indexingCondensementProcessor,
                 WorkflowProcessor.availableCPU);
 
+        // the threads of the indexing stages are moved to the slowest stage at runtime
+        this.indexingController = new WorkflowController();
+        this.indexingController.add(this.indexingDocumentProcessor, 1, WorkflowProcessor.availableCPU * 2);
+        this.indexingController.add(this.indexingCondensementProcessor, 1, WorkflowProcessor.availableCPU * 2);
+        this.indexingController.add(this.indexingAnalysisProcessor, 1, WorkflowProcessor.availableCPU * 2);
+        this.indexingController.add(this.indexingStorageProcessor, 1, 2); // more concurrency would destroy IO performance
+
         // deploy busy threads
         this.log.config("Starting Threads");
         MemoryControl.gc(10000, "plasmaSwitchboard, help for profiler"); // help for profiler - thq
@@ -1169,6 +1188,19 @@ public final class Switchboard extends serverSwitch {
 				},
             10000);
 
+        deployThread(
+            SwitchboardConstants.WORKFLOW_TUNING,
+            "Indexing Workflow Tuning",
+            "moves threads of the indexing workflow to the stage which cannot keep up with its input queue",
+            "/PerformanceQueues_p.html",
+				new InstantBusyThread("Switchboard.workflowTuningJob", 10000, 10000) {
+					@Override
+					public boolean jobImpl() throws Exception {
+						return workflowTuningJob();
+					}
+				},
+            60000);
+
         this.initRemoteCrawler(this.getConfigBool(SwitchboardConstants.CRAWLJOB_REMOTE, false));
         this.initAutocrawl(this.getConfigBool(SwitchboardConstants.AUTOCRAWL, false));
 
@@ -1511,8 +1543,9 @@ public final class Switchboard extends serverSwitch {
             final File segmentsPath = new File(new File(indexPrimaryPath, networkName), "SEGMENTS");
             final File archivePath = getDataPath(SwitchboardConstants.INDEX_ARCHIVE_PATH, SwitchboardConstants.INDEX_ARCHIVE_DEFAULT);
             this.index = new Segment(this.log, segmentsPath, archivePath, collectionConfiguration, webgraphConfiguration);
-            if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_RWI, true)) this.index.connectRWI(wordCacheMaxCount, fileSizeMax);
-            if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_CITATION, true)) this.index.connectCitation(wordCacheMaxCount, fileSizeMax);
+            this.index.setOffHeapIndex(getConfigBool("index.offHeapIndex.rwi", false), getConfigBool("index.offHeapIndex.citation", false));
+            this.index.setMergeOptions(getConfigInt("index.merge.threads", 1), getConfigLong("index.merge.maxBandwidth", 0), getConfigInt("index.merge.tierThreshold", 0));
+            this.index.connectRWIAndCitation(this.getConfigBool(SwitchboardConstants.CORE_SERVICE_RWI, true), this.getConfigBool(SwitchboardConstants.CORE_SERVICE_CITATION, true), wordCacheMaxCount, fileSizeMax);
 			if (this.getConfigBool(SwitchboardConstants.CORE_SERVICE_FULLTEXT,
 					SwitchboardConstants.CORE_SERVICE_FULLTEXT_DEFAULT)) {
                 this.index.fulltext().connectLocalSolr();
@@ -1997,6 +2030,7 @@ public final class Switchboard extends serverSwitch {
         this.crawlStacker.announceClose();
         this.crawlStacker.close();
         this.crawlQueues.close();
+        this.loader.close();
         this.robots.close();
         this.indexingDocumentProcessor.shutdown();
         this.indexingCondensementProcessor.shutdown();
@@ -2126,15 +2160,9 @@ public final class Switchboard extends serverSwitch {
                 zis = new ZipInputStream(is);
                 ZipEntry entry;
                 while ( (entry = zis.getNextEntry()) != null ) {
-                    int size;
-                    final byte[] buffer = new byte[2048];
-                    final ByteArrayOutputStream baos = new ByteArrayOutputStream();
-                    while ( (size = zis.read(buffer, 0, buffer.length)) != -1 ) {
-                        baos.write(buffer, 0, size);
-                    }
-                    baos.flush();
-                    processSurrogate(new ByteArrayInputStream(baos.toByteArray()), entry.getName());
-                    baos.close();
+                    // the entry is parsed from the zip stream, which must not be closed by the surrogate reader
+                    processSurrogate(new CloseShieldInputStream(zis), entry.getName());
+                    zis.closeEntry();
                     if (shallTerminate()) break;
                 }
             } catch (final IOException e ) {
@@ -2163,106 +2191,15 @@ public final class Switchboard extends serverSwitch {
         } else if (s.endsWith(".jsonlist") || s.endsWith(".flatjson")) {
             // parse a file that can be generated with yacy_grid_parser
             // see https://github.com/yacy/yacy_grid_parser/blob/master/README.md
-        	FileInputStream fis = null;
-        	BufferedReader br = null;
-            try {
-            	fis = new FileInputStream(infile);
-                InputStream is = new BufferedInputStream(fis);
-                br = new BufferedReader(new InputStreamReader(is, StandardCharsets.UTF_8));
-                String line;
-                while ((line = br.readLine()) != null) {
-                    JSONTokener jt = new JSONTokener(line);
-                    JSONObject json = new JSONObject(jt);
-                    if ((json.has("index") && json.length() == 1) || json.length() == 0) continue;
-                    SolrInputDocument surrogate = new SolrInputDocument();
-                    for (String key: json.keySet()) {
-                        Object o = json.get(key);
-                        if (o instanceof JSONArray) {
-                            // transform this into a list
-                            JSONArray a = (JSONArray) o;
-                            // patch altered yacy grid schema (yacy grid does not split url lists into protocol and urlstub)
-                            if (key.equals("inboundlinks_sxt")) {
-                                // compute inboundlinks_urlstub_sxt and inboundlinks_protocol_sxt
-                                List<Object> urlstub = new ArrayList<>();
-                                List<Object> protocol = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) {
-                                    AnchorURL b = new AnchorURL((String) a.get(i));
-                                    urlstub.add(b.urlstub(true, true));
-                                    protocol.add(b.getProtocol());
-                                }
-                                CollectionSchema.inboundlinks_urlstub_sxt.add(surrogate, urlstub);
-                                CollectionSchema.inboundlinks_protocol_sxt.add(surrogate, protocol);
-                            } else if (key.equals("outboundlinks_sxt")) {
-                                // compute outboundlinks_urlstub_sxt and outboundlinks_protocol_sxt
-                                List<Object> urlstub = new ArrayList<>();
-                                List<Object> protocol = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) {
-                                    AnchorURL b = new AnchorURL((String) a.get(i));
-                                    urlstub.add(b.urlstub(true, true));
-                                    protocol.add(b.getProtocol());
-                                }
-                                CollectionSchema.outboundlinks_urlstub_sxt.add(surrogate, urlstub);
-                                CollectionSchema.outboundlinks_protocol_sxt.add(surrogate, protocol);
-                            } else if (key.equals("images_sxt")) {
-                                // compute images_urlstub_sxt and images_protocol_sxt
-                                List<Object> urlstub = new ArrayList<>();
-                                List<Object> protocol = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) {
-                                    AnchorURL b = new AnchorURL((String) a.get(i));
-                                    urlstub.add(b.urlstub(true, true));
-                                    protocol.add(b.getProtocol());
-                                }
-                                CollectionSchema.images_urlstub_sxt.add(surrogate, urlstub);
-                                CollectionSchema.images_protocol_sxt.add(surrogate, protocol);
-                            } else {
-                                List<Object> list = new ArrayList<>();
-                                for (int i = 0; i < a.length(); i++) list.add(a.get(i));
-                                CollectionSchema schema = CollectionSchema.valueOf(key);
-                                schema.add(surrogate, list);
-                            }
-                        } else {
-                            // patch yacy grid altered schema (yacy grid does not have IDs any more, but they can be re-computed here)
-                            if (key.equals("url_s")) {
-                                DigestURL durl = new DigestURL(o.toString());
-                                String id = ASCII.String(durl.hash());
-                                surrogate.setField(CollectionSchema.sku.getSolrFieldName(), durl.toNormalform(true));
-                                surrogate.setField(CollectionSchema.id.getSolrFieldName(), id);
-                                surrogate.setField(CollectionSchema.host_id_s.getSolrFieldName(), id.substring(6));
-                            } else if (key.equals("referrer_url_s")) {
-                                DigestURL durl = new DigestURL(o.toString());
-                                String id = ASCII.String(durl.hash());
-                                surrogate.setField(CollectionSchema.referrer_id_s.getSolrFieldName(), id);
-                            } else {
-                                surrogate.setField(key, o.toString());
-                            }
-                        }
-                    }
-                    Switchboard.this.index.putDocument(surrogate);
-                }
-                br.close();
-                br = null;
-                fis = null;
-                moved = infile.renameTo(outfile);
+            // the lines are converted by the surrogate reader
+            boolean processed = false;
+            try (final InputStream is = new BufferedInputStream(new FileInputStream(infile))) {
+                processSurrogate(is, infile.getName());
+                processed = true;
             } catch (IOException ex) {
                 log.warn("IO Error processing flatjson file " + infile);
-            } finally {
-            	/* Properly release file system resources even in failure cases */
-            	if(br != null) {
-            		/* buffered reader was successfully created : close it and its underlying streams */
-            		try {
-						br.close();
-					} catch (IOException e) {
-						log.warn("Could not close reader on file " + infile);
-					}
-            	} else if(fis != null) {
-            		/* no buffered reader : maybe a case of exhausted memory. Anyway file input stream has to be closed. */
-            		try {
-						fis.close();
-					} catch (IOException e) {
-						log.warn("Could not close input stream on file " + infile);
-					}
-            	}
             }
+            if (processed) moved = infile.renameTo(outfile);
             return moved;
         }
         InputStream is = null;
@@ -2319,19 +2256,25 @@ public final class Switchboard extends serverSwitch {
         
         // start indexer threads
         assert this.crawlStacker != null;
+        final int batchSize = 100; // number of documents written to Solr in one update call
+        final long start = System.currentTimeMillis();
+        final AtomicInteger count = new AtomicInteger(0);
+        final AtomicLong lastReport = new AtomicLong(start);
         Thread[] indexer = new Thread[concurrency];
         for (int t = 0; t < concurrency; t++) {
             indexer[t] = new Thread("Switchboard.processSurrogate-" + t) {
                 @Override
                 public void run() {
                     VocabularyScraper scraper = new VocabularyScraper();
+                    final List<SolrInputDocument> batch = new ArrayList<SolrInputDocument>(batchSize);
                     Object surrogateObj;
                     while ((surrogateObj = reader.take()) != SurrogateReader.POISON_DOCUMENT ) {
                         assert surrogateObj != null;
                         /* When parsing a full-text Solr xml data dump Surrogate reader produces SolrInputDocument instances */
                         if(surrogateObj instanceof SolrInputDocument) {
                         	SolrInputDocument surrogate = (SolrInputDocument)surrogateObj;
-                        	try {
+                        	// documents of a flat json dump are written as they are
+                        	if (!reader.isFlatJSONDump()) try {
                         		// enrich the surrogate
                         		final String id = (String) surrogate.getFieldValue(CollectionSchema.id.getSolrFieldName());
                         		final String text = (String) surrogate.getFieldValue(CollectionSchema.text_t.getSolrFieldName());
@@ -2355,8 +2298,12 @@ public final class Switchboard extends serverSwitch {
                         	} catch (MalformedURLException e) {
                         		ConcurrentLog.logException(e);
                         	}
-                        	// write the surrogate into the index
-                        	Switchboard.this.index.putDocument(surrogate);
+                        	// write the surrogates into the index
+                        	batch.add(surrogate);
+                        	if (batch.size() >= batchSize) {
+                        	    Switchboard.this.index.putDocuments(batch);
+                        	    batch.clear();
+                        	}
                         } else if(surrogateObj instanceof DCEntry) {
                         	/* When parsing a MediaWiki dump Surrogate reader produces DCEntry instances */
                             // create a queue entry
@@ -2378,8 +2325,18 @@ public final class Switchboard extends serverSwitch {
                 
                             indexingCondensementProcessor.enQueue(queueEntry);
                         }
+
+                        // report the progress
+                        final int c = count.incrementAndGet();
+                        final long now = System.currentTimeMillis();
+                        final long last = lastReport.get();
+                        if (now - last > 10000 && lastReport.compareAndSet(last, now)) {
+                            log.info("processing surrogate " + name + ": " + c + " documents, " + (c * 1000L / Math.max(1, now - start)) + " documents/second, " +
+                                    (reader.charactersRead() / 1024) + " KB read");
+                        }
                         if (shallTerminate()) break;
                     }
+                    Switchboard.this.index.putDocuments(batch);
                 }
             };
             indexer[t].setPriority(5);
@@ -2390,6 +2347,8 @@ public final class Switchboard extends serverSwitch {
         for (int t = 0; t < concurrency; t++) {
             try {indexer[t].join();} catch (InterruptedException e) {}
         }
+        final long time = Math.max(1, System.currentTimeMillis() - start);
+        log.info("processed surrogate " + name + ": " + count.get() + " documents in " + (time / 1000) + " seconds, " + (count.get() * 1000L / time) + " documents/second");
     }
 
     public int surrogateQueueSize() {
@@ -3186,6 +3145,18 @@ public final class Switchboard extends serverSwitch {
         return documents;
     }
 
+    /**
+     * adapt the concurrency of the indexing stages to their load
+     * @return true if the concurrency of a stage was changed
+     */
+    public boolean workflowTuningJob() {
+        if (!getConfigBool(SwitchboardConstants.WORKFLOW_TUNING_ENABLED, true)) {
+            this.indexingController.reset();
+            return false;
+        }
+        return this.indexingController.tune();
+    }
+
 	/**
 	 * This does a structural analysis of plain texts: markup of headlines, slicing
 	 * into phrases (i.e. sentences), markup with position, counting of words,
@@ -159,6 +159,15 @@ public final class SwitchboardConstants {
     public static final String SCHEDULER                    = "85_scheduler";
     public static final String SCHEDULER_IDLESLEEP          = "85_scheduler_idlesleep";
     public static final String SCHEDULER_BUSYSLEEP          = "85_scheduler_busysleep";
+    // 75_workflowtuning
+    /**
+     * <p><code>public static final String <strong>WORKFLOW_TUNING</strong> = "75_workflowtuning"</code></p>
+     * <p>The thread which distributes the threads of the indexing workflow among its stages</p>
+     */
+    public static final String WORKFLOW_TUNING              = "75_workflowtuning";
+    public static final String WORKFLOW_TUNING_IDLESLEEP    = "75_workflowtuning_idlesleep";
+    public static final String WORKFLOW_TUNING_BUSYSLEEP    = "75_workflowtuning_busysleep";
+    public static final String WORKFLOW_TUNING_ENABLED      = "indexer.workflowTuning";
     // 90_cleanup
     /**
      * <p><code>public static final String <strong>CLEANUP</strong> = "90_cleanup"</code></p>
@@ -204,6 +213,12 @@ public final class SwitchboardConstants {
     public static final String INDEX_RECEIVE_ALLOW_SEARCH       = "allowReceiveIndex.search";
     public static final String INDEX_RECEIVE_BLOCK_BLACKLIST    = "indexReceiveBlockBlacklist";
     
+    /** Setting key of the maximum number of received RWI transfers which are ingested at the same time; further transfers are answered as busy */
+    public static final String INDEX_RECEIVE_CONCURRENCY        = "indexReceive.concurrency";
+    
+    /** Default maximum number of received RWI transfers which are ingested at the same time */
+    public static final int INDEX_RECEIVE_CONCURRENCY_DEFAULT   = 4;
+    
     /**
      * <p><code>public static final String <strong>INDEX_DIST_ALLOW_WHILE_CRAWLING</strong> = "allowDistributeIndexWhileCrawling"</code></p>
      * <p>Name of the setting whether Index Distribution shall be allowed while crawling is in progress, i.e.
@@ -216,6 +231,11 @@ public final class SwitchboardConstants {
     public static final String INDEX_DIST_ALLOW_WHILE_INDEXING  = "allowDistributeIndexWhileIndexing";
     public static final String INDEX_TRANSFER_TIMEOUT           = "indexTransfer.timeout";
     public static final String INDEX_TRANSFER_GZIP_BODY         = "indexTransfer.gzipBody";
+    /**
+     * <p>Name of the setting whether index entries are transferred in the binary format of
+     * {@link net.yacy.peers.RWITransferCodec} to peers which can read it</p>
+     */
+    public static final String INDEX_DIST_BINARY                = "indexDistribution.binary";
     public static final String PARSER_MIME_DENY                 = "parser.mime.deny";
     public static final String PARSER_EXTENSIONS_DENY           = "parser.extensions.deny";
     public static final String PARSER_PDF_INDIVIDUALPAGES       = "parser.pdf.individualpages";
@@ -290,6 +310,24 @@ public final class SwitchboardConstants {
     /** Default maximum system load allowing remote Solr searches */
     public static final float REMOTESEARCH_MAXLOAD_SOLR_DEFAULT = 4.0f;
     
+    /** Setting key to configure the maximum number of threads executing the tasks of all search events */
+    public static final String SEARCH_EXECUTOR_THREADS          = "search.executor.threads";
+    
+    /** Default maximum number of threads executing the tasks of all search events */
+    public static final int SEARCH_EXECUTOR_THREADS_DEFAULT     = 256;
+    
+    /** Setting key to configure the maximum number of concurrently executed tasks of a single search event */
+    public static final String SEARCH_EXECUTOR_QUERYBUDGET      = "search.executor.queryBudget";
+    
+    /** Default maximum number of concurrently executed tasks of a single search event */
+    public static final int SEARCH_EXECUTOR_QUERYBUDGET_DEFAULT = 64;
+    
+    /** Setting key to enable the top-k selection of RWI search results: entries which cannot get into the ranked result stack are not decoded */
+    public static final String SEARCH_RWI_TOPK                  = "search.rwi.topk";
+    
+    /** Default setting of the top-k selection of RWI search results */
+    public static final boolean SEARCH_RWI_TOPK_DEFAULT         = true;
+    
     /** Key of the setting controlling whether https should be preferred for remote searches, when available on the target peer */
     public static final String REMOTESEARCH_HTTPS_PREFERRED = "remotesearch.https.preferred";
     
@@ -346,6 +384,9 @@ public final class SwitchboardConstants {
     public static final String CRAWLER_THREADS_ACTIVE_MAX       = "crawler.MaxActiveThreads";
     public static final String CRAWLER_LATENCY_FACTOR           = "crawler.latencyFactor";
     public static final String CRAWLER_MAX_SAME_HOST_IN_QUEUE   = "crawler.MaxSameHostInQueue";
+    public static final String CRAWLER_ASYNC                    = "crawler.async"; // load http(s) urls with the non-blocking HTTPAsyncLoader instead of loader threads
+    public static final String CRAWLER_ASYNC_MAX_REQUESTS       = "crawler.async.maxRequests"; // maximum number of concurrent asynchronous requests
+    public static final String CRAWLER_ASYNC_THREADS            = "crawler.async.threads"; // number of threads of the asynchronous loader
     public static final String CRAWLER_FOLLOW_REDIRECTS         = "crawler.http.FollowRedirects"; // ignore the target url and follow to the redirect
     public static final String CRAWLER_RECORD_REDIRECTS         = "crawler.http.RecordRedirects"; // record the ignored redirected page to the index store
     
@@ -399,6 +440,8 @@ public final class SwitchboardConstants {
     public static final String ROBOTS_TXT_THREADS_ACTIVE_MAX       = "robots.txt.MaxActiveThreads";
     /** Default value of the setting configuring how many active robots.txt loading threads may be running on the same time at max */
     public static final int ROBOTS_TXT_THREADS_ACTIVE_MAX_DEFAULT       = 200;
+    /** Key of the setting configuring the maximum number of hosts with compiled robots.txt rules in memory */
+    public static final String ROBOTS_TXT_CACHE_SIZE       = "robots.txt.cacheSize";
 
     /** Key of the setting configuring the bluelist file name */
     public static final String LIST_BLUE                = "plasmaBlueList";
@@ -422,6 +465,12 @@ public final class SwitchboardConstants {
     
     /** Default compression level for cached content */
     public static final int HTCACHE_COMPRESSION_LEVEL_DEFAULT = Deflater.BEST_COMPRESSION;
+
+    /** Key of the setting configuring the codec of cached content: gzip, lz4 or dictionary */
+    public static final String HTCACHE_COMPRESSION_CODEC   = "proxyCache.compressionCodec";
+
+    /** Default codec for cached content */
+    public static final String HTCACHE_COMPRESSION_CODEC_DEFAULT = "gzip";
     
     /** Key of the setting configuring Cache synchronization lock timeout on getContent/store operations*/
     public static final String HTCACHE_SYNC_LOCK_TIMEOUT   = "proxyCache.sync.lockTimeout";
@@ -65,6 +65,7 @@ public class ErrorCache {
     public void clear() throws IOException {
         clearCache();
         this.sb.index.fulltext().getDefaultConnector().deleteByQuery(CollectionSchema.failreason_s.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM);
+        this.sb.index.fulltext().invalidateKnownURLs();
     }
 
     public void removeHosts(final Set<String> hosthashes) {
@@ -120,6 +121,7 @@ public class ErrorCache {
                         ((Integer) olddoc.getFieldValue(CollectionSchema.httpstatus_i.getSolrFieldName())) == 200) {
                         SolrInputDocument errorDoc = failDoc.toSolr(this.sb.index.fulltext().getDefaultConfiguration());
                         this.sb.index.fulltext().getDefaultConnector().add(errorDoc);
+                        this.sb.index.fulltext().getKnownURLs().put(ASCII.String(url.hash()), failDoc.getFailDate().getTime());
                     }
                 } catch (final IOException e) {
                     ConcurrentLog.warn("SOLR", "failed to send error " + url.toNormalform(true) + " to solr: " + e.getMessage());
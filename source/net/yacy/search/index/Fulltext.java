@@ -91,6 +91,8 @@ public final class Fulltext {
 
     private static final String SOLR_PATH = "solr_6_6"; // the number should be identical to the number in the property luceneMatchVersion in solrconfig.xml
     private static final String SOLR_OLD_PATH[] = new String[]{"solr_36", "solr_40", "solr_44", "solr_45", "solr_46", "solr_47", "solr_4_9", "solr_4_10", "solr_5_2", "solr_5_5"};
+    private static final String KNOWN_URLS_FILE = "knownURLs.table";
+    private static final long KNOWN_URLS_REBUILD_DELAY = 5000; // milliseconds to wait for more deletions before the known urls are rebuilt
     
     // class objects
     private final File                    segmentPath;
@@ -104,6 +106,9 @@ public final class Fulltext {
     private final CollectionConfiguration collectionConfiguration;
     private final WebgraphConfiguration   webgraphConfiguration;
     private       boolean                 writeWebgraph;
+    private final KnownURLFilter          knownURLs; // url hashes and load dates of the embedded collection index
+    private       Thread                  knownURLsRebuilder; // the thread which rebuilds the known urls, guarded by knownURLs
+    private       boolean                 knownURLsRebuildPending; // a rebuild was requested, guarded by knownURLs
 
     protected Fulltext(final File segmentPath, final File archivePath,
             final CollectionConfiguration collectionConfiguration, final WebgraphConfiguration webgraphConfiguration) {
@@ -115,6 +120,9 @@ public final class Fulltext {
         this.collectionConfiguration = collectionConfiguration;
         this.webgraphConfiguration = webgraphConfiguration;
         this.writeWebgraph = false;
+        this.knownURLs = new KnownURLFilter();
+        this.knownURLsRebuilder = null;
+        this.knownURLsRebuildPending = false;
     }
     
     public void setUseWebgraph(boolean check) {
@@ -157,6 +165,101 @@ public final class Fulltext {
         assert SOLR_PATH.endsWith(lvn) : "luceneVersion = " + lvn + ", solrPath = " + SOLR_PATH + ", check defaults/solr/solrconfig.xml";
         ConcurrentLog.info("Fulltext", "connected solr in " + solrLocation.toString() + ", lucene version " + lvn);
         this.solrInstances.connectEmbedded(localCollectionInstance);
+
+        // the table of known urls is loaded or built once; it is maintained afterwards also if solr is re-connected
+        if (!this.knownURLs.isComplete()) {
+            long indexSize = this.knownURLs.load(new File(this.segmentPath, KNOWN_URLS_FILE));
+            if (indexSize >= 0 && indexSize == this.getDefaultEmbeddedConnector().getSize()) {
+                this.knownURLs.loaded();
+                ConcurrentLog.info("Fulltext", "loaded " + this.knownURLs.size() + " known urls");
+            } else {
+                rebuildKnownURLs();
+            }
+        }
+    }
+
+    /**
+     * The table of known urls contains the url hashes and load dates of all documents in the embedded collection index.
+     * Writes to the index which do not use the methods of this class must be registered there, deletions by query
+     * must call {@link #invalidateKnownURLs()}.
+     * @return the table of known urls
+     */
+    public KnownURLFilter getKnownURLs() {
+        return this.knownURLs;
+    }
+
+    /**
+     * mark the table of known urls as incomplete and rebuild it from the index, this must be called after documents
+     * were deleted with a query
+     */
+    public void invalidateKnownURLs() {
+        this.knownURLs.invalidate();
+        rebuildKnownURLs();
+    }
+
+    /**
+     * request a rebuild of the table of known urls. Only one rebuild thread is running; requests which arrive while
+     * it waits or reads the index are coalesced into one more rebuild, so that a sequence of deletions does not
+     * start one full index scan for each deletion.
+     */
+    private void rebuildKnownURLs() {
+        synchronized (this.knownURLs) {
+            this.knownURLsRebuildPending = true;
+            if (this.knownURLsRebuilder != null) return;
+            this.knownURLsRebuilder = new Thread("Fulltext.rebuildKnownURLs") {
+                @Override
+                public void run() {
+                    while (true) {
+                        try {
+                            Thread.sleep(KNOWN_URLS_REBUILD_DELAY); // wait for more deletions
+                        } catch (final InterruptedException e) {}
+                        synchronized (Fulltext.this.knownURLs) {
+                            if (!Fulltext.this.knownURLsRebuildPending) {
+                                Fulltext.this.knownURLsRebuilder = null;
+                                return;
+                            }
+                            Fulltext.this.knownURLsRebuildPending = false;
+                        }
+                        rebuildKnownURLsNow();
+                    }
+                }
+            };
+            this.knownURLsRebuilder.start();
+        }
+    }
+
+    private void rebuildKnownURLsNow() {
+        final EmbeddedSolrConnector connector = this.getDefaultEmbeddedConnector();
+        if (connector == null) return;
+        final int rebuild = this.knownURLs.startRebuild();
+        final long start = System.currentTimeMillis();
+        final long sizeAtStart = connector.getSize();
+        final BlockingQueue<SolrDocument> docs = connector.concurrentDocumentsByQuery(AbstractSolrConnector.CATCHALL_QUERY, null, 0, Integer.MAX_VALUE, Long.MAX_VALUE, 1000, 1, false,
+                CollectionSchema.id.getSolrFieldName(), CollectionSchema.load_date_dt.getSolrFieldName());
+        int count = 0;
+        try {
+            SolrDocument doc;
+            while ((doc = docs.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
+                Date date = (Date) doc.getFieldValue(CollectionSchema.load_date_dt.getSolrFieldName());
+                if (!this.knownURLs.restore(rebuild, (String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()), date == null ? -1l : date.getTime())) return; // invalidated again, a new rebuild is pending
+                count++;
+            }
+        } catch (final InterruptedException e) {
+            return;
+        }
+        if (count < sizeAtStart && this.knownURLs.size() < connector.getSize()) {
+            // the document iteration was terminated early; the index is used for the double check until the next rebuild
+            ConcurrentLog.warn("Fulltext", "rebuild of the table of known urls is incomplete: " + count + " of " + sizeAtStart + " documents");
+            return;
+        }
+        if (this.knownURLs.finishRebuild(rebuild)) {
+            ConcurrentLog.info("Fulltext", "rebuilt the table of known urls from " + count + " documents in " + (System.currentTimeMillis() - start) / 1000 + " seconds");
+        }
+    }
+
+    private static long loadTime(final SolrInputDocument doc) {
+        Object date = doc.getFieldValue(CollectionSchema.load_date_dt.getSolrFieldName());
+        return date instanceof Date ? ((Date) date).getTime() : -1l;
     }
 
     public void disconnectLocalSolr() {
@@ -262,6 +365,7 @@ public final class Fulltext {
                     this.solrInstances.getEmbeddedConnector(name).clear();
                 }
                 this.commit(false);
+                this.knownURLs.clear();
             }
             this.solrInstances.clearCaches();
         } finally {
@@ -309,6 +413,15 @@ public final class Fulltext {
     }
 
     public void close() {
+        try {
+            EmbeddedSolrConnector connector = this.getDefaultEmbeddedConnector();
+            if (connector != null && this.knownURLs.isComplete()) {
+                connector.commit(false);
+                this.knownURLs.save(new File(this.segmentPath, KNOWN_URLS_FILE), connector.getSize());
+            }
+        } catch (Throwable e) {
+            ConcurrentLog.logException(e);
+        }
         try {
             this.solrInstances.close();
         } catch (Throwable e) {
@@ -378,6 +491,28 @@ public final class Fulltext {
         } catch (final SolrException e) {
             throw new IOException(e.getMessage(), e);
         }
+        this.knownURLs.put(id, loadTime(doc));
+        if (MemoryControl.shortStatus()) clearCaches();
+    }
+
+    /**
+     * write a batch of documents with one update call
+     * @param docs
+     * @throws IOException
+     */
+    public void putDocuments(final Collection<SolrInputDocument> docs) throws IOException {
+        if (docs == null || docs.size() == 0) return;
+        SolrConnector connector = this.getDefaultConnector();
+        if (connector == null) return;
+        ConcurrentLog.fine("Fulltext", "indexing " + docs.size() + " documents");
+        try {
+            connector.add(docs);
+        } catch (final SolrException e) {
+            throw new IOException(e.getMessage(), e);
+        }
+        for (SolrInputDocument doc: docs) {
+            this.knownURLs.put((String) doc.getFieldValue(CollectionSchema.id.getSolrFieldName()), loadTime(doc));
+        }
         if (MemoryControl.shortStatus()) clearCaches();
     }
 
@@ -442,6 +577,7 @@ public final class Fulltext {
         if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_id_s.getSolrFieldName(), hosthashes,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
+        if (hosthashes != null && hosthashes.size() > 0) invalidateKnownURLs();
     }
 
     public void deleteStaleDomainNames(final Set<String> hostnames, Date freshdate) {
@@ -453,6 +589,7 @@ public final class Fulltext {
         if (this.writeWebgraph) deleteDomainWithConstraint(this.getWebgraphConnector(), WebgraphSchema.source_host_s.getSolrFieldName(), hostnames,
                 (freshdate == null || freshdate.after(now)) ? null :
                 (WebgraphSchema.load_date_dt.getSolrFieldName() + ":[* TO " + ISO8601Formatter.FORMATTER.format(freshdate) + "]"));
+        if (hostnames != null && hostnames.size() > 0) invalidateKnownURLs();
     }
     
     /**
@@ -461,6 +598,7 @@ public final class Fulltext {
      */
     public void deleteDomainErrors(final Set<String> hosthashes) {
         deleteDomainWithConstraint(this.getDefaultConnector(), CollectionSchema.host_id_s.getSolrFieldName(), hosthashes, CollectionSchema.failreason_s.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM);
+        if (hosthashes != null && hosthashes.size() > 0) invalidateKnownURLs();
     }
     
     private static void deleteDomainWithConstraint(SolrConnector connector, String fieldname, final Set<String> hosthashes, String constraintQuery) {
@@ -494,6 +632,7 @@ public final class Fulltext {
             if (this.getWebgraphConnector() != null) this.getWebgraphConnector().deleteByQuery(webgraphQuery);
         } catch (final IOException e) {
         }
+        invalidateKnownURLs();
     }
     
     
@@ -534,6 +673,7 @@ public final class Fulltext {
         if (deleteIDs == null || deleteIDs.size() == 0) return;
         try {
             this.getDefaultConnector().deleteByIds(deleteIDs);
+            for (String id : deleteIDs) this.knownURLs.remove(id);
             if (this.writeWebgraph) { // Webgraph.id is combination of sourceHash+targetHash+hexCounter, to be successful use source_id_s and/or target_id_s
                 for (String id : deleteIDs) {
                 	/* Add quotes around the url hash to prevent Solr logging a ParseException stack trace when the hash start with a '-' character */
@@ -556,6 +696,7 @@ public final class Fulltext {
         try {
             String id = ASCII.String(urlHash);
             this.getDefaultConnector().deleteById(id);
+            this.knownURLs.remove(id);
             if (this.writeWebgraph) { // Webgraph.id is combination of sourceHash+targetHash+hexCounter, to be successful use source_id_s and/or target_id_s
             	/* Add quotes around the url hash to prevent Solr logging a ParseException stack trace when the hash start with a '-' character */
                 this.getWebgraphConnector().deleteByQuery(WebgraphSchema.source_id_s + ":\"" + id + "\"");
@@ -575,12 +716,16 @@ public final class Fulltext {
     }
     
     /**
-     * get the load time of a resource.
+     * get the load time of a resource. If only the embedded index is used, the time is taken from the table of known urls
+     * without a Solr query; it is truncated to seconds then.
      * @param urlHash
      * @return the time in milliseconds since epoch for the load time or -1 if the document does not exist
      */
     public long getLoadTime(final String urlHash) throws IOException {
         if (urlHash == null) return -1l;
+        if (this.knownURLs.isComplete() && !this.solrInstances.isConnectedRemote() && this.collectionConfiguration.contains(CollectionSchema.load_date_dt)) {
+            return this.knownURLs.getLoadTime(urlHash);
+        }
         SolrConnector.LoadTimeURL md = this.getDefaultConnector().getLoadTimeURL(urlHash);
         if (md == null) return -1l;
         return md.date;
@@ -653,6 +798,7 @@ public final class Fulltext {
         final File storagePath = esc.getContainerPath();
     	this.solrInstancesLock.lock();
         try {
+            this.knownURLs.invalidate(); // rebuilt when the restored index is connected
             // this.disconnectLocalSolr(); // moved to (InstanceMirror) sorlInstances.close()
             this.solrInstances.close();
             try {
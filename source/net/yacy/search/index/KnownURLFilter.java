@@ -0,0 +1,328 @@
+// KnownURLFilter.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.index;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashSet;
+import java.util.Set;
+
+import net.yacy.cora.document.encoding.ASCII;
+
+/**
+ * An in-memory table of the url hashes in the fulltext index together with their load date, so that the
+ * crawler can decide whether an url is known without a Solr query. The url hashes are stored as 64 bit
+ * fingerprints in an open addressing hash table; the load date is stored with a resolution of seconds.
+ * A false positive needs a fingerprint collision and is therefore negligible, so the answers of a complete
+ * table can replace the index lookup in both directions.
+ *
+ * The table is complete only if it was filled from the index (see {@link #startRebuild()}) or loaded from a
+ * file which was written at shutdown, and if all changes of the index were registered afterwards. Callers
+ * must check {@link #isComplete()} and use the index otherwise.
+ */
+public class KnownURLFilter {
+
+    private static final int MAGIC = 0x4b55524c; // "KURL"
+    private static final int INITIAL_CAPACITY = 1 << 16;
+
+    private long[] keys;
+    private int[] dates;
+    private int size;
+    private volatile boolean complete;
+    private int generation;
+    private Set<Long> removedDuringRebuild;
+
+    public KnownURLFilter() {
+        this.complete = false;
+        this.generation = 0;
+        this.removedDuringRebuild = null;
+        init(INITIAL_CAPACITY);
+    }
+
+    private void init(final int capacity) {
+        this.keys = new long[capacity];
+        this.dates = new int[capacity];
+        this.size = 0;
+    }
+
+    /**
+     * @return true if the table contains all documents of the index, only then the results of {@link #getLoadTime(String)} can be used
+     */
+    public boolean isComplete() {
+        return this.complete;
+    }
+
+    public synchronized int size() {
+        return this.size;
+    }
+
+    /**
+     * get the load time of a document
+     * @param urlhash
+     * @return the load time in milliseconds since epoch (truncated to seconds) or -1 if the url hash is not in the table
+     */
+    public synchronized long getLoadTime(final String urlhash) {
+        final int i = find(key(urlhash));
+        return i < 0 ? -1l : (this.dates[i] & 0xffffffffL) * 1000l;
+    }
+
+    /**
+     * register a document which was written to the index
+     * @param urlhash
+     * @param loadTime the load time in milliseconds since epoch; documents without a load date must be given with -1
+     */
+    public synchronized void put(final String urlhash, final long loadTime) {
+        final long key = key(urlhash);
+        if (loadTime < 0) {
+            delete(key);
+        } else {
+            set(key, (int) (loadTime / 1000l));
+        }
+        if (this.removedDuringRebuild != null) {
+            if (loadTime < 0) this.removedDuringRebuild.add(key); else this.removedDuringRebuild.remove(key);
+        }
+    }
+
+    /**
+     * register a document which was deleted from the index
+     * @param urlhash
+     */
+    public synchronized void remove(final String urlhash) {
+        final long key = key(urlhash);
+        delete(key);
+        if (this.removedDuringRebuild != null) this.removedDuringRebuild.add(key);
+    }
+
+    /**
+     * remove all entries; this is the state of an empty index and the table is complete afterwards
+     */
+    public synchronized void clear() {
+        init(INITIAL_CAPACITY);
+        this.generation++;
+        this.removedDuringRebuild = null;
+        this.complete = true;
+    }
+
+    /**
+     * mark the table as incomplete, i.e. after documents were deleted by a query. The table is complete again
+     * after a rebuild.
+     */
+    public synchronized void invalidate() {
+        init(INITIAL_CAPACITY);
+        this.generation++;
+        this.removedDuringRebuild = null;
+        this.complete = false;
+    }
+
+    /**
+     * start to fill the table with all documents of the index. Changes which are registered while the
+     * documents are read are kept: documents removed in between are not added again and newer load dates
+     * are not overwritten by older ones. A rebuild which is running is aborted.
+     * @return a token which must be given to {@link #restore(int, String, long)} and {@link #finishRebuild(int)}
+     */
+    public synchronized int startRebuild() {
+        init(INITIAL_CAPACITY);
+        this.complete = false;
+        this.removedDuringRebuild = new HashSet<Long>();
+        return ++this.generation;
+    }
+
+    /**
+     * add a document which was read from the index during a rebuild
+     * @param rebuild the token of the rebuild
+     * @param urlhash
+     * @param loadTime the load time in milliseconds since epoch
+     * @return false if the rebuild was aborted and should be terminated
+     */
+    public synchronized boolean restore(final int rebuild, final String urlhash, final long loadTime) {
+        if (rebuild != this.generation || this.removedDuringRebuild == null) return false;
+        if (loadTime < 0) return true;
+        final long key = key(urlhash);
+        if (this.removedDuringRebuild.contains(key)) return true;
+        final int date = (int) (loadTime / 1000l);
+        final int i = find(key);
+        if (i < 0 || Integer.compareUnsigned(this.dates[i], date) < 0) set(key, date);
+        return true;
+    }
+
+    /**
+     * finish a rebuild; the table is complete afterwards
+     * @param rebuild the token of the rebuild
+     * @return false if the rebuild was aborted in between
+     */
+    public synchronized boolean finishRebuild(final int rebuild) {
+        if (rebuild != this.generation || this.removedDuringRebuild == null) return false;
+        this.removedDuringRebuild = null;
+        this.complete = true;
+        return true;
+    }
+
+    /**
+     * write a complete table to a file
+     * @param file
+     * @param indexSize the number of documents in the index, used to check the consistency when the file is loaded
+     * @throws IOException
+     */
+    public synchronized void save(final File file, final long indexSize) throws IOException {
+        if (!this.complete) return;
+        final File tmp = new File(file.getParentFile(), file.getName() + ".tmp");
+        final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+        try {
+            out.writeInt(MAGIC);
+            out.writeLong(indexSize);
+            out.writeInt(this.size);
+            for (int i = 0; i < this.keys.length; i++) {
+                if (this.keys[i] == 0) continue;
+                out.writeLong(this.keys[i]);
+                out.writeInt(this.dates[i]);
+            }
+        } finally {
+            out.close();
+        }
+        if (file.exists()) file.delete();
+        if (!tmp.renameTo(file)) throw new IOException("cannot rename " + tmp + " to " + file);
+    }
+
+    /**
+     * read a table from a file which was written with {@link #save(File, long)}. The file is deleted afterwards so
+     * that a table is never used twice: after a crash there is no file and the table must be rebuilt.
+     * The table is not complete after loading, the caller must compare the index size and call {@link #loaded()}.
+     * @param file
+     * @return the number of documents in the index when the file was written or -1 if no table was loaded
+     */
+    public synchronized long load(final File file) {
+        if (!file.exists()) return -1l;
+        init(INITIAL_CAPACITY);
+        long indexSize = -1l;
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), 65536));
+            try {
+                if (in.readInt() != MAGIC) throw new IOException("wrong file format");
+                final long storedSize = in.readLong();
+                final int count = in.readInt();
+                int capacity = INITIAL_CAPACITY;
+                while (capacity * 3 / 4 < count) capacity <<= 1;
+                init(capacity);
+                for (int i = 0; i < count; i++) {
+                    final long key = in.readLong();
+                    set(key == 0 ? 1 : key, in.readInt());
+                }
+                indexSize = storedSize;
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            init(INITIAL_CAPACITY);
+            indexSize = -1l;
+        }
+        file.delete();
+        return indexSize;
+    }
+
+    /**
+     * mark a table which was loaded with {@link #load(File)} as complete
+     */
+    public synchronized void loaded() {
+        this.removedDuringRebuild = null;
+        this.complete = true;
+    }
+
+    private static long key(final String urlhash) {
+        // FNV-1a over the url hash characters, then a murmur3 finalizer to spread the bits
+        long h = 0xcbf29ce484222325L;
+        final byte[] b = ASCII.getBytes(urlhash);
+        for (int i = 0; i < b.length; i++) {
+            h ^= b[i];
+            h *= 0x100000001b3L;
+        }
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h == 0 ? 1 : h; // 0 marks an empty slot
+    }
+
+    private int find(final long key) {
+        final int mask = this.keys.length - 1;
+        int i = (int) key & mask;
+        while (this.keys[i] != 0) {
+            if (this.keys[i] == key) return i;
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void set(final long key, final int date) {
+        if ((this.size + 1) * 4 > this.keys.length * 3) grow();
+        final int mask = this.keys.length - 1;
+        int i = (int) key & mask;
+        while (this.keys[i] != 0) {
+            if (this.keys[i] == key) {
+                this.dates[i] = date;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        this.keys[i] = key;
+        this.dates[i] = date;
+        this.size++;
+    }
+
+    private void delete(final long key) {
+        int i = find(key);
+        if (i < 0) return;
+        final int mask = this.keys.length - 1;
+        // backward shift deletion: move following entries of the probe sequence into the gap
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (this.keys[j] == 0) break;
+            final int home = (int) this.keys[j] & mask;
+            // the entry at j can fill the gap at i if its home slot is not within (i, j]
+            if (i <= j ? (home <= i || home > j) : (home <= i && home > j)) {
+                this.keys[i] = this.keys[j];
+                this.dates[i] = this.dates[j];
+                i = j;
+            }
+        }
+        this.keys[i] = 0;
+        this.dates[i] = 0;
+        this.size--;
+    }
+
+    private void grow() {
+        final long[] oldKeys = this.keys;
+        final int[] oldDates = this.dates;
+        init(oldKeys.length << 1);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) set(oldKeys[i], oldDates[i]);
+        }
+    }
+}
@@ -125,6 +125,9 @@ public class Segment {
     protected       IndexCell<CitationReference>   urlCitationIndex;
     protected       IndexTable                     firstSeenIndex;
     protected       IODispatcher                   merger = null; // shared iodispatcher for kelondro indexes
+    private         boolean                        offHeapRWI = false, offHeapCitation = false; // store the BLOB indexes outside of the java heap
+    private         int                            mergeThreads = 1, mergeTierThreshold = 0; // merge pipeline of the shared iodispatcher
+    private         long                           mergeBandwidth = 0; // maximum bytes per second read by merges, 0 = unlimited
 
     /**
      * create a new Segment
@@ -145,6 +148,44 @@ public class Segment {
         this.firstSeenIndex = new IndexTable(new File(segmentPath, firstseenIndexName), 12, 8, false, false);
     }
     
+    /**
+     * select if the BLOB indexes of the term index and the citation index are held in direct memory
+     * outside of the java heap. This takes effect the next time the indexes are connected.
+     * @param rwi for the term index
+     * @param citation for the citation index
+     */
+    public void setOffHeapIndex(final boolean rwi, final boolean citation) {
+        this.offHeapRWI = rwi;
+        this.offHeapCitation = citation;
+    }
+
+    /**
+     * configure the merge pipeline of the iodispatcher which is shared by the term index and the citation index.
+     * This takes effect the next time the dispatcher is started.
+     * @param threads the number of merges of different index cells that may run concurrently
+     * @param bandwidth the maximum number of bytes per second which are read by merges, 0 for no limit
+     * @param tierThreshold the number of files of similar size which trigger a size-tiered merge, 0 to merge best matching pairs
+     */
+    public void setMergeOptions(final int threads, final long bandwidth, final int tierThreshold) {
+        this.mergeThreads = Math.max(1, threads);
+        this.mergeBandwidth = bandwidth;
+        this.mergeTierThreshold = tierThreshold;
+    }
+
+    /**
+     * @return the shared iodispatcher of the kelondro indexes or null if no index is connected
+     */
+    public IODispatcher merger() {
+        return this.merger;
+    }
+
+    private synchronized void startMerger() {
+        if (this.merger == null) { // init shared iodispatcher if none running
+            this.merger = new IODispatcher(2, 4 * this.mergeThreads, writeBufferSize, this.mergeThreads, this.mergeBandwidth, this.mergeTierThreshold);
+            this.merger.start();
+        }
+    }
+
     public boolean connectedRWI() {
         return this.termIndex != null;
     }
@@ -152,10 +193,7 @@ public class Segment {
     public void connectRWI(final int entityCacheMaxSize, final long maxFileSize) throws IOException {
         if (this.termIndex != null) return;
         
-        if (this.merger == null) { // init shared iodispatcher if none running
-            this.merger = new IODispatcher(2, 2, writeBufferSize);
-            this.merger.start();
-        }
+        startMerger();
         this.termIndex = new IndexCell<WordReference>(
                         new File(this.segmentPath, "default"),
                         termIndexName,
@@ -166,7 +204,37 @@ public class Segment {
                         targetFileSize,
                         maxFileSize,
                         writeBufferSize,
-                        merger);
+                        merger,
+                        this.offHeapRWI);
+    }
+
+    /**
+     * connect the RWI and the citation index at the same time, so that the BLOB files of both are opened in parallel
+     * @param rwi if true, the RWI index is connected
+     * @param citation if true, the citation index is connected
+     * @param entityCacheMaxSize
+     * @param maxFileSize
+     * @throws IOException if one of the indexes cannot be connected
+     */
+    public void connectRWIAndCitation(final boolean rwi, final boolean citation, final int entityCacheMaxSize, final long maxFileSize) throws IOException {
+        final IOException[] citationException = new IOException[1];
+        final Thread citationConnector = new Thread("Segment.connectCitation") {
+            @Override
+            public void run() {
+                try {
+                    connectCitation(entityCacheMaxSize, maxFileSize);
+                } catch (final IOException e) {
+                    citationException[0] = e;
+                }
+            }
+        };
+        if (citation) citationConnector.start();
+        try {
+            if (rwi) connectRWI(entityCacheMaxSize, maxFileSize);
+        } finally {
+            try {citationConnector.join();} catch (final InterruptedException e) {}
+        }
+        if (citationException[0] != null) throw citationException[0];
     }
 
     public void disconnectRWI() {
@@ -182,10 +250,7 @@ public class Segment {
     public void connectCitation(final int entityCacheMaxSize, final long maxFileSize) throws IOException {
         if (this.urlCitationIndex != null) return;
 
-        if (this.merger == null) { // init shared iodispatcher if none running
-            this.merger = new IODispatcher(2,2,writeBufferSize);
-            this.merger.start();
-        }
+        startMerger();
         this.urlCitationIndex = new IndexCell<CitationReference>(
                         new File(this.segmentPath, "default"),
                         citationIndexName,
@@ -196,7 +261,8 @@ public class Segment {
                         targetFileSize,
                         maxFileSize,
                         writeBufferSize,
-                        merger);
+                        merger,
+                        this.offHeapCitation);
     }
 
     public void disconnectCitation() {
@@ -559,6 +625,18 @@ public class Segment {
         }
     }
 
+    /**
+     * write a batch of documents to the fulltext index with one update call
+     * @param docs
+     */
+    public void putDocuments(final Collection<SolrInputDocument> docs) {
+        try {
+            this.fulltext().putDocuments(docs);
+        } catch (final IOException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
     public SolrInputDocument storeDocument(
             final DigestURL url,
             final DigestURL referrerURL,
@@ -41,10 +41,8 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.TreeMap;
-import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Semaphore;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
@@ -103,6 +101,7 @@ import net.yacy.search.SwitchboardConstants;
 import net.yacy.search.index.Segment;
 import net.yacy.search.navigator.Navigator;
 import net.yacy.search.navigator.NavigatorPlugins;
+import net.yacy.search.ranking.ReferenceColumns;
 import net.yacy.search.ranking.ReferenceOrder;
 import net.yacy.search.schema.CollectionConfiguration;
 import net.yacy.search.schema.CollectionSchema;
@@ -141,15 +140,15 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     final WorkTables workTables;
     public final SecondarySearchSuperviser secondarySearchSuperviser;
     public final List<RemoteSearch> primarySearchThreadsL;
-    public final List<Thread> nodeSearchThreads;
-    public Thread[] secondarySearchThreads;
+    public final List<SearchTask> nodeSearchThreads;
+    public SearchTask[] secondarySearchThreads;
     public final SortedSet<byte[]> preselectedPeerHashes;
     private final SortedMap<byte[], Integer> IACount;
     private final SortedMap<byte[], String> IAResults;
     private final SortedMap<byte[], HeuristicResult> heuristics;
     private byte[] IAmaxcounthash, IAneardhthash;
-    public Thread rwiProcess;
-    public Thread localsolrsearch;
+    public SearchTask rwiProcess;
+    public SearchTask localsolrsearch;
     
     /** Offset of the next local Solr index request
      * Example : last local request with offset=10 and itemsPerPage=20, sets this attribute to 30. */
@@ -196,7 +195,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     
     /** Maximum size allowed (in kbytes) for a remote document result to be stored to local index */
     private long remoteStoredDocMaxSize;
-    private SortedMap<byte[], ReferenceContainer<WordReference>> localSearchInclusion;
+    private TermSearch<WordReference> localSearch; // the containers of the local search are loaded only if they are needed for the index abstracts
     
     /** reference score computation for the commonSense heuristic */
     private final ScoreMap<String> ref;
@@ -207,7 +206,19 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     
     /** flag counter */
     private final int[] flagcount;
+
+    /** if true, addRWIs stops at the first block of entries which cannot get into the full rwiStack */
+    private final boolean rwiTopK;
     private final AtomicInteger feedersAlive, feedersTerminated, snippetFetchAlive;
+    
+    /** generation counter of the feed signal, increased whenever new entries may be available for the result list */
+    private final AtomicLong feedGeneration = new AtomicLong();
+    
+    /** the number of threads waiting for the feed signal; the monitor is only notified if this is greater than zero */
+    private final AtomicInteger feedWaiters = new AtomicInteger();
+    
+    /** the maximum time to wait for a feed signal before the stacks are checked again */
+    private static final long MAX_FEED_WAIT = 100;
     private boolean addRunning;
     private final AtomicInteger receivedRemoteReferences;
     private final ReferenceOrder order;
@@ -352,6 +363,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         this.maxExpectedRemoteReferences = new AtomicInteger(0);
         this.expectedRemoteReferences = new AtomicInteger(0);
         this.excludeintext_image = Switchboard.getSwitchboard().getConfigBool("search.excludeintext.image", true);
+        this.rwiTopK = Switchboard.getSwitchboard().getConfigBool(SwitchboardConstants.SEARCH_RWI_TOPK, SwitchboardConstants.SEARCH_RWI_TOPK_DEFAULT);
         // prepare configured search navigation
         final String navcfg = Switchboard.getSwitchboard().getConfig("search.navigation", "");
         this.locationNavigator = navcfg.contains("location") ? new ConcurrentScoreMap<String>(this) : null;
@@ -400,7 +412,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         // we collect the urlhashes and construct a list with urlEntry objects
         // attention: if minEntries is too high, this method will not terminate within the maxTime
         // sortorder: 0 = hash, 1 = url, 2 = ranking
-        this.localSearchInclusion = null;
+        this.localSearch = null;
         this.ref = new ConcurrentScoreMap<String>(this);
         this.maxtime = query.maxtime;
         this.rwiStack = new WeakPriorityBlockingQueue<WordReferenceVars>(max_results_rwi, false);
@@ -447,11 +459,11 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 this.nodeSearchThreads = null;
             } else {
                 this.primarySearchThreadsL = new ArrayList<RemoteSearch>();
-                this.nodeSearchThreads = new ArrayList<Thread>();
+                this.nodeSearchThreads = new ArrayList<SearchTask>();
                 // start this concurrently because the remote search needs an enumeration
                 // of the remote peers which may block in some cases when i.e. DHT is active
                 // at the same time.
-                new Thread("SearchEvent.primaryRemoteSearches") {
+                new SearchTask(this, "SearchEvent.primaryRemoteSearches") {
                     @Override
                     public void run() {
                         RemoteSearch.primaryRemoteSearches(
@@ -566,12 +578,12 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     /**
      * A concurrent task to perform the current search query on the local RWI.
      */
-    private class RWIProcess extends Thread {
+    private class RWIProcess extends SearchTask {
     
-        final Thread waitForThread;
+        final SearchTask waitForThread;
         
-        public RWIProcess(final Thread waitForThread) {
-            super("SearchEvent.RWIProcess(" + (waitForThread != null ? waitForThread.getName() : "") + ")");
+        public RWIProcess(final SearchTask waitForThread) {
+            super(SearchEvent.this, "SearchEvent.RWIProcess(" + (waitForThread != null ? waitForThread.getName() : "") + ")");
             this.waitForThread = waitForThread;
         }
         
@@ -600,7 +612,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                             null,
                             Segment.wordReferenceFactory,
                             SearchEvent.this.query.maxDistance);
-                SearchEvent.this.localSearchInclusion = search.inclusion();
+                SearchEvent.this.localSearch = search;
                 ReferenceContainer<WordReference> index = search.joined();
                 if ( !index.isEmpty() ) {
                     // in case that another thread has priority for their results, wait until this is finished
@@ -626,7 +638,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                                         null,
                                         Segment.wordReferenceFactory,
                                         SearchEvent.this.query.maxDistance);
-                        SearchEvent.this.localSearchInclusion = search.inclusion();
+                        SearchEvent.this.localSearch = search;
                         index = search.joined();
                         if (!index.isEmpty()) {
                             successcount = addRWIs(index, true, "local index: " + SearchEvent.this.query.getSegment().getLocation(), index.size(), SearchEvent.this.maxtime);
@@ -674,8 +686,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         }
         long timer = System.currentTimeMillis();
 
-        // normalize entries
-        final BlockingQueue<WordReferenceVars> decodedEntries = this.order.normalizeWith(index, maxtime, local);
+        // normalize entries and compute their ranking
+        final ReferenceColumns normalized = this.order.normalizeColumns(index, local);
         int is = index.size();
         EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(
             this.query.id(true),
@@ -698,26 +710,39 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             if (this.query.modifier.sitehost != null && this.query.modifier.sitehost.length() > 0) try {
                 acceptableAlternativeSitehash = DigestURL.hosthash(this.query.modifier.sitehost.startsWith("www.") ? this.query.modifier.sitehost.substring(4) : "www." + this.query.modifier.sitehost, 80);
             } catch (MalformedURLException e1) {}
-            pollloop: while ( true ) {
+            // visit the blocks of entries with the best ranking first; in top-k mode stop at the first block
+            // whose best entry would not get into the full stack
+            final boolean topk = this.rwiTopK && unconstrainedRWI();
+            final int[] blocks = normalized.blocksByBound();
+            int b = 0, end = 0;
+            entryloop: for (int i = 0; ; i++) {
+                if (i >= end) {
+                    if (b >= blocks.length) break;
+                    if (topk && this.rwiStack.sizeQueue() >= max_results_rwi) {
+                        final Element<WordReferenceVars> worst = this.rwiStack.getLastInQueue();
+                        if (worst != null && normalized.bound(blocks[b]) < worst.getWeight()) {
+                            final int skipped = skipRWIs(normalized, blocks, b, local);
+                            if (log.isFine()) log.fine("skipped " + skipped + " RWIs below the ranking of the stack");
+                            successcounter += skipped;
+                            break;
+                        }
+                    }
+                    i = blocks[b] * ReferenceColumns.BLOCK_SIZE;
+                    end = Math.min(normalized.size(), i + ReferenceColumns.BLOCK_SIZE);
+                    b++;
+                }
                 remaining = timeout - System.currentTimeMillis();
                 if (remaining <= 0) {
-                    ConcurrentLog.warn("SearchEvent", "terminated 'add' loop before poll time-out = " + remaining + ", decodedEntries.size = " + decodedEntries.size());
+                    ConcurrentLog.warn("SearchEvent", "terminated 'add' loop at time-out = " + remaining + ", remaining blocks = " + (blocks.length - b));
                     break;
                 }
-                iEntry = decodedEntries.poll(remaining, TimeUnit.MILLISECONDS);
-                if (iEntry == null) {
-                    ConcurrentLog.warn("SearchEvent", "terminated 'add' loop after poll time-out = " + remaining + ", decodedEntries.size = " + decodedEntries.size());
-                    break pollloop;
-                }
-                if (iEntry == WordReferenceVars.poison) {
-                    break pollloop;
-                }
+                iEntry = normalized.get(i);
                 assert (iEntry.urlhash().length == index.row().primaryKeyLength);
 
                 // doublecheck for urls
                 if (this.urlhashes.has(iEntry.urlhash())) {
                     if (log.isFine()) log.fine("dropped RWI: doublecheck");
-                    continue pollloop;
+                    continue entryloop;
                 }
                 
                 // increase flag counts
@@ -729,7 +754,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 // check constraints
                 if (!this.testFlags(flags)) {
                     if (log.isFine()) log.fine("dropped RWI: flag test failed");
-                    continue pollloop;
+                    continue entryloop;
                 }
 
                 // check document domain
@@ -752,7 +777,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 		if (log.isFine()) {
                 			log.fine("dropped RWI: contentdom fail");
                 		}
-                		continue pollloop;
+                		continue entryloop;
                 	}
                 }
                 
@@ -762,7 +787,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 	if (log.isFine()) {
                 		log.fine("dropped RWI: language constraint = " + this.query.modifier.language);
                 	}
-                	continue pollloop;
+                	continue entryloop;
                 }
                 
                 // count domZones
@@ -773,28 +798,20 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 if ( this.query.modifier.sitehash == null ) {
                     if (this.query.siteexcludes != null && this.query.siteexcludes.contains(hosthash)) {
                         if (log.isFine()) log.fine("dropped RWI: siteexcludes");
-                        continue pollloop;
+                        continue entryloop;
                     }
                 } else {
                     // filter out all domains that do not match with the site constraint
                     if (!hosthash.equals(this.query.modifier.sitehash) && (acceptableAlternativeSitehash == null || !hosthash.equals(acceptableAlternativeSitehash))) {
                         if (log.isFine()) log.fine("dropped RWI: modifier.sitehash");
-                        continue pollloop;
+                        continue entryloop;
                     }
                 }
 
                 // finally extend the double-check and insert result to stack
                 this.urlhashes.putUnique(iEntry.urlhash());
-                rankingtryloop: while (true) {
-                    try {
-                        this.rwiStack.put(new ReverseElement<WordReferenceVars>(iEntry, this.order.cardinal(iEntry))); // inserts the element and removes the worst (which is smallest)
-                        break rankingtryloop;
-                    } catch (final ArithmeticException e ) {
-                        // this may happen if the concurrent normalizer changes values during cardinal computation
-                        if (log.isFine()) log.fine("dropped RWI: arithmetic exception");
-                        continue rankingtryloop;
-                    }
-                }
+                this.rwiStack.put(new ReverseElement<WordReferenceVars>(iEntry, normalized.cardinal(i))); // inserts the element and removes the worst (which is smallest)
+                if (successcounter == 0) this.signalFeed(); // wake up waiting result readers as soon as the first entry is available
                 // increase counter for statistics
                 if (local) this.local_rwi_available.incrementAndGet(); else this.remote_rwi_available.incrementAndGet();
                 
@@ -802,7 +819,6 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             }
             if (System.currentTimeMillis() >= timeout) ConcurrentLog.warn("SearchEvent", "rwi normalization ended with timeout = " + maxtime);
 
-        } catch (final InterruptedException e ) {
         } catch (final SpaceExceededException e ) {
         }
 
@@ -813,9 +829,48 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             resourceName,
             index.size(),
             System.currentTimeMillis() - timer), false);
+        if (successcounter > 0) this.signalFeed();
         return successcounter;
     }
     
+    /**
+     * @return true if every RWI which is not a double passes the constraints of the query
+     */
+    private boolean unconstrainedRWI() {
+        if (this.query.constraint != null) {
+            if (!this.query.allofconstraint) return false;
+            for (int i = 0; i < 32; i++) if (this.query.constraint.get(i)) return false;
+        }
+        return this.query.contentdom.getCode() <= 0 &&
+               (this.query.modifier.language == null || this.query.modifier.language.isEmpty()) &&
+               this.query.modifier.sitehash == null && this.query.siteexcludes == null;
+    }
+
+    /**
+     * count the entries of the blocks which are skipped by the top-k selection of addRWIs. These entries pass all
+     * constraints of the query, but they have a lower ranking than all entries of the stack.
+     * @param normalized the ranked entries
+     * @param blocks the blocks in the order of their bound
+     * @param first the position of the first skipped block in blocks
+     * @param local true if the entries are from the local index
+     * @return the number of skipped entries
+     */
+    private int skipRWIs(final ReferenceColumns normalized, final int[] blocks, final int first, final boolean local) {
+        int skipped = 0;
+        for (int b = first; b < blocks.length; b++) {
+            final int end = Math.min(normalized.size(), (blocks[b] + 1) * ReferenceColumns.BLOCK_SIZE);
+            for (int i = blocks[b] * ReferenceColumns.BLOCK_SIZE; i < end; i++) {
+                final int flags = normalized.flags(i);
+                if (flags != 0) for (int j = 0; j < 32; j++) {
+                    if ((flags & (1 << j)) != 0) this.flagcount[j]++;
+                }
+                skipped++;
+            }
+        }
+        if (local) this.local_rwi_available.addAndGet(skipped); else this.remote_rwi_available.addAndGet(skipped);
+        return skipped;
+    }
+
     public long getEventTime() {
         return this.eventTime;
     }
@@ -826,31 +881,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
 
     protected void cleanup() {
 
-        // stop all threads
-        if (this.localsolrsearch != null) {
-            if (localsolrsearch.isAlive()) synchronized (this.localsolrsearch) {this.localsolrsearch.interrupt();}
-        }
-        if (this.nodeSearchThreads != null) {
-            for (final Thread search : this.nodeSearchThreads) {
-                if (search != null) {
-                    synchronized (search) {if (search.isAlive()) {search.interrupt();}}
-                }
-            }
-        }
-        if (this.primarySearchThreadsL != null) {
-            for (final RemoteSearch search : this.primarySearchThreadsL) {
-                if (search != null) {
-                    synchronized (search) {if (search.isAlive()) {search.interrupt();}}
-                }
-            }
-        }
-        if (this.secondarySearchThreads != null) {
-            for (final Thread search : this.secondarySearchThreads ) {
-                if (search != null) {
-                    synchronized (search) {if (search.isAlive()) {search.interrupt();}}
-                }
-            }
-        }
+        // stop all tasks: waiting tasks are dropped, running tasks are interrupted
+        SearchExecutor.cancel(this);
 
         // clear all data structures
         if (this.preselectedPeerHashes != null) this.preselectedPeerHashes.clear();
@@ -890,7 +922,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         return this.primarySearchThreadsL;
     }
 
-    public Thread[] getSecondarySearchThreads() {
+    public SearchTask[] getSecondarySearchThreads() {
         return this.secondarySearchThreads;
     }
 
@@ -1102,6 +1134,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
             }
         } catch (final SpaceExceededException e ) {
         }
+        this.signalFeed();
         EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.PRESORT, resourceName, nodeList.size(), System.currentTimeMillis() - timer), false);
     }
 
@@ -1838,7 +1871,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                 success = true;
             }
         } else {
-            Thread t = new Thread("SearchEvent.drainStacksToResult.oneFilteredFromRWI") {
+            final SearchTask t = new SearchTask(this, "SearchEvent.drainStacksToResult.oneFilteredFromRWI") {
                 @Override
                 public void run() {
                     SearchEvent.this.oneFeederStarted();
@@ -1900,7 +1933,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
                     success = true;
                 } else {
 
-                    new Thread("SearchEvent.drainStacksToResult.getSnippet") {
+                    new SearchTask(this, "SearchEvent.drainStacksToResult.getSnippet") {
                         @Override
                         public void run() {
                             SearchEvent.this.oneFeederStarted();
@@ -1939,6 +1972,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         this.resultList.put(new ReverseElement<URIMetadataNode>(resultEntry, ranking)); // remove smallest in case of overflow
         if (pollImmediately) this.resultList.poll(); // prevent re-ranking in case there is only a single index source which has already ranked entries.
         this.addTopics(resultEntry);
+        this.signalFeed();
     }
 
     private long postRanking(final URIMetadataNode rentry, final ScoreMap<String> topwords) {
@@ -2065,20 +2099,22 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     public URIMetadataNode oneResult(final int item, final long timeout) {
         // check if we already retrieved this item
         // (happens if a search pages is accessed a second time)
-        final long finishTime = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + timeout;
+        final long startTime = System.currentTimeMillis();
+        final long finishTime = timeout == Long.MAX_VALUE ? Long.MAX_VALUE : startTime + timeout;
         EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.ONERESULT, "started, item = " + item + ", available = " + this.getResultCount(), 0, 0), false);
 		
         // wait until a local solr is finished, we must do that to be able to check if we need more
-		if (this.localsolrsearch != null && this.localsolrsearch.isAlive()) {
+		if (this.localsolrsearch != null && this.localsolrsearch.isAlive() && (!this.remote || this.resultList.sizeAvailable() <= item)) {
 			try {
-				this.localsolrsearch.join(100);
+				this.localsolrsearch.join(Math.max(1, Math.min(100, finishTime - System.currentTimeMillis())));
 			} catch (final InterruptedException e) {
 				log.warn("Wait for local solr search was interrupted.");
 			}
 		}
 		if (item >= this.localsolroffset && this.local_solr_stored.get() == 0 && (this.localsolrsearch != null && this.localsolrsearch.isAlive())) {
 			try {
-				this.localsolrsearch.join();
+				// join() returns when the thread terminates; the timeout bounds the waiting time in case that solr hangs
+				if (finishTime == Long.MAX_VALUE) this.localsolrsearch.join(); else this.localsolrsearch.join(Math.max(1, finishTime - System.currentTimeMillis()));
 			} catch (final InterruptedException e) {
 				log.warn("Wait for local solr search was interrupted.");
 			}
@@ -2103,8 +2139,12 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         
         // now pull results as long as needed and as long as possible
 		if (this.remote && item < 10 && this.resultList.sizeAvailable() <= item) {
+			// give remote peers a short time to contribute to the first results, but stop waiting when all feeders are finished
+			final long remoteWaitTime = Math.min(System.currentTimeMillis() + 100, finishTime);
 			try {
-				Thread.sleep(100);
+				while (!this.isFeedingFinished() && System.currentTimeMillis() < remoteWaitTime) {
+					awaitFeed(this.feedGeneration.get(), remoteWaitTime - System.currentTimeMillis());
+				}
 			} catch (final InterruptedException e) {
 				log.warn("Remote search results wait was interrupted.");
 			}
@@ -2119,9 +2159,13 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         while ( this.resultList.sizeAvailable() <= resultListIndex &&
                 (this.rwiQueueSize() > 0 || this.nodeStack.sizeQueue() > 0 ||
                 (!this.isFeedingFinished() && System.currentTimeMillis() < finishTime))) {
+            // read the generation before draining: a signal which arrives during draining ends the next wait immediately
+            final long generation = this.feedGeneration.get();
 			if (!drainStacksToResult(true)) {
 				try {
-					Thread.sleep(10);
+					// wait for a feeder or a snippet worker; after the timeout only the remaining stack entries are drained in short steps
+					final long remaining = finishTime - System.currentTimeMillis();
+					awaitFeed(generation, remaining > 0 ? Math.min(MAX_FEED_WAIT, remaining) : 10);
 				} catch (final InterruptedException e) {
 					log.warn("Search results wait was interrupted.");
 				}
@@ -2132,7 +2176,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         if (this.resultList.sizeAvailable() > resultListIndex) {
             // we have the wanted result already in the result array .. return that
             final URIMetadataNode re = this.resultList.element(resultListIndex).getElement();
-            EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.ONERESULT, "fetched, item = " + item + ", available = " + this.getResultCount() + ": " + re.urlstring(), 0, 0), false);
+            EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.ONERESULT, "fetched, item = " + item + ", available = " + this.getResultCount() + ": " + re.urlstring(), 0, System.currentTimeMillis() - startTime), false);
             
             /*
             if (this.localsolrsearch == null || (!this.localsolrsearch.isAlive() && this.local_solr_stored.get() > this.localsolroffset && (item + 1) % this.query.itemsPerPage == 0)) {
@@ -2147,10 +2191,49 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         }
 
         // no success
-        EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.ONERESULT, "not found, item = " + item + ", available = " + this.getResultCount(), 0, 0), false);
+        EventTracker.update(EventTracker.EClass.SEARCH, new ProfilingGraph.EventSearch(this.query.id(true), SearchEventType.ONERESULT, "not found, item = " + item + ", available = " + this.getResultCount(), 0, System.currentTimeMillis() - startTime), false);
         return null;
     }
 
+    /**
+     * signal threads waiting in oneResult() that new entries may be available: feeders call this
+     * when they added entries to the stacks, snippet workers when they added an entry to the result list.
+     */
+    public void signalFeed() {
+        this.feedGeneration.incrementAndGet();
+        if (this.feedWaiters.get() > 0) synchronized (this.feedGeneration) {
+            this.feedGeneration.notifyAll();
+        }
+    }
+
+    /**
+     * wait until signalFeed() was called after the given generation was read, or until the time is over
+     * @param generation the value of feedGeneration which was read before the stacks were checked
+     * @param maxwait the maximum waiting time in milliseconds
+     * @return true if a signal arrived, false if the time is over
+     * @throws InterruptedException
+     */
+    private boolean awaitFeed(final long generation, final long maxwait) throws InterruptedException {
+        if (this.feedGeneration.get() != generation) return true;
+        if (maxwait <= 0) return false;
+        final long deadline = System.currentTimeMillis() + maxwait;
+        // the waiter is registered before the generation is checked again, so a signal cannot get lost in between
+        this.feedWaiters.incrementAndGet();
+        try {
+            synchronized (this.feedGeneration) {
+                long wait = maxwait;
+                while (this.feedGeneration.get() == generation) {
+                    if (wait <= 0) return false;
+                    this.feedGeneration.wait(wait);
+                    wait = deadline - System.currentTimeMillis();
+                }
+                return true;
+            }
+        } finally {
+            this.feedWaiters.decrementAndGet();
+        }
+    }
+
     /** Image results counter */
     private int imagePageCounter = 0;
     private LinkedHashMap<String, ImageResult> imageViewed = new LinkedHashMap<String, ImageResult>();
@@ -2388,6 +2471,7 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
         this.feedersTerminated.incrementAndGet();
         final int c = this.feedersAlive.decrementAndGet();
         assert c >= 0 : "feeders = " + c;
+        if (c == 0) this.signalFeed(); // the feeding may be finished now
     }
 
     public void oneFeederStarted() {
@@ -2454,7 +2538,8 @@ public final class SearchEvent implements ScoreMapUpdatesListener {
     protected Map<byte[], ReferenceContainer<WordReference>> searchContainerMap() {
         // direct access to the result maps is needed for abstract generation
         // this is only available if execQuery() was called before
-        return this.localSearchInclusion;
+        final TermSearch<WordReference> search = this.localSearch;
+        return search == null ? null : search.inclusion();
     }
 
     /**
@@ -0,0 +1,224 @@
+// SearchExecutor.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.query;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import net.yacy.kelondro.util.NamePrefixThreadFactory;
+
+/**
+ * The executor for all tasks of search events: local and remote index searches, snippet fetches
+ * and the normalization of search results. All tasks share one pool with a fixed maximum number of threads,
+ * so the number of threads does not grow with the number of concurrent searches.
+ * Each search event has a budget of concurrently executed tasks; further tasks of the same event wait
+ * until one of its tasks is finished, so a single search cannot occupy the whole pool.
+ */
+public class SearchExecutor {
+
+    /** the maximum number of threads executing search tasks */
+    public static int maxThreads = 256;
+
+    /** the maximum number of concurrently executed tasks of one search event */
+    public static int maxTasksPerQuery = 64;
+
+    private static ThreadPoolExecutor pool = null;
+    private static final Map<Object, Budget> budgets = new HashMap<Object, Budget>();
+    private static final AtomicLong submitted = new AtomicLong(0), completed = new AtomicLong(0), cancelled = new AtomicLong(0), helped = new AtomicLong(0);
+    private static int waiting = 0; // number of tasks waiting for the budget of their owner, synchronized by budgets
+
+    /**
+     * the tasks of one owner
+     */
+    private static class Budget {
+        private final Object owner;
+        private final ArrayDeque<SearchTask> waiting = new ArrayDeque<SearchTask>();
+        private final Set<SearchTask> running = new HashSet<SearchTask>();
+        private Budget(final Object owner) {
+            this.owner = owner;
+        }
+    }
+
+    private static synchronized ThreadPoolExecutor pool() {
+        if (pool == null) {
+            final int threads = Math.max(1, maxThreads);
+            pool = new ThreadPoolExecutor(threads, threads, 10, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), new NamePrefixThreadFactory("SearchExecutor"));
+            pool.allowCoreThreadTimeOut(true);
+        }
+        return pool;
+    }
+
+    /**
+     * change the maximum number of threads; this has an effect on a running pool as well
+     * @param threads
+     */
+    public static synchronized void setMaxThreads(final int threads) {
+        maxThreads = Math.max(1, threads);
+        if (pool == null) return;
+        if (maxThreads > pool.getMaximumPoolSize()) {
+            pool.setMaximumPoolSize(maxThreads);
+            pool.setCorePoolSize(maxThreads);
+        } else {
+            pool.setCorePoolSize(maxThreads);
+            pool.setMaximumPoolSize(maxThreads);
+        }
+    }
+
+    static void execute(final SearchTask task) {
+        submitted.incrementAndGet();
+        final Object owner = task.owner();
+        Budget budget = null;
+        if (owner != null) synchronized (budgets) {
+            budget = budgets.get(owner);
+            if (budget == null) {
+                budget = new Budget(owner);
+                budgets.put(owner, budget);
+            }
+            if (budget.running.size() >= Math.max(1, maxTasksPerQuery)) {
+                budget.waiting.add(task);
+                waiting++;
+                return;
+            }
+            budget.running.add(task);
+        }
+        dispatch(task, budget);
+    }
+
+    private static void dispatch(final SearchTask task, final Budget budget) {
+        pool().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    // the task may have been cancelled or taken over by a join() in the meantime
+                    if (task.claim()) task.runClaimed();
+                } finally {
+                    completed.incrementAndGet();
+                    finished(task, budget);
+                }
+            }
+        });
+    }
+
+    private static void finished(final SearchTask task, final Budget budget) {
+        if (budget == null) return;
+        SearchTask next;
+        synchronized (budgets) {
+            budget.running.remove(task);
+            next = budget.waiting.poll();
+            if (next == null) {
+                if (budget.running.isEmpty() && budgets.get(budget.owner) == budget) budgets.remove(budget.owner);
+                return;
+            }
+            waiting--;
+            budget.running.add(next);
+        }
+        dispatch(next, budget);
+    }
+
+    /**
+     * cancel all tasks of an owner: waiting tasks are dropped, running tasks are interrupted
+     * @param owner
+     */
+    public static void cancel(final Object owner) {
+        final List<SearchTask> tasks = new ArrayList<SearchTask>();
+        synchronized (budgets) {
+            final Budget budget = budgets.remove(owner);
+            if (budget == null) return;
+            waiting -= budget.waiting.size();
+            tasks.addAll(budget.waiting);
+            budget.waiting.clear();
+            tasks.addAll(budget.running);
+        }
+        for (final SearchTask task: tasks) task.interrupt();
+    }
+
+    static void cancelled() {
+        cancelled.incrementAndGet();
+    }
+
+    static void helped() {
+        helped.incrementAndGet();
+    }
+
+    /**
+     * @return the number of threads which are currently executing a search task
+     */
+    public static int activeThreads() {
+        final ThreadPoolExecutor p = pool;
+        return p == null ? 0 : p.getActiveCount();
+    }
+
+    /**
+     * @return the number of tasks which wait for a free thread of the pool
+     */
+    public static int queueSize() {
+        final ThreadPoolExecutor p = pool;
+        return p == null ? 0 : p.getQueue().size();
+    }
+
+    /**
+     * @return the number of tasks which wait because the budget of their search event is exhausted
+     */
+    public static int budgetWaiting() {
+        synchronized (budgets) {
+            return waiting;
+        }
+    }
+
+    /**
+     * @return the number of search events with running or waiting tasks
+     */
+    public static int owners() {
+        synchronized (budgets) {
+            return budgets.size();
+        }
+    }
+
+    public static long submittedTasks() {
+        return submitted.get();
+    }
+
+    public static long completedTasks() {
+        return completed.get();
+    }
+
+    public static long cancelledTasks() {
+        return cancelled.get();
+    }
+
+    /**
+     * @return the number of tasks which were executed by a thread which joined them before they got a worker
+     */
+    public static long helpedTasks() {
+        return helped.get();
+    }
+}
@@ -0,0 +1,173 @@
+// SearchTask.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.query;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * A task of a search which is executed by the shared {@link SearchExecutor} instead of an own thread.
+ * The methods start(), isAlive(), join() and interrupt() behave like those of a Thread, so a task
+ * can be used where a search thread was used before:
+ * <ul>
+ * <li>a started task is alive until it is finished, also while it is waiting for a worker</li>
+ * <li>join() without a time-out runs a task which did not get a worker yet in the calling thread;
+ * this prevents that a task which waits for another task blocks a worker which the other task needs</li>
+ * <li>interrupt() cancels a task which is not running yet and interrupts the worker of a running task</li>
+ * </ul>
+ */
+public abstract class SearchTask implements Runnable {
+
+    private static final int CREATED = 0, QUEUED = 1, RUNNING = 2, DONE = 3;
+
+    private final Object owner;
+    private final String name;
+    private final AtomicInteger state;
+    private Thread runner;
+    private boolean interrupted;
+
+    /**
+     * @param owner the object which is charged for the task, normally the search event; tasks of the same owner
+     * share the budget of the owner and are cancelled together. May be null for tasks without a budget.
+     * @param name the name of the task which is shown as name of the worker thread while the task is running
+     */
+    public SearchTask(final Object owner, final String name) {
+        this.owner = owner;
+        this.name = name;
+        this.state = new AtomicInteger(CREATED);
+        this.runner = null;
+        this.interrupted = false;
+    }
+
+    public String getName() {
+        return this.name;
+    }
+
+    protected Object owner() {
+        return this.owner;
+    }
+
+    /**
+     * hand the task over to the search executor
+     * @throws IllegalThreadStateException if the task was already started
+     */
+    public void start() {
+        if (!this.state.compareAndSet(CREATED, QUEUED)) throw new IllegalThreadStateException("task " + this.name + " was already started");
+        SearchExecutor.execute(this);
+    }
+
+    /**
+     * @return true if the task was started and is not finished or cancelled
+     */
+    public boolean isAlive() {
+        final int s = this.state.get();
+        return s == QUEUED || s == RUNNING;
+    }
+
+    /**
+     * wait until the task is finished; a task which is still waiting for a worker is executed in the calling thread
+     * @throws InterruptedException
+     */
+    public void join() throws InterruptedException {
+        if (this.claim()) {
+            SearchExecutor.helped();
+            this.runClaimed();
+            return;
+        }
+        synchronized (this) {
+            while (this.state.get() != DONE && this.state.get() != CREATED) this.wait();
+        }
+    }
+
+    /**
+     * wait until the task is finished, but not longer than the given time
+     * @param millis the maximum waiting time in milliseconds; 0 means to wait forever
+     * @throws InterruptedException
+     */
+    public void join(final long millis) throws InterruptedException {
+        if (millis <= 0) {
+            this.join();
+            return;
+        }
+        final long deadline = System.currentTimeMillis() + millis;
+        synchronized (this) {
+            long wait = millis;
+            while (this.state.get() != DONE && this.state.get() != CREATED && wait > 0) {
+                this.wait(wait);
+                wait = deadline - System.currentTimeMillis();
+            }
+        }
+    }
+
+    /**
+     * cancel the task if it is not running yet, otherwise interrupt the thread which executes the task
+     */
+    public void interrupt() {
+        if (this.state.compareAndSet(QUEUED, DONE)) {
+            SearchExecutor.cancelled();
+            synchronized (this) {this.notifyAll();}
+            return;
+        }
+        synchronized (this) {
+            if (this.runner != null) {
+                this.interrupted = true;
+                this.runner.interrupt();
+            }
+        }
+    }
+
+    /**
+     * take over the execution of a task which waits for a worker
+     * @return true if the caller must execute the task with runClaimed()
+     */
+    boolean claim() {
+        return this.state.compareAndSet(QUEUED, RUNNING);
+    }
+
+    void runClaimed() {
+        final Thread t = Thread.currentThread();
+        final String threadName = t.getName();
+        synchronized (this) {this.runner = t;}
+        t.setName(this.name);
+        try {
+            this.run();
+        } catch (final Throwable e) {
+            ConcurrentLog.logException(e);
+        } finally {
+            t.setName(threadName);
+            synchronized (this) {
+                this.runner = null;
+                // do not hand over an interrupt of this task to the next task of the worker
+                if (this.interrupted) Thread.interrupted();
+                this.state.set(DONE);
+                this.notifyAll();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return this.name;
+    }
+}
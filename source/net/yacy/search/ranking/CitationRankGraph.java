@@ -0,0 +1,175 @@
+// CitationRankGraph.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.ranking;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * The host-internal link graph of the documents of one host, used for the citation rank computation.
+ * The documents are numbered in the order of the ids given to the constructor; for each document the
+ * linking documents and their number of internal links are stored in primitive arrays, so that the
+ * convergence steps do not need any index lookup.
+ */
+public class CitationRankGraph {
+
+    private final String[] ids;
+    private final int[] start;   // start[i] is the position of the first incoming link of document i
+    private int[] source;        // the linking document of each incoming link
+    private int[] outlinks;      // the number of internal links of the linking document
+    private int links;
+    private int last;            // the document of the last added link
+    private double[] cr;
+
+    /**
+     * @param ids the ids of all documents of the host
+     */
+    public CitationRankGraph(final String[] ids) {
+        this.ids = ids;
+        this.start = new int[ids.length + 1];
+        this.source = new int[Math.max(16, ids.length)];
+        this.outlinks = new int[this.source.length];
+        this.links = 0;
+        this.last = 0;
+        this.cr = new double[ids.length];
+        Arrays.fill(this.cr, ids.length == 0 ? 0.0d : 1.0d / ids.length);
+    }
+
+    public int size() {
+        return this.ids.length;
+    }
+
+    public int links() {
+        return this.links;
+    }
+
+    public String id(final int i) {
+        return this.ids[i];
+    }
+
+    /**
+     * @param i
+     * @return the current citation rank of document i
+     */
+    public double cr(final int i) {
+        return this.cr[i];
+    }
+
+    /**
+     * add a link; links must be added in ascending order of the linked document
+     * @param target the linked document
+     * @param from the linking document
+     * @param internalLinks the number of links from the linking document to documents within the same host, must be positive
+     */
+    public void link(final int target, final int from, final int internalLinks) {
+        assert target >= this.last : "links must be added in ascending target order";
+        assert internalLinks > 0;
+        while (this.last < target) this.start[++this.last] = this.links;
+        if (this.links == this.source.length) {
+            this.source = Arrays.copyOf(this.source, this.links * 2);
+            this.outlinks = Arrays.copyOf(this.outlinks, this.links * 2);
+        }
+        this.source[this.links] = from;
+        this.outlinks[this.links] = internalLinks;
+        this.links++;
+        this.start[target + 1] = this.links;
+    }
+
+    /**
+     * a fingerprint of the documents and links of the graph, independent from the order of the documents.
+     * Two graphs with the same fingerprint produce the same citation ranks.
+     * @return a 64 bit fingerprint
+     */
+    public long fingerprint() {
+        closeLinks();
+        final long[] h = new long[this.ids.length];
+        for (int i = 0; i < this.ids.length; i++) h[i] = hash(this.ids[i]);
+        long f = this.ids.length;
+        for (int i = 0; i < this.ids.length; i++) {
+            long d = h[i];
+            for (int k = this.start[i]; k < this.start[i + 1]; k++) {
+                d += mix(h[this.source[k]] * 31 + this.outlinks[k]);
+            }
+            f += mix(d ^ h[i] * 0x9e3779b97f4a7c15L);
+        }
+        return f;
+    }
+
+    /**
+     * set start values for the convergence steps from an earlier computation. Documents which are not
+     * in the given map start with the equal distribution value.
+     * @param ranks a mapping from document ids to citation ranks
+     */
+    public void warmStart(final Map<String, Double> ranks) {
+        final double initval = this.ids.length == 0 ? 0.0d : 1.0d / this.ids.length;
+        for (int i = 0; i < this.ids.length; i++) {
+            final Double d = ranks.get(this.ids[i]);
+            this.cr[i] = d == null ? initval : d.doubleValue();
+        }
+    }
+
+    /**
+     * compute the next generation of citation ranks
+     * @param damping the damping factor
+     * @param convergeEqFactor the factor which is applied to the ranking values before they are compared as integer values
+     * @return true if the values did not change in the compared digits
+     */
+    public boolean convergenceStep(final double damping, final int convergeEqFactor) {
+        closeLinks();
+        final double df = (1.0d - damping) / this.ids.length;
+        final double[] ncr = new double[this.ids.length];
+        boolean convergence = true;
+        for (int i = 0; i < this.ids.length; i++) {
+            double sum = 0.0d;
+            for (int k = this.start[i]; k < this.start[i + 1]; k++) {
+                sum += this.cr[this.source[k]] / this.outlinks[k];
+            }
+            ncr[i] = df + damping * sum;
+            if (convergence && ((int) (ncr[i] * convergeEqFactor)) != ((int) (this.cr[i] * convergeEqFactor))) convergence = false;
+        }
+        this.cr = ncr;
+        return convergence;
+    }
+
+    private void closeLinks() {
+        while (this.last < this.ids.length) this.start[++this.last] = this.links;
+    }
+
+    private static long hash(final String s) {
+        long h = 0xcbf29ce484222325L;
+        for (int i = 0; i < s.length(); i++) {
+            h ^= s.charAt(i);
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
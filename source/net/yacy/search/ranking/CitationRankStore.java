@@ -0,0 +1,142 @@
+// CitationRankStore.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.ranking;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.data.word.Word;
+
+/**
+ * Stores the result of the citation rank computation of each host in a file, together with the fingerprint
+ * of the link graph of the host. The next postprocessing can skip the computation for hosts with an
+ * unchanged link graph and starts the convergence steps of changed hosts from the stored values.
+ */
+public class CitationRankStore {
+
+    private static final int MAGIC = 0x43524b31; // "CRK1"
+
+    /**
+     * the stored citation ranks of one host
+     */
+    public static class HostRanks {
+        public final long fingerprint;
+        public final Map<String, Double> ranks;
+
+        public HostRanks(final long fingerprint, final Map<String, Double> ranks) {
+            this.fingerprint = fingerprint;
+            this.ranks = ranks;
+        }
+    }
+
+    private final File location;
+
+    /**
+     * @param location the directory of the stored files
+     */
+    public CitationRankStore(final File location) {
+        this.location = location;
+    }
+
+    private File file(final String host) {
+        // the file name is the hash of the host name, distributed to subdirectories
+        final String hash = ASCII.String(Word.word2hash(host));
+        return new File(new File(this.location, hash.substring(0, 2)), hash + ".cr");
+    }
+
+    /**
+     * @param host
+     * @return the ranks of the host from the last computation or null if there are none
+     */
+    public HostRanks load(final String host) {
+        final File f = file(host);
+        if (!f.exists()) return null;
+        try {
+            final DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f), 65536));
+            try {
+                if (in.readInt() != MAGIC) return null;
+                if (!host.equals(in.readUTF())) return null; // a collision of the host hash
+                final long fingerprint = in.readLong();
+                final int count = in.readInt();
+                final Map<String, Double> ranks = new HashMap<String, Double>(count * 4 / 3 + 1);
+                final byte[] id = new byte[Word.commonHashLength];
+                for (int i = 0; i < count; i++) {
+                    in.readFully(id);
+                    ranks.put(ASCII.String(id), in.readDouble());
+                }
+                return new HostRanks(fingerprint, ranks);
+            } finally {
+                in.close();
+            }
+        } catch (final IOException e) {
+            ConcurrentLog.warn("CitationRankStore", "cannot read citation ranks of host " + host + ": " + e.getMessage());
+            f.delete();
+            return null;
+        }
+    }
+
+    /**
+     * store the current ranks of a graph
+     * @param host
+     * @param graph
+     * @param fingerprint the fingerprint of the graph
+     */
+    public void store(final String host, final CitationRankGraph graph, final long fingerprint) {
+        final File f = file(host);
+        f.getParentFile().mkdirs();
+        final File tmp = new File(f.getParentFile(), f.getName() + ".tmp");
+        try {
+            final DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp), 65536));
+            try {
+                out.writeInt(MAGIC);
+                out.writeUTF(host);
+                out.writeLong(fingerprint);
+                int count = 0;
+                for (int i = 0; i < graph.size(); i++) if (graph.id(i).length() == Word.commonHashLength) count++;
+                out.writeInt(count);
+                for (int i = 0; i < graph.size(); i++) {
+                    if (graph.id(i).length() != Word.commonHashLength) continue;
+                    out.write(ASCII.getBytes(graph.id(i)));
+                    out.writeDouble(graph.cr(i));
+                }
+            } finally {
+                out.close();
+            }
+            if (f.exists()) f.delete();
+            if (!tmp.renameTo(f)) throw new IOException("cannot rename " + tmp + " to " + f);
+        } catch (final IOException e) {
+            ConcurrentLog.warn("CitationRankStore", "cannot write citation ranks of host " + host + ": " + e.getMessage());
+            tmp.delete();
+        }
+    }
+}
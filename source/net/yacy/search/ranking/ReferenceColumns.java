@@ -0,0 +1,384 @@
+// ReferenceColumns.java
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This is a part of YaCy, a peer-to-peer based web search engine
+//
+// LICENSE
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.search.ranking;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+
+import net.yacy.cora.document.analysis.Classification;
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.id.DigestURL;
+import net.yacy.cora.sorting.WeakPriorityBlockingQueue;
+import net.yacy.cora.sorting.WeakPriorityBlockingQueue.ReverseElement;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.index.Row;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.rwi.ReferenceFactory;
+import net.yacy.kelondro.util.Bitfield;
+
+/**
+ * The ranking attributes of the references of a container, decoded into one primitive array per attribute.
+ * The arrays are filled and ranked chunk by chunk by {@link ReferenceOrder#normalizeColumns(ReferenceContainer, boolean)};
+ * a {@link WordReferenceVars} object is created only for the references which are requested with {@link #get(int)}.
+ */
+public class ReferenceColumns {
+
+    // the attributes which are normalized to the range 0..255; the ranking prefers small values of these ..
+    static final int URLCOMPS = 0, URLLENGTH = 1, POSINTEXT = 2, POSOFPHRASE = 3, POSINPHRASE = 4, DISTANCE = 5;
+    // .. and large values of these
+    static final int VIRTUALAGE = 6, WORDSINTITLE = 7, WORDSINTEXT = 8, PHRASESINTEXT = 9, LLOCAL = 10, LOTHER = 11, HITCOUNT = 12;
+    static final int ATTRIBUTES = 13;
+    static final int INVERSE = 6; // the number of attributes which are ranked inverse
+
+    // the number of references of a block; the highest ranking of each block is the bound of the ranking of its references
+    public static final int BLOCK_SIZE = 64;
+
+    private static final ReferenceFactory<WordReference> factory = new WordReferenceFactory();
+
+    /**
+     * the minimum and maximum of each attribute and the number of references of each host
+     */
+    static final class Range {
+        final int[] min, max;
+        double tfmin, tfmax;
+        int count;
+        long[] hosts;  // the packed host hashes in ascending order
+        int[] hostcount;
+
+        Range() {
+            this.min = new int[ATTRIBUTES];
+            this.max = new int[ATTRIBUTES];
+            Arrays.fill(this.min, Integer.MAX_VALUE);
+            Arrays.fill(this.max, Integer.MIN_VALUE);
+            this.tfmin = Double.MAX_VALUE;
+            this.tfmax = -Double.MAX_VALUE;
+            this.count = 0;
+            this.hosts = new long[0];
+            this.hostcount = new int[0];
+        }
+
+        Range(final Range r) {
+            this.min = r.min.clone();
+            this.max = r.max.clone();
+            this.tfmin = r.tfmin;
+            this.tfmax = r.tfmax;
+            this.count = r.count;
+            this.hosts = r.hosts;
+            this.hostcount = r.hostcount;
+        }
+
+        /**
+         * combine the range with another range
+         * @param r
+         * @return this range
+         */
+        Range merge(final Range r) {
+            for (int a = 0; a < ATTRIBUTES; a++) {
+                if (r.min[a] < this.min[a]) this.min[a] = r.min[a];
+                if (r.max[a] > this.max[a]) this.max[a] = r.max[a];
+            }
+            if (r.tfmin < this.tfmin) this.tfmin = r.tfmin;
+            if (r.tfmax > this.tfmax) this.tfmax = r.tfmax;
+            this.count += r.count;
+
+            // merge the sorted host lists
+            final long[] h = new long[this.hosts.length + r.hosts.length];
+            final int[] c = new int[h.length];
+            int i = 0, j = 0, k = 0;
+            while (i < this.hosts.length || j < r.hosts.length) {
+                if (j == r.hosts.length || (i < this.hosts.length && this.hosts[i] < r.hosts[j])) {
+                    h[k] = this.hosts[i];
+                    c[k++] = this.hostcount[i++];
+                } else if (i == this.hosts.length || r.hosts[j] < this.hosts[i]) {
+                    h[k] = r.hosts[j];
+                    c[k++] = r.hostcount[j++];
+                } else {
+                    h[k] = this.hosts[i];
+                    c[k++] = this.hostcount[i++] + r.hostcount[j++];
+                }
+            }
+            this.hosts = k == h.length ? h : Arrays.copyOf(h, k);
+            this.hostcount = k == c.length ? c : Arrays.copyOf(c, k);
+            return this;
+        }
+    }
+
+    private final ReferenceContainer<WordReference> container;
+    private final boolean local;
+    private final int size;
+    final int[][] values;     // the values of the normalized attributes, values[attribute][reference]
+    final double[] tf;        // the term frequency
+    final int[] flags;        // the first 32 bits of the flags
+    final int[] domlength;    // the normalized length of the domain
+    final int[] language;     // the two bytes of the language code
+    final long[] host;        // the packed host hash
+    final long[] score;       // the ranking, computed after the normalization
+    final long[] bound;       // the highest ranking of each block
+
+    /**
+     * allocate the arrays for the references of a container; the arrays are filled with {@link #decode(int, int)}
+     * @param container
+     * @param local true if the container is the result of a local search
+     */
+    ReferenceColumns(final ReferenceContainer<WordReference> container, final boolean local) {
+        this.container = container;
+        this.local = local;
+        this.size = container.size();
+        this.values = new int[ATTRIBUTES][this.size];
+        this.tf = new double[this.size];
+        this.flags = new int[this.size];
+        this.domlength = new int[this.size];
+        this.language = new int[this.size];
+        this.host = new long[this.size];
+        this.score = new long[this.size];
+        this.bound = new long[(this.size + BLOCK_SIZE - 1) / BLOCK_SIZE];
+    }
+
+    /**
+     * @return the number of references
+     */
+    public int size() {
+        return this.size;
+    }
+
+    /**
+     * @param i the position of the reference in the container
+     * @return the reference at the given position
+     */
+    public WordReferenceVars get(final int i) {
+        return new WordReferenceVars(factory.produceSlow(this.container.get(i, false)), this.local);
+    }
+
+    /**
+     * @param i the position of the reference in the container
+     * @return the ranking of the reference: the higher the number, the better is the ranking
+     */
+    public long cardinal(final int i) {
+        return this.score[i];
+    }
+
+    /**
+     * @param i the position of the reference in the container
+     * @return the first 32 flags of the reference, flag n is bit n
+     */
+    public int flags(final int i) {
+        return this.flags[i];
+    }
+
+    /**
+     * @return the number of blocks of {@link #BLOCK_SIZE} references
+     */
+    public int blocks() {
+        return this.bound.length;
+    }
+
+    /**
+     * @param block
+     * @return the highest ranking of the references of the block; no reference of the block has a better ranking
+     */
+    public long bound(final int block) {
+        return this.bound[block];
+    }
+
+    /**
+     * @return the blocks, ordered by their bound with the highest bound first. A top-k selection which visits the
+     * blocks in this order can stop at the first block which is not better than the k-th reference found so far.
+     */
+    public int[] blocksByBound() {
+        final Integer[] blocks = new Integer[this.bound.length];
+        for (int b = 0; b < blocks.length; b++) blocks[b] = b;
+        Arrays.sort(blocks, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer b0, final Integer b1) {
+                final long d0 = ReferenceColumns.this.bound[b0.intValue()], d1 = ReferenceColumns.this.bound[b1.intValue()];
+                return d0 > d1 ? -1 : d0 < d1 ? 1 : b0.compareTo(b1);
+            }
+        });
+        final int[] order = new int[blocks.length];
+        for (int b = 0; b < order.length; b++) order[b] = blocks[b].intValue();
+        return order;
+    }
+
+    /**
+     * decode a chunk of references into the arrays
+     * @param from the position of the first reference of the chunk
+     * @param to the position after the last reference of the chunk
+     * @return the range of the attributes of the chunk
+     */
+    Range decode(final int from, final int to) {
+        final Row row = this.container.row();
+        final byte[] rows = this.container.getRows(from, to);
+        final byte[] urlhash = new byte[row.primaryKeyLength];
+        final Range range = new Range();
+        final int[] min = range.min, max = range.max;
+        for (int i = from; i < to; i++) {
+            final Row.Entry entry = row.newEntry(rows, (i - from) * row.objectsize, false);
+            final WordReference r = factory.produceSlow(entry);
+            this.values[URLCOMPS][i] = r.urlcomps();
+            this.values[URLLENGTH][i] = r.urllength();
+            this.values[POSINTEXT][i] = r.posintext();
+            this.values[POSOFPHRASE][i] = r.posofphrase();
+            this.values[POSINPHRASE][i] = r.posinphrase();
+            this.values[DISTANCE][i] = r.distance();
+            this.values[VIRTUALAGE][i] = r.virtualAge();
+            this.values[WORDSINTITLE][i] = r.wordsintitle();
+            this.values[WORDSINTEXT][i] = r.wordsintext();
+            this.values[PHRASESINTEXT][i] = r.phrasesintext();
+            this.values[LLOCAL][i] = r.llocal();
+            this.values[LOTHER][i] = r.lother();
+            this.values[HITCOUNT][i] = r.hitcount();
+            for (int a = 0; a < ATTRIBUTES; a++) {
+                final int v = this.values[a][i];
+                if (v < min[a]) min[a] = v;
+                if (v > max[a]) max[a] = v;
+            }
+            final double t = r.termFrequency();
+            this.tf[i] = t;
+            if (t < range.tfmin) range.tfmin = t;
+            if (t > range.tfmax) range.tfmax = t;
+            this.flags[i] = packFlags(r.flags());
+            this.language[i] = packLanguage(r.getLanguage());
+            entry.writeToArray(0, urlhash, 0);
+            this.domlength[i] = DigestURL.domLengthNormalized(urlhash);
+            long h = 0;
+            for (int k = 6; k < 12; k++) h = (h << 8) | (urlhash[k] & 0xff);
+            this.host[i] = h;
+        }
+        range.count = to - from;
+
+        // count the references of each host
+        final long[] sorted = Arrays.copyOfRange(this.host, from, to);
+        Arrays.sort(sorted);
+        int k = 0;
+        final long[] hosts = new long[sorted.length];
+        final int[] hostcount = new int[sorted.length];
+        for (int i = 0; i < sorted.length; i++) {
+            if (k > 0 && hosts[k - 1] == sorted[i]) {
+                hostcount[k - 1]++;
+            } else {
+                hosts[k] = sorted[i];
+                hostcount[k++] = 1;
+            }
+        }
+        range.hosts = Arrays.copyOf(hosts, k);
+        range.hostcount = Arrays.copyOf(hostcount, k);
+        return range;
+    }
+
+    static int packFlags(final Bitfield flags) {
+        final byte[] b = flags.bytes();
+        int p = 0;
+        for (int k = 0; k < Math.min(4, b.length); k++) p |= (b[k] & 0xff) << (k << 3);
+        return p;
+    }
+
+    static int packLanguage(final byte[] language) {
+        if (language == null || language.length != 2) return -1;
+        return ((language[0] & 0xff) << 8) | (language[1] & 0xff);
+    }
+
+    /**
+     * @param host a packed host hash
+     * @return the host hash
+     */
+    static String unpackHost(long host) {
+        final byte[] b = new byte[6];
+        for (int k = 5; k >= 0; k--) {
+            b[k] = (byte) host;
+            host >>>= 8;
+        }
+        return ASCII.String(b);
+    }
+
+    /**
+     * compare the ranking of a container with {@link ReferenceOrder#normalizeWith(ReferenceContainer, long, boolean)} and
+     * {@link ReferenceOrder#normalizeColumns(ReferenceContainer, boolean)}
+     * @param args the number of references and the number of rounds
+     */
+    public static void main(final String[] args) {
+        final int size = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+        final int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 10;
+        final Random random = new Random(0);
+        final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(factory, Word.word2hash("benchmark"));
+        try {
+            for (int i = 0; i < size; i++) {
+                final String host = "host" + random.nextInt(size / 10 + 1) + ".org";
+                final byte[] urlhash = ASCII.getBytes(ASCII.String(Word.word2hash(host + "/" + i)).substring(0, 6) + ASCII.String(Word.word2hash(host)).substring(6));
+                final Bitfield flags = new Bitfield(4);
+                for (int f = 0; f < 32; f++) flags.set(f, random.nextInt(8) == 0);
+                container.add(new WordReferenceVars(urlhash, 20 + random.nextInt(200), 1 + random.nextInt(10), random.nextInt(20), 1 + random.nextInt(30),
+                        100 + random.nextInt(5000), 10 + random.nextInt(500), random.nextInt(5000), null, random.nextInt(30), random.nextInt(300),
+                        System.currentTimeMillis() - random.nextInt(1000) * 86400000L, "en", 't', random.nextInt(100), random.nextInt(100), flags, 0.0d));
+            }
+        } catch (final SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+            return;
+        }
+        final RankingProfile profile = new RankingProfile(Classification.ContentDomain.TEXT);
+        for (int round = 0; round < rounds; round++) {
+            long sum = 0;
+            long t = System.nanoTime();
+            final ReferenceOrder queueOrder = new ReferenceOrder(profile, "en");
+            final BlockingQueue<WordReferenceVars> queue = queueOrder.normalizeWith(container, Long.MAX_VALUE, true);
+            try {
+                WordReferenceVars v;
+                while ((v = queue.take()) != WordReferenceVars.poison) sum += queueOrder.cardinal(v);
+            } catch (final InterruptedException e) {
+                return;
+            }
+            final long queueTime = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            final ReferenceColumns columns = new ReferenceOrder(profile, "en").normalizeColumns(container, true);
+            for (int i = 0; i < columns.size(); i++) sum += columns.cardinal(i);
+            final long columnTime = System.nanoTime() - t;
+
+            // the selection of the best references for a result stack of the size used by the search event
+            t = System.nanoTime();
+            final WeakPriorityBlockingQueue<WordReferenceVars> all = new WeakPriorityBlockingQueue<WordReferenceVars>(3000, false);
+            for (int i = 0; i < columns.size(); i++) all.put(new ReverseElement<WordReferenceVars>(columns.get(i), columns.cardinal(i)));
+            final long allTime = System.nanoTime() - t;
+            t = System.nanoTime();
+            final WeakPriorityBlockingQueue<WordReferenceVars> topk = new WeakPriorityBlockingQueue<WordReferenceVars>(3000, false);
+            int decoded = 0;
+            blockloop: for (final int block: columns.blocksByBound()) {
+                if (topk.sizeQueue() >= 3000 && columns.bound(block) < topk.getLastInQueue().getWeight()) break blockloop;
+                for (int i = block * BLOCK_SIZE; i < Math.min(columns.size(), (block + 1) * BLOCK_SIZE); i++) {
+                    topk.put(new ReverseElement<WordReferenceVars>(columns.get(i), columns.cardinal(i)));
+                    decoded++;
+                }
+            }
+            final long topkTime = System.nanoTime() - t;
+            System.out.println("round " + round + ": " + size + " references, queues " + (queueTime / 1000000) + " ms, columns " + (columnTime / 1000000) + " ms (" + sum + "), " +
+                    "top 3000 of all " + (allTime / 1000000) + " ms, top 3000 of " + decoded + " in blocks " + (topkTime / 1000000) + " ms");
+        }
+        ConcurrentLog.shutdown();
+    }
+}
@@ -31,7 +31,10 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
 import java.util.concurrent.Semaphore;
 
 import net.yacy.cora.document.encoding.ASCII;
@@ -46,14 +49,20 @@ import net.yacy.kelondro.data.word.WordReferenceRow;
 import net.yacy.kelondro.data.word.WordReferenceVars;
 import net.yacy.kelondro.rwi.ReferenceContainer;
 import net.yacy.kelondro.util.Bitfield;
+import net.yacy.search.query.SearchTask;
 
 
 public class ReferenceOrder {
 
     private static int cores = Runtime.getRuntime().availableProcessors();
 
+    // the pool of normalizeColumns; a chunk of references is decoded and ranked in one task
+    private static final ForkJoinPool normalizer = new ForkJoinPool(cores);
+    private static final int CHUNK_SIZE = 64 * ReferenceColumns.BLOCK_SIZE; // the chunks do not split blocks
+
     private       int maxdomcount;
     private       WordReferenceVars min, max;
+    private       ReferenceColumns.Range range; // the range of the references which were normalized with normalizeColumns
     private final ConcurrentScoreMap<String> doms; // collected for "authority" heuristic
     private final RankingProfile ranking;
     private final String language;
@@ -61,6 +70,7 @@ public class ReferenceOrder {
     public ReferenceOrder(final RankingProfile profile, final String language) {
         this.min = null;
         this.max = null;
+        this.range = null;
         this.ranking = profile;
         this.doms = new ConcurrentScoreMap<String>();
         this.maxdomcount = 0;
@@ -71,98 +81,218 @@ public class ReferenceOrder {
         final LinkedBlockingQueue<WordReferenceVars> out = new LinkedBlockingQueue<WordReferenceVars>();
         int threads = cores;
         if (container.size() < 100) threads = 2;
-        final Thread distributor = new NormalizeDistributor(container, out, threads, maxtime, local);
-        distributor.start();
+
+        // transform the reference container into a stream of parsed entries
+        final BlockingQueue<WordReferenceVars> vars = WordReferenceVars.transform(container, maxtime, local);
+
+        // start the normalization tasks; all of them take their entries from the same queue
+        final Semaphore termination = new Semaphore(threads);
+        for (int i = 0; i < threads; i++) {
+            new NormalizeWorker(vars, out, termination, maxtime).start();
+        }
 
         // return the resulting queue while the processing queues are still working
         return out;
     }
 
-    private final class NormalizeDistributor extends Thread {
+    /**
+     * normalize the references of a container and compute their ranking. In contrast to {@link #normalizeWith(ReferenceContainer, long, boolean)}
+     * the references are not passed one by one through queues: the container is decoded into column arrays in chunks which are
+     * processed concurrently, the minimum, maximum and host counts of the chunks are combined with those of the containers which were
+     * normalized before, and then the ranking of all references is computed from the arrays.
+     * @param container
+     * @param local true if the container is the result of a local search
+     * @return the decoded references with their ranking, in the order of the container
+     */
+    public ReferenceColumns normalizeColumns(final ReferenceContainer<WordReference> container, final boolean local) {
+        final ReferenceColumns columns = new ReferenceColumns(container, local);
+        final int size = columns.size();
+        if (size == 0) return columns;
 
-        ReferenceContainer<WordReference> container;
-        LinkedBlockingQueue<WordReferenceVars> out;
-        private final int threads;
-        private final long maxtime;
-        private final boolean local;
-        
-        public NormalizeDistributor(final ReferenceContainer<WordReference> container, final LinkedBlockingQueue<WordReferenceVars> out, final int threads, final long maxtime, final boolean local) {
-        	super("ReferenceOrder.NormalizeDistributor");
-            this.container = container;
-            this.out = out;
-            this.threads = threads;
-            this.maxtime = maxtime;
-            this.local = local;
+        // decode the references and find minimum and maximum of the ranking criteria
+        final ReferenceColumns.Range decoded = size <= CHUNK_SIZE ? columns.decode(0, size) : normalizer.invoke(new DecodeTask(columns, 0, size));
+
+        // combine the result with the references of earlier containers
+        final String[] hosts = new String[decoded.hosts.length];
+        for (int k = 0; k < hosts.length; k++) hosts[k] = ReferenceColumns.unpackHost(decoded.hosts[k]);
+        final ReferenceColumns.Range total;
+        final int[] authority = new int[hosts.length];
+        synchronized (this) {
+            this.range = this.range == null ? decoded : new ReferenceColumns.Range(this.range).merge(decoded);
+            total = this.range;
+            for (int k = 0; k < hosts.length; k++) this.doms.inc(hosts[k], decoded.hostcount[k]);
+            this.maxdomcount = this.doms.getMaxScore();
+            if (this.ranking.coeff_authority > 12) {
+                for (int k = 0; k < hosts.length; k++) authority[k] = authority(hosts[k]);
+            }
+        }
+
+        // compute the ranking
+        if (size <= CHUNK_SIZE) {
+            rank(columns, total, decoded.hosts, authority, 0, size);
+        } else {
+            normalizer.invoke(new RankTask(columns, total, decoded.hosts, authority, 0, size));
+        }
+        return columns;
+    }
+
+    /**
+     * @return a position between from and to at a multiple of CHUNK_SIZE, if from is a multiple of CHUNK_SIZE
+     */
+    private static int middle(final int from, final int to) {
+        return from + Math.max(1, (to - from) / CHUNK_SIZE / 2) * CHUNK_SIZE;
+    }
+
+    /**
+     * decode the references of a container; the task is divided until the chunks are not larger than CHUNK_SIZE
+     */
+    private static class DecodeTask extends RecursiveTask<ReferenceColumns.Range> {
+
+        private static final long serialVersionUID = -4236530453384120245L;
+
+        private final ReferenceColumns columns;
+        private final int from, to;
+
+        private DecodeTask(final ReferenceColumns columns, final int from, final int to) {
+            this.columns = columns;
+            this.from = from;
+            this.to = to;
         }
 
         @Override
-        public void run() {
-            // transform the reference container into a stream of parsed entries
-            final BlockingQueue<WordReferenceVars> vars = WordReferenceVars.transform(this.container, this.maxtime, this.local);
-
-            // start the transformation threads
-            final Semaphore termination = new Semaphore(this.threads);
-            final NormalizeWorker[] worker = new NormalizeWorker[this.threads];
-            for (int i = 0; i < this.threads; i++) {
-                worker[i] = new NormalizeWorker(this.out, termination, this.maxtime);
-                worker[i].start();
+        protected ReferenceColumns.Range compute() {
+            if (this.to - this.from <= CHUNK_SIZE) return this.columns.decode(this.from, this.to);
+            final int middle = middle(this.from, this.to);
+            final DecodeTask left = new DecodeTask(this.columns, this.from, middle);
+            left.fork();
+            final ReferenceColumns.Range right = new DecodeTask(this.columns, middle, this.to).compute();
+            return left.join().merge(right);
+        }
+    }
+
+    /**
+     * compute the ranking of the references of a container; the task is divided until the chunks are not larger than CHUNK_SIZE
+     */
+    private class RankTask extends RecursiveAction {
+
+        private static final long serialVersionUID = 6021907716745862631L;
+
+        private final ReferenceColumns columns;
+        private final ReferenceColumns.Range range;
+        private final long[] hosts;
+        private final int[] authority;
+        private final int from, to;
+
+        private RankTask(final ReferenceColumns columns, final ReferenceColumns.Range range, final long[] hosts, final int[] authority, final int from, final int to) {
+            this.columns = columns;
+            this.range = range;
+            this.hosts = hosts;
+            this.authority = authority;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from <= CHUNK_SIZE) {
+                rank(this.columns, this.range, this.hosts, this.authority, this.from, this.to);
+                return;
             }
+            final int middle = middle(this.from, this.to);
+            invokeAll(
+                new RankTask(this.columns, this.range, this.hosts, this.authority, this.from, middle),
+                new RankTask(this.columns, this.range, this.hosts, this.authority, middle, this.to));
+        }
+    }
 
-            // fill the queue
-            WordReferenceVars iEntry;
-            int p = 0;
-            long timeout = this.maxtime == Long.MAX_VALUE ? Long.MAX_VALUE : System.currentTimeMillis() + this.maxtime;
-            try {
-                while ((iEntry = vars.take()) != WordReferenceVars.poison) {
-                    worker[p % this.threads].add(iEntry);
-                    p++;
-                    if (System.currentTimeMillis() > timeout) {
-                        ConcurrentLog.warn("NormalizeDistributor", "adding of decoded rows to workers ended with timeout = " + this.maxtime);
-                        break;
-                    }
-                }
-            } catch (final InterruptedException e) {
+    /**
+     * compute the ranking of a chunk of decoded references, one criterion after the other. The result is the same
+     * as the result of {@link #cardinal(WordReference)} for the given range.
+     * @param c the decoded references
+     * @param r the range of the ranking criteria
+     * @param hosts the packed host hashes of the container
+     * @param authority the authority of the hosts of the container
+     * @param from the position of the first reference of the chunk
+     * @param to the position after the last reference of the chunk
+     */
+    private void rank(final ReferenceColumns c, final ReferenceColumns.Range r, final long[] hosts, final int[] authority, final int from, final int to) {
+        final long[] score = c.score;
+        for (int i = from; i < to; i++) score[i] = (256 - c.domlength[i]) << this.ranking.coeff_domlength;
+
+        final int[] coeff = new int[] {
+            this.ranking.coeff_urlcomps, this.ranking.coeff_urllength, this.ranking.coeff_posintext, this.ranking.coeff_posofphrase,
+            this.ranking.coeff_posinphrase, this.ranking.coeff_worddistance, this.ranking.coeff_date, this.ranking.coeff_wordsintitle,
+            this.ranking.coeff_wordsintext, this.ranking.coeff_phrasesintext, this.ranking.coeff_llocal, this.ranking.coeff_lother,
+            this.ranking.coeff_hitcount};
+        for (int a = 0; a < ReferenceColumns.ATTRIBUTES; a++) {
+            final int min = r.min[a];
+            final int d = r.max[a] - min;
+            if (d == 0) continue;
+            final int[] v = c.values[a];
+            final int shift = coeff[a];
+            if (a < ReferenceColumns.INVERSE) {
+                for (int i = from; i < to; i++) score[i] += (256 - (((v[i] - min) << 8) / d)) << shift;
+            } else {
+                for (int i = from; i < to; i++) score[i] += (((v[i] - min) << 8) / d) << shift;
             }
+        }
+        if (r.tfmax != r.tfmin) {
+            final double d = r.tfmax - r.tfmin;
+            for (int i = from; i < to; i++) score[i] += ((int) (((c.tf[i] - r.tfmin) * 256.0) / d)) << this.ranking.coeff_termfrequency;
+        }
+        if (this.ranking.coeff_authority > 12) {
+            for (int i = from; i < to; i++) score[i] += authority[Arrays.binarySearch(hosts, c.host[i])] << this.ranking.coeff_authority;
+        }
 
-            // insert poison to stop the queues
-            for (int i = 0; i < this.threads; i++) worker[i].add(WordReferenceVars.poison);
+        final int[] flag = new int[] {
+            WordReferenceRow.flag_app_dc_identifier, WordReferenceRow.flag_app_dc_title, WordReferenceRow.flag_app_dc_creator,
+            WordReferenceRow.flag_app_dc_subject, WordReferenceRow.flag_app_dc_description, WordReferenceRow.flag_app_emphasized,
+            Tokenizer.flag_cat_indexof, Tokenizer.flag_cat_hasimage, Tokenizer.flag_cat_hasaudio, Tokenizer.flag_cat_hasvideo,
+            Tokenizer.flag_cat_hasapp};
+        final int[] flagcoeff = new int[] {
+            this.ranking.coeff_appurl, this.ranking.coeff_app_dc_title, this.ranking.coeff_app_dc_creator,
+            this.ranking.coeff_app_dc_subject, this.ranking.coeff_app_dc_description, this.ranking.coeff_appemph,
+            this.ranking.coeff_catindexof, this.ranking.coeff_cathasimage, this.ranking.coeff_cathasaudio, this.ranking.coeff_cathasvideo,
+            this.ranking.coeff_cathasapp};
+        for (int f = 0; f < flag.length; f++) {
+            final int mask = 1 << flag[f];
+            final int bonus = 255 << flagcoeff[f];
+            for (int i = from; i < to; i++) if ((c.flags[i] & mask) != 0) score[i] += bonus;
+        }
+        final int language = ReferenceColumns.packLanguage(ASCII.getBytes(this.language));
+        final int bonus = 255 << this.ranking.coeff_language;
+        if (language >= 0) for (int i = from; i < to; i++) if (c.language[i] == language) score[i] += bonus;
 
-            // wait for termination but not too long to make it possible that this
-            // is called from outside with a join to get some normalization results
-            // before going on
-            for (int i = 0; i < this.threads; i++) try {worker[i].join(100);} catch (final InterruptedException e) {}
+        // the bounds of the blocks of the chunk
+        for (int b = from / ReferenceColumns.BLOCK_SIZE; b * ReferenceColumns.BLOCK_SIZE < to; b++) {
+            long bound = Long.MIN_VALUE;
+            for (int i = b * ReferenceColumns.BLOCK_SIZE; i < Math.min(to, (b + 1) * ReferenceColumns.BLOCK_SIZE); i++) if (score[i] > bound) bound = score[i];
+            c.bound[b] = bound;
         }
     }
 
     /**
      * normalize ranking: find minimum and maximum of separate ranking criteria
      */
-    private class NormalizeWorker extends Thread {
+    private class NormalizeWorker extends SearchTask {
 
         private final BlockingQueue<WordReferenceVars> out;
         private final Semaphore termination;
         private final BlockingQueue<WordReferenceVars> decodedEntries;
         private final long maxtime;
 
-        public NormalizeWorker(final BlockingQueue<WordReferenceVars> out, final Semaphore termination, long maxtime) {
-        	super("ReferenceOrder.NormalizeWorker");
+        public NormalizeWorker(final BlockingQueue<WordReferenceVars> decodedEntries, final BlockingQueue<WordReferenceVars> out, final Semaphore termination, long maxtime) {
+        	super(null, "ReferenceOrder.NormalizeWorker");
             this.out = out;
             this.termination = termination;
-            this.decodedEntries = new LinkedBlockingQueue<WordReferenceVars>();
+            this.decodedEntries = decodedEntries;
             this.maxtime = maxtime;
         }
 
-        public void add(final WordReferenceVars entry) {
-            try {
-                this.decodedEntries.put(entry);
-            } catch (final InterruptedException e) {
-            }
-        }
-
         @Override
         public void run() {
+            WordReferenceVars iEntry = null;
             try {
-                WordReferenceVars iEntry;
                 final Map<String, Integer> doms0 = new HashMap<String, Integer>();
                 String dom;
                 Integer count;
@@ -201,6 +331,8 @@ public class ReferenceOrder {
             } catch (final Exception e) {
                 ConcurrentLog.logException(e);
             } finally {
+                // pass the poison on to the other workers which take from the same queue
+                if (iEntry == WordReferenceVars.poison) this.decodedEntries.offer(WordReferenceVars.poison);
                 // insert poison to signal the termination to next queue
                 try {
                     this.termination.acquire();
@@ -45,8 +45,15 @@ import java.util.Map;
 import java.util.Set;
 import java.util.TreeMap;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ForkJoinPool;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.regex.Pattern;
 
 import org.apache.solr.common.SolrDocument;
@@ -106,6 +113,8 @@ import net.yacy.search.index.Segment;
 import net.yacy.search.index.Segment.ReferenceReport;
 import net.yacy.search.index.Segment.ReferenceReportCache;
 import net.yacy.search.query.QueryParams;
+import net.yacy.search.ranking.CitationRankGraph;
+import net.yacy.search.ranking.CitationRankStore;
 
 
 public class CollectionConfiguration extends SchemaConfiguration implements Serializable {
@@ -1497,6 +1506,7 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 if (failids.size() > 0) {
                     ConcurrentLog.info("CollectionConfiguration", "cleanup_processing: deleting " + failids.size() + " documents which have permanent execution fails");
                     collectionConnector.deleteByIds(failids);
+                    for (String id: failids) segment.fulltext().getKnownURLs().remove(id);
                 }
                 if (count != countcheck.get()) ConcurrentLog.warn("CollectionConfiguration", "ambiguous collection document count for harvestkey " + harvestkey + ": expected=" + count + ", counted=" + countcheck + "; countquery=" + collection1query); // big gap for harvestkey = null
                 ConcurrentLog.info("CollectionConfiguration", "cleanup_processing: re-calculated " + proccount + " new documents, " +
@@ -1638,7 +1648,9 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
 	}
 
 	/**
-	 * Patches the citation index for links with canonical tags and perform the citation rank computation
+	 * Patches the citation index for links with canonical tags and perform the citation rank computation.
+	 * Both steps run concurrently for several hosts; the citation rank of hosts with an unchanged link graph
+	 * is taken from the last computation.
 	 * @param segment Solr segment
 	 * @param rrCache reference report cache for the segment
 	 * @param collectionConnector default connector to the Solr segment
@@ -1646,87 +1658,184 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
 	 * @return the ranking map 
 	 */
 	private Map<String, CRV> createRankingMap(final Segment segment, final ReferenceReportCache rrCache,
-			final SolrConnector collectionConnector, ReversibleScoreMap<String> collection1hosts) {
+			final SolrConnector collectionConnector, final ReversibleScoreMap<String> collection1hosts) {
 		final Map<String, CRV> rankings = new ConcurrentHashMap<String, CRV>();
+        final int concurrency = Math.max(1, Math.min(collection1hosts.size(), Runtime.getRuntime().availableProcessors()));
+        postprocessingActivity = "collecting cr for " + collection1hosts.size() + " hosts, concurrency = " + concurrency;
+        ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
+        final CitationRankStore store = new CitationRankStore(new File(segment.getLocation(), CITATION_RANK_PATH));
+        final ForkJoinPool pool = new ForkJoinPool(concurrency);
         try {
-            int concurrency = Math.min(collection1hosts.size(), Runtime.getRuntime().availableProcessors());
-            postprocessingActivity = "collecting cr for " + collection1hosts.size() + " hosts, concurrency = " + concurrency;
-            ConcurrentLog.info("CollectionConfiguration", postprocessingActivity);
-            int countcheck = 0;
-            for (String host: collection1hosts.keyList(true)) {
-                // Patch the citation index for links with canonical tags.
-                // This shall fulfill the following requirement:
-                // If a document A links to B and B contains a 'canonical C', then the citation rank computation shall consider that A links to C and B does not link to C.
-                // To do so, we first must collect all canonical links, find all references to them, get the anchor list of the documents and patch the citation reference of these links
-                String patchquery = CollectionSchema.host_s.getSolrFieldName() + ":" + host + " AND " + CollectionSchema.canonical_s.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM;
-                long patchquerycount = collectionConnector.getCountByQuery("{!cache=false}" + patchquery);
-                BlockingQueue<SolrDocument> documents_with_canonical_tag = collectionConnector.concurrentDocumentsByQuery(patchquery, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, Long.MAX_VALUE, 20, 1, true,
-                        CollectionSchema.id.getSolrFieldName(), CollectionSchema.sku.getSolrFieldName(), CollectionSchema.canonical_s.getSolrFieldName());
-                SolrDocument doc_B;
-                int patchquerycountcheck = 0;
-                try {
-                    while ((doc_B = documents_with_canonical_tag.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
-                        // find all documents which link to the canonical doc
-                        DigestURL doc_C_url = new DigestURL((String) doc_B.getFieldValue(CollectionSchema.canonical_s.getSolrFieldName()));
-                        byte[] doc_B_id = ASCII.getBytes(((String) doc_B.getFieldValue(CollectionSchema.id.getSolrFieldName())));
-                        // we remove all references to B, because these become references to C
-                        if (segment.connectedCitation()) {
-                            ReferenceContainer<CitationReference> doc_A_ids = segment.urlCitation().remove(doc_B_id);
-                            if (doc_A_ids == null) {
-                                //System.out.println("*** document with canonical but no referrer: " + doc_B.getFieldValue(CollectionSchema.sku.getSolrFieldName()));
-                                continue; // the document has a canonical tag but no referrer?
-                            }
-                            Iterator<CitationReference> doc_A_ids_iterator = doc_A_ids.entries();
-                            // for each of the referrer A of B, set A as a referrer of C
-                            while (doc_A_ids_iterator.hasNext()) {
-                                CitationReference doc_A_citation = doc_A_ids_iterator.next();
-                                segment.urlCitation().add(doc_C_url.hash(), doc_A_citation);
-                            }
-                        }
-                        patchquerycountcheck++;
-                        if (MemoryControl.shortStatus()) {
-                            ConcurrentLog.warn("CollectionConfiguration", "terminated canonical collection during postprocessing because of short memory");
-                            break;
+            // Patch the citation index for links with canonical tags.
+            // This is done for all hosts before the citation rank computation starts, because a canonical tag may change the references to documents of other hosts.
+            runAdmitted(pool, concurrency, collection1hosts, "canonical collection", new HostTask() {
+                @Override
+                public void run(final String host) throws IOException {
+                    patchCanonicalReferences(segment, collectionConnector, host);
+                }
+            });
+
+            // do the citation rank computation
+            final AtomicInteger countcheck = new AtomicInteger(0);
+            runAdmitted(pool, concurrency, collection1hosts, "crn akkumulation", new HostTask() {
+                @Override
+                public void run(final String host) throws IOException {
+                    if (collection1hosts.get(host) <= 0) return;
+                    // we have now the cr for all documents of a specific host; we store them for later use
+                    rankings.putAll(citationRank(segment, rrCache, store, host)); // accumulate this here for usage in document update later
+                    countcheck.incrementAndGet();
+                }
+            });
+            if (collection1hosts.size() != countcheck.get()) ConcurrentLog.warn("CollectionConfiguration", "ambiguous host count: expected=" + collection1hosts.size() + ", counted=" + countcheck.get());
+        } finally {
+            pool.shutdown();
+        }
+		return rankings;
+	}
+
+    /**
+     * A computation for one host which is executed by {@link CollectionConfiguration#runAdmitted(ExecutorService, int, ReversibleScoreMap, String, HostTask)}
+     */
+    private interface HostTask {
+        public void run(String host) throws IOException;
+    }
+
+    /**
+     * Run a task for each host in a pool. A task is started only if the memory for the documents of the host is available;
+     * otherwise it waits until running tasks are finished. If the memory is short even if no task is running, the remaining hosts are skipped.
+     * @param pool the executor of the tasks
+     * @param concurrency the number of threads of the pool
+     * @param hostcounts the hosts with their number of documents
+     * @param activity name of the task for log messages
+     * @param task the task
+     */
+    private static void runAdmitted(final ExecutorService pool, final int concurrency, final ReversibleScoreMap<String> hostcounts, final String activity, final HostTask task) {
+        final CompletionService<String> cs = new ExecutorCompletionService<String>(pool);
+        final AtomicLong reserved = new AtomicLong(0);
+        int running = 0;
+        try {
+            for (final String host: hostcounts.keyList(true)) {
+                final long required = CR_BYTES_PER_DOCUMENT * Math.max(1, hostcounts.get(host));
+                while (running > 0 && (running >= 2 * concurrency || MemoryControl.shortStatus() || !MemoryControl.request(reserved.get() + required, false))) {
+                    cs.take().get();
+                    running--;
+                }
+                if (MemoryControl.shortStatus()) {
+                    ConcurrentLog.warn("CollectionConfiguration", "terminated " + activity + " during postprocessing because of short memory");
+                    break;
+                }
+                reserved.addAndGet(required);
+                cs.submit(new Callable<String>() {
+                    @Override
+                    public String call() {
+                        try {
+                            task.run(host);
+                        } catch (final Throwable e) {
+                            ConcurrentLog.logException(e);
+                        } finally {
+                            reserved.addAndGet(-required);
                         }
+                        return host;
                     }
-                } catch (InterruptedException e) {
-                    ConcurrentLog.logException(e);
-                } catch (SpaceExceededException e) {
-                    ConcurrentLog.logException(e);
-                }
-                if (patchquerycount != patchquerycountcheck) ConcurrentLog.warn("CollectionConfiguration", "ambiguous patchquery count for host " + host + ": expected=" + patchquerycount + ", counted=" + patchquerycountcheck);
-                
-                // do the citation rank computation
-                if (collection1hosts.get(host) <= 0) continue;
-                // select all documents for each host
-                CRHost crh = new CRHost(segment, rrCache, host, 0.85d, 6);
-                int convergence_attempts = 0;
-                while (convergence_attempts++ < 30) {
-                    ConcurrentLog.info("CollectionConfiguration", "convergence step " + convergence_attempts + " for host " + host + " ...");
-                    if (crh.convergenceStep()) break;
-                    if (MemoryControl.shortStatus()) {
-                        ConcurrentLog.warn("CollectionConfiguration", "terminated convergenceStep during postprocessing because of short memory");
-                        break;
+                });
+                running++;
+            }
+            while (running > 0) {
+                cs.take().get();
+                running--;
+            }
+        } catch (final InterruptedException e) {
+            ConcurrentLog.logException(e);
+        } catch (final ExecutionException e) {
+            ConcurrentLog.logException(e);
+        }
+    }
+
+    /**
+     * Patch the citation index for links with canonical tags.
+     * This shall fulfill the following requirement:
+     * If a document A links to B and B contains a 'canonical C', then the citation rank computation shall consider that A links to C and B does not link to C.
+     * To do so, we first must collect all canonical links, find all references to them, get the anchor list of the documents and patch the citation reference of these links
+     * @param segment Solr segment
+     * @param collectionConnector default connector to the Solr segment
+     * @param host the host of the documents with canonical tags
+     * @throws IOException
+     */
+    private static void patchCanonicalReferences(final Segment segment, final SolrConnector collectionConnector, final String host) throws IOException {
+        String patchquery = CollectionSchema.host_s.getSolrFieldName() + ":" + host + " AND " + CollectionSchema.canonical_s.getSolrFieldName() + AbstractSolrConnector.CATCHALL_DTERM;
+        long patchquerycount = collectionConnector.getCountByQuery("{!cache=false}" + patchquery);
+        BlockingQueue<SolrDocument> documents_with_canonical_tag = collectionConnector.concurrentDocumentsByQuery(patchquery, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, Long.MAX_VALUE, 20, 1, true,
+                CollectionSchema.id.getSolrFieldName(), CollectionSchema.sku.getSolrFieldName(), CollectionSchema.canonical_s.getSolrFieldName());
+        SolrDocument doc_B;
+        int patchquerycountcheck = 0;
+        try {
+            while ((doc_B = documents_with_canonical_tag.take()) != AbstractSolrConnector.POISON_DOCUMENT) {
+                // find all documents which link to the canonical doc
+                DigestURL doc_C_url = new DigestURL((String) doc_B.getFieldValue(CollectionSchema.canonical_s.getSolrFieldName()));
+                byte[] doc_B_id = ASCII.getBytes(((String) doc_B.getFieldValue(CollectionSchema.id.getSolrFieldName())));
+                // we remove all references to B, because these become references to C
+                if (segment.connectedCitation()) {
+                    ReferenceContainer<CitationReference> doc_A_ids = segment.urlCitation().remove(doc_B_id);
+                    if (doc_A_ids == null) {
+                        //System.out.println("*** document with canonical but no referrer: " + doc_B.getFieldValue(CollectionSchema.sku.getSolrFieldName()));
+                        continue; // the document has a canonical tag but no referrer?
                     }
+                    Iterator<CitationReference> doc_A_ids_iterator = doc_A_ids.entries();
+                    // for each of the referrer A of B, set A as a referrer of C
+                    while (doc_A_ids_iterator.hasNext()) {
+                        CitationReference doc_A_citation = doc_A_ids_iterator.next();
+                        segment.urlCitation().add(doc_C_url.hash(), doc_A_citation);
+                    }
+                }
+                patchquerycountcheck++;
+                if (MemoryControl.shortStatus()) {
+                    ConcurrentLog.warn("CollectionConfiguration", "terminated canonical collection during postprocessing because of short memory");
+                    break;
                 }
-                ConcurrentLog.info("CollectionConfiguration", "convergence for host " + host + " after " + convergence_attempts + " steps");
-                // we have now the cr for all documents of a specific host; we store them for later use
-                Map<String, CRV> crn = crh.normalize();
-                //crh.log(crn);
-                rankings.putAll(crn); // accumulate this here for usage in document update later
+            }
+        } catch (InterruptedException e) {
+            ConcurrentLog.logException(e);
+        } catch (SpaceExceededException e) {
+            ConcurrentLog.logException(e);
+        }
+        if (patchquerycount != patchquerycountcheck) ConcurrentLog.warn("CollectionConfiguration", "ambiguous patchquery count for host " + host + ": expected=" + patchquerycount + ", counted=" + patchquerycountcheck);
+    }
+
+    /**
+     * Compute the citation rank of all documents of a host. If the link graph of the host did not change since the last
+     * computation, the stored values are used; otherwise the convergence steps start with the stored values.
+     * @param segment Solr segment
+     * @param rrCache reference report cache for the segment
+     * @param store the results of the last computation
+     * @param host
+     * @return the normalized ranking values of the documents of the host
+     * @throws IOException
+     */
+    private static Map<String, CRV> citationRank(final Segment segment, final ReferenceReportCache rrCache, final CitationRankStore store, final String host) throws IOException {
+        // select all documents for each host
+        final CRHost crh = new CRHost(segment, rrCache, host, 0.85d, 6);
+        final long fingerprint = crh.fingerprint();
+        final CitationRankStore.HostRanks stored = store.load(host);
+        if (stored != null) crh.warmStart(stored.ranks);
+        if (stored != null && stored.fingerprint == fingerprint) {
+            ConcurrentLog.info("CollectionConfiguration", "unchanged citations for host " + host + ", using the ranking of the last computation");
+        } else {
+            int convergence_attempts = 0;
+            boolean complete = true;
+            while (convergence_attempts++ < 30) {
+                if (crh.convergenceStep()) break;
                 if (MemoryControl.shortStatus()) {
-                    ConcurrentLog.warn("CollectionConfiguration", "terminated crn akkumulation during postprocessing because of short memory");
+                    ConcurrentLog.warn("CollectionConfiguration", "terminated convergenceStep during postprocessing because of short memory");
+                    complete = false;
                     break;
                 }
-                countcheck++;
             }
-            if (collection1hosts.size() != countcheck) ConcurrentLog.warn("CollectionConfiguration", "ambiguous host count: expected=" + collection1hosts.size() + ", counted=" + countcheck);
-        } catch (final IOException e2) {
-            ConcurrentLog.logException(e2);
-            collection1hosts = new ClusteredScoreMap<String>(true);
+            ConcurrentLog.info("CollectionConfiguration", "convergence for host " + host + " after " + convergence_attempts + " steps" + (stored == null ? "" : " (warm start)"));
+            if (complete) crh.store(store, fingerprint);
         }
-		return rankings;
-	}
+        //crh.log(crn);
+        return crh.normalize();
+    }
 
 	/**
 	 * Search in the segment any document having the same url as doc but with the opposite secure/unsecure (https or http) version of the protocol.
@@ -1936,6 +2045,12 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
     
     
     
+    /** the path of the stored citation ranks within the segment directory */
+    private static final String CITATION_RANK_PATH = "citationRank";
+
+    /** the estimated memory which is used for one document during the citation rank computation of a host */
+    private static final long CR_BYTES_PER_DOCUMENT = 1024;
+
     private static final class CRV {
         public double cr;
         public int crn, count;
@@ -1956,25 +2071,29 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
      */
     private static final class CRHost {
         private final Segment segment;
-        private final Map<String, double[]> crt;
+        private final String host;
+        private final CitationRankGraph graph;
         private final int cr_host_count;
         private final RowHandleMap internal_links_counter;
         private double damping;
         private int converge_eq_factor;
-        private ReferenceReportCache rrCache;
-        public CRHost(final Segment segment, final ReferenceReportCache rrCache, final String host, final double damping, final int converge_digits) {
+        public CRHost(final Segment segment, final ReferenceReportCache rrCache, final String host, final double damping, final int converge_digits) throws IOException {
             this.segment = segment;
+            this.host = host;
             this.damping = damping;
-            this.rrCache = rrCache;
             this.converge_eq_factor = (int) Math.pow(10.0d, converge_digits);
             SolrConnector connector = segment.fulltext().getDefaultConnector();
-            this.crt = new ConcurrentHashMap<String, double[]>();
+            final List<String> ids = new ArrayList<String>();
+            final Map<String, Integer> positions = new HashMap<String, Integer>();
             try {
                 // select all documents for each host
-                BlockingQueue<String> ids = connector.concurrentIDsByQuery("{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, 86400000, 200, 1);
+                BlockingQueue<String> idq = connector.concurrentIDsByQuery("{!cache=false raw f=" + CollectionSchema.host_s.getSolrFieldName() + "}" + host, CollectionSchema.url_chars_i.getSolrFieldName() + " asc", 0, 100000000, 86400000, 200, 1);
                 String id;
-                while ((id = ids.take()) != AbstractSolrConnector.POISON_ID) {
-                    this.crt.put(id, new double[]{0.0d,0.0d}); //{old value, new value}
+                while ((id = idq.take()) != AbstractSolrConnector.POISON_ID) {
+                    if (!positions.containsKey(id)) {
+                        positions.put(id, ids.size());
+                        ids.add(id);
+                    }
                     if (MemoryControl.shortStatus()) {
                         ConcurrentLog.warn("CollectionConfiguration", "terminated CRHost collection during postprocessing because of short memory");
                         break;
@@ -1982,10 +2101,43 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
                 }
             } catch (final InterruptedException e2) {
             }
-            this.cr_host_count = this.crt.size();
-            double initval = 1.0d / cr_host_count;
-            for (Map.Entry<String, double[]> entry: this.crt.entrySet()) entry.getValue()[0] = initval;
+            this.cr_host_count = ids.size();
             this.internal_links_counter = new RowHandleMap(12, Base64Order.enhancedCoder, 8, 100, "internal_links_counter");
+            // the internal links are collected once; the convergence steps use only the graph
+            this.graph = new CitationRankGraph(ids.toArray(new String[this.cr_host_count]));
+            for (int i = 0; i < this.cr_host_count; i++) {
+                ReferenceReport rr = rrCache.getReferenceReport(this.graph.id(i), false);
+                HandleSet iids = rr.getInternallIDs();
+                for (byte[] iid: iids) {
+                    Integer j = positions.get(ASCII.String(iid));
+                    if (j == null) continue; // the linking document is not a document of the host
+                    int ilc = getInternalLinks(iid);
+                    if (ilc > 0) { // if (ilc == 0) then the reference report is wrong!
+                        this.graph.link(i, j.intValue(), ilc);
+                    }
+                }
+            }
+        }
+        /**
+         * @return a fingerprint of the documents and internal links of the host
+         */
+        public long fingerprint() {
+            return this.graph.fingerprint();
+        }
+        /**
+         * set the ranking values of an earlier computation as start values
+         * @param ranks
+         */
+        public void warmStart(final Map<String, Double> ranks) {
+            this.graph.warmStart(ranks);
+        }
+        /**
+         * write the current ranking values to a store
+         * @param store
+         * @param fingerprint
+         */
+        public void store(final CitationRankStore store, final long fingerprint) {
+            store.store(this.host, this.graph, fingerprint);
         }
         /**
          * produce a map from IDs to CRV records, normalization entries containing the values that are stored to solr.
@@ -1993,11 +2145,11 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
          */
         public Map<String, CRV> normalize() {
             final TreeMap<Double, List<byte[]>> reorder = new TreeMap<Double, List<byte[]>>();
-            for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                Double d = entry.getValue()[0];
+            for (int i = 0; i < this.cr_host_count; i++) {
+                Double d = this.graph.cr(i);
                 List<byte[]> ds = reorder.get(d);
                 if (ds == null) {ds = new ArrayList<byte[]>(); reorder.put(d, ds);}
-                ds.add(ASCII.getBytes(entry.getKey()));
+                ds.add(ASCII.getBytes(this.graph.id(i)));
             }
             int nextcount = (this.cr_host_count + 1) / 2;
             int nextcrn = 0;
@@ -2070,53 +2222,11 @@ public class CollectionConfiguration extends SchemaConfiguration implements Seri
             return 0;
         }
         /**
-         * Use the crt cache to compute the next generation of crt values.
-         * @return
+         * Compute the next generation of ranking values.
+         * @return true if the ranking values did not change in the compared digits
          */
         public boolean convergenceStep() {
-            boolean convergence = true;
-            double df = (1.0d - damping) / this.cr_host_count;
-            try {
-                for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    String id = entry.getKey();
-                    ReferenceReport rr = this.rrCache.getReferenceReport(id, false);
-                    // sum up the cr of the internal links
-                    HandleSet iids = rr.getInternallIDs();
-                    double ncr = 0.0d;
-                    for (byte[] iid: iids) {
-                        int ilc = getInternalLinks(iid);
-                        if (ilc > 0) { // if (ilc == 0) then the reference report is wrong!
-                            double[] d = this.crt.get(ASCII.String(iid));
-                            // d[] could be empty at some situations
-                            if (d != null && d.length > 0) {
-                                ncr += d[0] / ilc;
-                            } else {
-                                // Output a warning that d[] is empty
-                                ConcurrentLog.warn("COLLECTION", "d[] is empty, iid="  + ASCII.String(iid));
-                                break;
-                            }
-                        }
-                    }
-                    ncr = df + damping * ncr;
-                    if (convergence && !eqd(ncr, entry.getValue()[0])) convergence = false;
-                    entry.getValue()[1] = ncr;
-                }
-                // after the loop, replace the old value with the new value in crt
-                for (Map.Entry<String, double[]> entry: this.crt.entrySet()) {
-                    entry.getValue()[0] = entry.getValue()[1];
-                }
-            } catch (final IOException e) {
-            }
-            return convergence;
-        }
-        /**
-         * helper method to check if two doubles are equal using a specific number of digits
-         * @param a
-         * @param b
-         * @return
-         */
-        private boolean eqd(final double a, final double b) {
-            return ((int) (a * this.converge_eq_factor)) == ((int) (b * this.converge_eq_factor));
+            return this.graph.convergenceStep(this.damping, this.converge_eq_factor);
         }
     }
     
@@ -0,0 +1,412 @@
+// CompiledTemplate.java
+// ---------------------
+// (C) 2026 by the YaCy contributors
+// first published 17.10.2026 on http://yacy.net
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.server.http;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.server.serverObjects;
+
+/**
+ * a template which is parsed once into a list of immutable nodes. The nodes are rendered
+ * for each request without parsing the template text again. The parser follows the
+ * syntax of the TemplateEngine stream parser exactly, see there for a description of
+ * the template syntax.
+ */
+public final class CompiledTemplate {
+
+    private final static byte hashChar = (byte) '#';
+    private final static byte pcChar   = (byte) '%';
+    private final static byte lbr      = (byte) '[';
+    private final static byte rbr      = (byte) ']';
+    private final static byte lcbr     = (byte) '{';
+    private final static byte rcbr     = (byte) '}';
+    private final static byte lrbr     = (byte) '(';
+    private final static byte rrbr     = (byte) ')';
+
+    private final static byte[] pClose  = {rbr, hashChar};
+    private final static byte[] mClose  = {rcbr, hashChar};
+    private final static byte[] aOpen   = {hashChar, lrbr};
+    private final static byte[] aClose  = {rrbr, hashChar};
+    private final static byte[] iClose  = {pcChar, hashChar};
+    private final static byte[] dpdpa   = ASCII.getBytes("::");
+    private final static byte[] PP      = ASCII.getBytes("%%");
+    private final static byte[] brackclose_hash = ASCII.getBytes(")#");
+
+    private final static int MAX_NAMED_ALTERNATIVES = 64; // limit of compiled by-name alternatives per node
+
+    private final Node[] nodes;
+    private final long lastModified, length; // file attributes at the time of compilation, used to detect changes
+
+    /**
+     * compile a template
+     * @param servletname the name of the template, used for log messages
+     * @param template the template text
+     * @param lastModified the modification date of the template file
+     * @param length the length of the template file, which may differ from the length of the template text
+     */
+    public CompiledTemplate(final String servletname, final byte[] template, final long lastModified, final long length) {
+        this.nodes = compile(servletname, new Input(template));
+        this.lastModified = lastModified;
+        this.length = length;
+    }
+
+    /**
+     * @param file
+     * @return true if the given file was not changed since this template was compiled from it
+     */
+    public boolean isCurrent(final File file) {
+        return file.lastModified() == this.lastModified && file.length() == this.length;
+    }
+
+    /**
+     * write the template with replaced patterns to the output stream
+     * @param servletname the name of the template, used for log messages
+     * @param out
+     * @param pattern the values for the patterns
+     * @throws IOException
+     */
+    public void render(final String servletname, final OutputStream out, final serverObjects pattern) throws IOException {
+        renderNodes(this.nodes, servletname, out, pattern, "", pattern.get("clientlanguage"));
+    }
+
+    private static void renderNodes(final Node[] nodes, final String servletname, final OutputStream out, final serverObjects pattern, final String prefix, final String clientbrowserlang) throws IOException {
+        for (final Node node: nodes) {
+            if (!node.render(servletname, out, pattern, prefix, clientbrowserlang)) return;
+        }
+    }
+
+    /**
+     * the template input; a byte array with a read position that can be moved back, like a PushbackInputStream
+     */
+    private static final class Input {
+        private final byte[] b;
+        private int pos;
+        private Input(final byte[] b) {
+            this.b = b;
+            this.pos = 0;
+        }
+        private int read() {
+            return this.pos < this.b.length ? this.b[this.pos++] & 0xFF : -1;
+        }
+        private void unread(final int n) {
+            this.pos -= n;
+        }
+    }
+
+    /**
+     * transfer until a specified pattern is found; everything but the pattern is transfered so far
+     * the function returns true, if the pattern is found
+     */
+    private static boolean transferUntil(final Input i, final ByteArrayOutputStream o, final byte[] pattern) {
+        int b, bb;
+        boolean equal;
+        while ((b = i.read()) > 0) {
+            if (b == (pattern[0] & 0xFF)) {
+                // read the whole pattern
+                equal = true;
+                for (int n = 1; n < pattern.length; n++) {
+                    bb = i.read();
+                    if (bb != (pattern[n] & 0xFF)) {
+                        // go back to the byte after the first pattern byte
+                        i.unread(bb < 0 ? n - 1 : n);
+                        equal = false;
+                        break;
+                    }
+                }
+                if (equal) return true;
+            }
+            o.write(b);
+        }
+        return false;
+    }
+
+    private static boolean transferUntil(final Input i, final ByteArrayOutputStream o, final byte p) {
+        int b;
+        while ((b = i.read()) > 0) {
+            if (b == (p & 0xFF)) return true;
+            o.write(b);
+        }
+        return false;
+    }
+
+    private static void killNewline(final Input i) {
+        final int bb = i.read();
+        if (bb != 10 && bb >= 0) i.unread(1);
+    }
+
+    private static Node[] compile(final String servletname, final Input in) {
+        final List<Node> nodes = new ArrayList<Node>();
+        final ByteArrayOutputStream text = new ByteArrayOutputStream(256);
+        final ByteArrayOutputStream keyStream = new ByteArrayOutputStream(256);
+        int bb;
+        loop: while (transferUntil(in, text, hashChar)) {
+            bb = in.read();
+            keyStream.reset();
+
+            if (bb == lcbr) { // #{ multi
+                if (transferUntil(in, keyStream, mClose)) {
+                    killNewline(in);
+                    final byte[] multi_key = keyStream.toByteArray();
+                    keyStream.reset();
+                    if (transferUntil(in, keyStream, TemplateEngine.appendBytes(new byte[]{hashChar, lcbr}, new byte[]{(byte) '/'}, multi_key, mClose))) {
+                        killNewline(in);
+                        flush(nodes, text);
+                        nodes.add(new MultiNode(UTF8.String(multi_key), compile(servletname, new Input(keyStream.toByteArray()))));
+                    } else {
+                        ConcurrentLog.severe("TEMPLATE", "No Close Key found for #{" + UTF8.String(multi_key) + "}#" + " in " + servletname);
+                    }
+                }
+
+            } else if (bb == lrbr) { // #( alternative
+                transferUntil(in, keyStream, aClose);
+                final byte[] key = keyStream.toByteArray();
+                final byte[] closeKey = TemplateEngine.appendBytes(new byte[]{(byte) '/'}, key, null, null);
+                final int bodyStart = in.pos;
+                int bodyEnd = -1;
+                int others = 0;
+                final List<byte[]> alternatives = new ArrayList<byte[]>();
+                final ByteArrayOutputStream alt = new ByteArrayOutputStream(256);
+                keyStream.reset();
+                scan: while (true) {
+                    bb = in.read();
+                    if (bb < 0) break scan; // no close tag
+                    if (bb == hashChar) {
+                        final int tokenStart = in.pos - 1;
+                        bb = in.read();
+                        if (bb == lrbr) {
+                            transferUntil(in, keyStream, aClose);
+                            final byte[] k = keyStream.toByteArray();
+                            keyStream.reset();
+                            if (Arrays.equals(k, closeKey)) {
+                                bodyEnd = tokenStart;
+                                break scan;
+                            }
+                            // nested alternatives
+                            if (others > 0 && k.length > 0 && k[0] == '/') others--; else others++;
+                            alt.write(aOpen, 0, aOpen.length);
+                            alt.write(k, 0, k.length);
+                            alt.write(brackclose_hash, 0, brackclose_hash.length);
+                            continue scan;
+                        }
+                        if (bb >= 0) in.unread(1);
+                        bb = hashChar;
+                    } else if (bb == ':' && others == 0) { // ignore :: in nested expressions
+                        bb = in.read();
+                        if (bb == ':') {
+                            alternatives.add(alt.toByteArray());
+                            alt.reset();
+                            continue scan;
+                        }
+                        alt.write(':');
+                        if (bb < 0) break scan;
+                    }
+                    alt.write(bb);
+                }
+                alternatives.add(alt.toByteArray());
+                final Node[][] compiled = new Node[alternatives.size()][];
+                for (int i = 0; i < compiled.length; i++) compiled[i] = compile(servletname, new Input(alternatives.get(i)));
+                flush(nodes, text);
+                nodes.add(new AlternativeNode(UTF8.String(key), compiled, Arrays.copyOfRange(in.b, bodyStart, bodyEnd < 0 ? in.pos : bodyEnd)));
+
+            } else if (bb == lbr) { // #[ normal pattern
+                if (transferUntil(in, keyStream, pClose)) {
+                    flush(nodes, text);
+                    nodes.add(new PatternNode(UTF8.String(keyStream.toByteArray())));
+                } else {
+                    // inconsistency, the remaining text is dropped
+                    break loop;
+                }
+
+            } else if (bb == pcChar) { // #% include
+                if (transferUntil(in, keyStream, iClose)) {
+                    final byte[] filename = keyStream.toByteArray();
+                    if (filename.length > 0) {
+                        flush(nodes, text);
+                        if (filename[0] == lbr && filename[filename.length - 1] == rbr) { // simple pattern for filename
+                            nodes.add(new IncludeNode(null, UTF8.String(Arrays.copyOfRange(filename, 1, filename.length - 1))));
+                        } else {
+                            nodes.add(new IncludeNode(UTF8.String(filename), null));
+                        }
+                    }
+                }
+
+            } else { // no match, but a single hash
+                text.write(hashChar);
+                if (bb >= 0) text.write(bb);
+            }
+        }
+        flush(nodes, text);
+        return nodes.toArray(new Node[nodes.size()]);
+    }
+
+    private static void flush(final List<Node> nodes, final ByteArrayOutputStream text) {
+        if (text.size() == 0) return;
+        nodes.add(new TextNode(text.toByteArray()));
+        text.reset();
+    }
+
+    private static abstract class Node {
+        /**
+         * @return false if the rendering of the enclosing template must be stopped
+         */
+        protected abstract boolean render(String servletname, OutputStream out, serverObjects pattern, String prefix, String clientbrowserlang) throws IOException;
+    }
+
+    private static final class TextNode extends Node {
+        private final byte[] text;
+        private TextNode(final byte[] text) {
+            this.text = text;
+        }
+        @Override
+        protected boolean render(final String servletname, final OutputStream out, final serverObjects pattern, final String prefix, final String clientbrowserlang) throws IOException {
+            out.write(this.text);
+            return true;
+        }
+    }
+
+    private static final class PatternNode extends Node {
+        private final String key;
+        private PatternNode(final String key) {
+            this.key = key;
+        }
+        @Override
+        protected boolean render(final String servletname, final OutputStream out, final serverObjects pattern, final String prefix, final String clientbrowserlang) throws IOException {
+            out.write(TemplateEngine.replacePattern(prefix + this.key, pattern));
+            return true;
+        }
+    }
+
+    private static final class MultiNode extends Node {
+        private final String key;
+        private final Node[] body;
+        private MultiNode(final String key, final Node[] body) {
+            this.key = key;
+            this.body = body;
+        }
+        @Override
+        protected boolean render(final String servletname, final OutputStream out, final serverObjects pattern, final String prefix, final String clientbrowserlang) throws IOException {
+            final String patternKey = prefix + this.key;
+            final String value = pattern.get(patternKey);
+            int num = 0;
+            if (value != null && !value.isEmpty()) {
+                try {
+                    num = Integer.parseInt(value); // key contains the iteration number as string
+                } catch (final NumberFormatException e) {
+                    ConcurrentLog.logException(e);
+                    num = 0;
+                }
+            }
+            for (int i = 0; i < num; i++) {
+                renderNodes(this.body, servletname, out, pattern, patternKey + "_" + i + "_", clientbrowserlang);
+            }
+            return true;
+        }
+    }
+
+    private static final class AlternativeNode extends Node {
+        private final String key;
+        private final Node[][] alternatives; // the alternatives separated by '::'
+        private final byte[] body; // the whole text of the alternatives, used for alternatives selected by name
+        private final Map<String, Node[]> named;
+        private AlternativeNode(final String key, final Node[][] alternatives, final byte[] body) {
+            this.key = key;
+            this.alternatives = alternatives;
+            this.body = body;
+            this.named = new ConcurrentHashMap<String, Node[]>();
+        }
+        @Override
+        protected boolean render(final String servletname, final OutputStream out, final serverObjects pattern, final String prefix, final String clientbrowserlang) throws IOException {
+            final String patternKey = prefix + this.key;
+            final String patternId = pattern.get(patternKey);
+            // lazy parsing of pattern value; numeric values, "true", "false" and no value allowed
+            int whichPattern = 0;
+            if (patternId != null) {
+                if ("true".equals(patternId)) {
+                    whichPattern = 1;
+                } else if ("false".equals(patternId)) {
+                    whichPattern = 0;
+                } else try {
+                    whichPattern = Integer.parseInt(patternId); // index
+                } catch (final NumberFormatException e) {
+                    // select the alternative by name
+                    Node[] selected = this.named.get(patternId);
+                    if (selected == null) {
+                        selected = compileNamed(servletname, patternId);
+                        if (selected == null) {
+                            ConcurrentLog.severe("TEMPLATE", "Bad Key-Value pair in #()# construct: key=\"" + patternKey + "\", value=\"" + patternId + "\" in " + servletname);
+                            return false;
+                        }
+                        if (this.named.size() < MAX_NAMED_ALTERNATIVES) this.named.put(patternId, selected);
+                    }
+                    renderNodes(selected, servletname, out, pattern, patternKey + "_", clientbrowserlang);
+                    return true;
+                }
+            }
+            // a non-existing alternative selects the last one
+            final int last = this.alternatives.length - 1;
+            renderNodes(this.alternatives[whichPattern >= 0 && whichPattern < last ? whichPattern : last], servletname, out, pattern, patternKey + "_", clientbrowserlang);
+            return true;
+        }
+        private Node[] compileNamed(final String servletname, final String name) {
+            final Input in = new Input(this.body);
+            final ByteArrayOutputStream text = new ByteArrayOutputStream(256);
+            if (!transferUntil(in, text, TemplateEngine.appendBytes(PP, UTF8.getBytes(name), null, null))) return null;
+            text.reset();
+            transferUntil(in, text, dpdpa);
+            return compile(servletname, new Input(text.toByteArray()));
+        }
+    }
+
+    private static final class IncludeNode extends Node {
+        private final String filename; // the file name or null if the name is given by a pattern
+        private final String filenameKey;
+        private IncludeNode(final String filename, final String filenameKey) {
+            this.filename = filename;
+            this.filenameKey = filenameKey;
+        }
+        @Override
+        protected boolean render(final String servletname, final OutputStream out, final serverObjects pattern, final String prefix, final String clientbrowserlang) throws IOException {
+            final String name = this.filename == null ? UTF8.String(TemplateEngine.replacePattern(prefix + this.filenameKey, pattern)) : this.filename;
+            if (name.isEmpty() || name.equals(UTF8.String(TemplateEngine.UNRESOLVED_PATTERN))) return true;
+            final CompiledTemplate include;
+            try {
+                include = TemplateEngine.getCompiledInclude(HTTPDFileHandler.getLocalizedFile(name, clientbrowserlang));
+            } catch (final IOException e) {
+                // file not found?
+                ConcurrentLog.severe("FILEHANDLER", "Include Error with file " + name + ": " + e.getMessage());
+                return true;
+            }
+            // clear pattern prefix for include
+            renderNodes(include.nodes, servletname, out, pattern, "", clientbrowserlang);
+            return true;
+        }
+    }
+}
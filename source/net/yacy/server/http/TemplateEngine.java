@@ -46,16 +46,20 @@
 
 package net.yacy.server.http;
 
+import java.io.BufferedInputStream;
 import java.io.BufferedReader;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
+import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.io.PushbackInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ConcurrentHashMap;
 
 import net.yacy.cora.document.encoding.ASCII;
 import net.yacy.cora.document.encoding.UTF8;
@@ -156,7 +160,14 @@ public final class TemplateEngine {
     private final static byte[] hash_brackopen_slash = "#(/".getBytes();
     private final static byte[] brackclose_hash = ")#".getBytes();
 
-    private final static byte[] UNRESOLVED_PATTERN = "-UNRESOLVED_PATTERN-".getBytes();
+    final static byte[] UNRESOLVED_PATTERN = "-UNRESOLVED_PATTERN-".getBytes();
+
+    // if true, template files are parsed once and rendered from the compiled form until the file changes
+    private final static boolean useCompiledTemplates = true;
+    private final static long maxCompiledTemplateSize = 4 * 1024 * 1024; // larger files are parsed for each request
+    private final static int maxCompiledTemplates = 2000; // the cache is cleared if it grows larger than this
+    private final static ConcurrentHashMap<String, CompiledTemplate> compiledTemplates = new ConcurrentHashMap<String, CompiledTemplate>();
+    private final static ConcurrentHashMap<String, CompiledTemplate> compiledIncludes = new ConcurrentHashMap<String, CompiledTemplate>();
 
     /**
      * transfer until a specified pattern is found; everything but the pattern is transfered so far
@@ -172,7 +183,7 @@ public final class TemplateEngine {
                 lo: for (int n = 1; n < pattern.length; n++) {
                     if (((bb = i.read()) & 0xFF) != pattern[n]) {
                         // push back all
-                        i.unread(bb);
+                        if (bb >= 0) i.unread(bb);
                         equal = false;
                         for (int nn = n - 1; nn > 0; nn--) i.unread(pattern[nn]);
                         break lo;
@@ -202,6 +213,77 @@ public final class TemplateEngine {
         }
     }
 
+    /**
+     * write a template file with replaced patterns to the output stream. The template is
+     * compiled at the first call and rendered from the compiled form as long as the
+     * file is not changed.
+     * @param servletname the name of the template, used for log messages
+     * @param templateFile
+     * @param out
+     * @param pattern
+     * @throws IOException
+     */
+    public final static void writeTemplate(final String servletname, final File templateFile, final OutputStream out, final serverObjects pattern) throws IOException {
+        if (pattern == null) {
+            FileUtils.copy(templateFile, out);
+            return;
+        }
+        if (!useCompiledTemplates || templateFile.length() > maxCompiledTemplateSize) {
+            // large files are streamed, small files are read completely to avoid that too many files are open at the same time
+            final InputStream in = templateFile.length() > maxCompiledTemplateSize ?
+                    new BufferedInputStream(new FileInputStream(templateFile)) :
+                    new ByteArrayInputStream(FileUtils.read(templateFile));
+            try {
+                writeTemplate(servletname, in, out, pattern, new byte[0]);
+            } finally {
+                in.close();
+            }
+            return;
+        }
+        final String key = templateFile.getAbsolutePath();
+        CompiledTemplate template = compiledTemplates.get(key);
+        if (template == null || !template.isCurrent(templateFile)) {
+            final long lastModified = templateFile.lastModified();
+            final long length = templateFile.length();
+            template = new CompiledTemplate(servletname, FileUtils.read(templateFile), lastModified, length);
+            if (compiledTemplates.size() >= maxCompiledTemplates) compiledTemplates.clear();
+            compiledTemplates.put(key, template);
+        }
+        template.render(servletname, out, pattern);
+    }
+
+    /**
+     * get a compiled include file; the text of include files is read line by line and each line is terminated with CRLF
+     * @param includeFile
+     * @return the compiled include file
+     * @throws IOException if the file cannot be read
+     */
+    final static CompiledTemplate getCompiledInclude(final File includeFile) throws IOException {
+        final String key = includeFile.getAbsolutePath();
+        CompiledTemplate template = compiledIncludes.get(key);
+        if (template != null && template.isCurrent(includeFile)) return template;
+        if (!includeFile.exists()) throw new FileNotFoundException(includeFile.toString());
+        final long lastModified = includeFile.lastModified();
+        final long length = includeFile.length();
+        final ByteBuffer include = new ByteBuffer();
+        final BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(includeFile), StandardCharsets.UTF_8));
+        try {
+            String line;
+            while ((line = br.readLine()) != null) {
+                include.append(UTF8.getBytes(line)).append(ASCII.getBytes(net.yacy.server.serverCore.CRLF_STRING));
+            }
+        } finally {
+            br.close();
+        }
+        template = new CompiledTemplate(includeFile.getName(), include.getBytes(), lastModified, length);
+        include.close();
+        if (useCompiledTemplates) {
+            if (compiledIncludes.size() >= maxCompiledTemplates) compiledIncludes.clear();
+            compiledIncludes.put(key, template);
+        }
+        return template;
+    }
+
     /**
      * Reads a input stream, and writes the data with replaced templates on a output stream
      */
@@ -223,7 +305,7 @@ public final class TemplateEngine {
                 if (transferUntil(pis, keyStream, mClose)) { //close tag
                     //multi_key =  "_" + keyStream.toString(); //for _Key
                     bb = pis.read();
-                    if ((bb & 0xFF) != 10){ //kill newline
+                    if ((bb & 0xFF) != 10 && bb >= 0){ //kill newline
                         pis.unread(bb);
                     }
                     multi_key = keyStream.toByteArray(); //IMPORTANT: no prefix here
@@ -232,7 +314,7 @@ public final class TemplateEngine {
                     //this needs multi_key without prefix
                     if (transferUntil(pis, keyStream, appendBytes(mOpen, slashChar, multi_key, mClose))){
                         bb = pis.read();
-                        if((bb & 0xFF) != 10){ //kill newline
+                        if((bb & 0xFF) != 10 && bb >= 0){ //kill newline
                             pis.unread(bb);
                         }
 
@@ -321,6 +403,12 @@ public final class TemplateEngine {
                 } else {
                     while(!found){
                         bb=pis.read(); // performance problem? trace always points to this line
+                        if (bb < 0) {
+                            // no close tag: use the last alternative
+                            pis2 = new PushbackInputStream(new ByteArrayInputStream(text.getBytes()));
+                            structure.append(writeTemplate(servletname, pis2, out, pattern, newPrefix(prefix,key)));
+                            break;
+                        }
                         if ((bb & 0xFF) == hashChar){
                             bb=pis.read();
                             if ((bb & 0xFF) == lrbr){
@@ -344,7 +432,7 @@ public final class TemplateEngine {
                                 keyStream.reset(); //reset stream
                                 continue;
                             } //is not #(
-                            pis.unread(bb);//is processed in next loop
+                            if (bb >= 0) pis.unread(bb);//is processed in next loop
                             bb = (hashChar);//will be added to text this loop
                             //text += "#";
                         }else if ((bb & 0xFF) == ':' && others==0){//ignore :: in nested Expressions
@@ -365,6 +453,7 @@ public final class TemplateEngine {
                                 continue;
                             }
                             text.append(':');
+                            if (bb < 0) continue;
                         }
                         if(!found){
                             text.append((byte)bb);/*
@@ -406,7 +495,7 @@ public final class TemplateEngine {
                 if(transferUntil(pis, keyStream, iClose)){
                     byte[] filename = keyStream.toByteArray();
                     //if(filename.startsWith( Character.toString((char)lbr) ) && filename.endsWith( Character.toString((char)rbr) )){ //simple pattern for filename
-                    if((filename[0] == lbr) && (filename[filename.length-1] == rbr)){ //simple pattern for filename
+                    if(filename.length > 0 && (filename[0] == lbr) && (filename[filename.length-1] == rbr)){ //simple pattern for filename
                         final byte[] newFilename = new byte[filename.length-2];
                         System.arraycopy(filename, 1, newFilename, 0, newFilename.length);
                         final String patternkey = getPatternKey(prefix, newFilename);
@@ -441,7 +530,7 @@ public final class TemplateEngine {
             // # - no special character. This is simply a '#' without meaning
             } else { //no match, but a single hash (output # + bb)
                 out.write(hashChar);
-                out.write(bb);
+                if (bb >= 0) out.write(bb);
             }
         }
         final byte[] sb = structure.getBytes();
@@ -449,7 +538,7 @@ public final class TemplateEngine {
         return sb;
     }
 
-    private final static byte[] replacePattern(final String key, final serverObjects pattern) {
+    final static byte[] replacePattern(final String key, final serverObjects pattern) {
         byte[] replacement;
         Object value;
         if (pattern.containsKey(key)) {
@@ -506,7 +595,7 @@ public final class TemplateEngine {
         }
     }
 
-    private final static byte[] appendBytes(final byte[] b1, final byte[] b2, final byte[] b3, final byte[] b4) {
+    final static byte[] appendBytes(final byte[] b1, final byte[] b2, final byte[] b3, final byte[] b4) {
         final ByteBuffer byteArray = new ByteBuffer(b1.length + b2.length + (b3 == null ? 0 : b3.length) + (b4 == null ? 0 : b4.length));
         byteArray.append(b1).append(b2);
         if (b3 != null) byteArray.append(b3);
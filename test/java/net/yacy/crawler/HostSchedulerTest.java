@@ -0,0 +1,101 @@
+package net.yacy.crawler;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link HostScheduler} class.
+ */
+public class HostSchedulerTest {
+
+    /**
+     * Test that hosts are polled in the order of their deadlines and, within the same granularity, of their queue size
+     */
+    @Test
+    public void testOrder() {
+        final HostScheduler scheduler = new HostScheduler();
+        scheduler.offer("host03", 3000, 1);
+        scheduler.offer("host01", 1000, 1);
+        scheduler.offer("host02", 1000 + HostScheduler.GRANULARITY / 2, 50);
+        scheduler.offer("host00", 0, 1);
+        assertEquals(4, scheduler.size());
+
+        assertEquals("host00", scheduler.poll().hosthash);
+        assertEquals("host02", scheduler.poll().hosthash);
+        assertEquals("host01", scheduler.poll().hosthash);
+        assertEquals("host03", scheduler.poll().hosthash);
+        assertNull(scheduler.poll());
+        assertEquals(0, scheduler.size());
+    }
+
+    /**
+     * Test that a host offered again is moved to its new deadline and is scheduled only once
+     */
+    @Test
+    public void testReschedule() {
+        final HostScheduler scheduler = new HostScheduler();
+        scheduler.offer("host01", 1000, 1);
+        scheduler.offer("host02", 2000, 1);
+        scheduler.offer("host01", 5000, 1);
+        assertEquals(2, scheduler.size());
+
+        assertEquals("host02", scheduler.poll().hosthash);
+        final HostScheduler.Slot slot = scheduler.poll();
+        assertEquals("host01", slot.hosthash);
+        assertEquals(5000, slot.deadline);
+        assertNull(scheduler.poll());
+
+        scheduler.offer("host03", 1000, 1);
+        assertTrue(scheduler.contains("host03"));
+        scheduler.remove("host03");
+        assertFalse(scheduler.contains("host03"));
+        assertNull(scheduler.poll());
+    }
+
+    /**
+     * Test that concurrent threads leasing and offering hosts never hold the same host at the same time and lose no host
+     */
+    @Test
+    public void testConcurrentLease() throws InterruptedException {
+        final HostScheduler scheduler = new HostScheduler();
+        final int hosts = 100;
+        for (int i = 0; i < hosts; i++) scheduler.offer("host" + i, i, 1);
+        final Set<String> leased = new HashSet<String>();
+        final AtomicInteger collisions = new AtomicInteger(0);
+        final Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 10000; i++) {
+                        final HostScheduler.Slot slot = scheduler.poll();
+                        if (slot == null) continue;
+                        synchronized (leased) {
+                            if (!leased.add(slot.hosthash)) collisions.incrementAndGet();
+                        }
+                        synchronized (leased) {
+                            leased.remove(slot.hosthash);
+                        }
+                        scheduler.offer(slot.hosthash, slot.deadline + 1000, 1);
+                    }
+                }
+            };
+            threads[t].start();
+        }
+        for (final Thread thread : threads) thread.join();
+        assertEquals(0, collisions.get());
+        assertEquals(hosts, scheduler.size());
+        final Set<String> polled = new HashSet<String>();
+        HostScheduler.Slot slot;
+        while ((slot = scheduler.poll()) != null) assertTrue(polled.add(slot.hosthash));
+        assertEquals(hosts, polled.size());
+    }
+}
@@ -0,0 +1,78 @@
+package net.yacy.crawler.robots;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.net.MalformedURLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.id.MultiProtocolURL;
+
+/**
+ * Unit tests for the {@link RobotsTxtEntry} class.
+ */
+public class RobotsTxtEntryTest {
+
+    private static RobotsTxtEntry entry(final Date loadedDate, final String... deny) throws MalformedURLException {
+        return new RobotsTxtEntry(new MultiProtocolURL("http://example.org/robots.txt"), new ArrayList<String>(),
+                Arrays.asList(deny), loadedDate, null, null, new ArrayList<String>(), 2000, "yacybot");
+    }
+
+    /**
+     * Test that the compiled deny paths give the same result as a prefix check against every deny path
+     */
+    @Test
+    public void testIsDisallowed() throws MalformedURLException {
+        final List<String> deny = Arrays.asList("/private/", "/tmp", "/a/b/c", "/a/x");
+        final RobotsTxtEntry entry = entry(new Date(), deny.toArray(new String[deny.size()]));
+        final String[] paths = {"/", "/private", "/private/", "/private/file.html", "/tmp", "/tmpfile", "/tm",
+                "/a/b", "/a/b/c", "/a/b/cd/e", "/a/x?q=1", "/b/private/", "/%C3%A4/tmp"};
+        for (final String path: paths) {
+            boolean expected = false;
+            for (final String d: deny) if (path.startsWith(d)) expected = true;
+            final MultiProtocolURL url = new MultiProtocolURL("http://example.org" + path);
+            assertEquals(path, expected, entry.isDisallowed(url));
+            assertEquals(path, expected, entry.getInfo(url).contains("' from deny path list"));
+        }
+        assertEquals(2000, entry.getCrawlDelayMillis());
+    }
+
+    /**
+     * Test the matching of an empty and a root deny path
+     */
+    @Test
+    public void testPathPrefixTrie() {
+        assertTrue(new PathPrefixTrie(new ArrayList<String>()).isEmpty());
+        assertNull(new PathPrefixTrie(new ArrayList<String>()).matchingPrefix("/a"));
+        final PathPrefixTrie root = new PathPrefixTrie(Arrays.asList("/", "/a/b"));
+        assertEquals("/", root.matchingPrefix("/a/b/c"));
+        assertNull(root.matchingPrefix("a"));
+        assertEquals("", new PathPrefixTrie(Arrays.asList("")).matchingPrefix("/x"));
+    }
+
+    /**
+     * Test that an entry is fresh only within the given age from its load date, also after the entry was encoded
+     */
+    @Test
+    public void testIsFresh() throws MalformedURLException {
+        final long now = System.currentTimeMillis();
+        final RobotsTxtEntry entry = entry(new Date(now - 10000), "/private/");
+        assertTrue(entry.isFresh(60000));
+        assertFalse(entry.isFresh(5000));
+        assertFalse(entry(null).isFresh(60000));
+
+        final RobotsTxtEntry decoded = new RobotsTxtEntry(entry.getHostName(), entry.getMem());
+        assertTrue(decoded.isFresh(60000));
+        assertTrue(decoded.isDisallowed(new MultiProtocolURL("http://example.org/private/x")));
+        decoded.setLoadedDate(new Date(now - 100000));
+        assertFalse(decoded.isFresh(60000));
+        assertEquals(now - 100000, decoded.getLoadedDate().getTime());
+    }
+}
@@ -0,0 +1,122 @@
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Date;
+
+import org.junit.After;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.SpaceExceededException;
+
+/**
+ * Unit tests for the {@link ArrayStack} class.
+ */
+public class ArrayStackTest {
+
+    private static final int BLOBS = 6;
+    private static final int KEYS = 50;
+
+    private File location;
+
+    private static byte[] key(final int blob, final int i) {
+        return ASCII.getBytes(String.format("k%02d%09d", blob, i));
+    }
+
+    private static byte[] value(final int blob, final int i) {
+        return ASCII.getBytes("value " + blob + "/" + i);
+    }
+
+    /**
+     * write BLOB files without index dumps into a new directory
+     */
+    private File createBLOBs() throws IOException {
+        this.location = File.createTempFile("arrayStack", "");
+        this.location.delete();
+        this.location.mkdirs();
+        final ArrayStack stack = new ArrayStack(this.location, "test", Base64Order.enhancedCoder, 12, 1024, false, false);
+        final long t = System.currentTimeMillis() - BLOBS * 1000L;
+        for (int b = 0; b < BLOBS; b++) {
+            final Heap heap = new Heap(stack.newBLOB(new Date(t + b * 1000L)), 12, Base64Order.enhancedCoder, 1024);
+            for (int i = 0; i < KEYS; i++) heap.insert(key(b, i), value(b, i));
+            heap.close(false);
+        }
+        stack.close(false);
+        return this.location;
+    }
+
+    private static void assertAll(final ArrayStack stack) throws IOException, SpaceExceededException {
+        assertEquals(BLOBS * KEYS, stack.size());
+        for (int b = 0; b < BLOBS; b++) {
+            for (int i = 0; i < KEYS; i++) assertArrayEquals(value(b, i), stack.get(key(b, i)));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        ArrayStack.lazyMount = false;
+        if (this.location == null) return;
+        final File[] files = this.location.listFiles();
+        if (files != null) for (final File f: files) f.delete();
+        this.location.delete();
+    }
+
+    /**
+     * Test that all BLOBs are opened when they are mounted in parallel
+     */
+    @Test
+    public void testParallelMount() throws IOException, SpaceExceededException {
+        final ArrayStack stack = new ArrayStack(createBLOBs(), "test", Base64Order.enhancedCoder, 12, 1024, false, false);
+        assertEquals(0, stack.mounting());
+        assertEquals(BLOBS, stack.entries());
+        assertAll(stack);
+        stack.close(false);
+    }
+
+    /**
+     * Test that BLOBs without index dump are mounted in the background and that a deletion waits for them
+     */
+    @Test
+    public void testLazyMount() throws IOException, SpaceExceededException, InterruptedException {
+        ArrayStack.lazyMount = true;
+        createBLOBs();
+        ArrayStack stack = new ArrayStack(this.location, "test", Base64Order.enhancedCoder, 12, 1024, false, false);
+        stack.delete(key(0, 0));
+        assertEquals(0, stack.mounting());
+        assertEquals(BLOBS, stack.entries());
+        assertFalse(stack.containsKey(key(0, 0)));
+        stack.insert(key(0, 0), value(0, 0));
+        stack.close(false);
+
+        stack = new ArrayStack(this.location, "test", Base64Order.enhancedCoder, 12, 1024, false, false);
+        final long timeout = System.currentTimeMillis() + 10000;
+        while (stack.mounting() > 0 && System.currentTimeMillis() < timeout) Thread.sleep(10);
+        assertEquals(0, stack.mounting());
+        assertTrue(stack.containsKey(key(0, 0)));
+        assertAll(stack);
+        stack.close(false);
+    }
+
+    /**
+     * Test that a stack which is closed while BLOBs are mounted in the background waits for them
+     */
+    @Test
+    public void testCloseWhileMounting() throws IOException, SpaceExceededException {
+        ArrayStack.lazyMount = true;
+        ArrayStack stack = new ArrayStack(createBLOBs(), "test", Base64Order.enhancedCoder, 12, 1024, false, false);
+        stack.close(true);
+        assertEquals(0, stack.mounting());
+
+        ArrayStack.lazyMount = false;
+        stack = new ArrayStack(this.location, "test", Base64Order.enhancedCoder, 12, 1024, false, false);
+        assertAll(stack);
+        stack.close(false);
+    }
+}
@@ -0,0 +1,212 @@
+package net.yacy.kelondro.blob;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorInputStream;
+import org.apache.commons.compress.compressors.lz4.BlockLZ4CompressorOutputStream;
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.util.FileUtils;
+
+/**
+ * Unit tests for the {@link CompressionCodec} implementations and their use in the {@link Compressor}.
+ */
+public class CompressionCodecTest {
+
+    private static List<byte[]> contents() {
+        final Random random = new Random(1);
+        final List<byte[]> contents = new ArrayList<byte[]>();
+        contents.add(new byte[0]);
+        contents.add(new byte[]{42});
+        contents.add(UTF8.getBytes("abcabcabcabcabcabcabcabc"));
+        final byte[] noise = new byte[100000];
+        random.nextBytes(noise);
+        contents.add(noise);
+        contents.add(new byte[70000]); // a long run
+        for (int i = 0; i < 10; i++) contents.add(page(random, i * 20));
+        return contents;
+    }
+
+    private static byte[] page(final Random random, final int paragraphs) {
+        final StringBuilder sb = new StringBuilder();
+        sb.append("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"utf-8\" /><title>Page ").append(random.nextInt()).append("</title></head><body>\n");
+        sb.append("<div class=\"navigation\"><ul><li><a href=\"/\">Home</a></li><li><a href=\"/about\">About</a></li><li><a href=\"/contact\">Contact</a></li></ul></div>\n");
+        for (int p = 0; p < paragraphs; p++) {
+            sb.append("<p class=\"text\">");
+            for (int w = random.nextInt(50); w >= 0; w--) sb.append("word").append(random.nextInt(1000)).append(' ');
+            sb.append("</p>\n");
+        }
+        sb.append("<div class=\"footer\"><p>&copy; 2026 Example Organization. All rights reserved.</p></div></body></html>\n");
+        return UTF8.getBytes(sb.toString());
+    }
+
+    /**
+     * Test that all codecs decompress what they compressed and mark it with their magic
+     */
+    @Test
+    public void testRoundTrip() throws IOException {
+        final CompressionCodec[] codecs = {new GzipCodec(), new LZ4Codec(), new DictionaryCodec()};
+        for (final CompressionCodec codec: codecs) {
+            for (final byte[] b: contents()) {
+                final byte[] z = codec.compress(b, Deflater.DEFAULT_COMPRESSION);
+                assertEquals(codec.magic()[0], z[0]);
+                assertEquals(codec.magic()[1], z[1]);
+                assertArrayEquals(codec.name(), b, codec.decompress(z));
+            }
+        }
+    }
+
+    /**
+     * Test that the lz4 blocks are compatible with the LZ4 block format of commons-compress
+     */
+    @Test
+    public void testLZ4BlockFormat() throws IOException {
+        for (final byte[] b: contents()) {
+            if (b.length == 0) continue;
+            // our blocks can be read by commons-compress
+            final byte[] z = new LZ4Codec().compress(b, 0);
+            final BlockLZ4CompressorInputStream in = new BlockLZ4CompressorInputStream(new ByteArrayInputStream(z, 6, z.length - 6));
+            assertArrayEquals(b, FileUtils.read(in));
+            in.close();
+
+            // blocks of commons-compress can be read by us
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            final OutputStream out = new BlockLZ4CompressorOutputStream(baos);
+            out.write(b);
+            out.close();
+            final byte[] block = baos.toByteArray();
+            final byte[] d = new byte[b.length];
+            assertEquals(b.length, LZ4Codec.decompressBlock(block, 0, block.length, d));
+            assertArrayEquals(b, d);
+        }
+    }
+
+    /**
+     * Test that a damaged length field is rejected instead of allocating a huge array
+     */
+    @Test
+    public void testDamagedLength() throws IOException {
+        final CompressionCodec[] codecs = {new LZ4Codec(), new DictionaryCodec()};
+        for (final CompressionCodec codec: codecs) {
+            for (final int length: new int[]{-1, Integer.MAX_VALUE}) {
+                final byte[] z = codec.compress(page(new Random(4), 2), Deflater.DEFAULT_COMPRESSION);
+                z[2] = (byte) (length >>> 24);
+                z[3] = (byte) (length >>> 16);
+                z[4] = (byte) (length >>> 8);
+                z[5] = (byte) length;
+                try {
+                    codec.decompress(z);
+                    fail(codec.name() + " accepted length " + length);
+                } catch (final IOException e) {
+                    assertTrue(e.getMessage(), e.getMessage().contains("length"));
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that entries of the original gzip and plain format are readable with another codec, and that
+     * entries of several codecs can be mixed
+     */
+    @Test
+    public void testMixedEntries() throws IOException, SpaceExceededException {
+        final File file = File.createTempFile("compressor", ".heap");
+        file.delete();
+        final Heap heap = new Heap(file, 12, Base64Order.enhancedCoder, 1024);
+        try {
+            final byte[] page = page(new Random(2), 30);
+            // the original formats
+            final ByteArrayOutputStream baos = new ByteArrayOutputStream();
+            baos.write('z');
+            baos.write('|');
+            final OutputStream os = new GZIPOutputStream(baos);
+            os.write(page);
+            os.close();
+            heap.insert(ASCII.getBytes("gzipgzipgzip"), baos.toByteArray());
+            final byte[] plain = new byte[page.length + 2];
+            plain[0] = 'p';
+            plain[1] = '|';
+            System.arraycopy(page, 0, plain, 2, page.length);
+            heap.insert(ASCII.getBytes("plainplainpl"), plain);
+
+            final Compressor compressor = new Compressor(heap, 0, 1000, Deflater.BEST_SPEED, new LZ4Codec());
+            final DictionaryCodec dictionary = new DictionaryCodec();
+            compressor.addCodec(dictionary);
+            assertArrayEquals(page, compressor.get(ASCII.getBytes("gzipgzipgzip")));
+            assertArrayEquals(page, compressor.get(ASCII.getBytes("plainplainpl")));
+
+            compressor.insert(ASCII.getBytes("lz4lz4lz4lz4"), page);
+            compressor.flushAll();
+            assertEquals('l', heap.get(ASCII.getBytes("lz4lz4lz4lz4"))[0]);
+            compressor.setCodec(dictionary);
+            compressor.insert(ASCII.getBytes("dictdictdict"), page);
+            compressor.flushAll();
+            assertEquals('d', heap.get(ASCII.getBytes("dictdictdict"))[0]);
+            compressor.setCodec(new GzipCodec());
+            assertArrayEquals(page, compressor.get(ASCII.getBytes("lz4lz4lz4lz4")));
+            assertArrayEquals(page, compressor.get(ASCII.getBytes("dictdictdict")));
+            assertEquals(page.length, compressor.length(ASCII.getBytes("dictdictdict")));
+        } finally {
+            heap.close(false);
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that a trained dictionary improves the compression of small pages and that entries of an
+     * older dictionary remain readable
+     */
+    @Test
+    public void testDictionary() throws IOException {
+        final Random random = new Random(3);
+        final List<byte[]> samples = new ArrayList<byte[]>();
+        for (int i = 0; i < 100; i++) samples.add(page(random, 2));
+        final byte[] dict = DictionaryCodec.train(samples, DictionaryCodec.DICTIONARY_SIZE);
+        assertTrue(dict.length > 0 && dict.length <= DictionaryCodec.DICTIONARY_SIZE);
+
+        final DictionaryCodec codec = new DictionaryCodec();
+        final byte[] page = page(random, 2);
+        final byte[] builtin = codec.compress(page, Deflater.DEFAULT_COMPRESSION);
+        codec.setDictionary(dict);
+        assertTrue(codec.isTrained());
+        final byte[] trained = codec.compress(page, Deflater.DEFAULT_COMPRESSION);
+        final byte[] gzip = new GzipCodec().compress(page, Deflater.DEFAULT_COMPRESSION);
+        assertTrue(trained.length < builtin.length);
+        assertTrue(trained.length < gzip.length);
+
+        // entries of both dictionaries are readable
+        assertArrayEquals(page, codec.decompress(builtin));
+        assertArrayEquals(page, codec.decompress(trained));
+
+        // a stored dictionary is used after loading
+        final File dir = new File(System.getProperty("java.io.tmpdir"), "dictionaryCodecTest");
+        try {
+            codec.store(dir, dict);
+            final DictionaryCodec loaded = new DictionaryCodec();
+            loaded.load(dir);
+            assertTrue(loaded.isTrained());
+            assertArrayEquals(page, loaded.decompress(trained));
+            assertArrayEquals(trained, loaded.compress(page, Deflater.DEFAULT_COMPRESSION));
+        } finally {
+            FileUtils.deletedelete(dir);
+        }
+    }
+}
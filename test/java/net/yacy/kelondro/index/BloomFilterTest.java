@@ -0,0 +1,53 @@
+package net.yacy.kelondro.index;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+
+import net.yacy.cora.order.Base64Order;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the BloomFilter class.
+ */
+public class BloomFilterTest {
+
+    private static byte[] key(final int i) {
+        return Base64Order.enhancedCoder.encodeLongBA(i * 7919L, 12);
+    }
+
+    /**
+     * added keys are always found, other keys only with a low false positive rate
+     */
+    @Test
+    public void testMightContain() {
+        final BloomFilter filter = new BloomFilter(10000, 10);
+        for (int i = 0; i < 10000; i++) filter.add(key(i));
+        for (int i = 0; i < 10000; i++) assertTrue(filter.mightContain(key(i)));
+        int falsePositives = 0;
+        for (int i = 10000; i < 110000; i++) if (filter.mightContain(key(i))) falsePositives++;
+        assertTrue("false positives: " + falsePositives, falsePositives < 2000); // expected are about 1%
+    }
+
+    /**
+     * a dumped filter gives the same answers after loading
+     */
+    @Test
+    public void testDumpLoad() throws Exception {
+        final BloomFilter filter = new BloomFilter(1000, 10);
+        for (int i = 0; i < 1000; i++) filter.add(key(i));
+        final File f = File.createTempFile("BloomFilterTest", ".bloom");
+        try {
+            filter.dump(f);
+            final BloomFilter loaded = new BloomFilter(f);
+            for (int i = 0; i < 2000; i++) {
+                if (i < 1000) assertTrue(loaded.mightContain(key(i)));
+                if (filter.mightContain(key(i)) != loaded.mightContain(key(i))) assertFalse("different answer for key " + i, true);
+            }
+        } finally {
+            f.delete();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package net.yacy.kelondro.index;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.util.Iterator;
+
+import net.yacy.cora.order.Base64Order;
+import net.yacy.cora.order.CloneableIterator;
+import net.yacy.cora.storage.HandleMap;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the OffHeapHandleMap class.
+ */
+public class OffHeapHandleMapTest {
+
+    private static byte[] key(final int i) {
+        return Base64Order.enhancedCoder.encodeLongBA(i * 7919L, 12);
+    }
+
+    /**
+     * put, get, remove and growth of the hash table
+     */
+    @Test
+    public void testPutGetRemove() throws Exception {
+        final OffHeapHandleMap map = new OffHeapHandleMap(12, Base64Order.enhancedCoder, 8, 10);
+        for (int i = 0; i < 10000; i++) assertEquals(-1, map.put(key(i), i));
+        assertEquals(10000, map.size());
+        for (int i = 0; i < 10000; i++) assertEquals(i, map.get(key(i)));
+        assertEquals(5, map.put(key(5), 50));
+        assertEquals(50, map.get(key(5)));
+        for (int i = 0; i < 10000; i += 2) assertEquals(i, map.remove(key(i)));
+        assertEquals(5000, map.size());
+        for (int i = 0; i < 10000; i++) assertEquals(i % 2 == 0 ? -1 : (i == 5 ? 50 : i), map.get(key(i)));
+        assertFalse(map.has(key(0)));
+        assertTrue(map.has(key(1)));
+        map.close();
+    }
+
+    /**
+     * the keys must be iterated in key order in both directions
+     */
+    @Test
+    public void testKeyOrder() throws Exception {
+        final OffHeapHandleMap map = new OffHeapHandleMap(12, Base64Order.enhancedCoder, 8, 10);
+        for (int i = 0; i < 1000; i++) map.put(key(i), i);
+        byte[] last = null;
+        int c = 0;
+        final CloneableIterator<byte[]> i = map.keys(true, null);
+        while (i.hasNext()) {
+            final byte[] k = i.next();
+            if (last != null) assertTrue(Base64Order.enhancedCoder.compare(last, k) < 0);
+            last = k;
+            c++;
+        }
+        assertEquals(1000, c);
+        assertArrayEquals(last, map.largestKey());
+        final CloneableIterator<byte[]> d = map.keys(false, null);
+        assertArrayEquals(map.largestKey(), d.next());
+        map.close();
+    }
+
+    /**
+     * a dump of an OffHeapHandleMap must be readable by a RowHandleMap and vice versa
+     */
+    @Test
+    public void testDumpCompatibility() throws Exception {
+        final File f = File.createTempFile("OffHeapHandleMapTest", ".idx");
+        f.deleteOnExit();
+        final OffHeapHandleMap map = new OffHeapHandleMap(12, Base64Order.enhancedCoder, 8, 10);
+        for (int i = 0; i < 500; i++) map.put(key(i), i * 1000L);
+        assertEquals(500, map.dump(f));
+        map.close();
+
+        final HandleMap row = new RowHandleMap(12, Base64Order.enhancedCoder, 8, f);
+        assertEquals(500, row.size());
+        for (int i = 0; i < 500; i++) assertEquals(i * 1000L, row.get(key(i)));
+        row.dump(f);
+        row.close();
+
+        final OffHeapHandleMap reloaded = new OffHeapHandleMap(12, Base64Order.enhancedCoder, 8, f);
+        assertEquals(500, reloaded.size());
+        final Iterator<byte[]> i = reloaded.keys(true, null);
+        int c = 0;
+        while (i.hasNext()) {
+            i.next();
+            c++;
+        }
+        assertEquals(500, c);
+        for (int j = 0; j < 500; j++) assertEquals(j * 1000L, reloaded.get(key(j)));
+        reloaded.close();
+    }
+}
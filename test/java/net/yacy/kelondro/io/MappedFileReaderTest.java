@@ -0,0 +1,64 @@
+package net.yacy.kelondro.io;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import org.junit.Test;
+
+public class MappedFileReaderTest {
+
+    /**
+     * Test of readInt and readFully, of class MappedFileReader.
+     */
+    @Test
+    public void testRead() throws Exception {
+        final File f = File.createTempFile("MappedFileReaderTest", ".heap");
+        f.deleteOnExit();
+        final DataOutputStream os = new DataOutputStream(new FileOutputStream(f));
+        try {
+            os.writeInt(0x01020304);
+            os.write(new byte[] {'a', 'b', 'c'});
+            os.writeInt(-1);
+        } finally {
+            os.close();
+        }
+
+        final MappedFileReader reader = new MappedFileReader(f);
+        try {
+            assertEquals(11, reader.length());
+            assertEquals(0x01020304, reader.readInt(0));
+            assertEquals(-1, reader.readInt(7));
+            final byte[] b = new byte[3];
+            reader.readFully(4, b, 0, 3);
+            assertArrayEquals(new byte[] {'a', 'b', 'c'}, b);
+        } finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * a read beyond the mapped length must fail with an IOException
+     */
+    @Test(expected = IOException.class)
+    public void testReadBeyondEnd() throws Exception {
+        final File f = File.createTempFile("MappedFileReaderTest", ".heap");
+        f.deleteOnExit();
+        final FileOutputStream os = new FileOutputStream(f);
+        try {
+            os.write(new byte[] {1, 2});
+        } finally {
+            os.close();
+        }
+        final MappedFileReader reader = new MappedFileReader(f);
+        try {
+            reader.readInt(0);
+        } finally {
+            reader.close();
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package net.yacy.kelondro.rwi;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.blob.Heap;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.index.RowSet;
+
+/**
+ * Unit tests for the {@link ReferenceBlocks} and {@link ReferenceCursor} classes.
+ */
+public class ReferenceBlocksTest {
+
+    private static final ReferenceFactory<WordReference> factory = new WordReferenceFactory();
+
+    private static byte[] urlhash(final int i) {
+        return Word.word2hash("http://host" + (i % 97) + ".org/" + i);
+    }
+
+    private static ReferenceContainer<WordReference> container(final byte[] termHash, final int from, final int to, final int step) throws SpaceExceededException {
+        final ReferenceContainer<WordReference> c = new ReferenceContainer<WordReference>(factory, termHash);
+        for (int i = from; i < to; i += step) {
+            c.add(new WordReferenceRow(urlhash(i), 30, 3, 2, 100, 10, 0L, 0L, ASCII.getBytes("en"), 't', 1, 1));
+        }
+        return c;
+    }
+
+    private static Heap heap(final byte[] termHash, final byte[] b, final boolean flush) throws IOException {
+        final File f = File.createTempFile("referenceBlocks", ".blob");
+        f.delete();
+        f.deleteOnExit();
+        new File(f.getParentFile(), f.getName() + ".gap").deleteOnExit();
+        new File(f.getParentFile(), f.getName() + ".idx").deleteOnExit();
+        final Heap heap = new Heap(f, termHash.length, factory.getRow().getOrdering(), 1024 * 1024);
+        heap.insert(termHash, b);
+        if (flush) heap.flushBuffer();
+        return heap;
+    }
+
+    /**
+     * Test that a container with a block index is imported like a container without one
+     */
+    @Test
+    public void testExportImport() throws SpaceExceededException {
+        final ReferenceContainer<WordReference> c = container(Word.word2hash("term"), 0, 1000, 1);
+        final byte[] plain = c.exportCollection();
+        final byte[] blocked = c.exportCollection(ReferenceContainer.exportBlockRows);
+        assertEquals(RowSet.exportedLength(1000, factory.getRow(), Integer.MAX_VALUE), plain.length);
+        assertEquals(RowSet.exportedLength(1000, factory.getRow(), ReferenceContainer.exportBlockRows), blocked.length);
+        assertTrue(blocked.length > plain.length);
+        assertEquals(1000, RowSet.exportedRowCount(blocked));
+        final RowSet a = RowSet.importRowSet(plain, factory.getRow());
+        final RowSet b = RowSet.importRowSet(blocked, factory.getRow());
+        assertEquals(1000, b.size());
+        for (int i = 0; i < 1000; i++) assertTrue(b.has(urlhash(i)));
+        assertEquals(a.size(), b.size());
+
+        // small containers do not get a block index
+        final ReferenceContainer<WordReference> s = container(Word.word2hash("term"), 0, 10, 1);
+        assertEquals(s.exportCollection().length, s.exportCollection(ReferenceContainer.exportBlockRows).length);
+    }
+
+    /**
+     * Test that every reference is found and that a seek in ascending order reads each block at most once
+     */
+    @Test
+    public void testSeek() throws IOException, SpaceExceededException {
+        final byte[] termHash = Word.word2hash("common");
+        final ReferenceContainer<WordReference> c = container(termHash, 0, 20000, 2);
+        final Heap heap = heap(termHash, c.exportCollection(ReferenceContainer.exportBlockRows), true);
+        try {
+            final ReferenceBlocks<WordReference> blocks = new ReferenceBlocks<WordReference>(factory, heap, termHash);
+            assertEquals(10000, blocks.size());
+            assertEquals((10000 + ReferenceContainer.exportBlockRows - 1) / ReferenceContainer.exportBlockRows, blocks.blocks());
+
+            // probe every second reference of the container and urls which are not in the container, in ascending order
+            final ReferenceContainer<WordReference> probe = container(termHash, 0, 20000, 3);
+            probe.sort();
+            final Iterator<WordReference> i = probe.entries();
+            int found = 0;
+            while (i.hasNext()) {
+                final byte[] urlhash = i.next().urlhash();
+                final WordReference r = blocks.seek(urlhash);
+                if (c.has(urlhash)) {
+                    assertNotNull(r);
+                    assertEquals(ASCII.String(urlhash), ASCII.String(r.urlhash()));
+                    found++;
+                } else {
+                    assertNull(r);
+                }
+            }
+            assertEquals(3334, found);
+            assertTrue(blocks.blocksRead() <= blocks.blocks());
+
+            // a seek against the order still finds the reference
+            assertNotNull(blocks.seek(urlhash(0)));
+        } finally {
+            heap.close(false);
+        }
+    }
+
+    /**
+     * Test that a join with a cursor has the same result as a join with the loaded container
+     */
+    @Test
+    public void testJoin() throws IOException, SpaceExceededException {
+        final byte[] termHash = Word.word2hash("common");
+        final ReferenceContainer<WordReference> c1 = container(termHash, 0, 30000, 1);
+        final ReferenceContainer<WordReference> c2 = container(termHash, 30000, 30100, 1); // a small container without block index
+        final ReferenceContainer<WordReference> ram = container(termHash, 29990, 30200, 1);
+        final Heap heap1 = heap(termHash, c1.exportCollection(ReferenceContainer.exportBlockRows), true);
+        final Heap heap2 = heap(termHash, c2.exportCollection(ReferenceContainer.exportBlockRows), false); // read from the write buffer
+        try {
+            final List<ReferenceBlocks<WordReference>> blocks = new ArrayList<ReferenceBlocks<WordReference>>();
+            blocks.add(new ReferenceBlocks<WordReference>(factory, heap1, termHash));
+            blocks.add(new ReferenceBlocks<WordReference>(factory, heap2, termHash));
+            final ReferenceCursor<WordReference> cursor = new ReferenceCursor<WordReference>(termHash, blocks, ram, null);
+
+            final ReferenceContainer<WordReference> small = container(Word.word2hash("rare"), 0, 30300, 1000);
+            small.add(new WordReferenceRow(urlhash(30150), 30, 3, 2, 100, 10, 0L, 0L, ASCII.getBytes("en"), 't', 1, 1));
+            final ReferenceContainer<WordReference> all = c1.merge(c2).merge(ram);
+            final ReferenceContainer<WordReference> expected = ReferenceContainer.joinConstructive(factory, small.topLevelClone(), all, Integer.MAX_VALUE);
+            final ReferenceContainer<WordReference> joined = ReferenceContainer.joinConstructive(factory, small, cursor, Integer.MAX_VALUE);
+            assertEquals(32, expected.size());
+            assertEquals(expected.size(), joined.size());
+            final Iterator<WordReference> i = expected.entries();
+            while (i.hasNext()) assertTrue(joined.has(i.next().urlhash()));
+            // only the blocks of the hits are read, not the whole large container
+            assertTrue(cursor.blocksRead() <= 32);
+            assertTrue(cursor.blocks() > 200);
+        } finally {
+            heap1.close(false);
+            heap2.close(false);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package net.yacy.kelondro.workflow;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link WorkflowController} class.
+ */
+public class WorkflowControllerTest {
+
+    private static WorkflowProcessor<WorkflowJob> processor(final String name, final int queueSize, final int concurrency) {
+        return new WorkflowProcessor<WorkflowJob>(name, name, new String[0], new WorkflowTask<WorkflowJob>() {
+            @Override
+            public WorkflowJob process(final WorkflowJob in) throws Exception {
+                return null;
+            }
+        }, queueSize, null, concurrency);
+    }
+
+    /**
+     * Test that the bottleneck gets a thread from a stage which is waiting for input
+     */
+    @Test
+    public void testMoveThreadToBottleneck() {
+        final WorkflowController controller = new WorkflowController();
+        controller.add(processor("parse", 8, 4), 1, 8);
+        controller.add(processor("store", 4, 2), 1, 4);
+        assertEquals(6, controller.getBudget());
+        final List<WorkflowController.Stage> stages = controller.stages();
+
+        // parse is busy and its queue is full, store mostly waits for input
+        stages.get(0).sample(0, 10000, 0, 100, 8);
+        stages.get(1).sample(8000, 2000, 0, 100, 0);
+        assertTrue(controller.decide());
+        assertEquals(5, stages.get(0).getProcessor().getMaxConcurrency());
+        assertEquals(1, stages.get(1).getProcessor().getMaxConcurrency());
+        assertTrue(stages.get(0).getDecision().contains("bottleneck"));
+        assertTrue(stages.get(1).getDecision().contains("released"));
+        // the queue limit follows the concurrency but is not lower than at the beginning
+        assertEquals(10, stages.get(0).getProcessor().getMaxQueueSize());
+        assertEquals(4, stages.get(1).getProcessor().getMaxQueueSize());
+
+        // store cannot give more threads
+        stages.get(0).sample(0, 20000, 0, 200, 10);
+        stages.get(1).sample(8000, 2000, 0, 200, 0);
+        assertFalse(controller.decide());
+        assertEquals(5, stages.get(0).getProcessor().getMaxConcurrency());
+        assertEquals(1, stages.get(1).getProcessor().getMaxConcurrency());
+        assertTrue(stages.get(0).getDecision().contains("threads are in use"));
+    }
+
+    /**
+     * Test that the budget is respected and that a stage which blocks on its output is not a bottleneck
+     */
+    @Test
+    public void testBudgetAndBlockedOutput() {
+        final WorkflowController controller = new WorkflowController();
+        controller.add(processor("condense", 4, 2), 1, 4);
+        controller.add(processor("analyse", 4, 2), 1, 4);
+        final List<WorkflowController.Stage> stages = controller.stages();
+
+        // both stages are busy with full queues: no stage can give a thread
+        stages.get(0).sample(0, 10000, 0, 100, 4);
+        stages.get(1).sample(0, 10000, 0, 100, 4);
+        assertFalse(controller.decide());
+        assertEquals(2, stages.get(0).getProcessor().getMaxConcurrency());
+        assertEquals(2, stages.get(1).getProcessor().getMaxConcurrency());
+        assertTrue(stages.get(0).getDecision().contains("threads are in use"));
+
+        // a full queue of a stage which waits for the next stage does not make it a bottleneck
+        stages.get(0).sample(0, 14000, 6000, 200, 4);
+        stages.get(1).sample(0, 20000, 0, 200, 1);
+        assertFalse(controller.decide());
+        assertTrue(stages.get(0).getDecision().startsWith("unchanged"));
+
+        // idle stages are not changed
+        stages.get(0).sample(0, 14000, 6000, 200, 0);
+        stages.get(1).sample(0, 20000, 0, 200, 0);
+        assertFalse(controller.decide());
+        assertEquals("idle", stages.get(0).getDecision());
+
+        controller.reset();
+        assertEquals(2, stages.get(0).getProcessor().getMaxConcurrency());
+        assertEquals("tuning disabled", stages.get(1).getDecision());
+    }
+}
@@ -0,0 +1,141 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.Bitfield;
+
+/**
+ * Unit tests for the {@link RWIIngest} class.
+ */
+public class RWIIngestTest {
+
+    /**
+     * @return lines of the property form which is sent with transferRWI
+     */
+    private static List<String> lines(final Random random, final int count, final int words) {
+        final List<String> lines = new ArrayList<String>();
+        for (int i = 0; i < count; i++) {
+            final String url = "http://host" + random.nextInt(50) + ".example.org/page" + random.nextInt(200) + ".html";
+            final WordReferenceRow entry = new WordReferenceRow(Word.word2hash(url), url.length(), 2, random.nextInt(10),
+                    random.nextInt(3000), random.nextInt(200), System.currentTimeMillis() - random.nextInt(1000000000), System.currentTimeMillis(),
+                    UTF8.getBytes(random.nextBoolean() ? "en" : "de"), 't', random.nextInt(50), random.nextInt(50));
+            final Word word = new Word(random.nextInt(3000), random.nextInt(20), random.nextInt(200));
+            word.flags = new Bitfield(4);
+            for (int f = 0; f < 32; f++) word.flags.set(f, random.nextInt(4) == 0);
+            entry.setWord(word);
+            lines.add(ASCII.String(Word.word2hash("word" + random.nextInt(words))) + entry.toPropertyForm());
+        }
+        return lines;
+    }
+
+    /**
+     * Test that an entry which is parsed in place is the same as an entry which is parsed from the substring
+     */
+    @Test
+    public void testParse() {
+        for (final String line: lines(new Random(1), 1000, 100)) {
+            final int p = line.indexOf('{');
+            final WordReferenceRow expected = new WordReferenceRow(line.substring(p));
+            final WordReferenceRow parsed = new WordReferenceRow(line, p, line.length());
+            assertArrayEquals(expected.toKelondroEntry().bytes(), parsed.toKelondroEntry().bytes());
+        }
+        // blanks, quotes, missing values and unknown nicknames
+        final String line = "abc{\"h\" = aaaaaaaaaaaa , a= 17,l=,zz=1,x=3}";
+        final WordReferenceRow expected = new WordReferenceRow("{h=aaaaaaaaaaaa,a=17,l=,x=3}");
+        assertArrayEquals(expected.toKelondroEntry().bytes(), new WordReferenceRow(line, 3, line.length()).toKelondroEntry().bytes());
+    }
+
+    /**
+     * Test that the batch contains the last entry of each term and url
+     */
+    @Test
+    public void testBatch() throws SpaceExceededException {
+        final List<String> lines = lines(new Random(2), 1000, 20);
+        final RWIIngest.Batch batch = new RWIIngest.Batch();
+        final Map<String, Map<String, WordReferenceRow>> expected = new HashMap<String, Map<String, WordReferenceRow>>();
+        for (final String line: lines) {
+            final int p = line.indexOf('{');
+            final WordReferenceRow entry = new WordReferenceRow(line, p, line.length());
+            batch.add(ASCII.getBytes(line, 0, p), entry);
+            Map<String, WordReferenceRow> entries = expected.get(line.substring(0, p));
+            if (entries == null) expected.put(line.substring(0, p), entries = new HashMap<String, WordReferenceRow>());
+            entries.put(ASCII.String(entry.urlhash()), entry);
+        }
+        assertEquals(1000, batch.size());
+        assertEquals(expected.size(), batch.terms());
+        final Set<String> terms = new HashSet<String>();
+        byte[] last = null;
+        for (final ReferenceContainer<WordReference> container: batch.containers()) {
+            // the containers are ordered by term
+            if (last != null) assertTrue(Word.commonHashOrder.compare(last, container.getTermHash()) < 0);
+            last = container.getTermHash();
+            final String term = ASCII.String(container.getTermHash());
+            terms.add(term);
+            final Map<String, WordReferenceRow> entries = expected.get(term);
+            assertEquals(entries.size(), container.size());
+            for (final WordReferenceRow entry: entries.values()) {
+                assertArrayEquals(entry.toKelondroEntry().bytes(), container.getReference(entry.urlhash()).toKelondroEntry().bytes());
+            }
+        }
+        assertEquals(expected.keySet(), terms);
+    }
+
+    /**
+     * Test the limit of the concurrent ingestions, the wait for a free slot and the counters of the peers
+     */
+    @Test
+    public void testEnterAndCount() throws InterruptedException {
+        final int active = RWIIngest.active();
+        assertTrue(RWIIngest.enter(active + 2, 0));
+        assertTrue(RWIIngest.enter(active + 2, 0));
+        assertFalse(RWIIngest.enter(active + 2, 0));
+        RWIIngest.leave();
+        assertTrue(RWIIngest.enter(active + 2, 0));
+
+        // a transfer waits until another one is finished
+        final Thread other = new Thread() {
+            @Override
+            public void run() {
+                try {
+                    Thread.sleep(100);
+                } catch (final InterruptedException e) {}
+                RWIIngest.leave();
+            }
+        };
+        other.start();
+        assertTrue(RWIIngest.enter(active + 2, 10000));
+        other.join();
+        RWIIngest.leave();
+        RWIIngest.leave();
+        assertEquals(active, RWIIngest.active());
+
+        RWIIngest.count("testpeer0001", null, 100, 5, 50);
+        final RWIIngest.Peer peer = RWIIngest.count("testpeer0001", "test", 300, 0, 150);
+        assertEquals("test", peer.name());
+        assertEquals(2, peer.transfers());
+        assertEquals(400, peer.received());
+        assertEquals(5, peer.blocked());
+        assertEquals(2000, peer.rate());
+        assertTrue(RWIIngest.peers().contains(peer));
+    }
+}
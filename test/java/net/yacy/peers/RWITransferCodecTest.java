@@ -0,0 +1,141 @@
+package net.yacy.peers;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.cora.storage.HandleSet;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceRow;
+import net.yacy.kelondro.index.RowHandleSet;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.Bitfield;
+
+/**
+ * Unit tests for the binary RWI transfer format.
+ */
+public class RWITransferCodecTest {
+
+    private static List<ReferenceContainer<WordReference>> containers(final int words, final int maxReferences) throws SpaceExceededException {
+        final Random random = new Random(1);
+        final WordReferenceFactory factory = new WordReferenceFactory();
+        final List<ReferenceContainer<WordReference>> containers = new ArrayList<ReferenceContainer<WordReference>>();
+        for (int w = 0; w < words; w++) {
+            final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(factory, Word.word2hash("word" + w), 10);
+            final int references = 1 + random.nextInt(maxReferences);
+            for (int r = 0; r < references; r++) {
+                final String url = "http://host" + random.nextInt(50) + ".example.org/page" + random.nextInt(500) + ".html";
+                final WordReferenceRow entry = new WordReferenceRow(Word.word2hash(url), url.length(), 2, random.nextInt(10),
+                        random.nextInt(3000), random.nextInt(200), System.currentTimeMillis() - random.nextInt(1000000000), System.currentTimeMillis(),
+                        UTF8.getBytes(random.nextBoolean() ? "en" : "de"), 't', random.nextInt(50), random.nextInt(50));
+                final Word word = new Word(random.nextInt(3000), random.nextInt(20), random.nextInt(200));
+                word.flags = new Bitfield(4);
+                if (random.nextBoolean()) word.flags.set(WordReferenceRow.flag_app_dc_title, true);
+                entry.setWord(word);
+                container.put(entry);
+            }
+            containers.add(container);
+        }
+        return containers;
+    }
+
+    /**
+     * Test that decoding the encoded containers gives the same entries, with and without compression
+     */
+    @Test
+    public void testEncodeDecode() throws IOException, SpaceExceededException {
+        final List<ReferenceContainer<WordReference>> containers = containers(100, 40);
+        for (final boolean compress : new boolean[] {true, false}) {
+            final List<ReferenceContainer<WordReference>> decoded = RWITransferCodec.decode(RWITransferCodec.encode(containers, compress));
+            assertEquals(containers.size(), decoded.size());
+            for (int i = 0; i < containers.size(); i++) {
+                final ReferenceContainer<WordReference> c = containers.get(i);
+                final ReferenceContainer<WordReference> d = decoded.get(i);
+                assertArrayEquals(c.getTermHash(), d.getTermHash());
+                assertEquals(c.size(), d.size());
+                final Iterator<WordReference> e = c.entries();
+                while (e.hasNext()) {
+                    final WordReference reference = e.next();
+                    final WordReference other = d.getReference(reference.urlhash());
+                    assertEquals(reference.toPropertyForm(), other.toPropertyForm());
+                }
+            }
+        }
+    }
+
+    /**
+     * Test that the binary format is smaller than the property form of the entries
+     */
+    @Test
+    public void testSize() throws IOException, SpaceExceededException {
+        final List<ReferenceContainer<WordReference>> containers = containers(100, 40);
+        int text = 0;
+        for (final ReferenceContainer<WordReference> container : containers) {
+            final Iterator<WordReference> e = container.entries();
+            while (e.hasNext()) text += container.getTermHash().length + e.next().toPropertyForm().length() + 2;
+        }
+        final int stored = RWITransferCodec.encode(containers, false).length;
+        final int compressed = RWITransferCodec.encode(containers, true).length;
+        assertTrue("stored " + stored + " >= text " + text, stored < text);
+        assertTrue("compressed " + compressed + " >= stored " + stored, compressed < stored);
+    }
+
+    /**
+     * Test that a transfer with a container count above the limit is rejected before the containers are read
+     */
+    @Test
+    public void testContainerCountLimit() throws IOException {
+        // an encoded transfer without containers ends with the container count 0; replace it with a large count
+        final ByteArrayOutputStream header = new ByteArrayOutputStream();
+        final InputStream in = new GZIPInputStream(new ByteArrayInputStream(RWITransferCodec.encode(new ArrayList<ReferenceContainer<WordReference>>(), false)));
+        int b;
+        while ((b = in.read()) >= 0) header.write(b);
+        in.close();
+        final byte[] h = header.toByteArray();
+        final ByteArrayOutputStream data = new ByteArrayOutputStream();
+        final OutputStream out = new GZIPOutputStream(data);
+        out.write(h, 0, h.length - 1);
+        out.write(new byte[] {(byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0xff, (byte) 0x0f});
+        out.close();
+        try {
+            RWITransferCodec.decode(data.toByteArray());
+            fail("a transfer with " + 0xffffffffL + " containers is decoded");
+        } catch (final IOException e) {
+            assertTrue(e.getMessage(), e.getMessage().startsWith("bad container count"));
+        }
+    }
+
+    /**
+     * Test the bit field for the unknown urls
+     */
+    @Test
+    public void testSelection() throws SpaceExceededException {
+        final List<ReferenceContainer<WordReference>> containers = containers(20, 30);
+        final List<byte[]> urls = RWITransferCodec.urlHashes(containers);
+        final HandleSet selected = new RowHandleSet(Word.commonHashLength, Word.commonHashOrder, 0);
+        for (int i = 0; i < urls.size(); i += 3) selected.put(urls.get(i));
+        final List<byte[]> decoded = RWITransferCodec.decodeSelection(urls, RWITransferCodec.encodeSelection(urls, selected));
+        assertEquals(selected.size(), decoded.size());
+        for (final byte[] url : decoded) assertTrue(ASCII.String(url), selected.has(url));
+    }
+}
@@ -0,0 +1,125 @@
+package net.yacy.peers.graphics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+/**
+ * Unit tests for the {@link HostLinkGraph} class.
+ */
+public class HostLinkGraphTest {
+
+    private static final int DATE = 20261017;
+
+    private static String hash(final int i) {
+        return String.format("h%05d", i);
+    }
+
+    /**
+     * Test that forward and reverse links stay consistent while links are added and the out degree is limited
+     */
+    @Test
+    public void testAddAndLimit() {
+        final HostLinkGraph graph = new HostLinkGraph();
+        final Random random = new Random(1);
+        final Map<String, Map<String, Integer>> expected = new HashMap<String, Map<String, Integer>>();
+        for (int n = 0; n < 20000; n++) {
+            final String s = hash(random.nextInt(50));
+            final String t = hash(random.nextInt(300));
+            if (s.equals(t)) continue;
+            final int source = graph.node(s, "host" + s, DATE, true);
+            graph.addReference(source, graph.node(t, null, DATE, false), 1);
+            Map<String, Integer> refs = expected.get(s);
+            if (refs == null) expected.put(s, refs = new HashMap<String, Integer>());
+            final Integer c = refs.get(t);
+            refs.put(t, c == null ? 1 : c + 1);
+            graph.limit(source, 100, 90);
+            if (refs.size() > 100) refs.keySet().retainAll(graph.outgoing(s).keySet());
+        }
+        long edges = 0;
+        for (final Map.Entry<String, Map<String, Integer>> e : expected.entrySet()) {
+            assertEquals(e.getValue(), graph.outgoing(e.getKey()));
+            edges += e.getValue().size();
+            // every forward link is found as a reverse link
+            for (final Map.Entry<String, Integer> ref : e.getValue().entrySet()) {
+                final int target = graph.id(ref.getKey());
+                boolean found = false;
+                for (int q = 0; q < graph.inDegree(target); q++) {
+                    if (graph.hash(graph.inSource(target, q)).equals(e.getKey())) {
+                        assertEquals(ref.getValue().intValue(), graph.inCount(target, q));
+                        found = true;
+                    }
+                }
+                assertTrue(found);
+            }
+        }
+        assertEquals(edges, graph.edges());
+        assertEquals(expected.size(), graph.size());
+    }
+
+    /**
+     * Test that removed hosts lose their links and that link targets without a name disappear with their last link
+     */
+    @Test
+    public void testTrim() {
+        final HostLinkGraph graph = new HostLinkGraph();
+        final int a = graph.node("aaaaaa", "a.org", DATE - 2, true);
+        final int b = graph.node("bbbbbb", "b.org", DATE - 1, true);
+        final int c = graph.node("cccccc", "c.org", DATE, true);
+        graph.addReference(a, graph.node("xxxxxx", null, DATE, false), 1);
+        graph.addReference(a, b, 2);
+        graph.addReference(c, a, 3);
+        assertFalse(graph.exists("xxxxxx"));
+        assertEquals(3, graph.size());
+
+        graph.trim(2, 2);
+        assertEquals(2, graph.size());
+        assertFalse(graph.exists("aaaaaa"));
+        assertNull(graph.outgoing("aaaaaa"));
+        assertEquals(-1, graph.id("xxxxxx"));
+        assertTrue(graph.incoming("bbbbbb").isEmpty());
+        assertEquals(Integer.valueOf(3), graph.outgoing("cccccc").get("aaaaaa"));
+        assertEquals(1, graph.edges());
+
+        // a link target gets its host name when the host is learned
+        graph.node("aaaaaa", "a.org", DATE, false);
+        assertTrue(graph.exists("aaaaaa"));
+        assertEquals(Integer.valueOf(3), graph.incoming("aaaaaa").get("cccccc"));
+    }
+
+    /**
+     * Test that a saved graph is loaded with the same hosts and links
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        final HostLinkGraph graph = new HostLinkGraph();
+        for (int i = 0; i < 1000; i++) {
+            final int source = graph.node(hash(i), "host" + i + ".org", DATE, true);
+            for (int j = 1; j <= 5; j++) graph.addReference(source, graph.node(hash((i + j * 7) % 1200), null, DATE, false), j);
+        }
+        final File file = File.createTempFile("webStructure", ".map");
+        file.deleteOnExit();
+        graph.save(file);
+        assertTrue(HostLinkGraph.isGraphFile(file));
+
+        final HostLinkGraph loaded = new HostLinkGraph();
+        loaded.load(file);
+        assertEquals(graph.size(), loaded.size());
+        assertEquals(graph.edges(), loaded.edges());
+        for (int i = 0; i < 1200; i++) {
+            assertEquals(graph.hostName(hash(i)), loaded.hostName(hash(i)));
+            assertEquals(graph.outgoing(hash(i)), loaded.outgoing(hash(i)));
+            assertEquals(graph.incoming(hash(i)), loaded.incoming(hash(i)));
+        }
+        assertFalse(loaded.isLatest(loaded.id(hash(0))));
+    }
+}
@@ -21,16 +21,21 @@
 
 package net.yacy.peers.graphics;
 
+import java.io.File;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.util.HashSet;
 import java.util.Map;
 import java.util.Set;
+import java.util.TreeMap;
 
 import org.junit.Assert;
 import org.junit.Test;
 
+import net.yacy.cora.document.encoding.UTF8;
 import net.yacy.cora.document.id.DigestURL;
 import net.yacy.cora.util.ConcurrentLog;
+import net.yacy.kelondro.util.FileUtils;
 import net.yacy.peers.graphics.WebStructureGraph.LearnObject;
 import net.yacy.peers.graphics.WebStructureGraph.StructureEntry;
 
@@ -313,6 +318,73 @@ public class WebStructureGraphTest {
 		}
 	}
 	
+	/**
+	 * References saved to the structure file are available after a restart
+	 */
+	@Test
+	public void testSaveAndLoad() throws IOException {
+		final File file = File.createTempFile("webStructure", ".map");
+		file.delete();
+		file.deleteOnExit();
+		final DigestURL source = new DigestURL("http://source.net/index.html");
+		final DigestURL target = new DigestURL("http://target.com/index.html");
+
+		WebStructureGraph graph = new WebStructureGraph(file);
+		try {
+			final Set<DigestURL> targets = new HashSet<>();
+			targets.add(target);
+			graph.learnrefs(new LearnObject(source, targets));
+			graph.learnrefs(new LearnObject(source, targets));
+		} finally {
+			graph.close();
+		}
+
+		graph = new WebStructureGraph(file);
+		try {
+			final StructureEntry outRefs = graph.outgoingReferences(source.hosthash());
+			Assert.assertNotNull(outRefs);
+			Assert.assertEquals("source.net", outRefs.hostname);
+			Assert.assertEquals(Integer.valueOf(2), outRefs.references.get(target.hosthash()));
+
+			final StructureEntry inRefs = graph.incomingReferences(target.hosthash());
+			Assert.assertNotNull(inRefs);
+			Assert.assertEquals("target.com", inRefs.hostname);
+			Assert.assertEquals(Integer.valueOf(2), inRefs.references.get(source.hosthash()));
+		} finally {
+			graph.close();
+		}
+	}
+
+	/**
+	 * References saved in the former file format of reference strings are loaded
+	 */
+	@Test
+	public void testLoadReferenceStrings() throws IOException {
+		final File file = File.createTempFile("webStructure", ".map");
+		file.deleteOnExit();
+		final DigestURL source = new DigestURL("http://source.net/index.html");
+		final DigestURL target = new DigestURL("http://target.com/index.html");
+		final Map<String, byte[]> structure = new TreeMap<>();
+		structure.put(source.hosthash() + ",source.net", UTF8.getBytes("20170101" + target.hosthash() + "000a"));
+		structure.put(target.hosthash() + ",target.com", UTF8.getBytes("20170101"));
+		FileUtils.saveMapB(file, structure, "test");
+
+		final WebStructureGraph graph = new WebStructureGraph(file);
+		try {
+			final StructureEntry outRefs = graph.outgoingReferences(source.hosthash());
+			Assert.assertNotNull(outRefs);
+			Assert.assertEquals("20170101", outRefs.date);
+			Assert.assertEquals(Integer.valueOf(10), outRefs.references.get(target.hosthash()));
+
+			final StructureEntry inRefs = graph.incomingReferences(target.hosthash());
+			Assert.assertNotNull(inRefs);
+			Assert.assertEquals(Integer.valueOf(10), inRefs.references.get(source.hosthash()));
+			Assert.assertEquals(1, graph.referencesCount(source.hosthash()));
+		} finally {
+			graph.close();
+		}
+	}
+	
 	/**
 	 * Simple performance measurements with a test structure filled to its limits.
 	 */
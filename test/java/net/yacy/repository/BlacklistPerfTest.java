@@ -0,0 +1,123 @@
+// BlacklistPerfTest.java
+// -----------------------
+// part of YaCy
+//
+// This program is free software; you can redistribute it and/or modify
+// it under the terms of the GNU General Public License as published by
+// the Free Software Foundation; either version 2 of the License, or
+// (at your option) any later version.
+//
+// This program is distributed in the hope that it will be useful,
+// but WITHOUT ANY WARRANTY; without even the implied warranty of
+// MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+// GNU General Public License for more details.
+//
+// You should have received a copy of the GNU General Public License
+// along with this program; if not, write to the Free Software
+// Foundation, Inc., 59 Temple Place, Suite 330, Boston, MA  02111-1307  USA
+
+package net.yacy.repository;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+import net.yacy.cora.util.ConcurrentLog;
+
+/**
+ * Testing blacklist check performances: the static {@link Blacklist#isListed(String, String, Map, Map)}
+ * function compared to the compiled {@link BlacklistMatcher}.
+ */
+public class BlacklistPerfTest {
+
+	/**
+	 * Fill a synthetic blacklist and check random URLs with both implementations.
+	 *
+	 * @param args
+	 *            parameters : [entries] [urls] (defaults : 20000 entries, 20000 urls)
+	 */
+	public static void main(final String[] args) {
+		final int entries = args.length > 0 ? Integer.parseInt(args[0]) : 20000;
+		final int urls = args.length > 1 ? Integer.parseInt(args[1]) : 20000;
+		final Random random = new Random(42);
+
+		final Map<String, Set<Pattern>> blacklistMapMatched = new HashMap<>();
+		final Map<String, Set<Pattern>> blacklistMapNotMatched = new HashMap<>();
+		final Set<Pattern> all = new HashSet<>();
+		all.add(Pattern.compile(".*"));
+		for (int i = 0; i < entries; i++) {
+			final String domain = "domain" + i + ".com";
+			switch (i % 10) {
+			case 0:
+				blacklistMapMatched.put("*." + domain, all);
+				break;
+			case 1:
+				blacklistMapMatched.put("www." + "domain" + i + ".*", all);
+				break;
+			case 2:
+				final Set<Pattern> paths = new HashSet<>();
+				paths.add(Pattern.compile("ads/.*"));
+				paths.add(Pattern.compile(".*\\.gif"));
+				paths.add(Pattern.compile("(.*/|)banner.*"));
+				blacklistMapMatched.put(domain, paths);
+				break;
+			default:
+				blacklistMapMatched.put(domain, all);
+			}
+		}
+		for (int i = 0; i < entries / 100; i++) {
+			blacklistMapNotMatched.put(".*tracker" + i + "\\..*", all);
+		}
+		System.out.println(blacklistMapMatched.size() + " matchable and " + blacklistMapNotMatched.size() + " regular expression host entries");
+
+		final List<String> hosts = new ArrayList<>(urls);
+		final List<String> paths = new ArrayList<>(urls);
+		final String[] prefixes = { "", "www.", "cdn.", "img.static." };
+		final String[] suffixes = { ".com", ".org", ".net" };
+		final String[] files = { "/", "/index.html", "/ads/top.html", "/img/logo.gif", "/a/b/banner.png", "/news/2017/article.html" };
+		for (int i = 0; i < urls; i++) {
+			final int n = random.nextInt(entries * 4);
+			hosts.add(prefixes[random.nextInt(prefixes.length)] + (random.nextInt(20) == 0 ? "tracker" + random.nextInt(entries / 50 + 1) + "." : "") + "domain" + n + suffixes[random.nextInt(suffixes.length)]);
+			paths.add(files[random.nextInt(files.length)]);
+		}
+
+		try {
+			long beginTime = System.nanoTime();
+			final BlacklistMatcher matcher = new BlacklistMatcher(0, blacklistMapMatched, blacklistMapNotMatched);
+			System.out.println("Compiled in " + (System.nanoTime() - beginTime) / 1000000 + " ms");
+
+			final boolean[] legacy = new boolean[urls];
+			final boolean[] compiled = new boolean[urls];
+			for (int round = 0; round < 3; round++) {
+				beginTime = System.nanoTime();
+				for (int i = 0; i < urls; i++) {
+					legacy[i] = Blacklist.isListed(hosts.get(i), paths.get(i), blacklistMapMatched, blacklistMapNotMatched);
+				}
+				final long legacyTime = System.nanoTime() - beginTime;
+
+				beginTime = System.nanoTime();
+				for (int i = 0; i < urls; i++) {
+					compiled[i] = matcher.isListed(hosts.get(i), paths.get(i));
+				}
+				final long compiledTime = System.nanoTime() - beginTime;
+
+				int listed = 0, differences = 0;
+				for (int i = 0; i < urls; i++) {
+					if (legacy[i]) listed++;
+					if (legacy[i] != compiled[i]) differences++;
+				}
+				System.out.println("Round " + round + " : " + listed + " of " + urls + " URLs listed, " + differences + " differences");
+				System.out.println("  Blacklist.isListed       : " + legacyTime / 1000000 + " ms (" + legacyTime / urls + " ns per URL)");
+				System.out.println("  BlacklistMatcher.isListed : " + compiledTime / 1000000 + " ms (" + compiledTime / urls + " ns per URL)");
+			}
+		} finally {
+			ConcurrentLog.shutdown();
+		}
+	}
+
+}
@@ -119,4 +119,66 @@ public class BlacklistTest {
     	Assert.assertFalse(Blacklist.isListed("fr.notblacklisted.org", "/path/with/many/segments/e/f/g/h/i/j/k/l/m/n/o/p/q/r/s/t/u/v/w/x/y/z/file.html", blacklistMapMatched, blacklistMapNotMatched));
     }
 
+    /**
+     * Tests that the compiled BlacklistMatcher gives the same results as the static Blacklist.isListed() function.
+     */
+    @Test
+    public void testMatcher() {
+    	final Map<String, Set<Pattern>> blacklistMapMatched = new HashMap<>();
+    	Set<Pattern> patterns = new HashSet<>();
+    	patterns.add(Pattern.compile(".*"));
+    	blacklistMapMatched.put("stats.example.com", patterns);
+    	blacklistMapMatched.put("ftp.*", patterns);
+    	blacklistMapMatched.put("*.ads.net", patterns);
+    	
+    	patterns = new HashSet<>();
+    	patterns.add(Pattern.compile("data/js/\\d*\\.js"));
+    	patterns.add(Pattern.compile("banner/.*", Pattern.CASE_INSENSITIVE));
+    	patterns.add(Pattern.compile("track.*", Pattern.CASE_INSENSITIVE));
+    	blacklistMapMatched.put("blacklisted.org", patterns);
+    	
+    	patterns = new HashSet<>();
+    	patterns.add(Pattern.compile("bestenlisten/.*"));
+    	patterns.add(Pattern.compile("produkte/.*"));
+    	blacklistMapMatched.put("www.esample.*", patterns);
+    	blacklistMapMatched.put("*.esample.de", patterns);
+    	
+    	final Map<String, Set<Pattern>> blacklistMapNotMatched = new HashMap<>();
+    	patterns = new HashSet<>();
+    	patterns.add(Pattern.compile(".*"));
+    	blacklistMapNotMatched.put("mobil\\..*", patterns);
+    	blacklistMapNotMatched.put("(a|b)\\1\\.example\\.com", patterns);
+    	
+    	patterns = new HashSet<>();
+    	patterns.add(Pattern.compile("counter\\?.*"));
+    	patterns.add(Pattern.compile("(.*/|)search.*"));
+    	blacklistMapNotMatched.put(".*samples.fr", patterns);
+    	
+    	final BlacklistMatcher matcher = new BlacklistMatcher(0, blacklistMapMatched, blacklistMapNotMatched);
+    	final String[] hosts = {"stats.example.com", "example.com", "www.stats.example.com", "stats.example.com.evil.org",
+    			"ftp.gnu.org", "ftp", "xftp.gnu.org", "ads.net", "x.ads.net", "a.b.ads.net", "xads.net",
+    			"blacklisted.org", "www.blacklisted.org", "blacklisted.org.uk", "notblacklisted.org", ".blacklisted.org",
+    			"www.esample.de", "www.esample.com", "shop.esample.de", "esample.de", "wwwesample.de",
+    			"mobil.news.fr", "mobilnews.fr", "aa.example.com", "ab.example.com", "samples.fr", "www.samples.fr", ""};
+    	final String[] paths = {"", "/", "/index.html", "data/js/123.js", "/data/js/x.js", "/Banner/top.gif", "/TRACKER",
+    			"/bestenlisten/1", "/produkte/", "/counter?id=1", "/a/search.html", "/thesearch.html"};
+    	for (final String host : hosts) {
+    		for (final String path : paths) {
+    			Assert.assertEquals(host + path, Blacklist.isListed(host, path, blacklistMapMatched, blacklistMapNotMatched), matcher.isListed(host, path));
+    		}
+    	}
+    	Assert.assertTrue(matcher.isListed("www.blacklisted.org", "/banner/x.png"));
+    	Assert.assertTrue(matcher.isListed("aa.example.com", "/"));
+    	Assert.assertFalse(matcher.isListed("ab.example.com", "/"));
+    	Assert.assertFalse(matcher.isListed("www.esample.com", "/index.html"));
+
+    	Assert.assertEquals("tracker.", BlacklistMatcher.requiredLiteral(".*tracker\\..*"));
+    	Assert.assertEquals(".example.com", BlacklistMatcher.requiredLiteral("(ab)?\\.example\\.com"));
+    	Assert.assertEquals("sample", BlacklistMatcher.requiredLiteral(".*samples?.fr"));
+    	Assert.assertEquals("ads", BlacklistMatcher.requiredLiteral("[a-z]+\\d*ads+x*"));
+    	Assert.assertNull(BlacklistMatcher.requiredLiteral("ads|banner"));
+    	Assert.assertNull(BlacklistMatcher.requiredLiteral("\\x2eads"));
+    	Assert.assertNull(BlacklistMatcher.requiredLiteral("[]a]"));
+    }
+
 }
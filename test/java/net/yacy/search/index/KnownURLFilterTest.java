@@ -0,0 +1,111 @@
+package net.yacy.search.index;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.kelondro.data.word.Word;
+
+/**
+ * Unit tests for the {@link KnownURLFilter} class.
+ */
+public class KnownURLFilterTest {
+
+    private static String hash(final int i) {
+        return ASCII.String(Word.word2hash("http://host" + (i % 100) + ".example.org/page" + i + ".html"));
+    }
+
+    /**
+     * Test random puts and removes against a map, including growth of the table
+     */
+    @Test
+    public void testPutRemove() {
+        final KnownURLFilter filter = new KnownURLFilter();
+        final Map<String, Long> expected = new HashMap<String, Long>();
+        final Random random = new Random(1);
+        for (int n = 0; n < 300000; n++) {
+            final String h = hash(random.nextInt(100000));
+            if (random.nextInt(4) == 0) {
+                filter.remove(h);
+                expected.remove(h);
+            } else {
+                final long date = 1500000000000l + random.nextInt(1000000) * 1000l;
+                filter.put(h, date);
+                expected.put(h, date);
+            }
+        }
+        assertEquals(expected.size(), filter.size());
+        for (int i = 0; i < 100000; i++) {
+            final String h = hash(i);
+            final Long date = expected.get(h);
+            assertEquals(h, date == null ? -1l : date.longValue(), filter.getLoadTime(h));
+        }
+    }
+
+    /**
+     * Test that changes registered during a rebuild are not overwritten by the documents read from the index
+     */
+    @Test
+    public void testRebuild() {
+        final KnownURLFilter filter = new KnownURLFilter();
+        assertFalse(filter.isComplete());
+        final int rebuild = filter.startRebuild();
+        filter.put(hash(1), 5000000l);
+        filter.remove(hash(2));
+        assertTrue(filter.restore(rebuild, hash(1), 4000000l));
+        assertTrue(filter.restore(rebuild, hash(2), 4000000l));
+        assertTrue(filter.restore(rebuild, hash(3), 4000000l));
+        assertTrue(filter.finishRebuild(rebuild));
+        assertTrue(filter.isComplete());
+        assertEquals(5000000l, filter.getLoadTime(hash(1)));
+        assertEquals(-1l, filter.getLoadTime(hash(2)));
+        assertEquals(4000000l, filter.getLoadTime(hash(3)));
+
+        // a rebuild is aborted by an invalidation
+        final int aborted = filter.startRebuild();
+        filter.invalidate();
+        assertFalse(filter.restore(aborted, hash(1), 4000000l));
+        assertFalse(filter.finishRebuild(aborted));
+        assertFalse(filter.isComplete());
+        filter.clear();
+        assertTrue(filter.isComplete());
+        assertEquals(0, filter.size());
+    }
+
+    /**
+     * Test that a saved table is loaded once
+     */
+    @Test
+    public void testSaveLoad() throws IOException {
+        final KnownURLFilter filter = new KnownURLFilter();
+        filter.clear();
+        final List<String> hashes = new ArrayList<String>();
+        for (int i = 0; i < 100000; i++) {
+            hashes.add(hash(i));
+            filter.put(hash(i), i * 1000l);
+        }
+        final File file = File.createTempFile("knownURLs", ".table");
+        file.deleteOnExit();
+        filter.save(file, 12345l);
+
+        final KnownURLFilter loaded = new KnownURLFilter();
+        assertEquals(12345l, loaded.load(file));
+        assertFalse(file.exists());
+        assertFalse(loaded.isComplete());
+        loaded.loaded();
+        assertEquals(hashes.size(), loaded.size());
+        for (int i = 0; i < hashes.size(); i++) assertEquals(i * 1000l, loaded.getLoadTime(hashes.get(i)));
+        assertEquals(-1l, loaded.load(file));
+    }
+}
@@ -0,0 +1,123 @@
+package net.yacy.search.ranking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.kelondro.data.word.Word;
+
+/**
+ * Unit tests for the {@link CitationRankGraph} and {@link CitationRankStore} classes.
+ */
+public class CitationRankGraphTest {
+
+    private static final double DAMPING = 0.85d;
+    private static final int EQ_FACTOR = 1000000;
+
+    private static String[] ids(final int n) {
+        final String[] ids = new String[n];
+        for (int i = 0; i < n; i++) ids[i] = ASCII.String(Word.word2hash("http://host.org/page" + i + ".html"));
+        return ids;
+    }
+
+    /**
+     * a small host: page i links to page (i + 1) % n and to page 0; the given order defines the document numbers
+     */
+    private static CitationRankGraph graph(final String[] ids, final int[] order) {
+        final int n = ids.length;
+        final String[] ordered = new String[n];
+        final int[] position = new int[n];
+        for (int k = 0; k < n; k++) {
+            ordered[k] = ids[order[k]];
+            position[order[k]] = k;
+        }
+        final CitationRankGraph graph = new CitationRankGraph(ordered);
+        for (int k = 0; k < n; k++) {
+            final int target = order[k];
+            for (int source = 0; source < n; source++) {
+                final boolean links = (source + 1) % n == target || (target == 0 && source != n - 1);
+                if (links && source != target) graph.link(k, position[source], source == 0 || source == n - 1 ? 1 : 2);
+            }
+        }
+        return graph;
+    }
+
+    private static int converge(final CitationRankGraph graph) {
+        int steps = 0;
+        while (steps++ < 100) if (graph.convergenceStep(DAMPING, EQ_FACTOR)) break;
+        return steps;
+    }
+
+    /**
+     * Test that the ranks are independent from the order of the documents and that the fingerprint is too
+     */
+    @Test
+    public void testOrderIndependence() {
+        final String[] ids = ids(20);
+        final int[] identity = new int[20];
+        final int[] reverse = new int[20];
+        for (int i = 0; i < 20; i++) {
+            identity[i] = i;
+            reverse[i] = 19 - i;
+        }
+        final CitationRankGraph a = graph(ids, identity);
+        final CitationRankGraph b = graph(ids, reverse);
+        assertEquals(a.links(), b.links());
+        assertEquals(a.fingerprint(), b.fingerprint());
+        converge(a);
+        converge(b);
+        double sum = 0.0d;
+        for (int i = 0; i < 20; i++) {
+            assertEquals(a.cr(i), b.cr(19 - i), 1e-9);
+            sum += a.cr(i);
+        }
+        // the page which is linked from all other pages has the highest rank
+        for (int i = 1; i < 20; i++) assertTrue(a.cr(0) > a.cr(i));
+        assertEquals(1.0d, sum, 1e-3);
+
+        // a changed link changes the fingerprint
+        final CitationRankGraph c = new CitationRankGraph(ids);
+        c.link(0, 1, 1);
+        final CitationRankGraph d = new CitationRankGraph(ids);
+        d.link(0, 1, 2);
+        assertNotEquals(c.fingerprint(), d.fingerprint());
+    }
+
+    /**
+     * Test that a warm start with the stored ranks needs fewer convergence steps
+     */
+    @Test
+    public void testWarmStart() throws IOException {
+        final String[] ids = ids(50);
+        final int[] identity = new int[50];
+        for (int i = 0; i < 50; i++) identity[i] = i;
+        final CitationRankGraph cold = graph(ids, identity);
+        final int coldSteps = converge(cold);
+
+        final File dir = Files.createTempDirectory("citationRank").toFile();
+        final CitationRankStore store = new CitationRankStore(dir);
+        assertNull(store.load("host.org"));
+        store.store("host.org", cold, cold.fingerprint());
+        final CitationRankStore.HostRanks stored = store.load("host.org");
+        assertEquals(cold.fingerprint(), stored.fingerprint);
+        assertNull(store.load("other.org"));
+
+        final CitationRankGraph warm = graph(ids, identity);
+        warm.warmStart(stored.ranks);
+        final int warmSteps = converge(warm);
+        assertTrue(warmSteps < coldSteps);
+        final Map<String, Double> ranks = new HashMap<String, Double>();
+        for (int i = 0; i < 50; i++) ranks.put(warm.id(i), warm.cr(i));
+        for (int i = 0; i < 50; i++) assertEquals(cold.cr(i), ranks.get(ids[i]), 1e-6);
+    }
+}
@@ -0,0 +1,142 @@
+package net.yacy.search.ranking;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.BlockingQueue;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.analysis.Classification;
+import net.yacy.cora.document.encoding.ASCII;
+import net.yacy.cora.sorting.WeakPriorityBlockingQueue;
+import net.yacy.cora.sorting.WeakPriorityBlockingQueue.ReverseElement;
+import net.yacy.cora.util.SpaceExceededException;
+import net.yacy.kelondro.data.word.Word;
+import net.yacy.kelondro.data.word.WordReference;
+import net.yacy.kelondro.data.word.WordReferenceFactory;
+import net.yacy.kelondro.data.word.WordReferenceVars;
+import net.yacy.kelondro.rwi.ReferenceContainer;
+import net.yacy.kelondro.util.Bitfield;
+
+/**
+ * Unit tests for the {@link ReferenceColumns} class.
+ */
+public class ReferenceColumnsTest {
+
+    private static final WordReferenceFactory factory = new WordReferenceFactory();
+
+    private static ReferenceContainer<WordReference> container(final Random random, final int size) throws SpaceExceededException {
+        final ReferenceContainer<WordReference> container = new ReferenceContainer<WordReference>(factory, Word.word2hash("term"));
+        final long now = System.currentTimeMillis();
+        for (int i = 0; i < size; i++) {
+            final String host = "host" + random.nextInt(size / 20 + 1) + ".org";
+            final byte[] urlhash = ASCII.getBytes(ASCII.String(Word.word2hash(host + "/" + random.nextLong())).substring(0, 6) + ASCII.String(Word.word2hash(host)).substring(6));
+            final Bitfield flags = new Bitfield(4);
+            for (int f = 0; f < 32; f++) flags.set(f, random.nextInt(4) == 0);
+            container.add(new WordReferenceVars(urlhash, 20 + random.nextInt(200), 1 + random.nextInt(10), random.nextInt(20), 1 + random.nextInt(30),
+                    100 + random.nextInt(5000), 10 + random.nextInt(500), random.nextInt(5000), null, random.nextInt(30), random.nextInt(300),
+                    now - random.nextInt(1000) * 86400000L, random.nextBoolean() ? "en" : "de", 't', random.nextInt(100), random.nextInt(100), flags, 0.0d));
+        }
+        return container;
+    }
+
+    /**
+     * normalize the references one by one with {@link ReferenceOrder#normalizeWith(ReferenceContainer, long, boolean)}; unlike a
+     * normalization of the whole container this is not subject to the concurrency of its workers
+     */
+    private static WordReferenceVars[] normalizeWith(final ReferenceOrder order, final ReferenceContainer<WordReference> container) throws SpaceExceededException, InterruptedException {
+        final WordReferenceVars[] vars = new WordReferenceVars[container.size()];
+        for (int i = 0; i < vars.length; i++) {
+            final ReferenceContainer<WordReference> single = new ReferenceContainer<WordReference>(factory, container.getTermHash());
+            single.add(factory.produceSlow(container.get(i, true)));
+            final BlockingQueue<WordReferenceVars> queue = order.normalizeWith(single, Long.MAX_VALUE, true);
+            WordReferenceVars v;
+            while ((v = queue.take()) != WordReferenceVars.poison) vars[i] = v;
+        }
+        return vars;
+    }
+
+    /**
+     * Test that the ranking computed from the columns is the ranking computed from the references
+     */
+    @Test
+    public void testCardinal() throws SpaceExceededException, InterruptedException {
+        final Random random = new Random(1);
+        final RankingProfile profile = new RankingProfile(Classification.ContentDomain.TEXT);
+        profile.coeff_authority = 13;
+        final ReferenceOrder expected = new ReferenceOrder(profile, "en");
+        final ReferenceOrder order = new ReferenceOrder(profile, "en");
+
+        // the second container is ranked with the range of both containers
+        for (final int size: new int[] {1000, 9000}) {
+            final ReferenceContainer<WordReference> container = container(random, size);
+            final WordReferenceVars[] vars = normalizeWith(expected, container);
+            final ReferenceColumns columns = order.normalizeColumns(container, true);
+            assertEquals(size, columns.size());
+            for (int i = 0; i < size; i++) {
+                assertEquals(ASCII.String(vars[i].urlhash()), ASCII.String(columns.get(i).urlhash()));
+                assertEquals(expected.cardinal(vars[i]), columns.cardinal(i));
+            }
+        }
+        for (int i = 0; i < 100; i++) {
+            final String host = ReferenceColumns.unpackHost(i * 77777L + 0x414141414141L);
+            assertEquals(expected.authority(host), order.authority(host));
+        }
+    }
+
+    /**
+     * Test that a top-k selection which stops at the first block below the k-th reference selects the best references
+     */
+    @Test
+    public void testTopK() throws SpaceExceededException {
+        final ReferenceContainer<WordReference> container = container(new Random(3), 20000);
+        final ReferenceColumns columns = new ReferenceOrder(new RankingProfile(Classification.ContentDomain.TEXT), "en").normalizeColumns(container, true);
+        assertEquals((20000 + ReferenceColumns.BLOCK_SIZE - 1) / ReferenceColumns.BLOCK_SIZE, columns.blocks());
+        for (int b = 0; b < columns.blocks(); b++) {
+            long max = Long.MIN_VALUE;
+            for (int i = b * ReferenceColumns.BLOCK_SIZE; i < Math.min(20000, (b + 1) * ReferenceColumns.BLOCK_SIZE); i++) max = Math.max(max, columns.cardinal(i));
+            assertEquals(max, columns.bound(b));
+        }
+        final int[] blocks = columns.blocksByBound();
+        for (int b = 1; b < blocks.length; b++) assertTrue(columns.bound(blocks[b - 1]) >= columns.bound(blocks[b]));
+
+        final long[] all = new long[20000];
+        for (int i = 0; i < all.length; i++) all[i] = columns.cardinal(i);
+        Arrays.sort(all);
+        final WeakPriorityBlockingQueue<WordReferenceVars> topk = new WeakPriorityBlockingQueue<WordReferenceVars>(300, false);
+        int decoded = 0;
+        blockloop: for (final int block: blocks) {
+            if (topk.sizeQueue() >= 300 && columns.bound(block) < topk.getLastInQueue().getWeight()) break blockloop;
+            for (int i = block * ReferenceColumns.BLOCK_SIZE; i < Math.min(20000, (block + 1) * ReferenceColumns.BLOCK_SIZE); i++) {
+                topk.put(new ReverseElement<WordReferenceVars>(columns.get(i), columns.cardinal(i)));
+                decoded++;
+            }
+        }
+        assertTrue(decoded < 20000);
+        assertEquals(300, topk.sizeQueue());
+        for (int k = 0; k < 300; k++) assertEquals(all[all.length - 1 - k], topk.poll().getWeight());
+    }
+
+    /**
+     * Test that the host counts of merged ranges are the sum of the host counts
+     */
+    @Test
+    public void testRangeMerge() throws SpaceExceededException {
+        final ReferenceContainer<WordReference> container = container(new Random(2), 5000);
+        final ReferenceColumns columns = new ReferenceColumns(container, true);
+        final ReferenceColumns.Range all = columns.decode(0, 5000);
+        final ReferenceColumns.Range merged = columns.decode(0, 1234).merge(columns.decode(1234, 3000)).merge(columns.decode(3000, 5000));
+        assertEquals(5000, merged.count);
+        assertTrue(java.util.Arrays.equals(all.min, merged.min));
+        assertTrue(java.util.Arrays.equals(all.max, merged.max));
+        assertTrue(java.util.Arrays.equals(all.hosts, merged.hosts));
+        assertTrue(java.util.Arrays.equals(all.hostcount, merged.hostcount));
+        int sum = 0;
+        for (final int c: merged.hostcount) sum += c;
+        assertEquals(5000, sum);
+        for (int i = 0; i < 5000; i++) assertEquals(columns.get(i).hosthash(), ReferenceColumns.unpackHost(columns.host[i]));
+    }
+}
@@ -0,0 +1,121 @@
+package net.yacy.server.http;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+
+import org.junit.Test;
+
+import net.yacy.cora.document.encoding.UTF8;
+import net.yacy.kelondro.util.FileUtils;
+import net.yacy.server.serverObjects;
+
+/**
+ * Unit tests for the {@link CompiledTemplate} class.
+ */
+public class CompiledTemplateTest {
+
+    private static final String[] TEMPLATES = new String[] {
+        "plain text without patterns",
+        "<p>#[title]# and #[missing]#</p>",
+        "<ul>#{items}#<li>#[name]#: #(on)#off::on #[name]##(/on)#</li>#{/items}#</ul>",
+        "#(mode)#zero::one #[value]#::two #{rows}##[cell]#,#{/rows}##(/mode)# end",
+        "nested #(outer)#no::#(inner)#a::b #[x]##(/inner)##(/outer)#.",
+        "a # sign, a #x and a trailing #",
+        "an unterminated #(mode)#zero::one",
+        "an unterminated #[pattern",
+        "an unterminated #{items}# multi",
+        "umlauts äöü #[title]# €"
+    };
+
+    private static serverObjects pattern() {
+        final serverObjects pattern = new serverObjects();
+        pattern.put("title", "a <b>title</b>");
+        pattern.put("items", 3);
+        for (int i = 0; i < 3; i++) {
+            pattern.put("items_" + i + "_name", "item" + i);
+            pattern.put("items_" + i + "_on", i % 2);
+        }
+        pattern.put("mode", 2);
+        pattern.put("mode_value", "v");
+        pattern.put("mode_rows", 2);
+        pattern.put("mode_rows_0_cell", "c0");
+        pattern.put("mode_rows_1_cell", "c1");
+        pattern.put("outer", 1);
+        pattern.put("outer_inner", 1);
+        pattern.put("outer_inner_x", "y");
+        return pattern;
+    }
+
+    private static String compiled(final String template, final serverObjects pattern) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        new CompiledTemplate("test", UTF8.getBytes(template), 0, 0).render("test", out, pattern);
+        return UTF8.String(out.toByteArray());
+    }
+
+    private static String streamed(final String template, final serverObjects pattern) throws IOException {
+        final ByteArrayOutputStream out = new ByteArrayOutputStream();
+        TemplateEngine.writeTemplate("test", new ByteArrayInputStream(UTF8.getBytes(template)), out, pattern);
+        return UTF8.String(out.toByteArray());
+    }
+
+    /**
+     * Test that a compiled template is rendered exactly like the stream parser writes it
+     */
+    @Test
+    public void testRenderLikeStreamParser() throws IOException {
+        final serverObjects pattern = pattern();
+        for (final String template: TEMPLATES) {
+            assertEquals(template, streamed(template, pattern), compiled(template, pattern));
+        }
+        // without any values
+        for (final String template: TEMPLATES) {
+            assertEquals(template, streamed(template, new serverObjects()), compiled(template, new serverObjects()));
+        }
+    }
+
+    /**
+     * Test that a template file is rendered the same way from the cache and with the stream parser
+     */
+    @Test
+    public void testTemplateFile() throws IOException {
+        final StringBuilder sb = new StringBuilder();
+        for (final String template: TEMPLATES) sb.append(template).append('\n');
+        final File file = File.createTempFile("compiledTemplate", ".html");
+        file.deleteOnExit();
+        FileUtils.copy(UTF8.getBytes(sb.toString()), file);
+        final serverObjects pattern = pattern();
+        try {
+            for (int i = 0; i < 2; i++) {
+                // the second call renders from the cache
+                final ByteArrayOutputStream compiled = new ByteArrayOutputStream();
+                TemplateEngine.writeTemplate("test", file, compiled, pattern);
+                assertEquals(streamed(sb.toString(), pattern), UTF8.String(compiled.toByteArray()));
+            }
+        } finally {
+            file.delete();
+        }
+    }
+
+    /**
+     * Test that include files with LF line endings or without a final line break are compiled only once
+     */
+    @Test
+    public void testIncludeCache() throws IOException {
+        for (final String text: new String[]{"line #[a]#\nline two\n", "line #[a]#\r\nline two"}) {
+            final File file = File.createTempFile("compiledInclude", ".template");
+            file.deleteOnExit();
+            try {
+                FileUtils.copy(UTF8.getBytes(text), file);
+                final CompiledTemplate include = TemplateEngine.getCompiledInclude(file);
+                assertSame(include, TemplateEngine.getCompiledInclude(file));
+            } finally {
+                file.delete();
+            }
+        }
+    }
+}